@@ -0,0 +1,116 @@
+package com.perfulandia.usuarios_service.busqueda;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Forma normalizada de los textos para la búsqueda: minúsculas, sin tildes ni diéresis ("Núñez" => "nunez")
+// y con los espacios colapsados. Es lo que se guarda en las columnas *_busqueda de usuarios y cómo se
+// normaliza la consulta, así un LIKE 'prefijo%' sobre esas columnas usa su índice y no distingue acentos.
+public final class TextoBusqueda {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    private TextoBusqueda() {
+    }
+
+    // null si el texto es null (las actualizaciones parciales lo usan para "no cambia")
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        // Minúsculas antes de descomponer: algunas mayúsculas se convierten en letra + marca
+        String descompuesto = Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return ESPACIOS.matcher(MARCAS.matcher(descompuesto).replaceAll("")).replaceAll(" ").trim();
+    }
+
+    // Palabras de la consulta ya normalizadas, sin repetidas y en orden
+    public static List<String> terminos(String consulta) {
+        List<String> terminos = new ArrayList<>();
+        String normalizada = normalizar(consulta);
+        if (normalizada != null && !normalizada.isEmpty()) {
+            for (String termino : normalizada.split(" ")) {
+                if (!terminos.contains(termino)) {
+                    terminos.add(termino);
+                }
+            }
+        }
+        return terminos;
+    }
+
+    // Palabras de un campo ya normalizado ("maria jose", "juan.perez@correo.cl" => juan, perez, correo, cl).
+    // Recorrido a mano y no con una expresión regular: se llama para cada campo de cada candidato.
+    public static List<String> palabras(String campoNormalizado) {
+        List<String> palabras = new ArrayList<>(4);
+        int inicio = -1;
+        for (int i = 0; i <= campoNormalizado.length(); i++) {
+            boolean letra = i < campoNormalizado.length() && Character.isLetterOrDigit(campoNormalizado.charAt(i));
+            if (letra && inicio < 0) {
+                inicio = i;
+            } else if (!letra && inicio >= 0) {
+                palabras.add(campoNormalizado.substring(inicio, i));
+                inicio = -1;
+            }
+        }
+        return palabras;
+    }
+
+    // Patrón para 'LIKE ... ESCAPE '!'' que encuentra los valores que empiezan con 'prefijo'.
+    // Se escapa con '!' y no con '\': en MySQL la barra también escapa dentro del literal.
+    public static String patronPrefijo(String prefijo) {
+        return escapar(new StringBuilder(prefijo.length() + 2), prefijo).append('%').toString();
+    }
+
+    // Patrón para 'LIKE ... ESCAPE '!'' que encuentra los valores que contienen 'texto' en cualquier posición
+    public static String patronContiene(String texto) {
+        return escapar(new StringBuilder(texto.length() + 3).append('%'), texto).append('%').toString();
+    }
+
+    private static StringBuilder escapar(StringBuilder patron, String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '!' || c == '%' || c == '_') {
+                patron.append('!');
+            }
+            patron.append(c);
+        }
+        return patron;
+    }
+
+    // Distancia de edición (inserción, borrado, sustitución y transposición de dos letras vecinas, que es el
+    // error de tipeo más común). Devuelve maximo + 1 apenas sabe que la distancia lo supera.
+    public static int distancia(String a, String b, int maximo) {
+        if (Math.abs(a.length() - b.length()) > maximo) {
+            return maximo + 1;
+        }
+        int[] anterior2 = new int[b.length() + 1];
+        int[] anterior = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            int minimoFila = actual[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                actual[j] = Math.min(Math.min(actual[j - 1] + 1, anterior[j] + 1), anterior[j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    actual[j] = Math.min(actual[j], anterior2[j - 2] + 1);
+                }
+                minimoFila = Math.min(minimoFila, actual[j]);
+            }
+            if (minimoFila > maximo) {
+                return maximo + 1;
+            }
+            int[] reciclado = anterior2;
+            anterior2 = anterior;
+            anterior = actual;
+            actual = reciclado;
+        }
+        return Math.min(anterior[b.length()], maximo + 1);
+    }
+}
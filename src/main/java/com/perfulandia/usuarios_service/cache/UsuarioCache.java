@@ -0,0 +1,110 @@
+package com.perfulandia.usuarios_service.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.perfulandia.usuarios_service.dto.UsuarioResponseDTO;
+import com.perfulandia.usuarios_service.model.Rut;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Cache en memoria (read-through) de UsuarioResponseDTO por RUT (ya normalizado: un formato distinto no es otra entrada).
+//
+// - Expulsión por tamaño (usuarios.cache.tamano-maximo) y por tiempo (usuarios.cache.ttl).
+// - Los "no encontrado" también se guardan (Optional vacío), pero con un TTL corto (usuarios.cache.ttl-negativo).
+// - Single-flight: si muchas peticiones fallan a la vez para el mismo RUT, la primera publica un
+//   CompletableFuture pendiente y consulta la BD; el resto espera ese mismo futuro.
+//   La consulta corre FUERA del lock del mapa (un Cache.get síncrono la ejecutaría dentro de un bloque
+//   'synchronized' de ConcurrentHashMap, fijando el hilo virtual a su carrier mientras espera a la BD).
+// - Las escrituras invalidan la entrada DESPUÉS del commit. invalidate() quita también un futuro aún
+//   pendiente, así una carga que leyó el valor anterior nunca queda en el cache: tras un commit,
+//   toda lectura posterior ve el dato nuevo.
+// - Los contadores (hits, misses, expulsiones, tamaño) se publican en Micrometer como 'cache.*{cache=usuarios}'.
+@Component
+public class UsuarioCache {
+
+    private final AsyncCache<Rut, Optional<UsuarioResponseDTO>> cache;
+
+    @Autowired
+    public UsuarioCache(@Value("${usuarios.cache.tamano-maximo:100000}") long tamanoMaximo,
+                        @Value("${usuarios.cache.ttl:10m}") Duration ttl,
+                        @Value("${usuarios.cache.ttl-negativo:5s}") Duration ttlNegativo,
+                        MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfter(new Expiry<Rut, Optional<UsuarioResponseDTO>>() {
+                    @Override
+                    public long expireAfterCreate(Rut rut, Optional<UsuarioResponseDTO> usuario, long ahora) {
+                        return (usuario.isPresent() ? ttl : ttlNegativo).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Rut rut, Optional<UsuarioResponseDTO> usuario, long ahora, long restante) {
+                        return expireAfterCreate(rut, usuario, ahora);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Rut rut, Optional<UsuarioResponseDTO> usuario, long ahora, long restante) {
+                        return restante; // Leer no extiende la vida de la entrada
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "usuarios");
+    }
+
+    // Devuelve el usuario desde el cache o lo carga con 'cargador' (una sola carga concurrente por RUT).
+    public Optional<UsuarioResponseDTO> obtener(Rut rut, Function<Rut, Optional<UsuarioResponseDTO>> cargador) {
+        CompletableFuture<Optional<UsuarioResponseDTO>> pendiente = new CompletableFuture<>();
+        // Dentro del lock solo se publica el futuro (instantáneo); así también se registran hits y misses
+        CompletableFuture<Optional<UsuarioResponseDTO>> futuro = cache.get(rut, (clave, ejecutor) -> pendiente);
+        if (futuro != pendiente) {
+            return esperar(futuro);
+        }
+        // Este hilo ganó: carga en el hilo de la petición. Si falla, Caffeine descarta el futuro fallido.
+        try {
+            pendiente.complete(cargador.apply(rut));
+        } catch (RuntimeException | Error e) { // Nunca dejar el futuro pendiente: los demás quedarían esperando
+            pendiente.completeExceptionally(e);
+            throw e;
+        }
+        return pendiente.join();
+    }
+
+    private static Optional<UsuarioResponseDTO> esperar(CompletableFuture<Optional<UsuarioResponseDTO>> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            // Se propaga el error original de la carga de otro hilo, como si la hubiese hecho este
+            throw e.getCause() instanceof RuntimeException causa ? causa : e;
+        }
+    }
+
+    // Invalida la entrada del RUT cuando la transacción actual confirme.
+    // Fuera de una transacción se invalida de inmediato.
+    public void invalidarAlConfirmar(Rut rut) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.synchronous().invalidate(rut);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.synchronous().invalidate(rut);
+            }
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package com.perfulandia.usuarios_service.cambios;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.model.TipoCambio;
+import com.perfulandia.usuarios_service.repository.CambioUsuarioRepository;
+
+// Escribe los registros de cambios_usuarios desde los servicios, dentro de la transacción de la escritura
+// (un INSERT más; nunca en una transacción aparte, que podría confirmarse sin la escritura o al revés).
+// Al confirmar, le avisa a SecuenciadorCambios para que los numere sin esperar a su próxima vuelta.
+@Component
+public class RegistroCambios {
+
+    private final CambioUsuarioRepository cambioUsuarioRepository;
+    private final SecuenciadorCambios secuenciadorCambios;
+
+    public RegistroCambios(CambioUsuarioRepository cambioUsuarioRepository, SecuenciadorCambios secuenciadorCambios) {
+        this.cambioUsuarioRepository = cambioUsuarioRepository;
+        this.secuenciadorCambios = secuenciadorCambios;
+    }
+
+    public void registrar(TipoCambio tipo, Rut rut, Long direccionId) {
+        exigirTransaccion();
+        cambioUsuarioRepository.registrar(tipo.name(), rut.numero(), direccionId, Instant.now());
+        avisarAlConfirmar();
+    }
+
+    // Un registro por usuario del lote, con una sola sentencia
+    public void registrarLote(TipoCambio tipo, Collection<Integer> ruts) {
+        exigirTransaccion();
+        if (ruts.isEmpty()) {
+            return;
+        }
+        cambioUsuarioRepository.registrarPorRuts(tipo.name(), ruts, Instant.now());
+        avisarAlConfirmar();
+    }
+
+    // Un registro por dirección del lote, con una sola sentencia
+    public void registrarLoteDirecciones(TipoCambio tipo, Collection<Long> direccionIds) {
+        exigirTransaccion();
+        if (direccionIds.isEmpty()) {
+            return;
+        }
+        cambioUsuarioRepository.registrarPorDirecciones(tipo.name(), direccionIds, Instant.now());
+        avisarAlConfirmar();
+    }
+
+    private static void exigirTransaccion() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Los cambios se registran en la transacción de la escritura");
+        }
+    }
+
+    private void avisarAlConfirmar() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                secuenciadorCambios.solicitar();
+            }
+        });
+    }
+}
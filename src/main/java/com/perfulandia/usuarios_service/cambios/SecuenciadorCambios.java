@@ -0,0 +1,274 @@
+package com.perfulandia.usuarios_service.cambios;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.perfulandia.usuarios_service.dto.FilaCambioDTO;
+import com.perfulandia.usuarios_service.model.CambioUsuario;
+import com.perfulandia.usuarios_service.model.EstadoCambios;
+import com.perfulandia.usuarios_service.repository.CambioUsuarioRepository;
+import com.perfulandia.usuarios_service.repository.EstadoCambiosRepository;
+import com.perfulandia.usuarios_service.shards.EjecutorShards;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+// Numera los registros de cambios_usuarios ya confirmados y mantiene acotada la tabla.
+//
+// Por qué la secuencia se asigna después del commit: un AUTO_INCREMENT se asigna al insertar, y las
+// transacciones no confirman en ese orden. Si la 11 confirma antes que la 10, un lector que ya leyó la 11
+// y avanzó su cursor no vería nunca la 10. Aquí, en cada vuelta y con la fila de cambios_estado bloqueada:
+//   1) se leen los registros sin secuencia: solo aparecen los ya confirmados (los de transacciones en curso no
+//      son visibles y se numeran en una vuelta posterior, con un número mayor);
+//   2) se les asigna ultima_secuencia + 1, + 2, ... y se confirma todo junto.
+// Así la secuencia crece en el orden en que los cambios se hicieron visibles y ningún número aparece por
+// detrás de otro ya leído. Los cambios de un mismo usuario conservan su orden: cada escritura bloquea la fila
+// del usuario (UPDATE) antes de insertar su registro, así que la siguiente inserta después del commit anterior.
+//
+// Corre en un hilo propio cada 'usuarios.cambios.secuenciar-cada' y, además, apenas confirma una escritura
+// (RegistroCambios llama a solicitar()). Con varias instancias cada una corre el suyo; el bloqueo las turna.
+// Con sharding cada shard tiene su tabla, su estado y su propia secuencia. Con
+// 'usuarios.cambios.secuenciador.activo=false' no corre solo: las pruebas llaman a numerar() y purgar() (así sus
+// sentencias no se mezclan con las que cuentan otras pruebas).
+//
+// Mantenimiento (cada 'usuarios.cambios.purgar-cada'):
+//   - Compactación: pasada la edad 'compactar-despues', de cada usuario queda solo su último registro. Quien
+//     lea ese tramo tarde igual termina con el estado final (el consumidor relee por RUT).
+//   - Retención: se borra lo anterior a 'retencion' y se anota la mayor secuencia borrada (purgada_hasta);
+//     un cursor anterior a ella ya no es continuo y el feed lo rechaza con 410.
+@Component
+public class SecuenciadorCambios {
+
+    private static final Logger log = LoggerFactory.getLogger(SecuenciadorCambios.class);
+
+    private final CambioUsuarioRepository cambioUsuarioRepository;
+    private final EstadoCambiosRepository estadoCambiosRepository;
+    private final EntityManager entityManager;
+    private final EjecutorShards ejecutorShards;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration secuenciarCada;
+    private final Duration purgarCada;
+    private final Duration compactarDespues;
+    private final Duration retencion;
+    private final int lote;
+    private final boolean activo;
+
+    private final ScheduledExecutorService hilo;
+    private final AtomicBoolean solicitado = new AtomicBoolean();
+    private final AtomicLongArray ultimas; // Última secuencia vista en cada shard
+    private final AtomicLong avances = new AtomicLong();
+    private final List<Runnable> alAvanzar = new CopyOnWriteArrayList<>();
+    private final Counter numerados;
+    private final Counter compactados;
+    private final Counter purgados;
+
+    public SecuenciadorCambios(CambioUsuarioRepository cambioUsuarioRepository,
+                               EstadoCambiosRepository estadoCambiosRepository,
+                               EntityManager entityManager, EjecutorShards ejecutorShards,
+                               PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                               @Value("${usuarios.cambios.secuenciar-cada:200ms}") Duration secuenciarCada,
+                               @Value("${usuarios.cambios.purgar-cada:10m}") Duration purgarCada,
+                               @Value("${usuarios.cambios.compactar-despues:1h}") Duration compactarDespues,
+                               @Value("${usuarios.cambios.retencion:7d}") Duration retencion,
+                               @Value("${usuarios.cambios.lote:1000}") int lote,
+                               @Value("${usuarios.cambios.secuenciador.activo:true}") boolean activo) {
+        this.cambioUsuarioRepository = cambioUsuarioRepository;
+        this.estadoCambiosRepository = estadoCambiosRepository;
+        this.entityManager = entityManager;
+        this.ejecutorShards = ejecutorShards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.secuenciarCada = secuenciarCada;
+        this.purgarCada = purgarCada;
+        this.compactarDespues = compactarDespues;
+        this.retencion = retencion;
+        this.lote = lote;
+        this.activo = activo;
+        this.ultimas = new AtomicLongArray(ejecutorShards.cantidad());
+        this.hilo = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "secuenciador-cambios");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.numerados = Counter.builder("usuarios.cambios.numerados")
+                .description("Registros del feed de cambios numerados después de su commit")
+                .register(meterRegistry);
+        this.compactados = Counter.builder("usuarios.cambios.compactados")
+                .description("Registros del feed de cambios borrados por haber uno posterior del mismo usuario")
+                .register(meterRegistry);
+        this.purgados = Counter.builder("usuarios.cambios.purgados")
+                .description("Registros del feed de cambios borrados por antigüedad")
+                .register(meterRegistry);
+    }
+
+    // Recién con la aplicación lista: con sharding, el esquema de los demás shards se crea al final del arranque
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!activo) {
+            return;
+        }
+        hilo.scheduleWithFixedDelay(() -> ejecutar(this::numerar, "numerar"),
+                0, secuenciarCada.toMillis(), TimeUnit.MILLISECONDS);
+        hilo.scheduleWithFixedDelay(() -> ejecutar(this::purgar, "purgar"),
+                purgarCada.toMillis(), purgarCada.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        hilo.shutdownNow();
+    }
+
+    // Pide una vuelta ya, sin esperar el intervalo. Las solicitudes que llegan antes de que empiece se juntan en una.
+    public void solicitar() {
+        if (activo && solicitado.compareAndSet(false, true)) {
+            try {
+                hilo.execute(() -> ejecutar(this::numerar, "numerar"));
+            } catch (RejectedExecutionException e) {
+                solicitado.set(false); // Aplicación deteniéndose
+            }
+        }
+    }
+
+    // Se llama (en el hilo del secuenciador) cada vez que la última secuencia de algún shard avanza,
+    // incluso si la numeró otra instancia
+    public void alAvanzar(Runnable accion) {
+        alAvanzar.add(accion);
+    }
+
+    // Cuenta las veces que la secuencia avanzó. Quien consulta el feed la lee antes: si cambió al terminar,
+    // puede haberse perdido un aviso y vuelve a consultar.
+    public long avances() {
+        return avances.get();
+    }
+
+    // Una vuelta completa en todos los shards. Público para las pruebas, que numeran sin esperar al hilo.
+    public void numerar() {
+        solicitado.set(false); // Un commit posterior a este punto pide otra vuelta
+        boolean avanzo = false;
+        for (int shard = 0; shard < ejecutorShards.cantidad(); shard++) {
+            int destino = shard;
+            Vuelta vuelta;
+            do {
+                vuelta = ejecutorShards.enShard(destino, () -> transactionTemplate.execute(status -> numerarEnShard()));
+                numerados.increment(vuelta.numerados());
+            } while (vuelta.numerados() == lote);
+            long anterior = ultimas.getAndAccumulate(destino, vuelta.ultima(), Math::max);
+            avanzo |= vuelta.ultima() > anterior;
+        }
+        if (avanzo) {
+            avances.incrementAndGet();
+            alAvanzar.forEach(Runnable::run);
+        }
+    }
+
+    private Vuelta numerarEnShard() {
+        EstadoCambios estado = bloquearEstado();
+        List<CambioUsuario> pendientes = cambioUsuarioRepository.findSinSecuencia(Limit.of(lote));
+        long secuencia = estado.getUltimaSecuencia();
+        for (CambioUsuario cambio : pendientes) {
+            cambio.setSecuencia(++secuencia); // UPDATE en lote al confirmar (hibernate.jdbc.batch_size)
+        }
+        estado.setUltimaSecuencia(secuencia);
+        return new Vuelta(pendientes.size(), secuencia);
+    }
+
+    // La fila de estado bloqueada; la primera vez se crea. Si dos instancias la crean a la vez, una falla
+    // por clave duplicada y lo reintenta en su próxima vuelta.
+    private EstadoCambios bloquearEstado() {
+        return estadoCambiosRepository.findParaActualizar(EstadoCambios.ID).orElseGet(() -> {
+            EstadoCambios estado = EstadoCambios.inicial();
+            entityManager.persist(estado);
+            entityManager.flush();
+            return estado;
+        });
+    }
+
+    // Compactación y retención en todos los shards. Público para las pruebas.
+    public void purgar() {
+        Instant ahora = Instant.now();
+        for (int shard = 0; shard < ejecutorShards.cantidad(); shard++) {
+            int destino = shard;
+            int procesados;
+            do {
+                procesados = ejecutorShards.enShard(destino, () -> transactionTemplate.execute(
+                        status -> compactarEnShard(ahora.minus(compactarDespues))));
+            } while (procesados == lote);
+            do {
+                procesados = ejecutorShards.enShard(destino, () -> transactionTemplate.execute(
+                        status -> vencerEnShard(ahora.minus(retencion))));
+            } while (procesados == lote);
+        }
+    }
+
+    // Avanza por el feed desde compactada_hasta hasta el primer registro más nuevo que 'antesDe' y borra, de los
+    // usuarios de ese tramo, los registros que tienen otro posterior. Devuelve cuántos registros recorrió.
+    private int compactarEnShard(Instant antesDe) {
+        EstadoCambios estado = bloquearEstado();
+        List<FilaCambioDTO> tramo = cambioUsuarioRepository.findDespuesDe(estado.getCompactadaHasta(), Limit.of(lote));
+        int recorridos = 0;
+        Set<Integer> ruts = new HashSet<>();
+        while (recorridos < tramo.size() && tramo.get(recorridos).creado().isBefore(antesDe)) {
+            ruts.add(tramo.get(recorridos).usuarioRut());
+            recorridos++;
+        }
+        if (recorridos == 0) {
+            return 0;
+        }
+        long hasta = tramo.get(recorridos - 1).secuencia();
+        List<Long> reemplazados = cambioUsuarioRepository.findReemplazados(ruts, hasta);
+        if (!reemplazados.isEmpty()) {
+            cambioUsuarioRepository.eliminarPorSecuencias(reemplazados);
+            compactados.increment(reemplazados.size());
+        }
+        estado.setCompactadaHasta(hasta);
+        return recorridos;
+    }
+
+    // Borra un lote de registros anteriores a 'antesDe' y anota la mayor secuencia borrada
+    private int vencerEnShard(Instant antesDe) {
+        EstadoCambios estado = bloquearEstado();
+        List<Long> vencidos = cambioUsuarioRepository.findVencidos(antesDe, Limit.of(lote));
+        if (vencidos.isEmpty()) {
+            return 0;
+        }
+        cambioUsuarioRepository.eliminarPorSecuencias(vencidos);
+        long mayor = vencidos.stream().mapToLong(Long::longValue).max().getAsLong();
+        estado.setPurgadaHasta(Math.max(estado.getPurgadaHasta(), mayor));
+        purgados.increment(vencidos.size());
+        return vencidos.size();
+    }
+
+    // Un error (BD caída, bloqueo vencido) no debe cancelar la tarea periódica: se registra y se reintenta
+    private static void ejecutar(Runnable tarea, String nombre) {
+        try {
+            tarea.run();
+        } catch (RuntimeException e) {
+            log.warn("No se pudo {} el feed de cambios: {}", nombre, e.getMessage());
+        }
+    }
+
+    private record Vuelta(int numerados, long ultima) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.perfulandia.usuarios_service.compresion;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+// Hace efectivo server.compression.min-response-size para las respuestas de Spring MVC.
+//
+// Tomcat solo respeta el umbral si conoce el largo de la respuesta al confirmarla; si no, comprime siempre.
+// Los convertidores de Jackson no declaran Content-Length y hacen flush al terminar de escribir, lo que confirma
+// la respuesta sin largo: una respuesta de 200 bytes salía en gzip (más CPU y a veces más bytes).
+// Aquí se ignoran los flush mientras la respuesta lleve menos de 'umbral' bytes: si termina bajo el umbral,
+// Tomcat la cierra desde su buffer con Content-Length y decide bien; si lo supera, los flush pasan tal cual
+// (la exportación NDJSON sigue saliendo por partes).
+//
+// No es un @Component: lo registra FormatosConfig solo para /api/*, y solo con la compresión activa.
+public class FiltroUmbralCompresion extends OncePerRequestFilter {
+
+    private final long umbral;
+
+    public FiltroUmbralCompresion(long umbral) {
+        this.umbral = umbral;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        filterChain.doFilter(request, new RespuestaConUmbral(response, umbral));
+    }
+
+    private static final class RespuestaConUmbral extends HttpServletResponseWrapper {
+        private final long umbral;
+        private SalidaConUmbral salida;
+
+        private RespuestaConUmbral(HttpServletResponse response, long umbral) {
+            super(response);
+            this.umbral = umbral;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (salida == null) {
+                salida = new SalidaConUmbral(super.getOutputStream(), umbral);
+            }
+            return salida;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (salida == null || salida.superoUmbral()) {
+                super.flushBuffer();
+            }
+        }
+    }
+
+    private static final class SalidaConUmbral extends ServletOutputStream {
+        private final ServletOutputStream destino;
+        private final long umbral;
+        private long escritos;
+
+        private SalidaConUmbral(ServletOutputStream destino, long umbral) {
+            this.destino = destino;
+            this.umbral = umbral;
+        }
+
+        boolean superoUmbral() {
+            return escritos >= umbral;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            destino.write(b);
+            escritos++;
+        }
+
+        @Override
+        public void write(byte[] b, int desde, int largo) throws IOException {
+            destino.write(b, desde, largo);
+            escritos += largo;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (superoUmbral()) {
+                destino.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            destino.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return destino.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            destino.setWriteListener(listener);
+        }
+    }
+}
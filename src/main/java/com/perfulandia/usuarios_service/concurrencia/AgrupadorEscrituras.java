@@ -0,0 +1,259 @@
+package com.perfulandia.usuarios_service.concurrencia;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.perfulandia.usuarios_service.exception.ServicioSaturadoException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+// Agrupa escrituras concurrentes del mismo tipo en lotes (group commit): cada llamada deja su solicitud en una
+// cola acotada y espera; un hilo propio junta lo que llegue durante una ventana corta y escribe el lote completo
+// de una vez (una transacción, un commit), y cada llamada recibe su propio resultado o su propio error.
+//
+// Cotas de la latencia agregada:
+//   - la ventana se abre con la primera solicitud del lote y dura como máximo 'ventana', o menos si se juntan
+//     'loteMaximo' solicitudes antes;
+//   - mientras un lote se escribe, el siguiente se va juntando en la cola, acotada a 'capacidadCola':
+//     si está llena la llamada se rechaza al instante (ServicioSaturadoException => 503 + Retry-After);
+//   - una llamada espera como máximo 'esperaMaxima' a que su lote empiece. Si vence y su solicitud sigue en
+//     la cola, se retira (no se escribe) y se responde 503; si ya estaba en un lote, espera ese resultado otro
+//     'esperaMaxima' como mucho. Si tampoco llega (BD colgada), 503: la escritura pudo o no quedar hecha, pero
+//     la petición no se queda esperando sin límite.
+// Si un lote no se puede escribir entero (ej. una fila viola una restricción), la escritura marca sus solicitudes
+// con reintentarSola() y cada llamada repite la suya con 'escrituraIndividual' en su propio hilo: el error queda
+// en la que corresponde y los reintentos no ocupan el hilo del agrupador, que sigue juntando el lote siguiente.
+// Métricas, etiquetadas con el nombre del agrupador: usuarios.agrupador.espera (encolado -> inicio del lote,
+// la latencia que agrega el agrupamiento: a lo más 'ventana' más lo que tarde el lote anterior),
+// usuarios.agrupador.escritura (duración de cada lote), usuarios.agrupador.lote (solicitudes por lote),
+// usuarios.agrupador.cola y usuarios.agrupador.rechazos.
+//
+// No es un @Component: lo crea el servicio que lo usa, con su propia forma de escribir el lote.
+public class AgrupadorEscrituras<T, R> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AgrupadorEscrituras.class);
+
+    // Escribe un lote: debe completar, fallar o marcar para reintento cada solicitud. Las que deje pendientes
+    // fallan con IllegalStateException, y si lanza una excepción, todas las pendientes fallan con ella.
+    @FunctionalInterface
+    public interface EscrituraEnLote<T, R> {
+        void escribir(List<Solicitud<T, R>> lote);
+    }
+
+    public static final class Solicitud<T, R> {
+        private final T valor;
+        private final CompletableFuture<R> resultado = new CompletableFuture<>();
+        private final long encolada = System.nanoTime();
+
+        private Solicitud(T valor) {
+            this.valor = valor;
+        }
+
+        public T valor() {
+            return valor;
+        }
+
+        public void completar(R valor) {
+            resultado.complete(valor);
+        }
+
+        public void fallar(RuntimeException error) {
+            resultado.completeExceptionally(error);
+        }
+
+        // La llamada repite esta escritura sola, en su propio hilo (escrituraIndividual)
+        public void reintentarSola() {
+            resultado.completeExceptionally(REINTENTO_INDIVIDUAL);
+        }
+
+        public boolean pendiente() {
+            return !resultado.isDone();
+        }
+    }
+
+    // Marca, no un error: sin traza ni mensaje para el cliente
+    private static final RuntimeException REINTENTO_INDIVIDUAL = new RuntimeException("reintento individual", null, false, false) {
+    };
+
+    private final BlockingQueue<Solicitud<T, R>> cola;
+    private final EscrituraEnLote<T, R> escritura;
+    private final Function<T, R> escrituraIndividual;
+    private final long ventanaNanos;
+    private final int loteMaximo;
+    private final Duration esperaMaxima;
+    private final Duration reintentarEn;
+    private final Thread hilo;
+    private volatile boolean activo = true;
+
+    private final Timer espera;
+    private final Timer duracionLote;
+    private final DistributionSummary tamanoLote;
+    private final Counter rechazos;
+
+    public AgrupadorEscrituras(String nombre, Duration ventana, int loteMaximo, int capacidadCola,
+                               Duration esperaMaxima, Duration reintentarEn,
+                               EscrituraEnLote<T, R> escritura, Function<T, R> escrituraIndividual,
+                               MeterRegistry meterRegistry) {
+        if (loteMaximo < 1 || capacidadCola < 1 || ventana.isNegative()) {
+            throw new IllegalArgumentException("Configuración inválida del agrupador '" + nombre + "'");
+        }
+        this.cola = new ArrayBlockingQueue<>(capacidadCola);
+        this.escritura = escritura;
+        this.escrituraIndividual = escrituraIndividual;
+        this.ventanaNanos = ventana.toNanos();
+        this.loteMaximo = loteMaximo;
+        this.esperaMaxima = esperaMaxima;
+        this.reintentarEn = reintentarEn;
+
+        this.espera = Timer.builder("usuarios.agrupador.espera")
+                .description("Tiempo desde que una escritura se encola hasta que empieza su lote")
+                .tag("nombre", nombre)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.duracionLote = Timer.builder("usuarios.agrupador.escritura")
+                .description("Duración de la escritura de cada lote")
+                .tag("nombre", nombre)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.tamanoLote = DistributionSummary.builder("usuarios.agrupador.lote")
+                .description("Escrituras por lote")
+                .tag("nombre", nombre)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rechazos = Counter.builder("usuarios.agrupador.rechazos")
+                .description("Escrituras rechazadas por cola llena o espera vencida")
+                .tag("nombre", nombre)
+                .register(meterRegistry);
+        meterRegistry.gauge("usuarios.agrupador.cola", Tags.of("nombre", nombre), cola, BlockingQueue::size);
+
+        this.hilo = new Thread(this::ciclo, "agrupador-" + nombre);
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    // Encola 'valor' y espera el resultado de su lote. Los errores del lote se relanzan tal cual (RuntimeException).
+    // Si el lote pide reintentar sola esta solicitud, la escribe aquí mismo con 'escrituraIndividual'.
+    public R enviar(T valor) {
+        Solicitud<T, R> solicitud = new Solicitud<>(valor);
+        if (!activo || !cola.offer(solicitud)) {
+            rechazos.increment();
+            throw new ServicioSaturadoException("Demasiadas escrituras en espera, reintente más tarde.", reintentarEn);
+        }
+        try {
+            try {
+                return solicitud.resultado.get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (cola.remove(solicitud)) {
+                    rechazos.increment();
+                    throw new ServicioSaturadoException("La escritura no alcanzó a procesarse, reintente más tarde.", reintentarEn);
+                }
+                return esperarLoteEnCurso(solicitud);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cola.remove(solicitud);
+            throw new IllegalStateException("Interrumpido mientras se esperaba la escritura", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() == REINTENTO_INDIVIDUAL) {
+                return escrituraIndividual.apply(valor);
+            }
+            if (e.getCause() instanceof RuntimeException error) {
+                throw error;
+            }
+            throw new IllegalStateException("Error escribiendo el lote", e.getCause());
+        }
+    }
+
+    private R esperarLoteEnCurso(Solicitud<T, R> solicitud) throws InterruptedException, ExecutionException {
+        try {
+            return solicitud.resultado.get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            rechazos.increment();
+            log.warn("Un lote de escrituras lleva más de {} en curso", esperaMaxima);
+            throw new ServicioSaturadoException("La escritura sigue en curso y no se pudo confirmar; verifique antes de reintentar.",
+                    reintentarEn);
+        }
+    }
+
+    private void ciclo() {
+        List<Solicitud<T, R>> lote = new ArrayList<>(loteMaximo);
+        while (activo || !cola.isEmpty()) {
+            try {
+                Solicitud<T, R> primera = cola.poll(100, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                lote.add(primera);
+                long cierre = primera.encolada + ventanaNanos; // La ventana corre desde que llegó la primera
+                cola.drainTo(lote, loteMaximo - lote.size()); // Lo que ya esperaba (llegó durante el lote anterior)
+                while (lote.size() < loteMaximo) {
+                    long resta = cierre - System.nanoTime();
+                    Solicitud<T, R> siguiente = (resta > 0) ? cola.poll(resta, TimeUnit.NANOSECONDS) : null;
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                    cola.drainTo(lote, loteMaximo - lote.size());
+                }
+                escribir(lote);
+            } catch (InterruptedException e) {
+                activo = false;
+                Thread.currentThread().interrupt();
+            } finally {
+                lote.clear();
+            }
+        }
+        fallarPendientes(new ServicioSaturadoException("La aplicación se está deteniendo.", reintentarEn));
+    }
+
+    private void escribir(List<Solicitud<T, R>> lote) {
+        long inicio = System.nanoTime();
+        for (Solicitud<T, R> solicitud : lote) {
+            espera.record(inicio - solicitud.encolada, TimeUnit.NANOSECONDS);
+        }
+        tamanoLote.record(lote.size());
+        try {
+            escritura.escribir(lote);
+        } catch (RuntimeException e) {
+            log.warn("Falló un lote de {} escrituras: {}", lote.size(), e.getMessage());
+            lote.forEach(solicitud -> solicitud.fallar(e));
+        }
+        duracionLote.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        lote.stream().filter(Solicitud::pendiente)
+                .forEach(solicitud -> solicitud.fallar(new IllegalStateException("La escritura del lote no respondió esta solicitud")));
+    }
+
+    private void fallarPendientes(RuntimeException error) {
+        Solicitud<T, R> solicitud;
+        while ((solicitud = cola.poll()) != null) {
+            solicitud.fallar(error);
+        }
+    }
+
+    // Deja de aceptar solicitudes, escribe las que ya estaban en la cola y espera al hilo
+    @Override
+    public void close() {
+        activo = false;
+        try {
+            hilo.join(esperaMaxima.toMillis() + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        fallarPendientes(new ServicioSaturadoException("La aplicación se está deteniendo.", reintentarEn));
+    }
+}
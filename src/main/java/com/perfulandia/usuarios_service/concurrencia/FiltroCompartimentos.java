@@ -0,0 +1,192 @@
+package com.perfulandia.usuarios_service.concurrencia;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Compartimentos estancos (bulkheads) por clase de endpoint: lecturas puntuales, lecturas masivas, exportaciones,
+// escrituras y operaciones con contraseña tienen cada una su propio límite de concurrencia adaptativo
+// (LimiteAdaptativo; con minimo = maximo queda fijo). Así una clase saturada (p. ej. listados grandes) agota solo
+// su cupo y se rechaza ella, sin quitarles conexiones ni CPU a las lecturas puntuales.
+//
+// Sin cupo no se espera: 503 + Retry-After al instante, antes de tocar la BD o Spring Security. Las rutas que
+// no calzan con ninguna regla pasan sin límite (p. ej. el long polling de /api/v1/cambios, que ya tiene el suyo).
+// Cada regla es 'METODO patrón' (sintaxis de @RequestMapping); si calzan varias gana la más específica.
+//
+// Métricas por compartimento: usuarios.compartimentos.limite, usuarios.compartimentos.en.curso,
+// usuarios.compartimentos.latencia y usuarios.compartimentos.rechazos.
+//
+// No es un @Component: lo registra CompartimentosConfig solo para /api/*, y solo si está activo.
+public class FiltroCompartimentos extends OncePerRequestFilter {
+
+    private record Regla(String metodo, PathPattern patron, Compartimento compartimento) {
+    }
+
+    private record Compartimento(LimiteAdaptativo limite, Timer latencia, Counter rechazos) {
+    }
+
+    private final List<Regla> reglas;
+    private final Duration reintentarEn;
+
+    // 'rutas': 'METODO patrón' => nombre del compartimento; 'limites': nombre del compartimento => su límite
+    public FiltroCompartimentos(Map<String, String> rutas, Map<String, LimiteAdaptativo> limites, Duration reintentarEn,
+                                MeterRegistry meterRegistry) {
+        this.reintentarEn = reintentarEn;
+        Map<String, Compartimento> compartimentos = new HashMap<>();
+        limites.forEach((nombre, limite) -> compartimentos.put(nombre, registrar(nombre, limite, meterRegistry)));
+
+        List<Regla> leidas = new ArrayList<>();
+        rutas.forEach((endpoint, nombre) -> {
+            String[] partes = endpoint.trim().split("\\s+");
+            Compartimento compartimento = compartimentos.get(nombre);
+            if (partes.length != 2 || compartimento == null) {
+                throw new IllegalStateException("Regla de compartimento inválida: '" + endpoint + "=" + nombre + "'");
+            }
+            leidas.add(new Regla(partes[0], PathPatternParser.defaultInstance.parse(partes[1]), compartimento));
+        });
+        leidas.sort(Comparator.comparing(Regla::patron, PathPattern.SPECIFICITY_COMPARATOR));
+        this.reglas = List.copyOf(leidas);
+    }
+
+    private static Compartimento registrar(String nombre, LimiteAdaptativo limite, MeterRegistry meterRegistry) {
+        Gauge.builder("usuarios.compartimentos.limite", limite, LimiteAdaptativo::getLimite)
+                .description("Límite de concurrencia actual del compartimento")
+                .tag("compartimento", nombre)
+                .register(meterRegistry);
+        Gauge.builder("usuarios.compartimentos.en.curso", limite, LimiteAdaptativo::getEnCurso)
+                .description("Peticiones del compartimento en proceso")
+                .tag("compartimento", nombre)
+                .register(meterRegistry);
+        Timer latencia = Timer.builder("usuarios.compartimentos.latencia")
+                .description("Latencia de las peticiones admitidas en el compartimento")
+                .tag("compartimento", nombre)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Counter rechazos = Counter.builder("usuarios.compartimentos.rechazos")
+                .description("Peticiones rechazadas por superar el límite del compartimento")
+                .tag("compartimento", nombre)
+                .register(meterRegistry);
+        return new Compartimento(limite, latencia, rechazos);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Compartimento compartimento = compartimentoDe(request);
+        if (compartimento == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!compartimento.limite().adquirir()) {
+            compartimento.rechazos().increment();
+            // Sin sendError: el despacho a /error (y su cuerpo JSON) costaría casi tanto como atender la petición
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, reintentarEn.toSeconds())));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("Servicio saturado, reintente más tarde.");
+            return;
+        }
+        long inicio = System.nanoTime();
+        boolean liberarAlSalir = true;
+        boolean error = true;
+        try {
+            filterChain.doFilter(request, response);
+            error = false;
+            if (request.isAsyncStarted()) {
+                // Exportación NDJSON: la latencia que importa es la de la respuesta completa
+                request.getAsyncContext().addListener(new LiberarAlTerminar(compartimento, inicio, response));
+                liberarAlSalir = false;
+            }
+        } finally {
+            if (liberarAlSalir) {
+                liberar(compartimento, inicio, error || sobrecarga(response));
+            }
+        }
+    }
+
+    private Compartimento compartimentoDe(HttpServletRequest request) {
+        PathContainer ruta = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (Regla regla : reglas) {
+            if (regla.metodo().equalsIgnoreCase(request.getMethod()) && regla.patron().matches(ruta)) {
+                return regla.compartimento();
+            }
+        }
+        return null;
+    }
+
+    // Un 503 de más abajo (pool de hashing lleno, límite global) también es señal de que hay que bajar el límite
+    private static boolean sobrecarga(HttpServletResponse response) {
+        return response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value();
+    }
+
+    private static void liberar(Compartimento compartimento, long inicio, boolean sobrecarga) {
+        compartimento.latencia().record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        compartimento.limite().liberar(inicio, sobrecarga);
+    }
+
+    private static final class LiberarAlTerminar implements AsyncListener {
+        private final Compartimento compartimento;
+        private final long inicio;
+        private final HttpServletResponse response;
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        private LiberarAlTerminar(Compartimento compartimento, long inicio, HttpServletResponse response) {
+            this.compartimento = compartimento;
+            this.inicio = inicio;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            liberar(sobrecarga(response));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            liberar(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            liberar(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void liberar(boolean sobrecarga) {
+            if (liberado.compareAndSet(false, true)) {
+                FiltroCompartimentos.liberar(compartimento, inicio, sobrecarga);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.perfulandia.usuarios_service.concurrencia;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Limita cuántas peticiones de la API se procesan a la vez, en proporción al pool de conexiones.
+//
+// Con hilos de plataforma el límite natural era el pool de Tomcat (200 hilos). Con hilos virtuales
+// ese límite desaparece: miles de peticiones entrarían a la vez y se amontonarían esperando una de las
+// pocas conexiones de Hikari hasta vencer su connection-timeout (30 s). Aquí la espera es corta y acotada
+// (usuarios.concurrencia.espera-maxima) y, si no hay cupo, se responde 503 + Retry-After al instante.
+// El semáforo es "justo" (FIFO) y no usa 'synchronized', así no fija hilos virtuales a su carrier.
+//
+// No es un @Component: lo registra ConcurrenciaConfig solo para /api/*, y solo si está activo.
+// Las rutas de 'excluidas' no pasan por aquí: el long polling del feed de cambios retiene la respuesta hasta
+// 30 s sin usar la BD, y con un permiso tomado todo ese tiempo unas pocas esperas dejarían sin cupo al resto.
+// Esas esperas ya tienen su propio tope (usuarios.cambios.esperas-maximas).
+public class LimitadorConcurrenciaBD extends OncePerRequestFilter {
+
+    private final Semaphore permisos;
+    private final int maximo;
+    private final Duration esperaMaxima;
+    private final Duration reintentarEn;
+    private final List<String> excluidas;
+    private final Counter rechazos;
+
+    public LimitadorConcurrenciaBD(int maximo, Duration esperaMaxima, Duration reintentarEn, List<String> excluidas,
+                                   MeterRegistry meterRegistry) {
+        this.permisos = new Semaphore(maximo, true);
+        this.maximo = maximo;
+        this.esperaMaxima = esperaMaxima;
+        this.reintentarEn = reintentarEn;
+        this.excluidas = List.copyOf(excluidas);
+        this.rechazos = Counter.builder("usuarios.concurrencia.rechazos")
+                .description("Peticiones rechazadas por superar el límite de concurrencia hacia la BD")
+                .register(meterRegistry);
+        Gauge.builder("usuarios.concurrencia.en.curso", permisos, p -> maximo - p.availablePermits())
+                .description("Peticiones de la API en proceso")
+                .register(meterRegistry);
+    }
+
+    public int getMaximo() {
+        return maximo;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        return excluidas.stream().anyMatch(ruta::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean adquirido;
+        try {
+            adquirido = permisos.tryAcquire(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            adquirido = false;
+        }
+        if (!adquirido) {
+            rechazos.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, reintentarEn.toSeconds())));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Servicio saturado, reintente más tarde.");
+            return;
+        }
+        boolean liberarAlSalir = true;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Exportación NDJSON: la respuesta (y su cursor en la BD) sigue en otro hilo;
+                // el permiso se devuelve cuando termine de verdad.
+                request.getAsyncContext().addListener(new LiberarAlTerminar());
+                liberarAlSalir = false;
+            }
+        } finally {
+            if (liberarAlSalir) {
+                permisos.release();
+            }
+        }
+    }
+
+    private final class LiberarAlTerminar implements AsyncListener {
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void liberar() {
+            if (liberado.compareAndSet(false, true)) {
+                permisos.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.perfulandia.usuarios_service.concurrencia;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+// Límite de concurrencia adaptativo AIMD (aumento aditivo, disminución multiplicativa) de un compartimento.
+//
+// La admisión no espera: si ya hay 'limite' peticiones en curso, adquirir() devuelve false y el que llama
+// rechaza al instante. Al terminar cada petición se ajusta el límite con su latencia observada:
+//   - más lenta que 'latenciaObjetivo', o sobrecarga aguas abajo (503): limite * factorReduccion;
+//   - dentro del objetivo y con el compartimento ocupado (en curso >= la mitad del límite): limite + 1.
+// El aumento solo ocurre cuando el límite de verdad se está usando: un compartimento ocioso no acumula
+// un límite alto que después deje pasar una ráfaga entera. Siempre queda entre 'minimo' y 'maximo'.
+// Como en TCP, se reduce a lo más una vez por "ronda": solo cuentan las peticiones admitidas después de la
+// última reducción. Si no, las N peticiones lentas que ya estaban en curso bajarían el límite N veces seguidas.
+// Sin 'synchronized' (CAS): no fija hilos virtuales a su carrier.
+public class LimiteAdaptativo {
+
+    private final int minimo;
+    private final int maximo;
+    private final long latenciaObjetivoNanos;
+    private final double factorReduccion;
+
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final AtomicLong limite; // Bits de un double: el aumento de 1 en 1 no se pierde por redondeo
+    private final AtomicLong ultimaReduccion = new AtomicLong(System.nanoTime() - TimeUnit.DAYS.toNanos(1));
+
+    public LimiteAdaptativo(int minimo, int maximo, int inicial, Duration latenciaObjetivo, double factorReduccion) {
+        if (minimo < 1 || maximo < minimo || factorReduccion <= 0 || factorReduccion >= 1) {
+            throw new IllegalArgumentException("Límite adaptativo inválido: minimo=" + minimo + " maximo=" + maximo
+                    + " factor=" + factorReduccion);
+        }
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.latenciaObjetivoNanos = latenciaObjetivo.toNanos();
+        this.factorReduccion = factorReduccion;
+        this.limite = new AtomicLong(Double.doubleToLongBits(Math.max(minimo, Math.min(maximo, inicial))));
+    }
+
+    // Toma un cupo si hay; nunca bloquea
+    public boolean adquirir() {
+        int limiteActual = getLimite();
+        while (true) {
+            int actual = enCurso.get();
+            if (actual >= limiteActual) {
+                return false;
+            }
+            if (enCurso.compareAndSet(actual, actual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Devuelve el cupo y ajusta el límite con lo observado en esa petición ('inicioNanos' de System.nanoTime())
+    public void liberar(long inicioNanos, boolean sobrecarga) {
+        long fin = System.nanoTime();
+        int ocupados = enCurso.getAndDecrement();
+        if (sobrecarga || fin - inicioNanos > latenciaObjetivoNanos) {
+            long ultima = ultimaReduccion.get();
+            if (inicioNanos - ultima >= 0 && ultimaReduccion.compareAndSet(ultima, fin)) {
+                ajustar(actual -> Math.max(minimo, actual * factorReduccion));
+            }
+        } else if (ocupados * 2 >= getLimite()) {
+            ajustar(actual -> Math.min(maximo, actual + 1));
+        }
+    }
+
+    public int getLimite() {
+        return (int) Double.longBitsToDouble(limite.get());
+    }
+
+    public int getEnCurso() {
+        return enCurso.get();
+    }
+
+    private void ajustar(DoubleUnaryOperator cambio) {
+        limite.updateAndGet(bits -> Double.doubleToLongBits(cambio.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+}
@@ -0,0 +1,74 @@
+package com.perfulandia.usuarios_service.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import com.perfulandia.usuarios_service.concurrencia.FiltroCompartimentos;
+import com.perfulandia.usuarios_service.concurrencia.LimiteAdaptativo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Compartimentos por clase de endpoint con límite de concurrencia adaptativo (usuarios.compartimentos.*).
+@Configuration
+@ConditionalOnProperty(name = "usuarios.compartimentos.activo", havingValue = "true")
+public class CompartimentosConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(CompartimentosConfig.class);
+
+    @Bean
+    public FilterRegistrationBean<FiltroCompartimentos> filtroCompartimentos(
+            Environment entorno,
+            MeterRegistry meterRegistry,
+            @Value("${usuarios.compartimentos.nombres:lectura-puntual,lectura-masiva,exportacion,escritura,contrasena}") List<String> nombres,
+            @Value("${usuarios.compartimentos.rutas:}") String rutas,
+            @Value("${usuarios.compartimentos.factor-reduccion:0.9}") double factorReduccion,
+            @Value("${usuarios.compartimentos.reintentar-en:1s}") Duration reintentarEn) {
+        Map<String, LimiteAdaptativo> limites = new LinkedHashMap<>();
+        for (String nombre : nombres) {
+            String prefijo = "usuarios.compartimentos." + nombre + ".";
+            int minimo = entorno.getProperty(prefijo + "minimo", Integer.class, 1);
+            int maximo = entorno.getProperty(prefijo + "maximo", Integer.class, 50);
+            int inicial = entorno.getProperty(prefijo + "inicial", Integer.class, 10);
+            Duration objetivo = entorno.getProperty(prefijo + "latencia-objetivo", Duration.class, Duration.ofMillis(500));
+            limites.put(nombre, new LimiteAdaptativo(minimo, maximo, inicial, objetivo, factorReduccion));
+            log.info("Compartimento '{}': límite inicial {} (entre {} y {}), latencia objetivo {} ms",
+                    nombre, inicial, minimo, maximo, objetivo.toMillis());
+        }
+
+        FilterRegistrationBean<FiltroCompartimentos> registro = new FilterRegistrationBean<>(
+                new FiltroCompartimentos(leerRutas(rutas), limites, reintentarEn, meterRegistry));
+        registro.addUrlPatterns("/api/*");
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 5); // Antes del límite global: lo rechazado no le quita cupo a nadie
+        return registro;
+    }
+
+    // Formato: 'METODO patrón=compartimento' separados por ';' (como usuarios.sql.presupuestos)
+    private static Map<String, String> leerRutas(String definicion) {
+        Map<String, String> rutas = new HashMap<>();
+        for (String entrada : definicion.split(";")) {
+            if (entrada.isBlank()) {
+                continue;
+            }
+            int igual = entrada.lastIndexOf('=');
+            if (igual < 0) {
+                throw new IllegalStateException("Ruta de compartimento inválida, se espera 'METODO patrón=compartimento': " + entrada);
+            }
+            String endpoint = entrada.substring(0, igual).trim().replaceAll("\\s+", " ");
+            rutas.put(endpoint, entrada.substring(igual + 1).trim());
+        }
+        return rutas;
+    }
+}
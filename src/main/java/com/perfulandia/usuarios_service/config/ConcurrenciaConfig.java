@@ -0,0 +1,62 @@
+package com.perfulandia.usuarios_service.config;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.perfulandia.usuarios_service.concurrencia.LimitadorConcurrenciaBD;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Límite de concurrencia hacia la BD. Se activa por defecto junto con los hilos virtuales
+// (spring.threads.virtual.enabled), que es cuando deja de existir el tope del pool de Tomcat.
+@Configuration
+@ConditionalOnProperty(name = "usuarios.concurrencia.activo", havingValue = "true")
+public class ConcurrenciaConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrenciaConfig.class);
+
+    @Bean
+    public FilterRegistrationBean<LimitadorConcurrenciaBD> limitadorConcurrenciaBD(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${usuarios.concurrencia.peticiones-por-conexion:2}") int peticionesPorConexion,
+            @Value("${usuarios.concurrencia.maximo:0}") int maximoFijo,
+            @Value("${usuarios.concurrencia.espera-maxima:2s}") Duration esperaMaxima,
+            @Value("${usuarios.concurrencia.reintentar-en:1s}") Duration reintentarEn,
+            @Value("${usuarios.concurrencia.excluir:/api/v1/cambios}") List<String> excluidas) {
+        // 0 = automático: proporcional al tamaño máximo del pool de Hikari. Una petición no retiene la
+        // conexión todo el tiempo (serialización, BCrypt fuera de la transacción), por eso el factor > 1.
+        int maximo = maximoFijo > 0 ? maximoFijo : tamanoPool(dataSource) * peticionesPorConexion;
+        log.info("Límite de concurrencia de la API: {} peticiones simultáneas", maximo);
+
+        FilterRegistrationBean<LimitadorConcurrenciaBD> registro = new FilterRegistrationBean<>(
+                new LimitadorConcurrenciaBD(maximo, esperaMaxima, reintentarEn, excluidas, meterRegistry));
+        registro.addUrlPatterns("/api/*");
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 10); // Antes de Spring Security: rechazar es lo más barato
+        return registro;
+    }
+
+    private static int tamanoPool(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("No se pudo leer el tamaño del pool de conexiones: {}", e.getMessage());
+        }
+        return 10; // Valor por defecto de Hikari
+    }
+}
@@ -0,0 +1,53 @@
+package com.perfulandia.usuarios_service.config;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.perfulandia.usuarios_service.shards.DataSourceShards;
+
+// Cómo aplica Flyway las migraciones de db/versiones al arrancar (perfil 'prod'; fuera de él Flyway está apagado).
+//   - Con sharding el DataSource principal es el shard 0: se migra cada shard, en orden, y cada uno lleva su propio
+//     historial (flyway_schema_history).
+//   - Con usuarios.esquema.migrar-al-arrancar=false no se migra nada: el esquema lo aplica un paso de despliegue
+//     aparte y las instancias solo lo validan. Se lee al arrancar, así que también vale con AOT (donde la condición
+//     spring.flyway.enabled quedó fija al compilar), p. ej. en el arranque de entrenamiento CDS, que no tiene base.
+@Configuration
+public class EsquemaConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(EsquemaConfig.class);
+
+    @Bean
+    public FlywayMigrationStrategy estrategiaMigracion(ObjectProvider<DataSourceShards> dataSourceShards,
+                                                       @Value("${usuarios.esquema.migrar-al-arrancar:true}") boolean migrar) {
+        return flyway -> {
+            if (!migrar) {
+                log.info("Migraciones de esquema omitidas (usuarios.esquema.migrar-al-arrancar=false)");
+                return;
+            }
+            DataSourceShards shards = dataSourceShards.getIfAvailable();
+            if (shards == null) {
+                flyway.migrate();
+                return;
+            }
+            List<? extends DataSource> pools = shards.getPools();
+            for (int shard = 0; shard < pools.size(); shard++) {
+                int aplicadas = Flyway.configure(flyway.getConfiguration().getClassLoader())
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(pools.get(shard))
+                        .load()
+                        .migrate().migrationsExecuted;
+                log.info("Shard {}: {} migraciones aplicadas", shard, aplicadas);
+            }
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.perfulandia.usuarios_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.perfulandia.usuarios_service.compresion.FiltroUmbralCompresion;
+
+// Formatos binarios de respuesta (y de cuerpo) para los clientes internos, elegidos por la cabecera Accept:
+//   application/json (por defecto), application/cbor y application/x-jackson-smile.
+// Spring MVC ya agrega estos convertidores si las librerías están, pero con un ObjectMapper propio; aquí se
+// reemplazan (Boot cambia el de la misma clase en su lugar) por uno armado con el Jackson2ObjectMapperBuilder de
+// Boot, así CBOR y Smile respetan spring.jackson.* igual que JSON. El builder es de alcance prototype: cada
+// método recibe el suyo.
+// La compresión gzip de las respuestas grandes la hace Tomcat (server.compression.*); FiltroUmbralCompresion
+// hace que respete el umbral de tamaño con las respuestas de Spring MVC.
+@Configuration
+public class FormatosConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter convertidorCbor(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter convertidorSmile(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "server.compression.enabled", havingValue = "true")
+    public FilterRegistrationBean<FiltroUmbralCompresion> filtroUmbralCompresion(
+            @Value("${server.compression.min-response-size:2KB}") DataSize umbral) {
+        FilterRegistrationBean<FiltroUmbralCompresion> registro = new FilterRegistrationBean<>(
+                new FiltroUmbralCompresion(umbral.toBytes()));
+        registro.addUrlPatterns("/api/*");
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 40);
+        return registro;
+    }
+}
@@ -0,0 +1,64 @@
+package com.perfulandia.usuarios_service.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.perfulandia.usuarios_service.metricas.EscuchaSqlHibernate;
+import com.perfulandia.usuarios_service.metricas.FiltroMetricasSql;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class MetricasConfig {
+
+    // Hace efectivo @Timed en los servicios
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    // Cada sesión de Hibernate lleva un EscuchaSqlHibernate que alimenta el ContadorSql de la petición
+    @Bean
+    public HibernatePropertiesCustomizer escuchaSqlHibernate() {
+        return propiedades -> propiedades.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, EscuchaSqlHibernate.class.getName());
+    }
+
+    @Bean
+    public FilterRegistrationBean<FiltroMetricasSql> filtroMetricasSql(
+            MeterRegistry meterRegistry,
+            @Value("${usuarios.sql.cabeceras:true}") boolean cabeceras,
+            @Value("${usuarios.sql.presupuestos:}") String presupuestos,
+            @Value("${usuarios.sql.presupuesto-por-defecto:10}") int presupuestoPorDefecto) {
+        FilterRegistrationBean<FiltroMetricasSql> registro = new FilterRegistrationBean<>(
+                new FiltroMetricasSql(meterRegistry, cabeceras, leerPresupuestos(presupuestos), presupuestoPorDefecto));
+        registro.addUrlPatterns("/api/*");
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 20); // Después del limitador de concurrencia
+        return registro;
+    }
+
+    // Formato: 'METODO patrón=máximo' separados por ';' (p. ej. "GET /api/v1/usuarios/{rut}=1;PUT /api/v1/usuarios/{rut}=2")
+    private static Map<String, Integer> leerPresupuestos(String definicion) {
+        Map<String, Integer> presupuestos = new HashMap<>();
+        for (String entrada : definicion.split(";")) {
+            if (entrada.isBlank()) {
+                continue;
+            }
+            int igual = entrada.lastIndexOf('=');
+            if (igual < 0) {
+                throw new IllegalStateException("Presupuesto SQL inválido, se espera 'METODO patrón=máximo': " + entrada);
+            }
+            String endpoint = entrada.substring(0, igual).trim().replaceAll("\\s+", " ");
+            presupuestos.put(endpoint, Integer.parseInt(entrada.substring(igual + 1).trim()));
+        }
+        return presupuestos;
+    }
+}
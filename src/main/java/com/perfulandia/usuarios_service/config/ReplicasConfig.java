@@ -0,0 +1,101 @@
+package com.perfulandia.usuarios_service.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.perfulandia.usuarios_service.replicas.EnrutadorReplicas;
+import com.perfulandia.usuarios_service.replicas.FiltroLecturaPropia;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Réplicas de lectura: reemplaza el DataSource autoconfigurado por EnrutadorReplicas (detrás de un
+// LazyConnectionDataSourceProxy), que envía las transacciones de solo lectura a las réplicas y todo lo demás
+// a la primaria. Las réplicas usan las credenciales y el driver de spring.datasource.*.
+@Configuration
+@ConditionalOnProperty(name = "usuarios.replicas.activo", havingValue = "true")
+public class ReplicasConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaria(DataSourceProperties propiedades,
+                                     @Value("${spring.jpa.open-in-view:true}") boolean sesionEnVista) {
+        if (sesionEnVista) {
+            // Con la sesión abierta toda la petición, la conexión de la primera lectura (réplica) se reutilizaría
+            // para las escrituras siguientes: un INSERT podría terminar en una réplica.
+            throw new IllegalStateException("Las réplicas de lectura requieren spring.jpa.open-in-view=false");
+        }
+        return propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public EnrutadorReplicas enrutadorReplicas(
+            HikariDataSource primaria,
+            DataSourceProperties propiedades,
+            MeterRegistry meterRegistry,
+            @Value("${usuarios.replicas.urls}") List<String> urls,
+            @Value("${usuarios.replicas.balanceo:ronda}") String balanceo,
+            @Value("${usuarios.replicas.verificacion-cada:5s}") Duration verificacionCada,
+            @Value("${usuarios.replicas.espera-conexion:1s}") Duration esperaConexion) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + (pools.size() + 1));
+            config.setJdbcUrl(url.trim());
+            config.setUsername(propiedades.determineUsername());
+            config.setPassword(propiedades.determinePassword());
+            config.setDriverClassName(propiedades.determineDriverClassName());
+            config.setMaximumPoolSize(primaria.getMaximumPoolSize());
+            config.setReadOnly(true);
+            // Espera corta: si la réplica no entrega una conexión a tiempo, se expulsa y se prueba otra
+            config.setConnectionTimeout(esperaConexion.toMillis());
+            config.setInitializationFailTimeout(-1); // Arranca aunque la réplica esté caída; queda fuera hasta que responda
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry)); // hikaricp.*{pool=replica-N}
+            pools.add(new HikariDataSource(config));
+        }
+        if (pools.isEmpty()) {
+            throw new IllegalStateException("usuarios.replicas.activo=true requiere al menos una URL en usuarios.replicas.urls");
+        }
+        return new EnrutadorReplicas(primaria, pools,
+                EnrutadorReplicas.Balanceo.valueOf(balanceo.trim().replace('-', '_').toUpperCase(Locale.ROOT)),
+                verificacionCada, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(EnrutadorReplicas enrutadorReplicas) {
+        // Sin el proxy, JpaTransactionManager pediría la conexión al empezar la transacción, antes de que
+        // quede registrada como de solo lectura, y toda lectura iría a la primaria.
+        return new LazyConnectionDataSourceProxy(enrutadorReplicas);
+    }
+
+    @Bean
+    public FilterRegistrationBean<FiltroLecturaPropia> filtroLecturaPropia(
+            @Value("${usuarios.replicas.lectura-propia:5s}") Duration ventana) {
+        FilterRegistrationBean<FiltroLecturaPropia> registro = new FilterRegistrationBean<>(new FiltroLecturaPropia(ventana));
+        registro.addUrlPatterns("/api/*");
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 30);
+        registro.setEnabled(!ventana.isZero()); // lectura-propia=0: sin ventana, toda lectura de solo lectura va a réplicas
+        return registro;
+    }
+}
@@ -1,26 +1,51 @@
 package com.perfulandia.usuarios_service.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import com.perfulandia.usuarios_service.security.CalibradorBCrypt;
+import com.perfulandia.usuarios_service.security.FiltroTokenAutenticacion;
+import com.perfulandia.usuarios_service.security.PasswordEncoderAdaptativo;
+import com.perfulandia.usuarios_service.security.ServicioTokens;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 public class SecurityConfig {
   @Bean // Este método producirá un bean gestionado por Spring
-    public PasswordEncoder passwordEncoder() {
-        // Retornamos una instancia de BCryptPasswordEncoder,
-        // que es una implementación fuerte y recomendada.
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${usuarios.bcrypt.calibrar:true}") boolean calibrar,
+                                           @Value("${usuarios.bcrypt.presupuesto:250ms}") Duration presupuesto,
+                                           @Value("${usuarios.bcrypt.costo-minimo:10}") int costoMinimo,
+                                           @Value("${usuarios.bcrypt.costo-maximo:16}") int costoMaximo,
+                                           @Value("${usuarios.bcrypt.costo:10}") int costoFijo,
+                                           MeterRegistry meterRegistry) {
+        // BCrypt sigue siendo el algoritmo, pero el costo ya no es fijo: se calibra al arrancar según
+        // el hardware del nodo (o se usa 'usuarios.bcrypt.costo' si la calibración está desactivada).
+        int costo = calibrar ? CalibradorBCrypt.calibrar(presupuesto, costoMinimo, costoMaximo) : costoFijo;
+        PasswordEncoderAdaptativo encoder = new PasswordEncoderAdaptativo(costo);
+        Gauge.builder("usuarios.bcrypt.costo", encoder, PasswordEncoderAdaptativo::getCosto)
+                .description("Costo BCrypt en uso en este nodo")
+                .register(meterRegistry);
+        return encoder;
     }
 
 @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, ServicioTokens servicioTokens) throws Exception {
         http
             .csrf(AbstractHttpConfigurer::disable) // Deshabilitar CSRF es común para APIs stateless
+            .sessionManagement(sesion -> sesion.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // Sin sesión HTTP: cada petición trae su token
+            // Valida 'Authorization: Bearer <token>' en memoria (HMAC), sin tocar la BD ni BCrypt
+            .addFilterBefore(new FiltroTokenAutenticacion(servicioTokens), UsernamePasswordAuthenticationFilter.class)
             .authorizeHttpRequests(auth -> auth
                 .anyRequest().permitAll() // Permite TODAS las peticiones sin autenticación
             );
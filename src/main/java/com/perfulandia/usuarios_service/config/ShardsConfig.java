@@ -0,0 +1,205 @@
+package com.perfulandia.usuarios_service.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import com.perfulandia.usuarios_service.shards.AspectoShards;
+import com.perfulandia.usuarios_service.shards.DataSourceShards;
+import com.perfulandia.usuarios_service.shards.EjecutorShards;
+import com.perfulandia.usuarios_service.shards.MapaShards;
+import com.perfulandia.usuarios_service.shards.RebalanceadorShards;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+// Sharding horizontal por RUT. El MapaShards y el EjecutorShards existen siempre (con un solo shard por defecto),
+// así los servicios tienen un único camino de código. Con usuarios.shards.activo=true se reemplaza el DataSource
+// autoconfigurado por DataSourceShards (un pool Hikari por URL) y se activa el enrutamiento de @ClaveShard.
+@Configuration
+public class ShardsConfig {
+
+    @Bean
+    public MapaShards mapaShards(@Value("${usuarios.shards.activo:false}") boolean activo,
+                                 @Value("${usuarios.shards.urls:}") List<String> urls,
+                                 @Value("${usuarios.shards.nodos-virtuales:160}") int nodosVirtuales) {
+        return new MapaShards(activo ? urlsValidas(urls).size() : 1, nodosVirtuales);
+    }
+
+    @Bean
+    public EjecutorShards ejecutorShards(MapaShards mapaShards,
+                                         @Value("${usuarios.shards.hilos-consulta:0}") int hilosConsulta) {
+        // 0 = cuatro hilos por shard: varias peticiones pueden estar consultando todos los shards a la vez
+        return new EjecutorShards(mapaShards, hilosConsulta > 0 ? hilosConsulta : 4 * mapaShards.cantidad());
+    }
+
+    private static List<String> urlsValidas(List<String> urls) {
+        List<String> validas = urls.stream().filter(url -> !url.isBlank()).map(String::trim).toList();
+        if (validas.isEmpty()) {
+            throw new IllegalStateException("usuarios.shards.activo=true requiere al menos una URL en usuarios.shards.urls");
+        }
+        return validas;
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "usuarios.shards.activo", havingValue = "true")
+    static class ShardsActivos {
+
+        private static final Logger log = LoggerFactory.getLogger(ShardsActivos.class);
+
+        // DDL que Hibernate genera para el shard 0 (borrado y creación), para repetirlo en los demás
+        private final Path scriptBorrado;
+        private final Path scriptEsquema;
+        private final boolean crearEsquema;
+        private final String ddlAuto;
+
+        ShardsActivos(@Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+            this.ddlAuto = ddlAuto.trim();
+            this.crearEsquema = Set.of("create", "create-drop").contains(ddlAuto.trim());
+            this.scriptBorrado = crearEsquema ? archivoTemporal("borrado-shards") : null;
+            this.scriptEsquema = crearEsquema ? archivoTemporal("esquema-shards") : null;
+        }
+
+        private static Path archivoTemporal(String prefijo) {
+            try {
+                Path archivo = Files.createTempFile(prefijo, ".sql");
+                archivo.toFile().deleteOnExit();
+                return archivo;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Bean
+        public DataSourceShards dataSourceShards(DataSourceProperties propiedades,
+                                                 MeterRegistry meterRegistry,
+                                                 @Value("${usuarios.shards.urls}") List<String> urls,
+                                                 @Value("${spring.datasource.hikari.maximum-pool-size:10}") int tamanoPool,
+                                                 @Value("${spring.jpa.open-in-view:true}") boolean sesionEnVista,
+                                                 @Value("${usuarios.replicas.activo:false}") boolean replicas,
+                                                 @Value("${spring.jpa.properties.perfulandia.direcciones.id-estrategia:tsid}") String estrategiaId) {
+            if (sesionEnVista) {
+                // La sesión abierta toda la petición reutilizaría la conexión del primer shard consultado
+                throw new IllegalStateException("El sharding requiere spring.jpa.open-in-view=false");
+            }
+            if (replicas) {
+                throw new IllegalStateException("usuarios.shards.activo y usuarios.replicas.activo no se pueden combinar todavía");
+            }
+            if (!"tsid".equalsIgnoreCase(estrategiaId.trim())) {
+                // Con hi/lo cada shard tendría su propia secuencia: los IDs chocarían al mover direcciones de shard
+                throw new IllegalStateException("El sharding requiere spring.jpa.properties.perfulandia.direcciones.id-estrategia=tsid");
+            }
+            List<HikariDataSource> pools = new ArrayList<>();
+            for (String url : urlsValidas(urls)) {
+                HikariConfig config = new HikariConfig();
+                config.setPoolName("shard-" + pools.size());
+                config.setJdbcUrl(url);
+                config.setUsername(propiedades.determineUsername());
+                config.setPassword(propiedades.determinePassword());
+                config.setDriverClassName(propiedades.determineDriverClassName());
+                config.setMaximumPoolSize(tamanoPool);
+                config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry)); // hikaricp.*{pool=shard-N}
+                pools.add(new HikariDataSource(config));
+            }
+            return new DataSourceShards(pools);
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(DataSourceShards dataSourceShards) {
+            // Igual que con las réplicas: la conexión se pide en la primera sentencia, con el shard ya fijado
+            return new LazyConnectionDataSourceProxy(dataSourceShards);
+        }
+
+        @Bean
+        public AspectoShards aspectoShards(MapaShards mapaShards) {
+            return new AspectoShards(mapaShards);
+        }
+
+        // Con ddl-auto=create Hibernate crea las tablas solo en el shard 0 (la conexión "sin dueño").
+        // Se le pide además el mismo DDL como script para ejecutarlo en el resto de los shards.
+        @Bean
+        public HibernatePropertiesCustomizer scriptEsquemaShards() {
+            return propiedades -> {
+                if (crearEsquema) {
+                    // Con una acción de script definida Hibernate ya no deduce la de la base desde ddl-auto: se repite aquí
+                    propiedades.put("jakarta.persistence.schema-generation.database.action", ddlAuto);
+                    propiedades.put("jakarta.persistence.schema-generation.scripts.action", "drop-and-create");
+                    propiedades.put("jakarta.persistence.schema-generation.scripts.create-target", scriptEsquema.toString());
+                    propiedades.put("jakarta.persistence.schema-generation.scripts.drop-target", scriptBorrado.toString());
+                    propiedades.put("hibernate.hbm2ddl.schema-generation.script.append", "false");
+                    propiedades.put("hibernate.hbm2ddl.delimiter", ";");
+                }
+            };
+        }
+
+        @Bean
+        public SmartInitializingSingleton esquemaEnShards(DataSourceShards dataSourceShards, EntityManagerFactory entityManagerFactory) {
+            // Depende del EntityManagerFactory: cuando se ejecuta, Hibernate ya escribió el script
+            return () -> {
+                if (!crearEsquema) {
+                    return; // Con validate/update/none cada shard lo migra Flyway (EsquemaConfig) o se gestiona por fuera
+                }
+                List<? extends DataSource> pools = dataSourceShards.getPools();
+                for (int shard = 1; shard < pools.size(); shard++) {
+                    try (Connection conexion = pools.get(shard).getConnection()) {
+                        ejecutarScript(conexion, scriptBorrado, true); // Lo que no existe aún no se puede borrar
+                        ejecutarScript(conexion, scriptEsquema, false);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("No se pudo crear el esquema en el shard " + shard, e);
+                    }
+                }
+                log.info("Esquema creado en {} shards adicionales", pools.size() - 1);
+            };
+        }
+
+        private static void ejecutarScript(Connection conexion, Path script, boolean ignorarErrores) {
+            ScriptUtils.executeSqlScript(conexion, new EncodedResource(new FileSystemResource(script)),
+                    ignorarErrores, ignorarErrores, ScriptUtils.DEFAULT_COMMENT_PREFIX, ";",
+                    ScriptUtils.DEFAULT_BLOCK_COMMENT_START_DELIMITER, ScriptUtils.DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+        }
+
+        @Bean
+        public RebalanceadorShards rebalanceadorShards(MapaShards mapaShards, DataSourceShards dataSourceShards,
+                                                       MeterRegistry meterRegistry,
+                                                       @Value("${usuarios.shards.rebalanceo-lote:500}") int tamanoLote) {
+            return new RebalanceadorShards(mapaShards, dataSourceShards.getPools(), tamanoLote, meterRegistry);
+        }
+
+        @Bean
+        @ConditionalOnProperty(name = "usuarios.shards.rebalancear-al-arrancar", havingValue = "true")
+        public ApplicationRunner rebalancearAlArrancar(RebalanceadorShards rebalanceadorShards) {
+            return argumentos -> {
+                RebalanceadorShards.Resultado resultado = rebalanceadorShards.rebalancear();
+                log.info("Rebalanceo terminado: {} usuarios revisados, {} movidos", resultado.revisados(), resultado.movidos());
+            };
+        }
+    }
+}
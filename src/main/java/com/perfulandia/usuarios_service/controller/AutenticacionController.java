@@ -0,0 +1,32 @@
+package com.perfulandia.usuarios_service.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.perfulandia.usuarios_service.dto.LoginDTO;
+import com.perfulandia.usuarios_service.dto.TokenResponseDTO;
+import com.perfulandia.usuarios_service.service.AutenticacionService;
+
+@RestController
+@RequestMapping("/api/v1/auth")
+public class AutenticacionController {
+
+    private final AutenticacionService autenticacionService;
+
+    @Autowired
+    public AutenticacionController(AutenticacionService autenticacionService) {
+        this.autenticacionService = autenticacionService;
+    }
+
+    // Endpoint de LOGIN: verifica email y contraseña una vez y devuelve un token firmado de corta duración.
+    // Los demás servicios envían 'Authorization: Bearer <token>' y este se valida sin consultar la BD.
+    // POST /api/v1/auth/login
+    @PostMapping("/login")
+    public ResponseEntity<TokenResponseDTO> login(@RequestBody LoginDTO loginDTO) {
+        return autenticacionService.login(loginDTO)
+                .map(ResponseEntity::ok) // 200 OK con el token
+                .orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()); // 401 si las credenciales no son válidas
+    }
+}
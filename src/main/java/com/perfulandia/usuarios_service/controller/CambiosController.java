@@ -0,0 +1,85 @@
+package com.perfulandia.usuarios_service.controller;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.perfulandia.usuarios_service.dto.CursorCambiosDTO;
+import com.perfulandia.usuarios_service.dto.PaginaCambiosDTO;
+import com.perfulandia.usuarios_service.exception.CursorVencidoException;
+import com.perfulandia.usuarios_service.service.CambiosService;
+
+// Feed de cambios de usuarios y direcciones para otros servicios (caches, búsqueda, analítica), en vez de que
+// cada uno consulte la API entera periódicamente. Uso típico:
+//   1) GET /api/v1/cambios/cursor y guardar el cursor; 2) exportación completa (GET /api/v1/usuarios/exportar);
+//   3) GET /api/v1/cambios?cursor=...&espera=30 en un ciclo, aplicando cada página y guardando su cursor.
+@RestController
+@RequestMapping("/api/v1/cambios")
+public class CambiosController {
+
+    // El servicio completa la espera al vencer su plazo; este margen solo cubre la última consulta
+    private static final Duration MARGEN_ESPERA = Duration.ofSeconds(5);
+
+    private final CambiosService cambiosService;
+
+    @Autowired
+    public CambiosController(CambiosService cambiosService) {
+        this.cambiosService = cambiosService;
+    }
+
+    // Endpoint para LEER los cambios después de un cursor
+    // GET /api/v1/cambios?cursor=...&limit=100&espera=30
+    // 'espera' (segundos, 0 por defecto): si no hay cambios, la respuesta se retiene hasta que llegue alguno o
+    // venza el plazo (long polling); el hilo de la petición queda libre mientras tanto.
+    // 410 Gone si el cursor es anterior a lo que se conserva: hay que resincronizar.
+    @GetMapping
+    public DeferredResult<ResponseEntity<PaginaCambiosDTO>> obtenerCambios(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "espera", defaultValue = "0") long espera) {
+        Duration plazo = Duration.ofSeconds(espera);
+        DeferredResult<ResponseEntity<PaginaCambiosDTO>> resultado =
+                new DeferredResult<>(plazo.plus(MARGEN_ESPERA).toMillis());
+        CompletableFuture<PaginaCambiosDTO> pagina;
+        try {
+            pagina = cambiosService.esperarCambios(cursor, limit, plazo);
+        } catch (IllegalArgumentException | CursorVencidoException e) {
+            resultado.setResult(respuestaDeError(e));
+            return resultado;
+        }
+        pagina.whenComplete((cambios, error) -> {
+            Throwable causa = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+            if (causa == null) {
+                resultado.setResult(ResponseEntity.ok(cambios));
+            } else if (causa instanceof IllegalArgumentException || causa instanceof CursorVencidoException) {
+                resultado.setResult(respuestaDeError(causa));
+            } else {
+                resultado.setErrorResult(causa); // Errores inesperados: el manejo normal de Spring (500)
+            }
+        });
+        return resultado;
+    }
+
+    // Endpoint para OBTENER la posición actual del feed (desde dónde empezar a seguirlo)
+    // GET /api/v1/cambios/cursor
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorCambiosDTO> obtenerCursorActual() {
+        return ResponseEntity.ok(cambiosService.obtenerCursorActual());
+    }
+
+    private static ResponseEntity<PaginaCambiosDTO> respuestaDeError(Throwable error) {
+        if (error instanceof CursorVencidoException) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        return ResponseEntity.badRequest().build(); // Cursor, 'limit' o 'espera' inválidos
+    }
+}
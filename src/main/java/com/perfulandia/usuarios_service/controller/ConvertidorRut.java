@@ -0,0 +1,18 @@
+package com.perfulandia.usuarios_service.controller;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import com.perfulandia.usuarios_service.model.Rut;
+
+// Convierte los {rut} / {usuarioRut} de las rutas a Rut: "12.345.678-9", "12345678-9" y "123456789" llegan
+// al servicio como el mismo valor. Spring Boot registra los Converter del contexto en Spring MVC;
+// un RUT inválido (formato o dígito verificador) responde 400 antes de llegar al controlador.
+@Component
+public class ConvertidorRut implements Converter<String, Rut> {
+
+    @Override
+    public Rut convert(String texto) {
+        return Rut.parsear(texto);
+    }
+}
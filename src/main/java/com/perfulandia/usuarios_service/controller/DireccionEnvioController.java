@@ -3,14 +3,20 @@ package com.perfulandia.usuarios_service.controller;
 import com.perfulandia.usuarios_service.dto.ActualizarDireccionDTO;
 import com.perfulandia.usuarios_service.dto.CrearDireccionDTO;
 import com.perfulandia.usuarios_service.dto.DireccionResponseDTO;
+import com.perfulandia.usuarios_service.exception.ConflictoVersionException;
+import com.perfulandia.usuarios_service.exception.RecursoNoEncontradoException;
+import com.perfulandia.usuarios_service.model.Rut;
 import com.perfulandia.usuarios_service.service.DireccionEnvioService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/usuarios/{usuarioRut}/direcciones") // Ruta base anidada bajo el usuario
@@ -27,7 +33,7 @@ public class DireccionEnvioController {
     // POST /api/v1/usuarios/{usuarioRut}/direcciones
     @PostMapping
     public ResponseEntity<DireccionResponseDTO> agregarDireccion(
-            @PathVariable String usuarioRut,
+            @PathVariable Rut usuarioRut,
             @RequestBody CrearDireccionDTO crearDireccionDTO) {
         // La lógica para manejar usuarioRut no encontrado está en el servicio.
         DireccionResponseDTO direccionCreada = direccionEnvioService.agregarDireccionAUsuario(usuarioRut, crearDireccionDTO);
@@ -42,99 +48,79 @@ public class DireccionEnvioController {
 
     // Endpoint para OBTENER todas las direcciones de un usuario específico
     // GET /api/v1/usuarios/{usuarioRut}/direcciones
+    // Responde con ETag (versión de la lista). Con If-None-Match primero se consulta solo esa versión:
+    // si no cambió, 304 sin leer las direcciones.
     @GetMapping
-    public ResponseEntity<List<DireccionResponseDTO>> obtenerDireccionesDelUsuario(@PathVariable String usuarioRut) {
-        // La lógica para manejar usuarioRut no encontrado (y devolver lista vacía o error) está en el servicio.
-        List<DireccionResponseDTO> direcciones = direccionEnvioService.obtenerDireccionesPorUsuarioRut(usuarioRut);
-        if (direcciones.isEmpty()) {
-            // Si el usuario existe pero no tiene direcciones, o si el servicio devuelve vacío porque el usuario no existe.
-            return ResponseEntity.noContent().build();
+    public ResponseEntity<List<DireccionResponseDTO>> obtenerDireccionesDelUsuario(
+            @PathVariable Rut usuarioRut,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (ifNoneMatch != null) {
+            Optional<Long> version = direccionEnvioService.obtenerVersionDirecciones(usuarioRut);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build(); // El usuario no existe
+            }
+            if (Etags.coincideIfNoneMatch(ifNoneMatch, version.get(), accept)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(Etags.deVersion(version.get(), accept))
+                        .varyBy(HttpHeaders.ACCEPT).build();
+            }
         }
-        return ResponseEntity.ok(direcciones);
+        return direccionEnvioService.obtenerDireccionesPorUsuarioRut(usuarioRut)
+                .map(lista -> lista.direcciones().isEmpty()
+                        ? ResponseEntity.noContent().eTag(Etags.deVersion(lista.version(), accept)).varyBy(HttpHeaders.ACCEPT)
+                                .<List<DireccionResponseDTO>>build() // El usuario existe pero no tiene direcciones
+                        : ResponseEntity.ok().eTag(Etags.deVersion(lista.version(), accept)).varyBy(HttpHeaders.ACCEPT)
+                                .body(lista.direcciones()))
+                .orElse(ResponseEntity.notFound().build()); // El usuario no existe
     }
 
     // Endpoint para OBTENER una dirección específica por su ID (perteneciente a un usuario)
     // GET /api/v1/usuarios/{usuarioRut}/direcciones/{direccionId}
     @GetMapping("/{direccionId}")
     public ResponseEntity<DireccionResponseDTO> obtenerDireccionEspecifica(
-            @PathVariable String usuarioRut,
+            @PathVariable Rut usuarioRut,
             @PathVariable Long direccionId) {
 
-        return direccionEnvioService.obtenerDireccionPorId(direccionId)
-                .filter(direccion -> {
-                    // Verificamos que la dirección pertenezca al usuario especificado en la ruta.
-                    // Esto asume que DireccionResponseDTO tendrá una forma de obtener el RUT del usuario
-                    // o que la lógica de negocio en el servicio podría ayudar a filtrar esto.
-                    // Para hacer esta verificación aquí, necesitaríamos que el DireccionResponseDTO
-                    // incluyera el usuarioRut, o hacer una lógica más compleja en el servicio.
-
-                    // Por ahora, vamos a simplificar y asumir que si la dirección existe,
-                    // la ruta del usuario es para contextualizar, pero la búsqueda principal es por direccionId.
-                    // Una mejora sería que el servicio `obtenerDireccionPorIdYUsuarioRut` existiera.
-                    // O, como está ahora, si la dirección existe, la devolvemos. El cliente debe ser "confiable".
-                    // Para una seguridad robusta, el servicio debería validar la pertenencia.
-                    // Por simplicidad en este ejemplo, si la encuentra por ID, la devolvemos.
-                    // Lógica de negocio más estricta:
-                    // DireccionResponseDTO dto = direccionEnvioService.obtenerDireccionPorIdYUsuario(direccionId, usuarioRut)
-                    //     .orElseThrow(() -> new ResourceNotFoundException("Dirección no encontrada o no pertenece al usuario"));
-                    // return ResponseEntity.ok(dto);
-                    // Dado que el servicio `obtenerDireccionPorId` solo toma `direccionId`,
-                    // la validación de pertenencia al usuarioRut debería hacerse aquí o en el servicio.
-                    // Por ahora, solo devolvemos si se encuentra por ID.
-                    return true; // Simplificación temporal. Ver nota abajo.
-                })
+        // El servicio busca por ID y dueño: una dirección de otro usuario responde 404
+        return direccionEnvioService.obtenerDireccionDeUsuario(usuarioRut, direccionId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
-    // NOTA sobre obtenerDireccionEspecifica y las siguientes (actualizar, eliminar):
-    // Para que estos endpoints sean seguros y correctos, la capa de servicio
-    // para `obtenerDireccionPorId`, `actualizarDireccion`, `eliminarDireccion`
-    // idealmente deberían tomar `usuarioRut` además de `direccionId` para asegurar
-    // que solo se opera sobre direcciones del usuario correcto.
-    // O, el controlador carga la dirección por `direccionId` y LUEGO verifica que
-    // `direccion.getUsuario().getRut().equals(usuarioRut)`.
-    // Por simplicidad del ejemplo inicial del servicio, lo mantendré así, pero es un punto clave de seguridad/lógica.
 
     // Endpoint para ACTUALIZAR una dirección existente
     // PUT /api/v1/usuarios/{usuarioRut}/direcciones/{direccionId}
+    // If-Match opcional con el ETag de la lista de direcciones: 412 si la lista cambió desde entonces.
     @PutMapping("/{direccionId}")
     public ResponseEntity<DireccionResponseDTO> actualizarDireccion(
-            @PathVariable String usuarioRut, // Usado para el contexto de la ruta, pero no directamente por el servicio actual
+            @PathVariable Rut usuarioRut,
             @PathVariable Long direccionId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody ActualizarDireccionDTO actualizarDireccionDTO) {
-        // Aquí también, idealmente el servicio `actualizarDireccion` tomaría usuarioRut
-        // para asegurar que solo se actualiza una dirección del usuario correcto.
-        // O se verifica aquí antes de llamar al servicio.
         try {
-            // Verificación de pertenencia (ejemplo conceptual):
-            // direccionEnvioService.obtenerDireccionPorId(direccionId)
-            // .filter(dir -> dir.getUsuarioRut().equals(usuarioRut)) // Asumiendo que DireccionResponseDTO tiene usuarioRut
-            // .orElseThrow(() -> new RuntimeException("Dirección no pertenece al usuario o no existe"));
-
-            DireccionResponseDTO direccionActualizada = direccionEnvioService.actualizarDireccion(direccionId, actualizarDireccionDTO);
+            DireccionResponseDTO direccionActualizada = direccionEnvioService.actualizarDireccion(
+                    usuarioRut, direccionId, actualizarDireccionDTO, Etags.versionDeIfMatch(ifMatch));
             return ResponseEntity.ok(direccionActualizada);
-        } catch (RuntimeException e) { // Asumiendo que el servicio lanza error si no encuentra la dirección
+        } catch (ConflictoVersionException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (RecursoNoEncontradoException e) { // No existe o pertenece a otro usuario
             return ResponseEntity.notFound().build();
         }
     }
 
     // Endpoint para ELIMINAR una dirección
-    // DELETE /api/v1/usuarios/{usuarioRut}/direcciones/{direccionId}
+    // DELETE /api/v1/usuarios/{usuarioRut}/direcciones/{direccionId}  (If-Match opcional, como en el PUT)
     @DeleteMapping("/{direccionId}")
     public ResponseEntity<Void> eliminarDireccion(
-            @PathVariable String usuarioRut, // Usado para el contexto de la ruta
-            @PathVariable Long direccionId) {
-        // Similar a actualizar, verificar pertenencia antes de eliminar.
+            @PathVariable Rut usuarioRut,
+            @PathVariable Long direccionId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            // Verificación de pertenencia (ejemplo conceptual):
-            // direccionEnvioService.obtenerDireccionPorId(direccionId)
-            // .filter(dir -> dir.getUsuarioRut().equals(usuarioRut))
-            // .orElseThrow(() -> new RuntimeException("Dirección no pertenece al usuario o no existe"));
-
-            direccionEnvioService.eliminarDireccion(direccionId);
+            direccionEnvioService.eliminarDireccion(usuarioRut, direccionId, Etags.versionDeIfMatch(ifMatch));
             return ResponseEntity.noContent().build();
-        } catch (RuntimeException e) { // Asumiendo que el servicio lanza error si no encuentra la dirección
+        } catch (ConflictoVersionException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (RecursoNoEncontradoException e) { // No existe o pertenece a otro usuario
             return ResponseEntity.notFound().build();
         }
     }
-}
\ No newline at end of file
+}
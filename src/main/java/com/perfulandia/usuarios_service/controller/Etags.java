@@ -0,0 +1,98 @@
+package com.perfulandia.usuarios_service.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+// ETags fuertes derivadas de las columnas de versión (Usuario.version y Usuario.versionDirecciones).
+// Se calculan sin serializar el cuerpo: basta la versión, que viene del cache o de una consulta de una columna.
+// Cada formato de respuesta (FormatosConfig) tiene la suya: "3" en JSON, "3-cbor" y "3-smile" en binario. Con una
+// sola ETag fuerte para los tres, un cache que guardó el CBOR podía revalidar con ella y servirle esos bytes a un
+// cliente JSON. Las respuestas con ETag llevan además Vary: Accept.
+final class Etags {
+
+    // Versión que nunca existe: un If-Match que no se puede interpretar termina en 412, no en una escritura sin condición.
+    private static final long NINGUNA_VERSION = -1L;
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private Etags() {
+    }
+
+    static String deVersion(long version, String accept) {
+        return "\"" + version + sufijo(accept) + "\"";
+    }
+
+    // If-None-Match (comparación débil): true si '*' o alguna de las ETags listadas corresponde a la versión actual
+    // en el formato que se va a responder.
+    static boolean coincideIfNoneMatch(String ifNoneMatch, long versionActual, String accept) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String actual = deVersion(versionActual, accept);
+        for (String etag : ifNoneMatch.split(",")) {
+            String limpia = etag.trim();
+            if (limpia.equals("*") || (limpia.startsWith("W/") ? limpia.substring(2) : limpia).equals(actual)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // If-Match (comparación fuerte) como versión esperada para el UPDATE/DELETE condicional.
+    // null si la cabecera no vino o es '*'. Se admite una sola ETag fuerte, de cualquiera de los formatos (todas
+    // nombran la misma versión); cualquier otra cosa no coincide.
+    static Long versionDeIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.length() < 3 || etag.charAt(0) != '"' || etag.charAt(etag.length() - 1) != '"') {
+            return NINGUNA_VERSION; // Lista de ETags o ETag débil
+        }
+        String version = etag.substring(1, etag.length() - 1);
+        if (version.endsWith("-cbor") || version.endsWith("-smile")) {
+            version = version.substring(0, version.lastIndexOf('-'));
+        }
+        try {
+            return Long.parseLong(version);
+        } catch (NumberFormatException e) {
+            return NINGUNA_VERSION;
+        }
+    }
+
+    // Formato que elegirá la negociación de Spring MVC para este Accept: el primer tipo aceptado (por especificidad
+    // y calidad) compatible con JSON, CBOR o Smile, en el orden de los convertidores. Sin Accept, o si no se puede
+    // leer, JSON (la negociación fallaría antes con 406/400 y la ETag no llega a salir).
+    private static String sufijo(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "";
+        }
+        List<MediaType> aceptados;
+        try {
+            aceptados = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return "";
+        }
+        MimeTypeUtils.sortBySpecificity(aceptados);
+        for (MediaType aceptado : aceptados) {
+            if (aceptado.getQualityValue() == 0) {
+                continue;
+            }
+            if (aceptado.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return "";
+            }
+            if (aceptado.isCompatibleWith(CBOR)) {
+                return "-cbor";
+            }
+            if (aceptado.isCompatibleWith(SMILE)) {
+                return "-smile";
+            }
+        }
+        return "";
+    }
+}
@@ -1,16 +1,32 @@
 package com.perfulandia.usuarios_service.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder; // Para construir la URI de Location
 
 import com.perfulandia.usuarios_service.dto.ActualizarUsuarioDTO;
 import com.perfulandia.usuarios_service.dto.CrearUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.LoteRutsDTO;
+import com.perfulandia.usuarios_service.dto.PaginaBusquedaDTO;
+import com.perfulandia.usuarios_service.dto.PaginaUsuariosDTO;
+import com.perfulandia.usuarios_service.dto.ParcheUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.ResultadoImportacionDTO;
+import com.perfulandia.usuarios_service.dto.UsuarioLoteDTO;
 import com.perfulandia.usuarios_service.dto.UsuarioResponseDTO;
+import com.perfulandia.usuarios_service.exception.ConflictoVersionException;
+import com.perfulandia.usuarios_service.exception.RecursoNoEncontradoException;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.service.BusquedaUsuariosService;
+import com.perfulandia.usuarios_service.service.ImportacionUsuariosService;
 import com.perfulandia.usuarios_service.service.UsuarioService;
 
 import jakarta.validation.Valid; // Para validaciones (necesitarías spring-boot-starter-validation)
+import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
 
@@ -19,10 +35,15 @@ import java.util.List;
 public class UsuarioController {
 
     private final UsuarioService usuarioService;
+    private final ImportacionUsuariosService importacionUsuariosService;
+    private final BusquedaUsuariosService busquedaUsuariosService;
 
     @Autowired // Inyección de dependencias vía constructor
-    public UsuarioController(UsuarioService usuarioService) {
+    public UsuarioController(UsuarioService usuarioService, ImportacionUsuariosService importacionUsuariosService,
+                             BusquedaUsuariosService busquedaUsuariosService) {
         this.usuarioService = usuarioService;
+        this.importacionUsuariosService = importacionUsuariosService;
+        this.busquedaUsuariosService = busquedaUsuariosService;
     }
 
     // Endpoint para CREAR un nuevo usuario
@@ -39,18 +60,100 @@ public class UsuarioController {
         return ResponseEntity.created(location).body(usuarioCreado); // Devuelve 201 Created
     }
 
+    // Endpoint para IMPORTAR usuarios de forma masiva desde un arreglo JSON
+    // POST /api/v1/usuarios/importar  (Content-Type: application/json)
+    // El cuerpo se lee en streaming y se confirma por lotes; la respuesta detalla el resultado de cada fila.
+    // Si se detuvo a medias (máximo de filas, cuerpo cortado, 503 después de confirmar un lote): 200 con
+    // 'truncado' y 'motivo', para no perder el detalle de lo que ya quedó escrito.
+    @PostMapping(value = "/importar", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ResultadoImportacionDTO> importarUsuariosJson(InputStream cuerpo) {
+        try {
+            return ResponseEntity.ok(importacionUsuariosService.importarDesdeJson(cuerpo));
+        } catch (IllegalArgumentException e) { // Formato inválido antes de confirmar nada
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Endpoint para IMPORTAR usuarios de forma masiva desde un CSV
+    // POST /api/v1/usuarios/importar  (Content-Type: text/csv, cabecera: rut,nombre,apellido,email,password)
+    @PostMapping(value = "/importar", consumes = "text/csv")
+    public ResponseEntity<ResultadoImportacionDTO> importarUsuariosCsv(InputStream cuerpo) {
+        try {
+            return ResponseEntity.ok(importacionUsuariosService.importarDesdeCsv(cuerpo));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // Endpoint para OBTENER un usuario por su RUT
-    // GET /api/v1/usuarios/{rut}
+    // GET /api/v1/usuarios/{rut}  (acepta "12.345.678-9", "12345678-9" o "123456789"; un RUT inválido es 400)
+    // Responde con ETag (la versión del usuario, distinta por formato: ver Etags). Con If-None-Match y sin cambios devuelve 304 sin cuerpo;
+    // como el usuario suele venir del cache, ese 304 no consulta la base de datos.
     @GetMapping("/{rut}")
-    public ResponseEntity<UsuarioResponseDTO> obtenerUsuarioPorRut(@PathVariable String rut) {
+    public ResponseEntity<UsuarioResponseDTO> obtenerUsuarioPorRut(
+            @PathVariable Rut rut,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         return usuarioService.obtenerUsuarioPorRut(rut)
-                .map(usuarioDTO -> ResponseEntity.ok(usuarioDTO)) // Si se encuentra, devuelve 200 OK con el usuario
+                .map(usuarioDTO -> {
+                    String etag = Etags.deVersion(usuarioDTO.version(), accept);
+                    if (Etags.coincideIfNoneMatch(ifNoneMatch, usuarioDTO.version(), accept)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT)
+                                .<UsuarioResponseDTO>build(); // 304
+                    }
+                    return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(usuarioDTO); // Si se encuentra, devuelve 200 OK con el usuario
+                })
                 .orElse(ResponseEntity.notFound().build()); // Si no, devuelve 404 Not Found
     }
 
-    // Endpoint para OBTENER todos los usuarios
-    // GET /api/v1/usuarios
+    // Endpoint para OBTENER muchos usuarios por RUT en una sola llamada (multi-get)
+    // POST /api/v1/usuarios/lote  {"ruts": ["11111111-1", ...], "incluirDirecciones": false}
+    // Responde en el mismo orden de 'ruts'; los no encontrados vienen con "encontrado": false.
+    @PostMapping("/lote")
+    public ResponseEntity<List<UsuarioLoteDTO>> obtenerUsuariosPorRuts(@RequestBody LoteRutsDTO loteRutsDTO) {
+        try {
+            return ResponseEntity.ok(usuarioService.obtenerUsuariosPorRuts(loteRutsDTO.ruts(), loteRutsDTO.incluirDirecciones()));
+        } catch (IllegalArgumentException e) { // Lista vacía, con nulos o sobre el máximo
+            return ResponseEntity.badRequest().build(); // Devuelve 400 Bad Request
+        }
+    }
+
+    // Endpoint para BUSCAR usuarios por el comienzo de su nombre, apellido o email (atención al cliente)
+    // GET /api/v1/usuarios/buscar?q=juan gonz&limit=20&cursor=...
+    // No distingue mayúsculas ni tildes; el cliente sigue el valor 'next' de cada respuesta (con la misma 'q')
+    // hasta que venga null. Si nada empieza así, responde coincidencias aproximadas (errores de tipeo) con
+    // "aproximada": true, en una sola página.
+    @GetMapping("/buscar")
+    public ResponseEntity<PaginaBusquedaDTO> buscarUsuarios(
+            @RequestParam(name = "q") String consulta,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(busquedaUsuariosService.buscarUsuarios(consulta, cursor, limit));
+        } catch (IllegalArgumentException e) { // Consulta demasiado corta, 'cursor' o 'limit' inválidos
+            return ResponseEntity.badRequest().build(); // Devuelve 400 Bad Request
+        }
+    }
+
+    // Endpoint para OBTENER usuarios paginados por cursor (ordenados por RUT)
+    // GET /api/v1/usuarios?limit=50&cursor=...
+    // El cliente sigue el valor 'next' de cada respuesta hasta que venga null.
     @GetMapping
+    public ResponseEntity<PaginaUsuariosDTO> obtenerPaginaDeUsuarios(
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        try {
+            PaginaUsuariosDTO pagina = usuarioService.obtenerPaginaDeUsuarios(cursor, limit);
+            return ResponseEntity.ok(pagina); // Devuelve 200 OK (la lista puede venir vacía)
+        } catch (IllegalArgumentException e) { // 'limit' o 'cursor' inválidos
+            return ResponseEntity.badRequest().build(); // Devuelve 400 Bad Request
+        }
+    }
+
+    // Endpoint LEGACY para OBTENER todos los usuarios (sin paginar, pero con tope)
+    // GET /api/v1/usuarios?legacy=true
+    // Se mantiene solo para clientes antiguos; devuelve como máximo 'usuarios.listado.legacy-maximo' usuarios.
+    @GetMapping(params = "legacy=true")
     public ResponseEntity<List<UsuarioResponseDTO>> obtenerTodosLosUsuarios() {
         List<UsuarioResponseDTO> usuarios = usuarioService.obtenerTodosLosUsuarios();
         if (usuarios.isEmpty()) {
@@ -59,35 +162,85 @@ public class UsuarioController {
         return ResponseEntity.ok(usuarios); // Devuelve 200 OK con la lista de usuarios
     }
 
+    // Endpoint para EXPORTAR todos los usuarios con sus direcciones como NDJSON (una línea por usuario)
+    // GET /api/v1/usuarios/exportar
+    // La respuesta se escribe mientras se recorre el cursor de la base de datos, con memoria acotada.
+    @GetMapping(value = "/exportar", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarUsuarios() {
+        StreamingResponseBody cuerpo = salida -> usuarioService.exportarUsuariosNdjson(salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(cuerpo);
+    }
+
     // Endpoint para ACTUALIZAR un usuario existente
-    // PUT /api/v1/usuarios/{rut}
+    // PUT /api/v1/usuarios/{rut}  {"nombre": "...", "apellido": "...", "version": 3}
+    // La versión esperada puede venir en la cabecera If-Match (ETag del GET) o en 'version' del cuerpo.
+    // Si el usuario cambió entretanto: 412 Precondition Failed (If-Match) o 409 Conflict ('version').
     @PutMapping("/{rut}")
     public ResponseEntity<UsuarioResponseDTO> actualizarUsuario(
-            @PathVariable String rut,
+            @PathVariable Rut rut,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
             @Valid @RequestBody ActualizarUsuarioDTO actualizarUsuarioDTO) {
-        // La lógica para manejar "usuario no encontrado" debería estar en el servicio,
-        // que podría lanzar una excepción. Aquí asumimos que si el servicio
-        // no lanza excepción, la actualización fue (o será) exitosa.
-        // Si el servicio devuelve el objeto actualizado, podemos devolverlo.
+        if (ifMatch != null) {
+            actualizarUsuarioDTO = new ActualizarUsuarioDTO(
+                    actualizarUsuarioDTO.nombre(), actualizarUsuarioDTO.apellido(), Etags.versionDeIfMatch(ifMatch));
+        }
         try {
             UsuarioResponseDTO usuarioActualizado = usuarioService.actualizarUsuario(rut, actualizarUsuarioDTO);
-            return ResponseEntity.ok(usuarioActualizado); // Devuelve 200 OK
-        } catch (RuntimeException e) { // Asumiendo que el servicio lanza RuntimeException si no se encuentra
-            // En una app real, capturarías excepciones más específicas (ej. UsuarioNotFoundException)
-            // y tendrías un @ControllerAdvice para manejar excepciones globalmente.
+            return ResponseEntity.ok().eTag(Etags.deVersion(usuarioActualizado.version(), accept)).varyBy(HttpHeaders.ACCEPT)
+                    .body(usuarioActualizado); // Devuelve 200 OK
+        } catch (ConflictoVersionException e) {
+            return ResponseEntity.status(estadoConflicto(ifMatch)).build(); // Devuelve 412 o 409
+        } catch (RecursoNoEncontradoException e) { // Cualquier otro error sigue al manejo global, no es un 404
+            return ResponseEntity.notFound().build(); // Devuelve 404 Not Found
+        }
+    }
+
+    // Endpoint para ACTUALIZAR PARCIALMENTE un usuario (solo los campos enviados)
+    // PATCH /api/v1/usuarios/{rut}  {"apellido": "...", "version": 3}  (o la versión en If-Match, como en el PUT)
+    @PatchMapping("/{rut}")
+    public ResponseEntity<UsuarioResponseDTO> actualizarParcialmente(
+            @PathVariable Rut rut,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestBody ParcheUsuarioDTO parcheUsuarioDTO) {
+        if (ifMatch != null) {
+            parcheUsuarioDTO = new ParcheUsuarioDTO(
+                    parcheUsuarioDTO.nombre(), parcheUsuarioDTO.apellido(), Etags.versionDeIfMatch(ifMatch));
+        }
+        try {
+            UsuarioResponseDTO usuarioActualizado = usuarioService.actualizarParcialmente(rut, parcheUsuarioDTO);
+            return ResponseEntity.ok().eTag(Etags.deVersion(usuarioActualizado.version(), accept)).varyBy(HttpHeaders.ACCEPT)
+                    .body(usuarioActualizado);
+        } catch (IllegalArgumentException e) { // El parche no trae ningún campo
+            return ResponseEntity.badRequest().build(); // Devuelve 400 Bad Request
+        } catch (ConflictoVersionException e) {
+            return ResponseEntity.status(estadoConflicto(ifMatch)).build(); // Devuelve 412 o 409
+        } catch (RecursoNoEncontradoException e) {
             return ResponseEntity.notFound().build(); // Devuelve 404 Not Found
         }
     }
 
     // Endpoint para ELIMINAR un usuario
-    // DELETE /api/v1/usuarios/{rut}
+    // DELETE /api/v1/usuarios/{rut}  (If-Match opcional: 412 si el usuario cambió desde ese ETag)
     @DeleteMapping("/{rut}")
-    public ResponseEntity<Void> eliminarUsuario(@PathVariable String rut) {
+    public ResponseEntity<Void> eliminarUsuario(
+            @PathVariable Rut rut,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            usuarioService.eliminarUsuario(rut);
+            usuarioService.eliminarUsuario(rut, Etags.versionDeIfMatch(ifMatch));
             return ResponseEntity.noContent().build(); // Devuelve 204 No Content (éxito, sin cuerpo de respuesta)
-        } catch (RuntimeException e) { // Asumiendo que el servicio lanza RuntimeException si no se encuentra
+        } catch (ConflictoVersionException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build(); // Devuelve 412 Precondition Failed
+        } catch (RecursoNoEncontradoException e) {
             return ResponseEntity.notFound().build(); // Devuelve 404 Not Found
         }
     }
-}
\ No newline at end of file
+
+    // Una versión que no coincide es una precondición fallida si vino en If-Match, o un conflicto si vino en el cuerpo
+    private static HttpStatus estadoConflicto(String ifMatch) {
+        return ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+    }
+}
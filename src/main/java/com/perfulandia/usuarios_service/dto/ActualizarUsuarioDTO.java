@@ -1,5 +1,6 @@
 package com.perfulandia.usuarios_service.dto;
 
-public record ActualizarUsuarioDTO(String nombre, String apellido) {
+// 'version' es opcional: si viene, la actualización solo se aplica si coincide con la versión actual (si no, 409).
+public record ActualizarUsuarioDTO(String nombre, String apellido, Long version) {
 
 }
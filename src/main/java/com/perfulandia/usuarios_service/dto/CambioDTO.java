@@ -0,0 +1,16 @@
+package com.perfulandia.usuarios_service.dto;
+
+import java.time.Instant;
+
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.model.TipoCambio;
+
+// Un cambio del feed: qué pasó y a quién. El estado actual se lee aparte por RUT (GET /api/v1/usuarios/{rut}
+// o el multi-get); 'direccionId' solo viene en los cambios de direcciones.
+public record CambioDTO(
+    TipoCambio tipo,
+    Rut rut,
+    Long direccionId,
+    Instant fecha) {
+
+}
@@ -0,0 +1,15 @@
+package com.perfulandia.usuarios_service.dto;
+
+// Fila de las consultas por prefijo de la búsqueda: el usuario y sus columnas normalizadas, con las que se
+// calcula el puntaje sin volver a normalizar. No se expone en la API.
+public record CandidatoBusquedaDTO(
+    Integer rut,
+    String nombre,
+    String apellido,
+    String email,
+    Long version,
+    String nombreBusqueda,
+    String apellidoBusqueda,
+    String emailBusqueda) {
+
+}
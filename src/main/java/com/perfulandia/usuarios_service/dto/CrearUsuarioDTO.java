@@ -1,7 +1,11 @@
 package com.perfulandia.usuarios_service.dto;
 
+import com.perfulandia.usuarios_service.model.Rut;
+
+// El RUT llega como texto en cualquier formato habitual y Jackson lo valida al leerlo (Rut.parsear):
+// un RUT con dígito verificador incorrecto es un 400, no un usuario más.
 public record CrearUsuarioDTO(    
-    String rut,       
+    Rut rut,       
     String nombre,
     String apellido,   
     String email,
@@ -0,0 +1,7 @@
+package com.perfulandia.usuarios_service.dto;
+
+// Posición actual del feed de cambios (GET /api/v1/cambios/cursor), para empezar a seguirlo desde "ahora"
+public record CursorCambiosDTO(
+    String cursor) {
+
+}
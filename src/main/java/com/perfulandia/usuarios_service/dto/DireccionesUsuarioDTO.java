@@ -0,0 +1,10 @@
+package com.perfulandia.usuarios_service.dto;
+
+import java.util.List;
+
+// Direcciones de un usuario junto a la versión de la lista, con la que el controlador arma el ETag.
+public record DireccionesUsuarioDTO(
+    Long version,
+    List<DireccionResponseDTO> direcciones) {
+
+}
@@ -0,0 +1,16 @@
+package com.perfulandia.usuarios_service.dto;
+
+import java.time.Instant;
+
+import com.perfulandia.usuarios_service.model.TipoCambio;
+
+// Fila de proyección de cambios_usuarios para el feed. 'secuencia' es la posición dentro de su shard;
+// 'usuarioRut' es la columna numérica, tal como sale de la consulta.
+public record FilaCambioDTO(
+    Long secuencia,
+    TipoCambio tipo,
+    Integer usuarioRut,
+    Long direccionId,
+    Instant creado) {
+
+}
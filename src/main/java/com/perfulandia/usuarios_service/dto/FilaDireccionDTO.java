@@ -0,0 +1,19 @@
+package com.perfulandia.usuarios_service.dto;
+
+// Fila de proyección de una dirección junto al RUT de su usuario.
+// En el LEFT JOIN desde usuarios, los campos de dirección vienen en null si el usuario no tiene direcciones.
+// 'usuarioRut' es la columna numérica (sin dígito verificador), tal como sale de la consulta.
+// 'versionDirecciones' solo viene en la consulta de un usuario (para el ETag); el multi-get no la necesita.
+public record FilaDireccionDTO(
+    Integer usuarioRut,
+    Long id,
+    String calle,
+    String numero,
+    String comuna,
+    String ciudad,
+    Long versionDirecciones) {
+
+    public FilaDireccionDTO(Integer usuarioRut, Long id, String calle, String numero, String comuna, String ciudad) {
+        this(usuarioRut, id, calle, numero, comuna, ciudad, null);
+    }
+}
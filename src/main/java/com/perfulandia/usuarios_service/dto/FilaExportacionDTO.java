@@ -0,0 +1,16 @@
+package com.perfulandia.usuarios_service.dto;
+
+// Fila plana del JOIN usuarios LEFT JOIN direcciones_envio usada por la exportación.
+// Los campos de dirección vienen en null cuando el usuario no tiene direcciones; 'rut' es la columna numérica.
+public record FilaExportacionDTO(
+    Integer rut,
+    String nombre,
+    String apellido,
+    String email,
+    Long direccionId,
+    String calle,
+    String numero,
+    String comuna,
+    String ciudad) {
+
+}
@@ -0,0 +1,7 @@
+package com.perfulandia.usuarios_service.dto;
+
+public record LoginDTO(
+    String email,
+    String password) {
+
+}
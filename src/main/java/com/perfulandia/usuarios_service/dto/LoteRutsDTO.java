@@ -0,0 +1,13 @@
+package com.perfulandia.usuarios_service.dto;
+
+import java.util.List;
+
+import com.perfulandia.usuarios_service.model.Rut;
+
+// Cuerpo de POST /api/v1/usuarios/lote: RUTs a resolver (máximo 'usuarios.lote.maximo')
+// y si se incluyen las direcciones de cada usuario. Cada RUT se acepta en cualquier formato y se responde en el canónico.
+public record LoteRutsDTO(
+    List<Rut> ruts,
+    boolean incluirDirecciones) {
+
+}
@@ -0,0 +1,13 @@
+package com.perfulandia.usuarios_service.dto;
+
+import java.util.List;
+
+// Página de resultados de la búsqueda: coincidencias en el apellido, luego en el nombre y luego en el email.
+// 'aproximada' = no hubo coincidencias por prefijo y se muestran las que difieren en uno o dos caracteres.
+// 'next' es un cursor opaco que el cliente reenvía tal cual; es null en la última página.
+public record PaginaBusquedaDTO(
+    List<UsuarioEncontradoDTO> usuarios,
+    boolean aproximada,
+    String next) {
+
+}
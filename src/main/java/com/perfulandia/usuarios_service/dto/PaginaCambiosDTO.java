@@ -0,0 +1,11 @@
+package com.perfulandia.usuarios_service.dto;
+
+import java.util.List;
+
+// Página del feed de cambios. 'cursor' es opaco y nunca null: la posición después del último cambio de la
+// página (o la misma que se envió, si no hubo cambios). El cliente lo reenvía tal cual en la siguiente llamada.
+public record PaginaCambiosDTO(
+    List<CambioDTO> cambios,
+    String cursor) {
+
+}
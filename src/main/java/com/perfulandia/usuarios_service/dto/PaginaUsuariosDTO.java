@@ -0,0 +1,11 @@
+package com.perfulandia.usuarios_service.dto;
+
+import java.util.List;
+
+// Página de usuarios para la paginación por cursor.
+// 'next' es un cursor opaco que el cliente debe reenviar tal cual; es null en la última página.
+public record PaginaUsuariosDTO(
+    List<UsuarioResponseDTO> usuarios,
+    String next) {
+
+}
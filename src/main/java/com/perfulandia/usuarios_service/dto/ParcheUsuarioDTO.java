@@ -0,0 +1,6 @@
+package com.perfulandia.usuarios_service.dto;
+
+// Actualización parcial (PATCH): los campos en null no se modifican. 'version' funciona igual que en el PUT.
+public record ParcheUsuarioDTO(String nombre, String apellido, Long version) {
+
+}
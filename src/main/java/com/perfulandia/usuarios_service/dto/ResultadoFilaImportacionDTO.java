@@ -0,0 +1,12 @@
+package com.perfulandia.usuarios_service.dto;
+
+// Resultado de una fila de la importación masiva.
+// 'fila' es la posición (desde 1) en el arreglo JSON o en el CSV (sin contar la cabecera).
+// 'rut' viene en forma canónica, o tal como se envió si no era un RUT válido.
+public record ResultadoFilaImportacionDTO(
+    int fila,
+    String rut,
+    boolean exitoso,
+    String error) {
+
+}
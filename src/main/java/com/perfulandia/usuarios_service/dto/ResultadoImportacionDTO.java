@@ -0,0 +1,17 @@
+package com.perfulandia.usuarios_service.dto;
+
+import java.util.List;
+
+// Reporte de la importación masiva: totales y el detalle fila por fila.
+// 'truncado': la importación se detuvo antes del final del cuerpo (máximo de filas, cuerpo cortado, JSON inválido
+// o servicio saturado después de confirmar algún lote). Las filas del reporte son exactamente las procesadas, ya
+// confirmadas o fallidas; 'motivo' dice por qué se detuvo y las filas siguientes no se leyeron.
+public record ResultadoImportacionDTO(
+    int total,
+    int exitosos,
+    int fallidos,
+    boolean truncado,
+    String motivo,
+    List<ResultadoFilaImportacionDTO> filas) {
+
+}
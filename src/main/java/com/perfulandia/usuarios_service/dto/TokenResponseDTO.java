@@ -0,0 +1,9 @@
+package com.perfulandia.usuarios_service.dto;
+
+// Token de acceso emitido por el login. 'expiraEn' está en segundos.
+public record TokenResponseDTO(
+    String token,
+    String tipo,
+    long expiraEn) {
+
+}
@@ -0,0 +1,9 @@
+package com.perfulandia.usuarios_service.dto;
+
+// Un resultado de la búsqueda: el usuario y su puntaje (mayor = coincide mejor con la consulta).
+// El puntaje solo sirve para comparar resultados de una misma búsqueda.
+public record UsuarioEncontradoDTO(
+    UsuarioResponseDTO usuario,
+    int puntaje) {
+
+}
@@ -0,0 +1,15 @@
+package com.perfulandia.usuarios_service.dto;
+
+import java.util.List;
+
+import com.perfulandia.usuarios_service.model.Rut;
+
+// Una línea del NDJSON de exportación: el usuario junto con todas sus direcciones.
+public record UsuarioExportacionDTO(
+    Rut rut,
+    String nombre,
+    String apellido,
+    String email,
+    List<DireccionResponseDTO> direcciones) {
+
+}
@@ -0,0 +1,17 @@
+package com.perfulandia.usuarios_service.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.perfulandia.usuarios_service.model.Rut;
+
+// Resultado de un RUT en el multi-get, en la misma posición que en la petición.
+// 'encontrado' = false marca los RUT inexistentes (usuario null); 'direcciones' solo viene si se pidió.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UsuarioLoteDTO(
+    Rut rut,
+    boolean encontrado,
+    UsuarioResponseDTO usuario,
+    List<DireccionResponseDTO> direcciones) {
+
+}
@@ -1,10 +1,16 @@
 package com.perfulandia.usuarios_service.dto;
 
+import com.perfulandia.usuarios_service.model.Rut;
+
 public record UsuarioResponseDTO(
-    String rut,
+    Rut rut,
     String nombre,
     String apellido,
-    String email) {
+    String email,
+    Long version) {
 
-      
+    // Para las proyecciones JPQL, que entregan la columna numérica
+    public UsuarioResponseDTO(Integer rut, String nombre, String apellido, String email, Long version) {
+        this(Rut.de(rut), nombre, apellido, email, version);
+    }
 }
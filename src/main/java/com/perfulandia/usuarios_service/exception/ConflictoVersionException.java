@@ -0,0 +1,10 @@
+package com.perfulandia.usuarios_service.exception;
+
+// Se lanza cuando una escritura condicionada a una versión no afecta filas porque el recurso
+// fue modificado entretanto por otra petición. Se responde 409 Conflict.
+public class ConflictoVersionException extends RuntimeException {
+
+    public ConflictoVersionException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,11 @@
+package com.perfulandia.usuarios_service.exception;
+
+// Se lanza cuando el cursor del feed de cambios apunta a registros que la retención ya borró (o a otra
+// cantidad de shards): seguir desde ahí saltaría cambios. Se responde 410 Gone y el consumidor debe
+// resincronizar (exportación completa) y tomar un cursor nuevo.
+public class CursorVencidoException extends RuntimeException {
+
+    public CursorVencidoException(String mensaje) {
+        super(mensaje);
+    }
+}
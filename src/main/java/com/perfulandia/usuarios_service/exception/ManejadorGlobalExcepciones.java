@@ -0,0 +1,21 @@
+package com.perfulandia.usuarios_service.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+// Manejo global de las excepciones que no dependen de un endpoint en particular.
+// Los "no encontrado" siguen resolviéndose en cada controlador.
+@RestControllerAdvice
+public class ManejadorGlobalExcepciones {
+
+    @ExceptionHandler(ServicioSaturadoException.class)
+    public ResponseEntity<String> manejarServicioSaturado(ServicioSaturadoException e) {
+        long segundos = Math.max(1, e.getReintentarEn().toSeconds());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE) // 503: rechazo rápido, el cliente debe reintentar
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(segundos))
+                .body(e.getMessage());
+    }
+}
@@ -0,0 +1,11 @@
+package com.perfulandia.usuarios_service.exception;
+
+// Se lanza cuando el usuario o la dirección sobre la que se quiere escribir no existe (o la dirección es de otro
+// usuario). Los controladores la responden como 404 Not Found; cualquier otra excepción (pool agotado,
+// restricción violada, error de shard) sigue hasta el manejo global y no se confunde con un "no encontrado".
+public class RecursoNoEncontradoException extends RuntimeException {
+
+    public RecursoNoEncontradoException(String mensaje) {
+        super(mensaje);
+    }
+}
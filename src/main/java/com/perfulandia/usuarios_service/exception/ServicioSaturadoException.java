@@ -0,0 +1,19 @@
+package com.perfulandia.usuarios_service.exception;
+
+import java.time.Duration;
+
+// Se lanza cuando un recurso acotado (ej. el ejecutor de hashing) está lleno y la petición se rechaza
+// de inmediato en vez de encolarse sin límite. Se responde 503 con la cabecera Retry-After.
+public class ServicioSaturadoException extends RuntimeException {
+
+    private final Duration reintentarEn;
+
+    public ServicioSaturadoException(String mensaje, Duration reintentarEn) {
+        super(mensaje);
+        this.reintentarEn = reintentarEn;
+    }
+
+    public Duration getReintentarEn() {
+        return reintentarEn;
+    }
+}
@@ -0,0 +1,48 @@
+package com.perfulandia.usuarios_service.metricas;
+
+// Acumula, por hilo, las sentencias SQL ejecutadas y el tiempo que pasaron en la BD durante una petición.
+// FiltroMetricasSql lo abre y lo cierra; EscuchaSqlHibernate lo alimenta desde Hibernate.
+// Fuera de una petición (tareas, streaming asíncrono) no hay acumulador y las mediciones se ignoran.
+public final class ContadorSql {
+
+    private static final ThreadLocal<Acumulado> ACTUAL = new ThreadLocal<>();
+
+    private ContadorSql() {
+    }
+
+    public static final class Acumulado {
+        private int sentencias;
+        private long nanos;
+
+        public int getSentencias() {
+            return sentencias;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    static Acumulado iniciar() {
+        Acumulado acumulado = new Acumulado();
+        ACTUAL.set(acumulado);
+        return acumulado;
+    }
+
+    static void terminar() {
+        ACTUAL.remove();
+    }
+
+    // Acumulado de la petición en curso en este hilo, o null si no hay ninguna
+    public static Acumulado actual() {
+        return ACTUAL.get();
+    }
+
+    static void registrar(long nanos) {
+        Acumulado acumulado = ACTUAL.get();
+        if (acumulado != null) {
+            acumulado.sentencias++;
+            acumulado.nanos += nanos;
+        }
+    }
+}
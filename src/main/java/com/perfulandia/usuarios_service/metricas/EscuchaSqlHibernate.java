@@ -0,0 +1,32 @@
+package com.perfulandia.usuarios_service.metricas;
+
+import org.hibernate.SessionEventListener;
+
+// Listener de sesión de Hibernate (hibernate.session.events.auto): Hibernate crea una instancia por sesión
+// y avisa antes y después de cada ejecución JDBC. Cada sentencia (o lote JDBC completo) suma uno al
+// ContadorSql de la petición, junto con su tiempo de ejecución.
+public class EscuchaSqlHibernate implements SessionEventListener {
+
+    private long inicioSentencia;
+    private long inicioLote;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        inicioSentencia = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        ContadorSql.registrar(System.nanoTime() - inicioSentencia);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        inicioLote = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        ContadorSql.registrar(System.nanoTime() - inicioLote);
+    }
+}
@@ -0,0 +1,116 @@
+package com.perfulandia.usuarios_service.metricas;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Publica por petición cuántas sentencias SQL se ejecutaron y cuánto tiempo pasaron en la BD:
+// - usuarios.sql.sentencias{uri,method}: distribución del número de sentencias por petición
+// - usuarios.sql.tiempo{uri,method}: tiempo total de JDBC por petición
+// 'uri' es el patrón del endpoint (/api/v1/usuarios/{rut}), igual que en http.server.requests,
+// para no crear una serie por cada RUT.
+//
+// Además (fuera de producción) agrega las cabeceras X-Sql-Sentencias y X-Sql-Tiempo-Ms a la respuesta, y
+// avisa en el log cuando un endpoint supera su presupuesto de sentencias (usuarios.sql.presupuestos):
+// así un N+1 nuevo se nota en la primera petición de desarrollo, no en producción.
+// No es un @Component: lo registra MetricasConfig solo para /api/*.
+public class FiltroMetricasSql extends OncePerRequestFilter {
+
+    public static final String CABECERA_SENTENCIAS = "X-Sql-Sentencias";
+    public static final String CABECERA_TIEMPO = "X-Sql-Tiempo-Ms";
+
+    private static final Logger log = LoggerFactory.getLogger(FiltroMetricasSql.class);
+
+    private final MeterRegistry meterRegistry;
+    private final boolean cabeceras;
+    private final Map<String, Integer> presupuestos; // "GET /api/v1/usuarios/{rut}" -> máximo de sentencias
+    private final int presupuestoPorDefecto;
+
+    public FiltroMetricasSql(MeterRegistry meterRegistry, boolean cabeceras, Map<String, Integer> presupuestos,
+                             int presupuestoPorDefecto) {
+        this.meterRegistry = meterRegistry;
+        this.cabeceras = cabeceras;
+        this.presupuestos = presupuestos;
+        this.presupuestoPorDefecto = presupuestoPorDefecto;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContadorSql.Acumulado acumulado = ContadorSql.iniciar();
+        HttpServletResponse respuesta = cabeceras ? new CabecerasAlConfirmar(response, acumulado) : response;
+        try {
+            filterChain.doFilter(request, respuesta);
+        } finally {
+            ContadorSql.terminar();
+            if (cabeceras && !response.isCommitted()) {
+                escribirCabeceras(response, acumulado);
+            }
+            registrar(request, acumulado);
+        }
+    }
+
+    private void registrar(HttpServletRequest request, ContadorSql.Acumulado acumulado) {
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = patron != null ? patron.toString() : "UNKNOWN";
+        String metodo = request.getMethod();
+        DistributionSummary.builder("usuarios.sql.sentencias")
+                .description("Sentencias SQL ejecutadas por petición")
+                .tags("uri", uri, "method", metodo)
+                .register(meterRegistry)
+                .record(acumulado.getSentencias());
+        Timer.builder("usuarios.sql.tiempo")
+                .description("Tiempo total en la BD por petición")
+                .tags("uri", uri, "method", metodo)
+                .register(meterRegistry)
+                .record(acumulado.getNanos(), TimeUnit.NANOSECONDS);
+
+        int presupuesto = presupuestos.getOrDefault(metodo + " " + uri, presupuestoPorDefecto);
+        if (acumulado.getSentencias() > presupuesto) {
+            Counter.builder("usuarios.sql.presupuesto.excedido")
+                    .description("Peticiones que ejecutaron más sentencias SQL que su presupuesto")
+                    .tags("uri", uri, "method", metodo)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("{} {} ejecutó {} sentencias SQL (presupuesto {}): posible N+1", metodo, uri,
+                    acumulado.getSentencias(), presupuesto);
+        }
+    }
+
+    private static void escribirCabeceras(HttpServletResponse response, ContadorSql.Acumulado acumulado) {
+        response.setHeader(CABECERA_SENTENCIAS, String.valueOf(acumulado.getSentencias()));
+        response.setHeader(CABECERA_TIEMPO, String.format(Locale.ROOT, "%.3f", acumulado.getNanos() / 1_000_000.0));
+    }
+
+    // Las cabeceras deben ir antes de que se confirme la respuesta: se escriben justo en ese momento
+    // (al primer flush del cuerpo, que en Spring MVC ocurre cuando el controlador ya terminó su trabajo en la BD).
+    private static final class CabecerasAlConfirmar extends OnCommittedResponseWrapper {
+        private final ContadorSql.Acumulado acumulado;
+
+        CabecerasAlConfirmar(HttpServletResponse response, ContadorSql.Acumulado acumulado) {
+            super(response);
+            this.acumulado = acumulado;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            escribirCabeceras((HttpServletResponse) getResponse(), acumulado);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.perfulandia.usuarios_service.model;
+
+import java.time.Instant;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Bandeja de salida (outbox) del feed de cambios: una fila por alta, modificación o baja de un usuario o de
+// una dirección, insertada en la MISMA transacción que la escritura (ver RegistroCambios). Si la escritura
+// se revierte, su registro también; si se confirma, el registro existe.
+//
+// 'id' (AUTO_INCREMENT) solo ordena las filas al numerarlas. El orden del feed es 'secuencia', que
+// SecuenciadorCambios asigna DESPUÉS del commit y de forma estrictamente creciente: un lector que avanzó
+// hasta la secuencia N nunca verá aparecer después una fila con secuencia menor (ver SecuenciadorCambios).
+// Mientras la escritura no se confirma la fila no es visible, y hasta que se numera queda con secuencia null.
+//
+// Las filas se escriben con INSERT nativo (CambioUsuarioRepository) y no con persist(): con IDENTITY,
+// Hibernate no agrupa INSERT y la importación necesita uno solo por lote.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "cambios_usuarios", indexes = {
+        // Lectura del feed (secuencia > cursor) y búsqueda de las filas sin numerar (secuencia IS NULL)
+        @Index(name = "uk_cambios_secuencia", columnList = "secuencia", unique = true),
+        // Compactación: registros anteriores del mismo usuario
+        @Index(name = "idx_cambios_usuario_secuencia", columnList = "usuario_rut, secuencia"),
+        // Retención: registros más antiguos que 'usuarios.cambios.retencion'
+        @Index(name = "idx_cambios_creado", columnList = "creado")
+})
+public class CambioUsuario {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "secuencia")
+    private Long secuencia;
+
+    // VARCHAR y no el ENUM nativo que Hibernate crearía en MySQL: un tipo nuevo no requiere ALTER TABLE
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "tipo", length = 30, nullable = false)
+    private TipoCambio tipo;
+
+    @Column(name = "usuario_rut", nullable = false)
+    private Integer usuarioRut;
+
+    @Column(name = "direccion_id")
+    private Long direccionId; // Solo en los cambios de direcciones
+
+    @Column(name = "creado", nullable = false)
+    private Instant creado;
+}
@@ -3,9 +3,9 @@ package com.perfulandia.usuarios_service.model;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -19,10 +19,11 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "direcciones_envio")
+// Índice explícito sobre la FK: la consulta más frecuente (direcciones de un usuario, en cada checkout) filtra por ella
+@Table(name = "direcciones_envio", indexes = @Index(name = "idx_direcciones_usuarios_rut", columnList = "USUARIOS_rut"))
 public class DireccionEnvio {
   @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Para que MySQL maneje el auto-incremento del ID
+    @IdDireccion // ID asignado antes del INSERT (tabla hi/lo o TSID), para que los INSERT se puedan agrupar en lotes
     @Column(name = "id", nullable = false, unique = true) // El 'id' de la tabla direcciones_envio
     private Long id; // NUMBER(9) en tu diagrama se mapea bien a Long en Java
 
@@ -40,8 +41,9 @@ public class DireccionEnvio {
 
     // Relación Muchos-a-Uno con Usuario
     // La columna 'USUARIOS_rut' en esta tabla 'direcciones_envio'
-    // hace referencia a la columna 'rut' en la tabla 'usuarios'.
+    // hace referencia a la columna 'rut' en la tabla 'usuarios' (INT, igual que la clave de Usuario).
     @ManyToOne(fetch = FetchType.LAZY) // LAZY es generalmente preferido para el rendimiento
-    @JoinColumn(name = "USUARIOS_rut", referencedColumnName = "rut", nullable = false)
+    @JoinColumn(name = "USUARIOS_rut", referencedColumnName = "rut", nullable = false,
+            foreignKey = @ForeignKey(name = "fk_direcciones_usuarios"))
     private Usuario usuario;
 }
@@ -0,0 +1,121 @@
+package com.perfulandia.usuarios_service.model;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+// Generador de IDs para DireccionEnvio que, a diferencia de IDENTITY, asigna el ID ANTES del INSERT.
+// Así Hibernate puede agrupar los INSERT de direcciones en lotes JDBC ('hibernate.jdbc.batch_size').
+//
+// Estrategias (propiedad 'spring.jpa.properties.perfulandia.direcciones.id-estrategia'):
+//   tsid:  (por defecto) IDs de 64 bits ordenados por tiempo generados en la aplicación, sin ningún acceso a la BD:
+//          42 bits de milisegundos desde 2024-01-01 | 10 bits de nodo | 12 bits de contador.
+//          Ojo: superan 2^53, así que clientes JavaScript deben tratarlos como texto.
+//   tabla: hi/lo sobre la tabla 'secuencias_id' con optimizador pooled-lo. Se reserva un bloque
+//          de 'id-tamano-bloque' IDs por cada acceso a la tabla. Funciona en MySQL (que no tiene secuencias).
+//          Hibernate reserva el bloque en una transacción aparte, con una SEGUNDA conexión del pool, mientras la
+//          petición retiene la suya: si hay tantas altas a la vez como conexiones, todas esperan una segunda
+//          conexión que nadie suelta y terminan en el connection-timeout de Hikari. Solo sirve con un pool
+//          holgado frente a las altas concurrentes (o IDs chicos para clientes que no admiten 64 bits).
+public class DireccionIdGenerator implements IdentifierGenerator {
+
+    public static final String ESTRATEGIA = "perfulandia.direcciones.id-estrategia";
+    public static final String TAMANO_BLOQUE = "perfulandia.direcciones.id-tamano-bloque";
+    public static final String VALOR_INICIAL = "perfulandia.direcciones.id-valor-inicial";
+    public static final String NODO = "perfulandia.direcciones.id-nodo";
+
+    private static final long EPOCA_TSID = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int BITS_CONTADOR = 12;
+    private static final int BITS_NODO = 10;
+    private static final long MAX_CONTADOR = (1L << BITS_CONTADOR) - 1;
+
+    private TableGenerator tabla; // null cuando la estrategia es 'tsid'
+    private long nodo;
+    // Estado del TSID empaquetado en un solo long (milisegundo << 12 | contador) para actualizarlo con CAS,
+    // sin 'synchronized' (que fijaría hilos virtuales a su carrier).
+    private final AtomicLong estadoTsid = new AtomicLong();
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Map<String, Object> ajustes = serviceRegistry.requireService(ConfigurationService.class).getSettings();
+        String estrategia = String.valueOf(ajustes.getOrDefault(ESTRATEGIA, "tsid")).trim().toLowerCase();
+
+        switch (estrategia) {
+            case "tabla" -> {
+                Properties parametrosTabla = new Properties();
+                parametrosTabla.putAll(params);
+                parametrosTabla.put(TableGenerator.TABLE_PARAM, "secuencias_id");
+                parametrosTabla.put(TableGenerator.SEGMENT_VALUE_PARAM, "direcciones_envio");
+                parametrosTabla.put(TableGenerator.INCREMENT_PARAM, String.valueOf(ajustes.getOrDefault(TAMANO_BLOQUE, "50")));
+                parametrosTabla.put(TableGenerator.INITIAL_PARAM, String.valueOf(ajustes.getOrDefault(VALOR_INICIAL, "1")));
+                parametrosTabla.put(TableGenerator.OPT_PARAM, "pooled-lo");
+                tabla = new TableGenerator();
+                tabla.configure(type, parametrosTabla, serviceRegistry);
+            }
+            case "tsid" -> {
+                Object nodoConfigurado = ajustes.get(NODO);
+                // Sin nodo configurado se elige uno al azar; con varias instancias conviene fijarlo por despliegue.
+                nodo = (nodoConfigurado == null || String.valueOf(nodoConfigurado).isBlank())
+                        ? ThreadLocalRandom.current().nextLong(1L << BITS_NODO)
+                        : Long.parseLong(String.valueOf(nodoConfigurado).trim());
+                if (nodo < 0 || nodo >= (1L << BITS_NODO)) {
+                    throw new MappingException("'" + NODO + "' debe estar entre 0 y " + ((1L << BITS_NODO) - 1));
+                }
+            }
+            default -> throw new MappingException("Estrategia de ID desconocida para direcciones: '" + estrategia
+                    + "' (valores válidos: tabla, tsid)");
+        }
+    }
+
+    @Override
+    public void registerExportables(Database database) {
+        if (tabla != null) {
+            tabla.registerExportables(database); // Crea la tabla 'secuencias_id' con el DDL de Hibernate
+        }
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        if (tabla != null) {
+            tabla.initialize(context);
+        }
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return (tabla != null) ? tabla.generate(session, object) : siguienteTsid();
+    }
+
+    private long siguienteTsid() {
+        while (true) {
+            long anterior = estadoTsid.get();
+            long msAnterior = anterior >>> BITS_CONTADOR;
+            long ahora = System.currentTimeMillis() - EPOCA_TSID;
+            long nuevo;
+            if (ahora > msAnterior) {
+                nuevo = ahora << BITS_CONTADOR;
+            } else if ((anterior & MAX_CONTADOR) < MAX_CONTADOR) {
+                nuevo = anterior + 1; // Mismo milisegundo (o reloj atrasado): se incrementa el contador
+            } else {
+                nuevo = (msAnterior + 1) << BITS_CONTADOR; // Contador agotado: se avanza al siguiente milisegundo
+            }
+            if (estadoTsid.compareAndSet(anterior, nuevo)) {
+                long ms = nuevo >>> BITS_CONTADOR;
+                long contador = nuevo & MAX_CONTADOR;
+                return (ms << (BITS_NODO + BITS_CONTADOR)) | (nodo << BITS_CONTADOR) | contador;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.perfulandia.usuarios_service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Fila única (id = 1) por base con el estado del feed de cambios. SecuenciadorCambios la bloquea
+// (SELECT ... FOR UPDATE) mientras numera o purga, así varias instancias de la aplicación no se pisan.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "cambios_estado")
+public class EstadoCambios {
+
+    public static final int ID = 1;
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private Integer id;
+
+    // Última secuencia asignada: la posición más reciente del feed
+    @Column(name = "ultima_secuencia", nullable = false)
+    private Long ultimaSecuencia;
+
+    // Mayor secuencia borrada por la retención: un cursor anterior ya no puede leerse completo (410)
+    @Column(name = "purgada_hasta", nullable = false)
+    private Long purgadaHasta;
+
+    // Hasta dónde llegó la compactación (solo para no repasar los mismos registros)
+    @Column(name = "compactada_hasta", nullable = false)
+    private Long compactadaHasta;
+
+    public static EstadoCambios inicial() {
+        return new EstadoCambios(ID, 0L, 0L, 0L);
+    }
+}
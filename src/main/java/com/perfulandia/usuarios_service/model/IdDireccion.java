@@ -0,0 +1,18 @@
+package com.perfulandia.usuarios_service.model;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+// Marca el ID de DireccionEnvio para que lo genere DireccionIdGenerator.
+// La estrategia concreta (tabla hi/lo o TSID) se elige por despliegue en application.properties.
+@IdGeneratorType(DireccionIdGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface IdDireccion {
+}
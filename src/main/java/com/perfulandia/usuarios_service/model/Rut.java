@@ -0,0 +1,107 @@
+package com.perfulandia.usuarios_service.model;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+// RUT chileno como valor: solo el número (lo que se guarda como clave INT); el dígito verificador se calcula.
+// Acepta los formatos habituales ("12.345.678-9", "12345678-9", "123456789", "12345678-k") y siempre se muestra
+// en forma canónica: sin puntos, con guion y 'K' mayúscula. En JSON (y CBOR/Smile) viaja como texto en esa forma.
+@JsonSerialize(using = Rut.Serializador.class)
+public record Rut(int numero) implements Comparable<Rut> {
+
+    private static final int MAXIMO = 99_999_999;
+
+    public Rut {
+        if (numero < 1 || numero > MAXIMO) {
+            throw new IllegalArgumentException("RUT fuera de rango: " + numero);
+        }
+    }
+
+    public static Rut de(int numero) {
+        return new Rut(numero);
+    }
+
+    // Valida el dígito verificador (módulo 11); IllegalArgumentException si el texto no es un RUT válido
+    @JsonCreator
+    public static Rut parsear(String texto) {
+        if (texto == null) {
+            throw new IllegalArgumentException("El RUT es obligatorio");
+        }
+        StringBuilder limpio = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c != '.' && c != '-' && c != ' ') {
+                limpio.append(c);
+            }
+        }
+        int largo = limpio.length();
+        if (largo < 2 || largo > 9) {
+            throw new IllegalArgumentException("RUT inválido: '" + texto + "'");
+        }
+        int numero = 0;
+        for (int i = 0; i < largo - 1; i++) {
+            char c = limpio.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("RUT inválido: '" + texto + "'");
+            }
+            numero = numero * 10 + (c - '0');
+        }
+        char digito = Character.toUpperCase(limpio.charAt(largo - 1));
+        if (numero < 1 || digito != calcularDigitoVerificador(numero)) {
+            throw new IllegalArgumentException("RUT inválido: '" + texto + "'");
+        }
+        return new Rut(numero);
+    }
+
+    public char digitoVerificador() {
+        return calcularDigitoVerificador(numero);
+    }
+
+    // Módulo 11 con factores 2..7 desde el dígito menos significativo: 11 => '0', 10 => 'K'
+    static char calcularDigitoVerificador(int numero) {
+        int suma = 0;
+        int factor = 2;
+        for (int resto = numero; resto > 0; resto /= 10) {
+            suma += (resto % 10) * factor;
+            factor = (factor == 7) ? 2 : factor + 1;
+        }
+        int digito = 11 - (suma % 11);
+        return digito == 11 ? '0' : digito == 10 ? 'K' : (char) ('0' + digito);
+    }
+
+    @Override
+    public int compareTo(Rut otro) {
+        return Integer.compare(numero, otro.numero);
+    }
+
+    @Override
+    public String toString() {
+        return numero + "-" + digitoVerificador();
+    }
+
+    // Escribe la forma canónica directo desde un char[] corto, sin armar el String de toString(): en un listado
+    // grande es una asignación menos (y más chica) por usuario, en cualquiera de los formatos de respuesta.
+    static final class Serializador extends StdSerializer<Rut> {
+
+        Serializador() {
+            super(Rut.class);
+        }
+
+        @Override
+        public void serialize(Rut rut, JsonGenerator generador, SerializerProvider proveedor) throws IOException {
+            char[] texto = new char[10]; // 8 dígitos, guion y dígito verificador
+            int inicio = texto.length - 2;
+            texto[texto.length - 1] = rut.digitoVerificador();
+            texto[inicio] = '-';
+            for (int resto = rut.numero; resto > 0; resto /= 10) {
+                texto[--inicio] = (char) ('0' + resto % 10);
+            }
+            generador.writeString(texto, inicio, texto.length - inicio);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.perfulandia.usuarios_service.model;
+
+// Qué pasó en un registro de cambios_usuarios. El registro solo identifica al usuario (y a la dirección);
+// quien lo consume vuelve a leer el estado actual por RUT.
+public enum TipoCambio {
+    USUARIO_CREADO,
+    USUARIO_ACTUALIZADO,
+    USUARIO_ELIMINADO,
+    DIRECCION_CREADA,
+    DIRECCION_ACTUALIZADA,
+    DIRECCION_ELIMINADA
+}
@@ -8,23 +8,40 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.perfulandia.usuarios_service.busqueda.TextoBusqueda;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "usuarios")
+// Un índice por columna de búsqueda: cada búsqueda por prefijo es un rango del índice, recorrido en orden
+// (valor, rut) desde el cursor (ver BusquedaUsuariosServiceImpl)
+@Table(name = "usuarios", indexes = {
+        @Index(name = "idx_usuarios_nombre_busqueda", columnList = "nombre_busqueda, rut"),
+        @Index(name = "idx_usuarios_apellido_busqueda", columnList = "apellido_busqueda, rut"),
+        @Index(name = "idx_usuarios_email_busqueda", columnList = "email_busqueda, rut")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_usuarios_email", columnNames = "email")) // Mismo nombre que en db/versiones
 public class Usuario {
   @Id // Marca este campo como la Clave Primaria
-    @Column(name = "rut", length = 10, nullable = false, unique = true)
-    private String rut;
+    // Solo el número del RUT, como INT: el dígito verificador se deriva (ver Rut) y el formato ("12.345.678-9",
+    // "12345678-9") se normaliza en la frontera, así no hay dos claves para la misma persona.
+    // 4 bytes en vez de un VARCHAR(10) en la PK, en la FK de direcciones_envio y en cada índice que las contiene.
+    // Bases existentes con la clave de texto: db/migracion/rut-numerico.sql.
+    @Column(name = "rut", nullable = false, unique = true)
+    private Integer rut;
 
     @Column(name = "nombre", length = 255, nullable = false)
     private String nombre;
@@ -34,7 +51,7 @@ public class Usuario {
     @Column(name = "apellido", length = 255, nullable = false)
     private String apellido;
 
-    @Column(name = "email", length = 255, nullable = false, unique = true)
+    @Column(name = "email", length = 255, nullable = false)
     private String email;
 
     // El nombre de la columna en la BD es "password" según tu diagrama.
@@ -42,6 +59,30 @@ public class Usuario {
     @Column(name = "password", length = 255, nullable = false)
     private String passwordHash;
 
+    // Copias normalizadas (minúsculas, sin tildes; ver TextoBusqueda) de nombre, apellido y email para la búsqueda
+    // por prefijo. Se calculan al insertar (@PrePersist) y los UPDATE por clave del repositorio las reciben junto
+    // con el valor original, así nunca quedan desfasadas. Bases existentes: db/migracion/busqueda-usuarios.sql.
+    @Column(name = "nombre_busqueda", length = 255, nullable = false)
+    private String nombreBusqueda;
+
+    @Column(name = "apellido_busqueda", length = 255, nullable = false)
+    private String apellidoBusqueda;
+
+    @Column(name = "email_busqueda", length = 255, nullable = false)
+    private String emailBusqueda;
+
+    // Control de concurrencia optimista: las actualizaciones la comparan y la incrementan en la misma sentencia.
+    // Se expone en las respuestas para que el cliente la reenvíe en PUT/PATCH.
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    // Versión de la lista de direcciones (ETag de GET /usuarios/{rut}/direcciones). Cada escritura de direcciones
+    // la incrementa con un UPDATE por clave; no toca 'version', así el ETag del usuario no cambia por sus direcciones.
+    @Column(name = "version_direcciones", nullable = false)
+    @Builder.Default
+    private Long versionDirecciones = 0L;
+
     // Relación Uno-a-Muchos con DireccionesEnvio
     // "mappedBy = "usuario"" indica que el lado dueño de la relación está en la entidad DireccionEnvio,
     // en un campo llamado "usuario".
@@ -51,4 +92,12 @@ public class Usuario {
     @OneToMany(mappedBy = "usuario", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @Builder.Default // Asegura que la lista se inicialice si usas el Builder
     private List<DireccionEnvio> direccionesEnvio = new ArrayList<>();
+
+    @PrePersist
+    @PreUpdate
+    void normalizarParaBusqueda() {
+        nombreBusqueda = TextoBusqueda.normalizar(nombre);
+        apellidoBusqueda = TextoBusqueda.normalizar(apellido);
+        emailBusqueda = TextoBusqueda.normalizar(email);
+    }
 }
@@ -0,0 +1,174 @@
+package com.perfulandia.usuarios_service.replicas;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// DataSource que envía las transacciones @Transactional(readOnly = true) a los pools de las réplicas y
+// todo lo demás (escrituras, trabajo sin transacción) a la primaria.
+// ReplicasConfig lo envuelve en un LazyConnectionDataSourceProxy: la conexión física se pide recién en la
+// primera sentencia, cuando la transacción ya está registrada y se sabe si es de solo lectura.
+//
+// - Balanceo: RONDA (round-robin) o MENOS_PENDIENTES (la réplica con menos conexiones en uso + hilos esperando).
+// - Salud: una tarea verifica cada réplica cada 'usuarios.replicas.verificacion-cada' y la saca o la reincorpora.
+//   Si pedir una conexión falla, la réplica se expulsa en el acto y se prueba la siguiente.
+// - Respaldo: sin réplicas sanas, o dentro de la ventana de LecturaPropia, la lectura va a la primaria.
+public class EnrutadorReplicas extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrutadorReplicas.class);
+
+    public enum Balanceo { RONDA, MENOS_PENDIENTES }
+
+    private final DataSource primaria;
+    private final List<Replica> replicas;
+    private volatile List<Replica> sanas; // Se recalcula solo cuando una réplica cambia de estado
+    private final Balanceo balanceo;
+    private final AtomicInteger turno = new AtomicInteger();
+    private final ScheduledExecutorService verificador;
+    private final Counter respaldos;
+
+    public EnrutadorReplicas(DataSource primaria, List<HikariDataSource> pools, Balanceo balanceo,
+                             Duration verificacionCada, MeterRegistry meterRegistry) {
+        this.primaria = primaria;
+        this.balanceo = balanceo;
+        this.replicas = new ArrayList<>(pools.size());
+        for (HikariDataSource pool : pools) {
+            replicas.add(new Replica(pool));
+        }
+        this.sanas = List.copyOf(replicas);
+        this.respaldos = Counter.builder("usuarios.replicas.respaldo")
+                .description("Lecturas de solo lectura enviadas a la primaria por no haber réplicas sanas")
+                .register(meterRegistry);
+        Gauge.builder("usuarios.replicas.sanas", this, enrutador -> enrutador.sanas.size())
+                .description("Réplicas de lectura que reciben tráfico")
+                .register(meterRegistry);
+
+        verificarSalud(); // Al arrancar: una réplica caída no recibe tráfico desde la primera petición
+        this.verificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "verificador-replicas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        verificador.scheduleWithFixedDelay(this::verificarSalud,
+                verificacionCada.toMillis(), verificacionCada.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || LecturaPropia.enCurso()) {
+            return primaria.getConnection();
+        }
+        for (int intento = 0; intento < replicas.size(); intento++) {
+            Replica replica = elegir();
+            if (replica == null) {
+                break;
+            }
+            try {
+                return replica.pool.getConnection();
+            } catch (SQLException e) {
+                marcar(replica, false, e.getMessage());
+            }
+        }
+        respaldos.increment();
+        return primaria.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Las réplicas usan las credenciales de su pool");
+    }
+
+    // El pool de la primaria sigue accesible (ej. para leer su tamaño máximo o publicar sus métricas)
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : primaria.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primaria.isWrapperFor(iface);
+    }
+
+    // Réplica sana según el balanceo configurado, o null si no queda ninguna
+    private Replica elegir() {
+        List<Replica> candidatas = sanas;
+        if (candidatas.isEmpty()) {
+            return null;
+        }
+        if (balanceo == Balanceo.MENOS_PENDIENTES) {
+            Replica mejor = candidatas.get(0);
+            for (Replica replica : candidatas) {
+                if (replica.pendientes() < mejor.pendientes()) {
+                    mejor = replica;
+                }
+            }
+            return mejor;
+        }
+        return candidatas.get(Math.floorMod(turno.getAndIncrement(), candidatas.size()));
+    }
+
+    void verificarSalud() {
+        for (Replica replica : replicas) {
+            try (Connection conexion = replica.pool.getConnection()) {
+                marcar(replica, conexion.isValid(2), "la conexión no es válida");
+            } catch (SQLException | RuntimeException e) {
+                marcar(replica, false, e.getMessage());
+            }
+        }
+    }
+
+    // Solo se registra el cambio de estado, no cada verificación
+    private synchronized void marcar(Replica replica, boolean sana, String motivo) {
+        if (replica.sana == sana) {
+            return;
+        }
+        replica.sana = sana;
+        sanas = replicas.stream().filter(r -> r.sana).toList();
+        if (sana) {
+            log.info("Réplica {} reincorporada", replica.pool.getPoolName());
+        } else {
+            log.warn("Réplica {} fuera de servicio: {}", replica.pool.getPoolName(), motivo);
+        }
+    }
+
+    @Override
+    public void close() {
+        verificador.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static final class Replica {
+        private final HikariDataSource pool;
+        private volatile boolean sana = true;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+
+        private int pendientes() {
+            HikariPoolMXBean estado = pool.getHikariPoolMXBean();
+            return estado == null ? 0 : estado.getActiveConnections() + estado.getThreadsAwaitingConnection();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.perfulandia.usuarios_service.replicas;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Ventana de "leer lo propio" (read-your-writes): durante 'usuarios.replicas.lectura-propia' después de una
+// escritura exitosa, las lecturas del mismo cliente van a la primaria en vez de a una réplica.
+//
+// - El cliente se identifica por su cabecera Authorization si la trae y, si no, por su dirección IP.
+// - Escritura = método no seguro (POST, PUT, PATCH, DELETE) con respuesta 2xx. Los POST que solo leen
+//   (ej. /usuarios/lote) también abren la ventana: cuesta unas lecturas extra en la primaria, nunca un dato viejo.
+//
+// No es un @Component: lo registra ReplicasConfig solo para /api/*, y solo con réplicas y ventana > 0.
+public class FiltroLecturaPropia extends OncePerRequestFilter {
+
+    private final Cache<String, Boolean> escriturasRecientes;
+
+    public FiltroLecturaPropia(Duration ventana) {
+        this.escriturasRecientes = Caffeine.newBuilder()
+                .expireAfterWrite(ventana)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String cliente = identificarCliente(request);
+        if (escriturasRecientes.getIfPresent(cliente) != null) {
+            LecturaPropia.forzarPrimaria();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            LecturaPropia.terminar();
+        }
+        if (esEscritura(request.getMethod()) && response.getStatus() >= 200 && response.getStatus() < 300) {
+            escriturasRecientes.put(cliente, Boolean.TRUE);
+        }
+    }
+
+    private static String identificarCliente(HttpServletRequest request) {
+        String autorizacion = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return autorizacion != null ? autorizacion : request.getRemoteAddr();
+    }
+
+    private static boolean esEscritura(String metodo) {
+        return switch (metodo) {
+            case "POST", "PUT", "PATCH", "DELETE" -> true;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package com.perfulandia.usuarios_service.replicas;
+
+// Marca, por hilo, que la petición en curso debe leer de la primaria aunque su transacción sea de solo lectura:
+// el mismo cliente escribió hace poco y una réplica con retraso podría devolverle el dato anterior.
+// FiltroLecturaPropia la abre y la cierra; EnrutadorReplicas la consulta al elegir la conexión.
+public final class LecturaPropia {
+
+    private static final ThreadLocal<Boolean> FORZAR_PRIMARIA = new ThreadLocal<>();
+
+    private LecturaPropia() {
+    }
+
+    static void forzarPrimaria() {
+        FORZAR_PRIMARIA.set(Boolean.TRUE);
+    }
+
+    static void terminar() {
+        FORZAR_PRIMARIA.remove();
+    }
+
+    public static boolean enCurso() {
+        return FORZAR_PRIMARIA.get() != null;
+    }
+}
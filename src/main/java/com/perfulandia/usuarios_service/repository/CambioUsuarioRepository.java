@@ -0,0 +1,75 @@
+package com.perfulandia.usuarios_service.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.perfulandia.usuarios_service.dto.FilaCambioDTO;
+import com.perfulandia.usuarios_service.model.CambioUsuario;
+
+// Igual que UsuarioRepository: consultas de solo lectura por defecto; las @Modifying se unen a la
+// transacción de escritura de quien las llama (RegistroCambios, SecuenciadorCambios).
+@Repository
+@Transactional(readOnly = true)
+public interface CambioUsuarioRepository extends JpaRepository<CambioUsuario, Long> {
+
+    // Registro de un cambio, sin secuencia (la asigna SecuenciadorCambios después del commit)
+    @Modifying
+    @Query(value = "INSERT INTO cambios_usuarios (tipo, usuario_rut, direccion_id, creado) "
+            + "VALUES (:tipo, :usuarioRut, :direccionId, :creado)", nativeQuery = true)
+    int registrar(@Param("tipo") String tipo,
+                  @Param("usuarioRut") Integer usuarioRut,
+                  @Param("direccionId") Long direccionId,
+                  @Param("creado") Instant creado);
+
+    // Un registro por cada usuario de 'ruts' que exista, en una sola sentencia (lotes de la importación).
+    // Los usuarios deben estar ya escritos en la transacción (flush previo).
+    @Modifying
+    @Query(value = "INSERT INTO cambios_usuarios (tipo, usuario_rut, creado) "
+            + "SELECT :tipo, u.rut, :creado FROM usuarios u WHERE u.rut IN (:ruts)", nativeQuery = true)
+    int registrarPorRuts(@Param("tipo") String tipo,
+                         @Param("ruts") Collection<Integer> ruts,
+                         @Param("creado") Instant creado);
+
+    // Un registro por cada dirección de 'ids', en una sola sentencia (altas de direcciones agrupadas)
+    @Modifying
+    @Query(value = "INSERT INTO cambios_usuarios (tipo, usuario_rut, direccion_id, creado) "
+            + "SELECT :tipo, d.USUARIOS_rut, d.id, :creado FROM direcciones_envio d WHERE d.id IN (:ids) ORDER BY d.id",
+            nativeQuery = true)
+    int registrarPorDirecciones(@Param("tipo") String tipo,
+                                @Param("ids") Collection<Long> ids,
+                                @Param("creado") Instant creado);
+
+    // Registros confirmados aún sin numerar, en orden de inserción
+    @Query("SELECT c FROM CambioUsuario c WHERE c.secuencia IS NULL ORDER BY c.id")
+    List<CambioUsuario> findSinSecuencia(Limit limite);
+
+    // Página del feed: los registros numerados después de 'secuencia', en orden
+    @Query("SELECT new com.perfulandia.usuarios_service.dto.FilaCambioDTO(c.secuencia, c.tipo, c.usuarioRut, c.direccionId, c.creado) "
+            + "FROM CambioUsuario c WHERE c.secuencia > :secuencia ORDER BY c.secuencia")
+    List<FilaCambioDTO> findDespuesDe(@Param("secuencia") long secuencia, Limit limite);
+
+    // Compactación: de los usuarios de 'ruts', los registros hasta 'hasta' que tienen uno posterior del mismo
+    // usuario (también hasta 'hasta'). Se seleccionan y luego se borran: MySQL no admite en un DELETE una
+    // subconsulta sobre la misma tabla.
+    @Query("SELECT c.secuencia FROM CambioUsuario c WHERE c.usuarioRut IN :ruts AND c.secuencia <= :hasta "
+            + "AND EXISTS (SELECT 1 FROM CambioUsuario n WHERE n.usuarioRut = c.usuarioRut "
+            + "AND n.secuencia > c.secuencia AND n.secuencia <= :hasta)")
+    List<Long> findReemplazados(@Param("ruts") Collection<Integer> ruts, @Param("hasta") long hasta);
+
+    // Retención: registros numerados creados antes de 'antesDe', por el índice de 'creado'
+    @Query("SELECT c.secuencia FROM CambioUsuario c WHERE c.creado < :antesDe AND c.secuencia IS NOT NULL ORDER BY c.creado")
+    List<Long> findVencidos(@Param("antesDe") Instant antesDe, Limit limite);
+
+    @Modifying
+    @Query("DELETE FROM CambioUsuario c WHERE c.secuencia IN :secuencias")
+    int eliminarPorSecuencias(@Param("secuencias") Collection<Long> secuencias);
+}
@@ -1,11 +1,63 @@
 package com.perfulandia.usuarios_service.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.perfulandia.usuarios_service.dto.DireccionResponseDTO;
+import com.perfulandia.usuarios_service.dto.FilaDireccionDTO;
 import com.perfulandia.usuarios_service.model.DireccionEnvio;
 
 @Repository
+@Transactional(readOnly = true) // Igual que UsuarioRepository: consultas de solo lectura por defecto
 public interface DireccionEnvioRepository extends JpaRepository<DireccionEnvio, Long>{
-  
+
+    // Direcciones de un usuario en UNA sola consulta, proyectadas directo a DTO (sin entidades).
+    // Se parte desde Usuario con LEFT JOIN para distinguir los casos sin consultar la existencia aparte:
+    //   - 0 filas: el usuario no existe
+    //   - 1 fila con id null: el usuario existe pero no tiene direcciones
+    // El JOIN usa el índice sobre direcciones_envio.USUARIOS_rut.
+    @Query("SELECT new com.perfulandia.usuarios_service.dto.FilaDireccionDTO("
+            + "u.rut, d.id, d.calle, d.numero, d.comuna, d.ciudad, u.versionDirecciones) "
+            + "FROM Usuario u LEFT JOIN u.direccionesEnvio d WHERE u.rut = :usuarioRut ORDER BY d.id")
+    List<FilaDireccionDTO> findDireccionesDeUsuario(@Param("usuarioRut") Integer usuarioRut);
+
+    // Direcciones de varios usuarios a la vez (multi-get): una consulta por lote de RUTs, sin cargar entidades
+    @Query("SELECT new com.perfulandia.usuarios_service.dto.FilaDireccionDTO("
+            + "d.usuario.rut, d.id, d.calle, d.numero, d.comuna, d.ciudad) "
+            + "FROM DireccionEnvio d WHERE d.usuario.rut IN :ruts ORDER BY d.usuario.rut, d.id")
+    List<FilaDireccionDTO> findDireccionesDeUsuarios(@Param("ruts") Collection<Integer> ruts);
+
+    // Una dirección del usuario indicado, proyectada a DTO. Si es de otro usuario, no se encuentra (404).
+    @Query("SELECT new com.perfulandia.usuarios_service.dto.DireccionResponseDTO(d.id, d.calle, d.numero, d.comuna, d.ciudad) "
+            + "FROM DireccionEnvio d WHERE d.id = :id AND d.usuario.rut = :usuarioRut")
+    Optional<DireccionResponseDTO> findDeUsuario(@Param("usuarioRut") Integer usuarioRut, @Param("id") Long id);
+
+    // Escrituras por clave en una sola sentencia. La condición sobre 'usuario.rut' valida además que la
+    // dirección pertenezca al usuario de la ruta: 0 filas afectadas = no existe o es de otro usuario (404).
+    @Modifying
+    @Query("UPDATE DireccionEnvio d SET d.calle = :calle, d.numero = :numero, d.comuna = :comuna, d.ciudad = :ciudad "
+            + "WHERE d.id = :id AND d.usuario.rut = :usuarioRut")
+    int actualizarDeUsuario(@Param("usuarioRut") Integer usuarioRut,
+                            @Param("id") Long id,
+                            @Param("calle") String calle,
+                            @Param("numero") String numero,
+                            @Param("comuna") String comuna,
+                            @Param("ciudad") String ciudad);
+
+    @Modifying
+    @Query("DELETE FROM DireccionEnvio d WHERE d.id = :id AND d.usuario.rut = :usuarioRut")
+    int eliminarDeUsuario(@Param("usuarioRut") Integer usuarioRut, @Param("id") Long id);
+
+    // Todas las direcciones de un usuario en una sola sentencia (antes de eliminar al usuario).
+    @Modifying
+    @Query("DELETE FROM DireccionEnvio d WHERE d.usuario.rut = :usuarioRut")
+    int eliminarTodasDeUsuario(@Param("usuarioRut") Integer usuarioRut);
 }
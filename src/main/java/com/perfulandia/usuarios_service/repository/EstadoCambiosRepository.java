@@ -0,0 +1,25 @@
+package com.perfulandia.usuarios_service.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.perfulandia.usuarios_service.model.EstadoCambios;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+@Transactional(readOnly = true)
+public interface EstadoCambiosRepository extends JpaRepository<EstadoCambios, Integer> {
+
+    // SELECT ... FOR UPDATE: serializa a los secuenciadores de todas las instancias sobre esta base.
+    // Es la primera sentencia de su transacción, así la lectura siguiente ya ve todo lo confirmado antes del bloqueo.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM EstadoCambios e WHERE e.id = :id")
+    Optional<EstadoCambios> findParaActualizar(@Param("id") Integer id);
+}
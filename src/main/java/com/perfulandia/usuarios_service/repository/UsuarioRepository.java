@@ -1,10 +1,198 @@
 package com.perfulandia.usuarios_service.repository;
+import com.perfulandia.usuarios_service.dto.CandidatoBusquedaDTO;
+import com.perfulandia.usuarios_service.dto.FilaExportacionDTO;
+import com.perfulandia.usuarios_service.dto.UsuarioResponseDTO;
 import com.perfulandia.usuarios_service.model.Usuario;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
 
+// Las consultas declaradas aquí no heredan el readOnly de SimpleJpaRepository: sin esto, una llamada fuera de
+// un servicio @Transactional correría sin transacción de solo lectura y nunca iría a una réplica.
+// Llamadas dentro de una transacción de escritura se unen a ella y leen de la primaria (ej. la carga del cache).
+// Las @Modifying se llaman desde servicios con transacción de escritura, a la que se unen.
 @Repository
-public interface UsuarioRepository extends JpaRepository<Usuario, String>{
+@Transactional(readOnly = true)
+public interface UsuarioRepository extends JpaRepository<Usuario, Integer>{
+
+    // Un usuario por RUT proyectado directo a DTO (sin hidratar la entidad ni su colección de direcciones).
+    @Query("SELECT new com.perfulandia.usuarios_service.dto.UsuarioResponseDTO(u.rut, u.nombre, u.apellido, u.email, u.version) "
+            + "FROM Usuario u WHERE u.rut = :rut")
+    Optional<UsuarioResponseDTO> findProyeccionPorRut(@Param("rut") Integer rut);
+
+    // Multi-get: varios usuarios en una sola consulta IN (...), proyectados a DTO. El orden no está garantizado.
+    @Query("SELECT new com.perfulandia.usuarios_service.dto.UsuarioResponseDTO(u.rut, u.nombre, u.apellido, u.email, u.version) "
+            + "FROM Usuario u WHERE u.rut IN :ruts")
+    List<UsuarioResponseDTO> findProyeccionesPorRuts(@Param("ruts") Collection<Integer> ruts);
+
+    // Búsqueda para el login (email es único)
+    Optional<Usuario> findByEmail(String email);
+
+    // Unicidad del email entre shards (dentro de un shard la garantiza el índice único)
+    boolean existsByEmail(String email);
+
+    // Reemplaza el hash solo si sigue siendo el que se verificó (si la contraseña cambió entretanto, no se pisa).
+    // Devuelve las filas afectadas (0 o 1).
+    @Transactional
+    @Modifying
+    @Query("UPDATE Usuario u SET u.passwordHash = :nuevoHash WHERE u.rut = :rut AND u.passwordHash = :hashAnterior")
+    int actualizarPasswordHash(@Param("rut") Integer rut,
+                               @Param("hashAnterior") String hashAnterior,
+                               @Param("nuevoHash") String nuevoHash);
+
+    // Escrituras por clave en UNA sola sentencia (sin SELECT previo ni entidad en memoria).
+    // Devuelven las filas afectadas: 0 significa que el usuario no existe o, si se pasó 'version',
+    // que ya no está en esa versión. Cada actualización incrementa la versión en la misma sentencia.
+    // Un UPDATE JPQL no pasa por @PreUpdate: las columnas de búsqueda llegan ya normalizadas (TextoBusqueda).
+    @Modifying
+    @Query("UPDATE Usuario u SET u.nombre = :nombre, u.apellido = :apellido, "
+            + "u.nombreBusqueda = :nombreBusqueda, u.apellidoBusqueda = :apellidoBusqueda, u.version = u.version + 1 "
+            + "WHERE u.rut = :rut AND (:version IS NULL OR u.version = :version)")
+    int actualizarNombreYApellido(@Param("rut") Integer rut,
+                                  @Param("nombre") String nombre,
+                                  @Param("apellido") String apellido,
+                                  @Param("nombreBusqueda") String nombreBusqueda,
+                                  @Param("apellidoBusqueda") String apellidoBusqueda,
+                                  @Param("version") Long version);
+
+    // Actualización parcial (PATCH): los parámetros en null conservan el valor actual de la columna.
+    @Modifying
+    @Query("UPDATE Usuario u SET u.nombre = COALESCE(:nombre, u.nombre), u.apellido = COALESCE(:apellido, u.apellido), "
+            + "u.nombreBusqueda = COALESCE(:nombreBusqueda, u.nombreBusqueda), "
+            + "u.apellidoBusqueda = COALESCE(:apellidoBusqueda, u.apellidoBusqueda), "
+            + "u.version = u.version + 1 WHERE u.rut = :rut AND (:version IS NULL OR u.version = :version)")
+    int actualizarParcialmente(@Param("rut") Integer rut,
+                               @Param("nombre") String nombre,
+                               @Param("apellido") String apellido,
+                               @Param("nombreBusqueda") String nombreBusqueda,
+                               @Param("apellidoBusqueda") String apellidoBusqueda,
+                               @Param("version") Long version);
+
+    @Modifying
+    @Query("DELETE FROM Usuario u WHERE u.rut = :rut AND (:version IS NULL OR u.version = :version)")
+    int eliminarPorRut(@Param("rut") Integer rut, @Param("version") Long version);
+
+    // Marca un cambio en las direcciones del usuario (nuevo ETag de la lista). Con 'versionDirecciones'
+    // la escritura queda condicionada a esa versión (If-Match); 0 filas = no existe o la lista cambió.
+    @Modifying
+    @Query("UPDATE Usuario u SET u.versionDirecciones = u.versionDirecciones + 1 "
+            + "WHERE u.rut = :rut AND (:versionDirecciones IS NULL OR u.versionDirecciones = :versionDirecciones)")
+    int incrementarVersionDirecciones(@Param("rut") Integer rut, @Param("versionDirecciones") Long versionDirecciones);
+
+    // Lo mismo para un lote de altas agrupadas (AgrupadorEscrituras): una sola sentencia para todos los usuarios
+    // del lote, que además bloquea sus filas hasta el commit. Un usuario con varias altas en el lote sube una vez.
+    @Modifying
+    @Query("UPDATE Usuario u SET u.versionDirecciones = u.versionDirecciones + 1 WHERE u.rut IN :ruts")
+    int incrementarVersionDireccionesDe(@Param("ruts") Collection<Integer> ruts);
+
+    // Cuáles de 'ruts' existen (después del UPDATE anterior: las filas ya están bloqueadas y no pueden desaparecer)
+    @Query("SELECT u.rut FROM Usuario u WHERE u.rut IN :ruts")
+    List<Integer> findRutsExistentes(@Param("ruts") Collection<Integer> ruts);
+
+    // Solo la versión de la lista de direcciones: responde un If-None-Match sin leer las direcciones.
+    @Query("SELECT u.versionDirecciones FROM Usuario u WHERE u.rut = :rut")
+    Optional<Long> findVersionDirecciones(@Param("rut") Integer rut);
+
+    // Paginación por keyset (cursor) ordenada por RUT.
+    // Proyecta directamente a DTO: no se crean entidades ni entradas en el contexto de persistencia.
+    // El 'WHERE u.rut > :despuesDeRut' usa el índice de la clave primaria, así que el costo
+    // de cada página no crece con la profundidad (a diferencia de OFFSET).
+    @Query("SELECT new com.perfulandia.usuarios_service.dto.UsuarioResponseDTO(u.rut, u.nombre, u.apellido, u.email, u.version) "
+            + "FROM Usuario u WHERE u.rut > :despuesDeRut ORDER BY u.rut")
+    List<UsuarioResponseDTO> findPaginaDespuesDeRut(@Param("despuesDeRut") int despuesDeRut, Limit limit);
+
+    // Exportación completa en una sola pasada: cada usuario seguido de sus direcciones, en orden.
+    // Se recorre como Stream sobre un cursor de solo avance (debe consumirse dentro de una transacción
+    // y cerrarse al terminar). El fetch size evita que el driver traiga todo el resultado a memoria;
+    // en MySQL requiere 'useCursorFetch=true' en la URL de conexión.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.perfulandia.usuarios_service.dto.FilaExportacionDTO("
+            + "u.rut, u.nombre, u.apellido, u.email, d.id, d.calle, d.numero, d.comuna, d.ciudad) "
+            + "FROM Usuario u LEFT JOIN u.direccionesEnvio d ORDER BY u.rut, d.id")
+    Stream<FilaExportacionDTO> streamExportacion();
+
+    // Verificación por lote para la importación masiva: una sola consulta devuelve
+    // [rut (Integer), email] de todos los usuarios que ya usan alguno de los RUTs o emails del lote.
+    @Query("SELECT u.rut, u.email FROM Usuario u WHERE u.rut IN :ruts OR u.email IN :emails")
+    List<Object[]> findRutYEmailExistentes(@Param("ruts") Collection<Integer> ruts,
+                                           @Param("emails") Collection<String> emails);
+
+    // Búsqueda (BusquedaUsuariosServiceImpl): una consulta por columna normalizada. El prefijo ('patron', de
+    // TextoBusqueda.patronPrefijo) es un rango de su índice (idx_usuarios_*_busqueda, que termina en rut) que se
+    // recorre en orden desde el cursor (despuesDe, despuesDeRut): el '>=' es el que usa el índice. Los demás
+    // términos ('%termino%', null si no hay) filtran dentro del rango; el servicio comprueba que cada uno empiece
+    // una palabra. Nombre y email excluyen lo que ya trajo la columna anterior, así nadie aparece dos veces.
+    String FILTRO_TERMINOS = " AND (:t1 IS NULL OR CONCAT(u.nombreBusqueda, ' ', u.apellidoBusqueda, ' ', u.emailBusqueda) LIKE :t1 ESCAPE '!')"
+            + " AND (:t2 IS NULL OR CONCAT(u.nombreBusqueda, ' ', u.apellidoBusqueda, ' ', u.emailBusqueda) LIKE :t2 ESCAPE '!')"
+            + " AND (:t3 IS NULL OR CONCAT(u.nombreBusqueda, ' ', u.apellidoBusqueda, ' ', u.emailBusqueda) LIKE :t3 ESCAPE '!')"
+            + " AND (:t4 IS NULL OR CONCAT(u.nombreBusqueda, ' ', u.apellidoBusqueda, ' ', u.emailBusqueda) LIKE :t4 ESCAPE '!')";
+
+    @Query("SELECT new com.perfulandia.usuarios_service.dto.CandidatoBusquedaDTO(u.rut, u.nombre, u.apellido, u.email, "
+            + "u.version, u.nombreBusqueda, u.apellidoBusqueda, u.emailBusqueda) FROM Usuario u "
+            + "WHERE u.apellidoBusqueda LIKE :patron ESCAPE '!' AND u.apellidoBusqueda >= :despuesDe "
+            + "AND (u.apellidoBusqueda > :despuesDe OR u.rut > :despuesDeRut)" + FILTRO_TERMINOS
+            + " ORDER BY u.apellidoBusqueda, u.rut")
+    List<CandidatoBusquedaDTO> findCoincidenciasPorApellido(@Param("patron") String patron,
+                                                            @Param("t1") String t1, @Param("t2") String t2,
+                                                            @Param("t3") String t3, @Param("t4") String t4,
+                                                            @Param("despuesDe") String despuesDe,
+                                                            @Param("despuesDeRut") int despuesDeRut, Limit limit);
+
+    @Query("SELECT new com.perfulandia.usuarios_service.dto.CandidatoBusquedaDTO(u.rut, u.nombre, u.apellido, u.email, "
+            + "u.version, u.nombreBusqueda, u.apellidoBusqueda, u.emailBusqueda) FROM Usuario u "
+            + "WHERE u.nombreBusqueda LIKE :patron ESCAPE '!' AND u.nombreBusqueda >= :despuesDe "
+            + "AND (u.nombreBusqueda > :despuesDe OR u.rut > :despuesDeRut)" + FILTRO_TERMINOS
+            + " AND u.apellidoBusqueda NOT LIKE :patron ESCAPE '!'"
+            + " ORDER BY u.nombreBusqueda, u.rut")
+    List<CandidatoBusquedaDTO> findCoincidenciasPorNombre(@Param("patron") String patron,
+                                                          @Param("t1") String t1, @Param("t2") String t2,
+                                                          @Param("t3") String t3, @Param("t4") String t4,
+                                                          @Param("despuesDe") String despuesDe,
+                                                          @Param("despuesDeRut") int despuesDeRut, Limit limit);
+
+    @Query("SELECT new com.perfulandia.usuarios_service.dto.CandidatoBusquedaDTO(u.rut, u.nombre, u.apellido, u.email, "
+            + "u.version, u.nombreBusqueda, u.apellidoBusqueda, u.emailBusqueda) FROM Usuario u "
+            + "WHERE u.emailBusqueda LIKE :patron ESCAPE '!' AND u.emailBusqueda >= :despuesDe "
+            + "AND (u.emailBusqueda > :despuesDe OR u.rut > :despuesDeRut)" + FILTRO_TERMINOS
+            + " AND u.apellidoBusqueda NOT LIKE :patron ESCAPE '!' AND u.nombreBusqueda NOT LIKE :patron ESCAPE '!'"
+            + " ORDER BY u.emailBusqueda, u.rut")
+    List<CandidatoBusquedaDTO> findCoincidenciasPorEmail(@Param("patron") String patron,
+                                                         @Param("t1") String t1, @Param("t2") String t2,
+                                                         @Param("t3") String t3, @Param("t4") String t4,
+                                                         @Param("despuesDe") String despuesDe,
+                                                         @Param("despuesDeRut") int despuesDeRut, Limit limit);
+
+    // Errores de tipeo: los primeros 'limit' valores de cada columna que empiezan con un prefijo más corto,
+    // para puntuarlos con distancia de edición en memoria (un rango de índice cortado, no todas las coincidencias).
+    @Query("SELECT new com.perfulandia.usuarios_service.dto.CandidatoBusquedaDTO(u.rut, u.nombre, u.apellido, u.email, "
+            + "u.version, u.nombreBusqueda, u.apellidoBusqueda, u.emailBusqueda) FROM Usuario u "
+            + "WHERE u.nombreBusqueda LIKE :patron ESCAPE '!' ORDER BY u.nombreBusqueda")
+    List<CandidatoBusquedaDTO> findCandidatosPorNombre(@Param("patron") String patron, Limit limit);
+
+    @Query("SELECT new com.perfulandia.usuarios_service.dto.CandidatoBusquedaDTO(u.rut, u.nombre, u.apellido, u.email, "
+            + "u.version, u.nombreBusqueda, u.apellidoBusqueda, u.emailBusqueda) FROM Usuario u "
+            + "WHERE u.apellidoBusqueda LIKE :patron ESCAPE '!' ORDER BY u.apellidoBusqueda")
+    List<CandidatoBusquedaDTO> findCandidatosPorApellido(@Param("patron") String patron, Limit limit);
 
+    @Query("SELECT new com.perfulandia.usuarios_service.dto.CandidatoBusquedaDTO(u.rut, u.nombre, u.apellido, u.email, "
+            + "u.version, u.nombreBusqueda, u.apellidoBusqueda, u.emailBusqueda) FROM Usuario u "
+            + "WHERE u.emailBusqueda LIKE :patron ESCAPE '!' ORDER BY u.emailBusqueda")
+    List<CandidatoBusquedaDTO> findCandidatosPorEmail(@Param("patron") String patron, Limit limit);
 }
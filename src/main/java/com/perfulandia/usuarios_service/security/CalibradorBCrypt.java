@@ -0,0 +1,55 @@
+package com.perfulandia.usuarios_service.security;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+// Elige al arrancar el costo BCrypt más alto cuyo hash tarda, en ESTA máquina, a lo más el presupuesto
+// configurado. Cada punto de costo duplica el tiempo, así que se mide de menor a mayor y se detiene
+// en cuanto se pasa del presupuesto (la medición completa suele tomar menos de un segundo).
+public final class CalibradorBCrypt {
+
+    private static final Logger log = LoggerFactory.getLogger(CalibradorBCrypt.class);
+    private static final String MUESTRA = "calibracion-bcrypt-perfulandia";
+
+    private CalibradorBCrypt() {
+    }
+
+    public static int calibrar(Duration presupuesto, int costoMinimo, int costoMaximo) {
+        // Calentamiento con costo bajo para que el JIT compile BCrypt antes de medir
+        BCryptPasswordEncoder calentamiento = new BCryptPasswordEncoder(4);
+        for (int i = 0; i < 20; i++) {
+            calentamiento.encode(MUESTRA);
+        }
+
+        int elegido = costoMinimo;
+        for (int costo = costoMinimo; costo <= costoMaximo; costo++) {
+            long nanos = medir(costo);
+            log.info("BCrypt costo {}: {} ms por hash", costo, nanos / 1_000_000);
+            if (nanos > presupuesto.toNanos()) {
+                if (costo == costoMinimo) {
+                    log.warn("Ni el costo mínimo {} cumple el presupuesto de {} ms; se usa igual como piso de seguridad.",
+                            costoMinimo, presupuesto.toMillis());
+                }
+                break;
+            }
+            elegido = costo;
+        }
+        log.info("Costo BCrypt calibrado: {} (presupuesto {} ms)", elegido, presupuesto.toMillis());
+        return elegido;
+    }
+
+    // El mínimo de dos mediciones filtra pausas de GC u otros procesos
+    private static long medir(int costo) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(costo);
+        long mejor = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long inicio = System.nanoTime();
+            encoder.encode(MUESTRA);
+            mejor = Math.min(mejor, System.nanoTime() - inicio);
+        }
+        return mejor;
+    }
+}
@@ -0,0 +1,156 @@
+package com.perfulandia.usuarios_service.security;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.perfulandia.usuarios_service.exception.ServicioSaturadoException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+// Ejecutor dedicado y acotado para las operaciones de contraseña (BCrypt es ~100 ms de CPU por hash).
+//
+// - Tantos hilos como núcleos (usuarios.hash.hilos, 0 = automático): más hilos no hashean más rápido.
+// - Cola acotada (usuarios.hash.capacidad-cola): si está llena la petición se rechaza al instante con
+//   ServicioSaturadoException (503 + Retry-After) en vez de acumular peticiones que igual vencerían.
+// - Se llama ANTES de abrir la transacción, así ninguna conexión del pool espera al hash.
+// - Métricas: usuarios.hash.latencia (tiempo de CPU del hash), usuarios.hash.espera.cola (tiempo en cola),
+//   usuarios.hash.cola (profundidad actual) y usuarios.hash.rechazos.
+@Component
+public class EjecutorHash {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor ejecutor;
+    private final Duration timeout;
+    private final Duration reintentarEn;
+    private final int ventanaLote; // Máximo de tareas en vuelo por cada lote, para no acaparar la cola
+
+    private final Timer latencia;
+    private final Timer esperaEnCola;
+    private final Counter rechazos;
+
+    @Autowired
+    public EjecutorHash(PasswordEncoder passwordEncoder,
+                        MeterRegistry meterRegistry,
+                        @Value("${usuarios.hash.hilos:0}") int hilos,
+                        @Value("${usuarios.hash.capacidad-cola:64}") int capacidadCola,
+                        @Value("${usuarios.hash.timeout:5s}") Duration timeout,
+                        @Value("${usuarios.hash.reintentar-en:1s}") Duration reintentarEn) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeout = timeout;
+        this.reintentarEn = reintentarEn;
+
+        int tamano = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(tamano, tamano, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "hash-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy()); // Cola llena => RejectedExecutionException
+        this.ventanaLote = Math.max(1, tamano / 2);
+
+        this.latencia = Timer.builder("usuarios.hash.latencia")
+                .description("Tiempo de CPU de cada operación BCrypt")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.esperaEnCola = Timer.builder("usuarios.hash.espera.cola")
+                .description("Tiempo que una operación de contraseña espera en la cola antes de ejecutarse")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rechazos = Counter.builder("usuarios.hash.rechazos")
+                .description("Operaciones rechazadas por cola llena o timeout")
+                .register(meterRegistry);
+        meterRegistry.gauge("usuarios.hash.cola", ejecutor, e -> e.getQueue().size());
+    }
+
+    // Calcula el hash de una contraseña en el ejecutor dedicado (bloquea hasta obtenerlo o hasta el timeout).
+    public String hashear(String contrasena) {
+        return esperar(enviar(() -> passwordEncoder.encode(contrasena)));
+    }
+
+    // Verifica una contraseña contra su hash en el ejecutor dedicado.
+    public boolean verificar(String contrasena, String hash) {
+        return esperar(enviar(() -> passwordEncoder.matches(contrasena, hash)));
+    }
+
+    // Indica si un hash guardado usa otro algoritmo o un costo menor que el actual y conviene regenerarlo.
+    // Es solo un análisis del texto del hash, no usa CPU de BCrypt.
+    public boolean necesitaRehash(String hash) {
+        return passwordEncoder.upgradeEncoding(hash);
+    }
+
+    // Hashea un lote completo (importación masiva) manteniendo como máximo 'ventanaLote' tareas en vuelo.
+    // Así un lote grande avanza a ritmo de CPU sin llenar la cola y sin dejar sin cupo a los registros individuales.
+    public List<String> hashearLote(List<String> contrasenas) {
+        List<Future<String>> resultados = new ArrayList<>(contrasenas.size());
+        Deque<Future<String>> enVuelo = new ArrayDeque<>();
+        for (String contrasena : contrasenas) {
+            if (enVuelo.size() >= ventanaLote) {
+                esperar(enVuelo.poll());
+            }
+            Future<String> futuro = enviar(() -> passwordEncoder.encode(contrasena));
+            enVuelo.add(futuro);
+            resultados.add(futuro);
+        }
+        List<String> hashes = new ArrayList<>(resultados.size());
+        for (Future<String> futuro : resultados) {
+            hashes.add(esperar(futuro));
+        }
+        return hashes;
+    }
+
+    private <T> Future<T> enviar(Callable<T> operacion) {
+        long encolado = System.nanoTime();
+        try {
+            return ejecutor.submit(() -> {
+                esperaEnCola.record(System.nanoTime() - encolado, TimeUnit.NANOSECONDS);
+                return latencia.recordCallable(operacion);
+            });
+        } catch (RejectedExecutionException e) {
+            rechazos.increment();
+            throw new ServicioSaturadoException("Demasiadas operaciones de contraseña en curso, reintente más tarde.", reintentarEn);
+        }
+    }
+
+    private <T> T esperar(Future<T> futuro) {
+        try {
+            return futuro.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            rechazos.increment();
+            throw new ServicioSaturadoException("La operación de contraseña excedió el tiempo máximo de espera.", reintentarEn);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se esperaba el hash de la contraseña", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error calculando el hash de la contraseña", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        ejecutor.shutdown();
+    }
+}
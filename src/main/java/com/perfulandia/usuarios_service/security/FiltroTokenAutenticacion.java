@@ -0,0 +1,52 @@
+package com.perfulandia.usuarios_service.security;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Valida la cabecera 'Authorization: Bearer <token>' sin consultar la BD ni BCrypt.
+// - Token válido: deja el usuario autenticado en el SecurityContext (principal = DatosToken).
+// - Token inválido o expirado: responde 401 de inmediato.
+// - Sin cabecera: la petición sigue como anónima (las reglas de acceso se definen en SecurityConfig).
+// No es un @Component a propósito: lo registra SecurityConfig en la cadena de Spring Security,
+// y así Spring Boot no lo registra una segunda vez como filtro del servlet.
+public class FiltroTokenAutenticacion extends OncePerRequestFilter {
+
+    private static final String PREFIJO = "Bearer ";
+
+    private final ServicioTokens servicioTokens;
+
+    public FiltroTokenAutenticacion(ServicioTokens servicioTokens) {
+        this.servicioTokens = servicioTokens;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String autorizacion = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (autorizacion == null || !autorizacion.startsWith(PREFIJO)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        Optional<ServicioTokens.DatosToken> datos = servicioTokens.validar(autorizacion.substring(PREFIJO.length()).trim());
+        if (datos.isEmpty()) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.sendError(HttpStatus.UNAUTHORIZED.value(), "Token inválido o expirado");
+            return;
+        }
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(datos.get(), null, List.of()));
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,71 @@
+package com.perfulandia.usuarios_service.security;
+
+import java.util.Map;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+// PasswordEncoder con costo BCrypt configurable que sabe cuándo un hash guardado debe regenerarse.
+//
+// - Los hashes nuevos son BCrypt "crudos" ($2a$NN$...), el mismo formato que ya existe en la tabla usuarios.
+// - También verifica hashes con prefijo de algoritmo ({pbkdf2@SpringSecurity_v5_8}...) para usuarios migrados
+//   desde otros sistemas.
+// - upgradeEncoding() es true si el hash usa otro algoritmo o un costo BCrypt MENOR que el actual:
+//   el login lo regenera con la contraseña en claro que acaba de verificar, sin migraciones masivas.
+//   Un costo mayor se deja: con nodos calibrados a costos distintos, cada uno lo bajaría o subiría en cada
+//   login del mismo usuario (un BCrypt y una escritura extra cada vez).
+public class PasswordEncoderAdaptativo implements PasswordEncoder {
+
+    private final int costo;
+    private final BCryptPasswordEncoder bcrypt;
+    private final DelegatingPasswordEncoder otrosAlgoritmos;
+
+    public PasswordEncoderAdaptativo(int costo) {
+        this.costo = costo;
+        this.bcrypt = new BCryptPasswordEncoder(costo);
+        this.otrosAlgoritmos = new DelegatingPasswordEncoder("bcrypt", Map.of(
+                "bcrypt", bcrypt,
+                "pbkdf2@SpringSecurity_v5_8", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8()));
+    }
+
+    public int getCosto() {
+        return costo;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return bcrypt.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        return tienePrefijo(encodedPassword)
+                ? otrosAlgoritmos.matches(rawPassword, encodedPassword)
+                : bcrypt.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || tienePrefijo(encodedPassword)) {
+            return true;
+        }
+        // Formato BCrypt: $2a$NN$<salt+hash>, donde NN es el costo
+        if (encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$' || encodedPassword.charAt(6) != '$') {
+            return true;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) < costo;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static boolean tienePrefijo(String encodedPassword) {
+        return encodedPassword.startsWith("{");
+    }
+}
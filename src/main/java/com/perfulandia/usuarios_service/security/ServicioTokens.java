@@ -0,0 +1,165 @@
+package com.perfulandia.usuarios_service.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Emite y valida tokens firmados sin estado (formato JWT compacto, HMAC-SHA256).
+// Validar un token es solo un HMAC y un parseo de JSON: no toca la BD ni BCrypt.
+//
+// Rotación de claves: 'usuarios.token.claves' acepta varias claves 'id:secretoBase64' separadas por coma.
+// Los tokens se firman con 'usuarios.token.clave-activa' y llevan su id en la cabecera ('kid'),
+// así los tokens firmados con una clave anterior siguen siendo válidos mientras esa clave siga configurada.
+// Para rotar: agregar la clave nueva, cambiar la activa, y quitar la antigua cuando expiren sus tokens.
+@Component
+public class ServicioTokens {
+
+    private static final Logger log = LoggerFactory.getLogger(ServicioTokens.class);
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getUrlDecoder();
+
+    private final ObjectMapper objectMapper;
+    private final Clock reloj;
+    private final Duration duracion;
+    private final Map<String, Mac> macPorClave = new LinkedHashMap<>(); // Prototipos: se clonan por uso (Mac no es thread-safe)
+    private final Map<String, String> cabeceraPorClave = new LinkedHashMap<>(); // Cabecera ya codificada por 'kid'
+    private final String claveActiva;
+
+    @Autowired
+    public ServicioTokens(ObjectMapper objectMapper,
+                          @Value("${usuarios.token.claves:}") String claves,
+                          @Value("${usuarios.token.clave-activa:}") String claveActiva,
+                          @Value("${usuarios.token.duracion:15m}") Duration duracion) {
+        this(objectMapper, claves, claveActiva, duracion, Clock.systemUTC());
+    }
+
+    ServicioTokens(ObjectMapper objectMapper, String claves, String claveActiva, Duration duracion, Clock reloj) {
+        this.objectMapper = objectMapper;
+        this.duracion = duracion;
+        this.reloj = reloj;
+
+        if (claves == null || claves.isBlank()) {
+            // Sin claves configuradas (desarrollo): clave aleatoria; los tokens no sobreviven a un reinicio
+            // ni se comparten entre instancias.
+            byte[] aleatoria = new byte[32];
+            new SecureRandom().nextBytes(aleatoria);
+            registrarClave("dev", aleatoria);
+            this.claveActiva = "dev";
+            log.warn("No hay claves configuradas en 'usuarios.token.claves'; se generó una clave temporal.");
+            return;
+        }
+        for (String definicion : claves.split(",")) {
+            String[] partes = definicion.trim().split(":", 2);
+            if (partes.length != 2) {
+                throw new IllegalStateException("Clave de token inválida, se espera 'id:secretoBase64': " + partes[0]);
+            }
+            byte[] secreto = Base64.getDecoder().decode(partes[1].trim());
+            if (secreto.length < 32) {
+                throw new IllegalStateException("La clave de token '" + partes[0] + "' debe tener al menos 256 bits.");
+            }
+            registrarClave(partes[0].trim(), secreto);
+        }
+        this.claveActiva = (claveActiva == null || claveActiva.isBlank())
+                ? macPorClave.keySet().iterator().next()
+                : claveActiva.trim();
+        if (!macPorClave.containsKey(this.claveActiva)) {
+            throw new IllegalStateException("La clave activa '" + this.claveActiva + "' no está en 'usuarios.token.claves'.");
+        }
+    }
+
+    // Datos que viajan en el token
+    public record DatosToken(String rut, String email, Instant expira) {
+    }
+
+    public Duration getDuracion() {
+        return duracion;
+    }
+
+    public String emitir(String rut, String email) {
+        Instant ahora = reloj.instant();
+        Map<String, Object> contenido = new LinkedHashMap<>();
+        contenido.put("sub", rut);
+        contenido.put("email", email);
+        contenido.put("iat", ahora.getEpochSecond());
+        contenido.put("exp", ahora.plus(duracion).getEpochSecond());
+        try {
+            String cuerpo = cabeceraPorClave.get(claveActiva) + "." + BASE64.encodeToString(objectMapper.writeValueAsBytes(contenido));
+            return cuerpo + "." + BASE64.encodeToString(firmar(claveActiva, cuerpo));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el token", e);
+        }
+    }
+
+    // Devuelve los datos del token si la firma es válida y no ha expirado; vacío en cualquier otro caso.
+    public Optional<DatosToken> validar(String token) {
+        int primerPunto = token.indexOf('.');
+        int segundoPunto = token.indexOf('.', primerPunto + 1);
+        if (primerPunto < 0 || segundoPunto < 0 || token.indexOf('.', segundoPunto + 1) >= 0) {
+            return Optional.empty();
+        }
+        try {
+            JsonNode cabecera = objectMapper.readTree(BASE64_DECODER.decode(token.substring(0, primerPunto)));
+            String kid = cabecera.path("kid").asText();
+            if (!macPorClave.containsKey(kid) || !"HS256".equals(cabecera.path("alg").asText())) {
+                return Optional.empty();
+            }
+            byte[] esperada = firmar(kid, token.substring(0, segundoPunto));
+            byte[] recibida = BASE64_DECODER.decode(token.substring(segundoPunto + 1));
+            if (!MessageDigest.isEqual(esperada, recibida)) { // Comparación en tiempo constante
+                return Optional.empty();
+            }
+            JsonNode contenido = objectMapper.readTree(BASE64_DECODER.decode(token.substring(primerPunto + 1, segundoPunto)));
+            Instant expira = Instant.ofEpochSecond(contenido.path("exp").asLong());
+            if (!reloj.instant().isBefore(expira)) {
+                return Optional.empty();
+            }
+            return Optional.of(new DatosToken(contenido.path("sub").asText(), contenido.path("email").asText(), expira));
+        } catch (IllegalArgumentException | IOException e) { // Base64 o JSON mal formados
+            return Optional.empty();
+        }
+    }
+
+    private void registrarClave(String kid, byte[] secreto) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(new SecretKeySpec(secreto, ALGORITMO));
+            macPorClave.put(kid, mac);
+            String cabecera = "{\"alg\":\"HS256\",\"typ\":\"JWT\",\"kid\":\"" + kid + "\"}";
+            cabeceraPorClave.put(kid, BASE64.encodeToString(cabecera.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo inicializar la clave de token '" + kid + "'", e);
+        }
+    }
+
+    private byte[] firmar(String kid, String contenido) {
+        try {
+            Mac mac = (Mac) macPorClave.get(kid).clone();
+            return mac.doFinal(contenido.getBytes(StandardCharsets.US_ASCII));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("El proveedor de HMAC no permite clonar instancias", e);
+        }
+    }
+}
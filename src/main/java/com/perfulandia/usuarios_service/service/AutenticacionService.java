@@ -0,0 +1,11 @@
+package com.perfulandia.usuarios_service.service;
+
+import java.util.Optional;
+
+import com.perfulandia.usuarios_service.dto.LoginDTO;
+import com.perfulandia.usuarios_service.dto.TokenResponseDTO;
+
+public interface AutenticacionService {
+    // Verifica las credenciales y emite un token; vacío si el email o la contraseña no son válidos.
+    Optional<TokenResponseDTO> login(LoginDTO loginDTO);
+}
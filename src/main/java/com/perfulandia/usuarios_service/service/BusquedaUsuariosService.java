@@ -0,0 +1,10 @@
+package com.perfulandia.usuarios_service.service;
+
+import com.perfulandia.usuarios_service.dto.PaginaBusquedaDTO;
+
+public interface BusquedaUsuariosService {
+    // Usuarios cuyo nombre, apellido o email empiezan con las palabras de 'consulta' (sin distinguir mayúsculas
+    // ni tildes). 'cursor' es el 'next' de la página anterior (null en la primera). IllegalArgumentException si
+    // la consulta es demasiado corta o 'cursor'/'limite' son inválidos.
+    PaginaBusquedaDTO buscarUsuarios(String consulta, String cursor, Integer limite);
+}
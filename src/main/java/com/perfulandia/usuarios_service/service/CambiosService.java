@@ -0,0 +1,21 @@
+package com.perfulandia.usuarios_service.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import com.perfulandia.usuarios_service.dto.CursorCambiosDTO;
+import com.perfulandia.usuarios_service.dto.PaginaCambiosDTO;
+
+public interface CambiosService {
+    // Hasta 'limite' cambios confirmados después de 'cursor' (null = desde el registro más antiguo que se conserva),
+    // en el orden en que se confirmaron. IllegalArgumentException si el cursor o el límite son inválidos;
+    // CursorVencidoException si la retención ya borró parte de lo que sigue al cursor.
+    PaginaCambiosDTO obtenerCambios(String cursor, Integer limite);
+
+    // Igual, pero si aún no hay cambios espera hasta 'espera' a que llegue alguno (long polling). Al vencer la
+    // espera se completa con una página vacía y el mismo cursor. Los errores de validación se lanzan de inmediato.
+    CompletableFuture<PaginaCambiosDTO> esperarCambios(String cursor, Integer limite, Duration espera);
+
+    // Posición actual del feed: para seguirlo desde ahora (ej. tomarla antes de una exportación completa)
+    CursorCambiosDTO obtenerCursorActual();
+}
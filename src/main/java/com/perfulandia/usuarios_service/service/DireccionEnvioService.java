@@ -1,20 +1,29 @@
 package com.perfulandia.usuarios_service.service;
 
-import java.util.List;
 import java.util.Optional;
 
 import com.perfulandia.usuarios_service.dto.ActualizarDireccionDTO;
 import com.perfulandia.usuarios_service.dto.CrearDireccionDTO;
 import com.perfulandia.usuarios_service.dto.DireccionResponseDTO;
+import com.perfulandia.usuarios_service.dto.DireccionesUsuarioDTO;
+import com.perfulandia.usuarios_service.model.Rut;
 
 public interface DireccionEnvioService {
-  DireccionResponseDTO agregarDireccionAUsuario(String usuarioRut, CrearDireccionDTO crearDireccionDTO);
+  DireccionResponseDTO agregarDireccionAUsuario(Rut usuarioRut, CrearDireccionDTO crearDireccionDTO);
 
-    List<DireccionResponseDTO> obtenerDireccionesPorUsuarioRut(String usuarioRut);
+    // Optional vacío si el usuario no existe; lista vacía si existe pero no tiene direcciones.
+    Optional<DireccionesUsuarioDTO> obtenerDireccionesPorUsuarioRut(Rut usuarioRut);
 
-    Optional<DireccionResponseDTO> obtenerDireccionPorId(Long direccionId);
+    // Solo la versión de la lista (para responder If-None-Match); Optional vacío si el usuario no existe.
+    Optional<Long> obtenerVersionDirecciones(Rut usuarioRut);
 
-    DireccionResponseDTO actualizarDireccion(Long direccionId, ActualizarDireccionDTO actualizarDireccionDTO);
+    // Optional vacío si la dirección no existe o pertenece a otro usuario.
+    Optional<DireccionResponseDTO> obtenerDireccionDeUsuario(Rut usuarioRut, Long direccionId);
 
-    void eliminarDireccion(Long direccionId);
+    // Solo operan sobre direcciones del usuario indicado; RecursoNoEncontradoException si no existe o es de otro usuario.
+    // Con 'versionDirecciones' (If-Match) lanzan ConflictoVersionException si la lista cambió entretanto.
+    DireccionResponseDTO actualizarDireccion(Rut usuarioRut, Long direccionId, ActualizarDireccionDTO actualizarDireccionDTO,
+                                             Long versionDirecciones);
+
+    void eliminarDireccion(Rut usuarioRut, Long direccionId, Long versionDirecciones);
 }
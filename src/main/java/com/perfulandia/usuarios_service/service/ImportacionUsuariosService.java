@@ -0,0 +1,16 @@
+package com.perfulandia.usuarios_service.service;
+
+import java.io.InputStream;
+
+import com.perfulandia.usuarios_service.dto.ResultadoImportacionDTO;
+
+// Cada lote se confirma por separado: si la importación se detiene a medias (ver ResultadoImportacionDTO.truncado),
+// se devuelve el reporte de lo procesado en vez de una excepción que lo perdería. Solo hay excepción si no se
+// confirmó ninguna fila (IllegalArgumentException por formato, ServicioSaturadoException si no hubo capacidad).
+public interface ImportacionUsuariosService {
+    // Importa un arreglo JSON de CrearUsuarioDTO leído en streaming.
+    ResultadoImportacionDTO importarDesdeJson(InputStream entrada);
+
+    // Importa un CSV con cabecera: rut,nombre,apellido,email,password
+    ResultadoImportacionDTO importarDesdeCsv(InputStream entrada);
+}
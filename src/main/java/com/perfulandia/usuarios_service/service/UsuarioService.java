@@ -1,20 +1,40 @@
 package com.perfulandia.usuarios_service.service;
 
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
 
 import com.perfulandia.usuarios_service.dto.ActualizarUsuarioDTO;
 import com.perfulandia.usuarios_service.dto.CrearUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.PaginaUsuariosDTO;
+import com.perfulandia.usuarios_service.dto.ParcheUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.UsuarioLoteDTO;
 import com.perfulandia.usuarios_service.dto.UsuarioResponseDTO;
+import com.perfulandia.usuarios_service.model.Rut;
 
 public interface UsuarioService {
     UsuarioResponseDTO crearUsuario(CrearUsuarioDTO crearUsuarioDTO);
 
-    Optional<UsuarioResponseDTO> obtenerUsuarioPorRut(String rut);
+    Optional<UsuarioResponseDTO> obtenerUsuarioPorRut(Rut rut);
 
+    // Multi-get: un resultado por RUT pedido, en el mismo orden, con los no encontrados marcados.
+    List<UsuarioLoteDTO> obtenerUsuariosPorRuts(List<Rut> ruts, boolean incluirDirecciones);
+
+    // Modo legacy: devuelve como máximo 'usuarios.listado.legacy-maximo' usuarios.
     List<UsuarioResponseDTO> obtenerTodosLosUsuarios();
 
-    UsuarioResponseDTO actualizarUsuario(String rut, ActualizarUsuarioDTO actualizarUsuarioDTO);
+    // Paginación por cursor: 'cursor' es el valor 'next' de la página anterior (null para la primera).
+    PaginaUsuariosDTO obtenerPaginaDeUsuarios(String cursor, Integer limite);
+
+    // Escribe todos los usuarios con sus direcciones como NDJSON (un objeto JSON por línea).
+    void exportarUsuariosNdjson(OutputStream salida);
+
+    // Lanzan ConflictoVersionException si se indicó una versión y el usuario ya no está en ella.
+    UsuarioResponseDTO actualizarUsuario(Rut rut, ActualizarUsuarioDTO actualizarUsuarioDTO);
+
+    // Actualización parcial: solo los campos no nulos. IllegalArgumentException si no trae ninguno.
+    UsuarioResponseDTO actualizarParcialmente(Rut rut, ParcheUsuarioDTO parcheUsuarioDTO);
 
-    void eliminarUsuario(String rut);
+    // 'version' null = sin condición; si no coincide, ConflictoVersionException.
+    void eliminarUsuario(Rut rut, Long version);
 }
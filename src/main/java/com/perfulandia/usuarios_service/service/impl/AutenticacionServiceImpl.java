@@ -0,0 +1,100 @@
+package com.perfulandia.usuarios_service.service.impl;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.perfulandia.usuarios_service.dto.LoginDTO;
+import com.perfulandia.usuarios_service.dto.TokenResponseDTO;
+import com.perfulandia.usuarios_service.exception.ServicioSaturadoException;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.model.Usuario;
+import com.perfulandia.usuarios_service.repository.UsuarioRepository;
+import com.perfulandia.usuarios_service.security.EjecutorHash;
+import com.perfulandia.usuarios_service.security.ServicioTokens;
+import com.perfulandia.usuarios_service.service.AutenticacionService;
+import com.perfulandia.usuarios_service.shards.EjecutorShards;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Timed(value = "usuarios.servicio", histogram = true, percentiles = {0.5, 0.95, 0.99})
+@Service
+public class AutenticacionServiceImpl implements AutenticacionService {
+
+    private static final Logger log = LoggerFactory.getLogger(AutenticacionServiceImpl.class);
+
+    private final UsuarioRepository usuarioRepository;
+    private final EjecutorHash ejecutorHash;
+    private final ServicioTokens servicioTokens;
+    private final EjecutorShards ejecutorShards;
+    private final Counter rehashes;
+    // Hash de una contraseña al azar: se verifica contra él cuando el email no existe, para que la respuesta tarde
+    // lo mismo y no revele qué emails están registrados. Se genera al arrancar con el encoder activo, así tiene
+    // el mismo costo calibrado que los hashes reales de este nodo (uno fijo de costo 10 respondía más rápido).
+    private final String hashFicticio;
+
+    @Autowired
+    public AutenticacionServiceImpl(UsuarioRepository usuarioRepository, EjecutorHash ejecutorHash,
+                                    ServicioTokens servicioTokens, EjecutorShards ejecutorShards,
+                                    PasswordEncoder passwordEncoder, MeterRegistry meterRegistry) {
+        this.usuarioRepository = usuarioRepository;
+        this.ejecutorHash = ejecutorHash;
+        this.servicioTokens = servicioTokens;
+        this.ejecutorShards = ejecutorShards;
+        this.rehashes = Counter.builder("usuarios.bcrypt.rehash")
+                .description("Hashes de contraseña regenerados en el login por cambio de costo o algoritmo")
+                .register(meterRegistry);
+        this.hashFicticio = passwordEncoder.encode(UUID.randomUUID().toString());
+    }
+
+    // Visible para las pruebas
+    String getHashFicticio() {
+        return hashFicticio;
+    }
+
+    @Override
+    // Sin @Transactional: la búsqueda corre en su propia transacción corta y BCrypt se verifica
+    // después, en el ejecutor de hashing, sin retener una conexión.
+    public Optional<TokenResponseDTO> login(LoginDTO loginDTO) {
+        if (loginDTO.email() == null || loginDTO.password() == null) {
+            return Optional.empty();
+        }
+        // Los shards se reparten por RUT, no por email: el email se busca en todos a la vez (con uno solo, una consulta)
+        Optional<Usuario> usuario = ejecutorShards.enCadaShard(shard -> usuarioRepository.findByEmail(loginDTO.email()))
+                .stream().flatMap(Optional::stream).findFirst();
+        String hash = usuario.map(Usuario::getPasswordHash).orElse(hashFicticio);
+        boolean valida = ejecutorHash.verificar(loginDTO.password(), hash);
+        if (usuario.isEmpty() || !valida) {
+            return Optional.empty();
+        }
+        regenerarHashSiCorresponde(usuario.get(), loginDTO.password());
+        String token = servicioTokens.emitir(Rut.de(usuario.get().getRut()).toString(), usuario.get().getEmail());
+        return Optional.of(new TokenResponseDTO(token, "Bearer", servicioTokens.getDuracion().toSeconds()));
+    }
+
+    // Rehash transparente: si el hash guardado usa otro algoritmo o un costo BCrypt menor que el calibrado
+    // en este nodo, se regenera con la contraseña recién verificada. Es "best effort": si el ejecutor está
+    // saturado se deja para el próximo login en vez de fallar el login actual.
+    private void regenerarHashSiCorresponde(Usuario usuario, String password) {
+        if (!ejecutorHash.necesitaRehash(usuario.getPasswordHash())) {
+            return;
+        }
+        try {
+            String nuevoHash = ejecutorHash.hashear(password);
+            int filas = ejecutorShards.enShardDe(Rut.de(usuario.getRut()),
+                    () -> usuarioRepository.actualizarPasswordHash(usuario.getRut(), usuario.getPasswordHash(), nuevoHash));
+            if (filas == 1) {
+                rehashes.increment();
+            }
+        } catch (ServicioSaturadoException e) {
+            log.debug("Rehash de la contraseña de {} pospuesto: {}", usuario.getRut(), e.getMessage());
+        }
+    }
+}
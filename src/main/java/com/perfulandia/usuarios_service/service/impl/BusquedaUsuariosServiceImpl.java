@@ -0,0 +1,327 @@
+package com.perfulandia.usuarios_service.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.perfulandia.usuarios_service.busqueda.TextoBusqueda;
+import com.perfulandia.usuarios_service.dto.CandidatoBusquedaDTO;
+import com.perfulandia.usuarios_service.dto.PaginaBusquedaDTO;
+import com.perfulandia.usuarios_service.dto.UsuarioEncontradoDTO;
+import com.perfulandia.usuarios_service.dto.UsuarioResponseDTO;
+import com.perfulandia.usuarios_service.repository.UsuarioRepository;
+import com.perfulandia.usuarios_service.service.BusquedaUsuariosService;
+import com.perfulandia.usuarios_service.shards.EjecutorShards;
+
+import io.micrometer.core.annotation.Timed;
+
+// Búsqueda para atención al cliente sobre las columnas normalizadas de usuarios (ver TextoBusqueda):
+// 1) La palabra más larga de la consulta (el "ancla", la más selectiva) debe ser el comienzo del apellido, el
+//    nombre o el email: cada columna es un rango de su índice, recorrido en ese orden (apellido, nombre, email).
+// 2) Las demás palabras van en la misma consulta (LIKE '%palabra%') y luego se comprueba en memoria que cada
+//    una empiece alguna palabra de algún campo ("juan gonz"). Así se recorre el rango completo y no un recorte:
+//    la página se llena con todas las coincidencias que haya, pidiendo a la base solo las filas que faltan.
+// 3) Orden y paginación por keyset: (columna, valor, rut) es el cursor 'next'. Dentro de una columna el orden es
+//    alfabético, que deja primero la palabra exacta ("rojas", "rojas soto") y después los prefijos ("rojasco").
+//    El puntaje de cada resultado es informativo (cuánto coincide) y no cambia el orden entre páginas.
+// 4) Solo si la consulta no tiene NINGUNA coincidencia se buscan errores de tipeo: prefijos cada vez más cortos
+//    y palabras a distancia de edición 1 (2 desde 8 letras), puntuando los primeros 'candidatos' valores de cada
+//    rango. Es una sola página con las mejores, sin 'next'.
+// Costo: proporcional a las filas del rango del ancla que se revisan hasta llenar la página. Con palabras que
+// casi ningún usuario del rango cumple, se recorre el rango entero (ver BusquedaBenchmark).
+@Timed(value = "usuarios.servicio", histogram = true, percentiles = {0.5, 0.95, 0.99})
+@Service
+public class BusquedaUsuariosServiceImpl implements BusquedaUsuariosService {
+
+    private static final int MAXIMO_TERMINOS = 5;
+    private static final int LARGO_MINIMO_APROXIMADA = 4; // Con menos letras casi todo está a distancia 1
+    private static final int LARGO_MINIMO_PREFIJO_APROXIMADO = 3;
+    private static final int MAXIMO_LOTE = 1000; // Filas por consulta al seguir llenando una página
+
+    // Peso de cada campo sobre 100
+    private static final int PESO_APELLIDO = 100;
+    private static final int PESO_NOMBRE = 100;
+    private static final int PESO_EMAIL = 80;
+
+    private static final Comparator<Puntuado> ORDEN = Comparator.comparingInt(Puntuado::puntaje).reversed()
+            .thenComparing(p -> p.candidato().apellidoBusqueda())
+            .thenComparing(p -> p.candidato().nombreBusqueda())
+            .thenComparing(p -> p.candidato().rut());
+
+    private final UsuarioRepository usuarioRepository;
+    private final EjecutorShards ejecutorShards;
+    private final TransactionTemplate lecturaTemplate; // Las tres consultas de cada shard en una transacción
+
+    private final int largoMinimo;
+    private final int limitePorDefecto;
+    private final int limiteMaximo;
+    private final int candidatos;
+    private final int prefijosAproximados;
+
+    @Autowired
+    public BusquedaUsuariosServiceImpl(UsuarioRepository usuarioRepository, EjecutorShards ejecutorShards,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${usuarios.busqueda.largo-minimo:2}") int largoMinimo,
+                                       @Value("${usuarios.busqueda.limite-por-defecto:20}") int limitePorDefecto,
+                                       @Value("${usuarios.busqueda.limite-maximo:100}") int limiteMaximo,
+                                       @Value("${usuarios.busqueda.candidatos:100}") int candidatos,
+                                       @Value("${usuarios.busqueda.prefijos-aproximados:3}") int prefijosAproximados) {
+        this.usuarioRepository = usuarioRepository;
+        this.ejecutorShards = ejecutorShards;
+        this.lecturaTemplate = new TransactionTemplate(transactionManager);
+        this.lecturaTemplate.setReadOnly(true);
+        this.largoMinimo = largoMinimo;
+        this.limitePorDefecto = limitePorDefecto;
+        this.limiteMaximo = limiteMaximo;
+        this.candidatos = candidatos;
+        this.prefijosAproximados = prefijosAproximados;
+    }
+
+    @Override
+    public PaginaBusquedaDTO buscarUsuarios(String consulta, String cursor, Integer limite) {
+        List<String> terminos = TextoBusqueda.terminos(consulta);
+        String ancla = terminos.stream().max(Comparator.comparingInt(String::length)).orElse("");
+        if (ancla.length() < largoMinimo) {
+            throw new IllegalArgumentException("La búsqueda debe tener al menos " + largoMinimo + " caracteres.");
+        }
+        if (terminos.size() > MAXIMO_TERMINOS) {
+            throw new IllegalArgumentException("La búsqueda admite como máximo " + MAXIMO_TERMINOS + " palabras.");
+        }
+        int tamanoPagina = (limite == null) ? limitePorDefecto : limite;
+        if (tamanoPagina < 1) {
+            throw new IllegalArgumentException("El parámetro 'limit' debe ser mayor que cero.");
+        }
+        tamanoPagina = Math.min(tamanoPagina, limiteMaximo);
+        Posicion desde = (cursor == null || cursor.isBlank()) ? Posicion.INICIO : decodificarCursor(cursor);
+
+        String patron = TextoBusqueda.patronPrefijo(ancla);
+        // Los demás términos como '%termino%' para las consultas; null en los que sobran
+        String[] filtros = new String[MAXIMO_TERMINOS - 1];
+        int f = 0;
+        for (String termino : terminos) {
+            if (!termino.equals(ancla)) {
+                filtros[f++] = TextoBusqueda.patronContiene(termino);
+            }
+        }
+
+        List<UsuarioEncontradoDTO> encontrados = new ArrayList<>(tamanoPagina);
+        Posicion ultima = null;
+        boolean hayMas = false;
+        columnas:
+        for (Campo campo : Campo.values()) {
+            if (campo.ordinal() < desde.campo().ordinal()) {
+                continue;
+            }
+            Posicion leida = (campo == desde.campo()) ? desde : new Posicion(campo, "", 0);
+            // Se pide lo que falta para la página (+1, para saber si hay otra); si el puntaje descarta filas,
+            // cada vuelta pide el doble, así un término que coincide a menudo en medio de palabras no hace
+            // una consulta por fila
+            int tamanoLote = tamanoPagina + 1 - encontrados.size();
+            while (true) {
+                List<CandidatoBusquedaDTO> lote = siguientes(leida, patron, filtros, tamanoLote);
+                for (CandidatoBusquedaDTO candidato : lote) {
+                    int puntaje = puntaje(candidato, terminos, false);
+                    if (puntaje == 0) {
+                        continue; // El LIKE '%termino%' acepta también coincidencias en medio de una palabra
+                    }
+                    if (encontrados.size() == tamanoPagina) {
+                        hayMas = true;
+                        break columnas;
+                    }
+                    encontrados.add(new UsuarioEncontradoDTO(new UsuarioResponseDTO(candidato.rut(), candidato.nombre(),
+                            candidato.apellido(), candidato.email(), candidato.version()), puntaje));
+                    ultima = new Posicion(campo, campo.valor(candidato), candidato.rut());
+                }
+                if (lote.size() < tamanoLote) {
+                    break; // Se terminó el rango de esta columna
+                }
+                CandidatoBusquedaDTO ultimoLeido = lote.get(lote.size() - 1);
+                leida = new Posicion(campo, campo.valor(ultimoLeido), ultimoLeido.rut());
+                tamanoLote = Math.min(tamanoLote * 2, MAXIMO_LOTE);
+            }
+        }
+        if (!hayMas || encontrados.isEmpty()) {
+            ultima = null;
+        }
+
+        if (encontrados.isEmpty() && desde == Posicion.INICIO && ancla.length() >= LARGO_MINIMO_APROXIMADA) {
+            List<UsuarioEncontradoDTO> aproximados = List.of();
+            // Se empieza dos letras antes del final: el primer intento ya cubre cualquier error en las dos últimas
+            int largo = ancla.length() - 2;
+            for (int intento = 0; aproximados.isEmpty() && intento < prefijosAproximados
+                    && largo >= LARGO_MINIMO_PREFIJO_APROXIMADO; intento++, largo--) {
+                aproximados = rankear(candidatosConPrefijo(ancla.substring(0, largo)), terminos, true);
+            }
+            return new PaginaBusquedaDTO(new ArrayList<>(aproximados.subList(0, Math.min(tamanoPagina, aproximados.size()))),
+                    true, null);
+        }
+        return new PaginaBusquedaDTO(encontrados, false, ultima == null ? null : codificarCursor(ultima));
+    }
+
+    // Las siguientes 'cantidad' filas de la columna después de 'leida', combinando los shards en el mismo orden
+    // que la consulta (valor, rut). Las columnas normalizadas solo tienen minúsculas sin tildes, dígitos y
+    // puntuación de emails: el orden de String coincide con el de la base para ellas.
+    private List<CandidatoBusquedaDTO> siguientes(Posicion leida, String patron, String[] filtros, int cantidad) {
+        Limit tope = Limit.of(cantidad);
+        List<List<CandidatoBusquedaDTO>> porShard = ejecutorShards.enCadaShard(shard -> lecturaTemplate.execute(status ->
+                switch (leida.campo()) {
+                    case APELLIDO -> usuarioRepository.findCoincidenciasPorApellido(patron, filtros[0], filtros[1],
+                            filtros[2], filtros[3], leida.valor(), leida.rut(), tope);
+                    case NOMBRE -> usuarioRepository.findCoincidenciasPorNombre(patron, filtros[0], filtros[1],
+                            filtros[2], filtros[3], leida.valor(), leida.rut(), tope);
+                    case EMAIL -> usuarioRepository.findCoincidenciasPorEmail(patron, filtros[0], filtros[1],
+                            filtros[2], filtros[3], leida.valor(), leida.rut(), tope);
+                }));
+        if (porShard.size() == 1) {
+            return porShard.get(0);
+        }
+        // Cada shard trajo sus primeras 'cantidad': las primeras 'cantidad' del total están entre ellas
+        List<CandidatoBusquedaDTO> todas = new ArrayList<>();
+        porShard.forEach(todas::addAll);
+        todas.sort(Comparator.comparing(leida.campo()::valor).thenComparing(CandidatoBusquedaDTO::rut));
+        return todas.size() > cantidad ? todas.subList(0, cantidad) : todas;
+    }
+
+    // Errores de tipeo: candidatos de todos los shards cuyo nombre, apellido o email empieza con 'prefijo', sin repetidos
+    private Collection<CandidatoBusquedaDTO> candidatosConPrefijo(String prefijo) {
+        String patron = TextoBusqueda.patronPrefijo(prefijo);
+        Limit tope = Limit.of(candidatos);
+        Map<Integer, CandidatoBusquedaDTO> unicos = new LinkedHashMap<>();
+        for (List<CandidatoBusquedaDTO> deShard : ejecutorShards.enCadaShard(shard -> lecturaTemplate.execute(status -> {
+            List<CandidatoBusquedaDTO> filas = new ArrayList<>(usuarioRepository.findCandidatosPorApellido(patron, tope));
+            filas.addAll(usuarioRepository.findCandidatosPorNombre(patron, tope));
+            filas.addAll(usuarioRepository.findCandidatosPorEmail(patron, tope));
+            return filas;
+        }))) {
+            for (CandidatoBusquedaDTO candidato : deShard) {
+                unicos.putIfAbsent(candidato.rut(), candidato);
+            }
+        }
+        return unicos.values();
+    }
+
+    private static List<UsuarioEncontradoDTO> rankear(Collection<CandidatoBusquedaDTO> candidatos, List<String> terminos,
+                                                      boolean aproximada) {
+        List<Puntuado> puntuados = new ArrayList<>();
+        for (CandidatoBusquedaDTO candidato : candidatos) {
+            int puntaje = puntaje(candidato, terminos, aproximada);
+            if (puntaje > 0) {
+                puntuados.add(new Puntuado(candidato, puntaje));
+            }
+        }
+        puntuados.sort(ORDEN);
+        List<UsuarioEncontradoDTO> encontrados = new ArrayList<>(puntuados.size());
+        for (Puntuado puntuado : puntuados) {
+            CandidatoBusquedaDTO c = puntuado.candidato();
+            encontrados.add(new UsuarioEncontradoDTO(
+                    new UsuarioResponseDTO(c.rut(), c.nombre(), c.apellido(), c.email(), c.version()), puntuado.puntaje()));
+        }
+        return encontrados;
+    }
+
+    // Suma de la mejor coincidencia de cada término; 0 (descartado) si algún término no coincide con nada
+    // Package-private y estático para probarlo aislado
+    static int puntaje(CandidatoBusquedaDTO candidato, List<String> terminos, boolean aproximada) {
+        List<String> apellido = TextoBusqueda.palabras(candidato.apellidoBusqueda());
+        List<String> nombre = TextoBusqueda.palabras(candidato.nombreBusqueda());
+        List<String> email = TextoBusqueda.palabras(candidato.emailBusqueda());
+        int total = 0;
+        for (String termino : terminos) {
+            int mejor = Math.max(
+                    puntajeCampo(termino, candidato.apellidoBusqueda(), apellido, aproximada) * PESO_APELLIDO,
+                    Math.max(puntajeCampo(termino, candidato.nombreBusqueda(), nombre, aproximada) * PESO_NOMBRE,
+                            puntajeCampo(termino, candidato.emailBusqueda(), email, aproximada) * PESO_EMAIL)) / 100;
+            if (mejor == 0) {
+                return 0;
+            }
+            total += mejor;
+        }
+        return total;
+    }
+
+    // El campo completo (para consultas como "juan.perez@") y cada una de sus palabras; la primera suma 10
+    private static int puntajeCampo(String termino, String campo, List<String> palabras, boolean aproximada) {
+        int mejor = puntajePalabra(termino, campo, aproximada, true);
+        for (int i = 0; i < palabras.size(); i++) {
+            mejor = Math.max(mejor, puntajePalabra(termino, palabras.get(i), aproximada, i == 0));
+        }
+        return mejor;
+    }
+
+    // Exacta 100; prefijo 60-98 (más alto cuanto más de la palabra cubre); aproximada 20-30
+    private static int puntajePalabra(String termino, String palabra, boolean aproximada, boolean primera) {
+        int puntos;
+        if (palabra.equals(termino)) {
+            puntos = 100;
+        } else if (palabra.startsWith(termino)) {
+            puntos = 60 + 38 * termino.length() / palabra.length();
+        } else if (aproximada) {
+            puntos = puntajeAproximado(termino, palabra);
+        } else {
+            puntos = 0;
+        }
+        return (puntos > 0 && primera) ? puntos + 10 : puntos;
+    }
+
+    // El término puede ser un prefijo con errores: se compara con los comienzos de la palabra de largo parecido
+    private static int puntajeAproximado(String termino, String palabra) {
+        if (termino.length() < LARGO_MINIMO_APROXIMADA) {
+            return 0;
+        }
+        int maximo = termino.length() >= 8 ? 2 : 1;
+        int distancia = maximo + 1;
+        for (int largo = termino.length() - maximo; largo <= Math.min(termino.length() + maximo, palabra.length()); largo++) {
+            distancia = Math.min(distancia, TextoBusqueda.distancia(termino, palabra.substring(0, largo), maximo));
+        }
+        return distancia <= maximo ? 40 - 10 * distancia : 0;
+    }
+
+    // --- Cursor ---
+    // Opaco para el cliente: columna, rut y valor de la última fila de la página, en Base64 URL-safe
+    private static String codificarCursor(Posicion posicion) {
+        String texto = posicion.campo().ordinal() + "|" + posicion.rut() + "|" + posicion.valor();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Posicion decodificarCursor(String cursor) {
+        try {
+            String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 3);
+            return new Posicion(Campo.values()[Integer.parseInt(partes[0])], partes[2], Integer.parseInt(partes[1]));
+        } catch (RuntimeException e) { // Base64 inválido, partes faltantes o números fuera de rango
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+
+    // Columnas de la búsqueda exacta, en el orden en que se recorren
+    private enum Campo {
+        APELLIDO, NOMBRE, EMAIL;
+
+        String valor(CandidatoBusquedaDTO candidato) {
+            return switch (this) {
+                case APELLIDO -> candidato.apellidoBusqueda();
+                case NOMBRE -> candidato.nombreBusqueda();
+                case EMAIL -> candidato.emailBusqueda();
+            };
+        }
+    }
+
+    // Última fila leída de una columna (keyset). INICIO = antes de la primera fila del apellido.
+    private record Posicion(Campo campo, String valor, int rut) {
+        static final Posicion INICIO = new Posicion(Campo.APELLIDO, "", 0);
+    }
+
+    private record Puntuado(CandidatoBusquedaDTO candidato, int puntaje) {
+    }
+}
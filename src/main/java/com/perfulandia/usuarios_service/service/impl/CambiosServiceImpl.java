@@ -0,0 +1,291 @@
+package com.perfulandia.usuarios_service.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.perfulandia.usuarios_service.cambios.SecuenciadorCambios;
+import com.perfulandia.usuarios_service.dto.CambioDTO;
+import com.perfulandia.usuarios_service.dto.CursorCambiosDTO;
+import com.perfulandia.usuarios_service.dto.FilaCambioDTO;
+import com.perfulandia.usuarios_service.dto.PaginaCambiosDTO;
+import com.perfulandia.usuarios_service.exception.CursorVencidoException;
+import com.perfulandia.usuarios_service.exception.ServicioSaturadoException;
+import com.perfulandia.usuarios_service.model.EstadoCambios;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.repository.CambioUsuarioRepository;
+import com.perfulandia.usuarios_service.repository.EstadoCambiosRepository;
+import com.perfulandia.usuarios_service.service.CambiosService;
+import com.perfulandia.usuarios_service.shards.EjecutorShards;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+// Feed de cambios sobre cambios_usuarios (ver SecuenciadorCambios para el orden y RegistroCambios para la escritura).
+//
+// El cursor es opaco: la última secuencia leída de cada shard. Cada shard entrega sus cambios siguientes en orden
+// de secuencia y se combinan por fecha SIN reordenar los de un mismo shard; el cursor avanza, en cada shard, solo
+// hasta el último cambio que entró en la página. Así ningún cambio queda atrás de un cursor sin haberse entregado.
+//
+// Long polling: si no hay cambios, la petición queda registrada (sin hilo ni conexión) hasta que el secuenciador
+// avisa que la secuencia avanzó, o hasta que vence la espera. Las esperas simultáneas están acotadas
+// ('usuarios.cambios.esperas-maximas'); pasado el tope se responde 503 + Retry-After.
+@Timed(value = "usuarios.servicio", histogram = true, percentiles = {0.5, 0.95, 0.99})
+@Service
+public class CambiosServiceImpl implements CambiosService {
+
+    private final CambioUsuarioRepository cambioUsuarioRepository;
+    private final EstadoCambiosRepository estadoCambiosRepository;
+    private final EjecutorShards ejecutorShards;
+    private final SecuenciadorCambios secuenciadorCambios;
+    private final TransactionTemplate lecturaTemplate; // Estado y página de cada shard en la misma transacción
+    // Igual, pero en la primaria: lo que lee el long polling (ver esperarCambios)
+    private final TransactionTemplate primariaTemplate;
+
+    private final int limitePorDefecto;
+    private final int limiteMaximo;
+    private final Duration esperaMaxima;
+    private final int esperasMaximas;
+
+    private final Set<Espera> esperas = ConcurrentHashMap.newKeySet(); // Esperando un aviso del secuenciador
+    private final AtomicInteger esperasActivas = new AtomicInteger();  // Incluye las que se están revisando
+    private final ExecutorService hilos; // Revisan las esperas despertadas, fuera del hilo del secuenciador
+
+    @Autowired
+    public CambiosServiceImpl(CambioUsuarioRepository cambioUsuarioRepository,
+                              EstadoCambiosRepository estadoCambiosRepository,
+                              EjecutorShards ejecutorShards, SecuenciadorCambios secuenciadorCambios,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                              @Value("${usuarios.cambios.limite-por-defecto:100}") int limitePorDefecto,
+                              @Value("${usuarios.cambios.limite-maximo:1000}") int limiteMaximo,
+                              @Value("${usuarios.cambios.espera-maxima:30s}") Duration esperaMaxima,
+                              @Value("${usuarios.cambios.esperas-maximas:1000}") int esperasMaximas,
+                              @Value("${usuarios.cambios.hilos-espera:2}") int hilosEspera) {
+        this.cambioUsuarioRepository = cambioUsuarioRepository;
+        this.estadoCambiosRepository = estadoCambiosRepository;
+        this.ejecutorShards = ejecutorShards;
+        this.secuenciadorCambios = secuenciadorCambios;
+        this.lecturaTemplate = new TransactionTemplate(transactionManager);
+        this.lecturaTemplate.setReadOnly(true);
+        this.primariaTemplate = new TransactionTemplate(transactionManager); // Sin readOnly: EnrutadorReplicas no la desvía
+        this.limitePorDefecto = limitePorDefecto;
+        this.limiteMaximo = limiteMaximo;
+        this.esperaMaxima = esperaMaxima;
+        this.esperasMaximas = esperasMaximas;
+        AtomicInteger numero = new AtomicInteger();
+        this.hilos = Executors.newFixedThreadPool(hilosEspera, tarea -> {
+            Thread hilo = new Thread(tarea, "esperas-cambios-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        Gauge.builder("usuarios.cambios.esperas", esperasActivas, AtomicInteger::get)
+                .description("Consultas del feed de cambios esperando cambios nuevos (long polling)")
+                .register(meterRegistry);
+        secuenciadorCambios.alAvanzar(this::despertar);
+    }
+
+    @PreDestroy
+    public void detener() {
+        hilos.shutdownNow();
+    }
+
+    @Override
+    public PaginaCambiosDTO obtenerCambios(String cursor, Integer limite) {
+        return leer(decodificarCursor(cursor), tamanoPagina(limite), lecturaTemplate);
+    }
+
+    @Override
+    public CompletableFuture<PaginaCambiosDTO> esperarCambios(String cursor, Integer limite, Duration espera) {
+        if (espera.isNegative()) {
+            throw new IllegalArgumentException("El parámetro 'espera' no puede ser negativo.");
+        }
+        Duration plazo = espera.compareTo(esperaMaxima) > 0 ? esperaMaxima : espera;
+        int tamano = tamanoPagina(limite);
+        long[] desde = decodificarCursor(cursor);
+
+        // El long polling lee de la primaria, aquí y al despertar: el aviso del secuenciador significa que la
+        // primaria ya tiene los cambios, no la réplica. Leyendo de una réplica atrasada, la espera despertada no
+        // veía nada y volvía a dormir hasta el próximo aviso (o hasta vencer, si no había más escrituras).
+        long vuelta = secuenciadorCambios.avances(); // Antes de leer: un aviso durante la lectura no se pierde
+        PaginaCambiosDTO pagina = leer(desde, tamano, primariaTemplate);
+        if (!pagina.cambios().isEmpty() || plazo.isZero()) {
+            return CompletableFuture.completedFuture(pagina);
+        }
+        if (esperasActivas.incrementAndGet() > esperasMaximas) {
+            esperasActivas.decrementAndGet();
+            throw new ServicioSaturadoException("Demasiadas consultas esperando cambios, reintente más tarde.", Duration.ofSeconds(1));
+        }
+        Espera pendiente = new Espera(decodificarCursor(pagina.cursor()), tamano, new CompletableFuture<>());
+        pendiente.futuro().whenComplete((resultado, error) -> {
+            esperas.remove(pendiente);
+            esperasActivas.decrementAndGet();
+        });
+        pendiente.futuro().completeOnTimeout(pagina, plazo.toMillis(), TimeUnit.MILLISECONDS); // Vacía, mismo cursor
+        registrar(pendiente, vuelta);
+        return pendiente.futuro();
+    }
+
+    @Override
+    public CursorCambiosDTO obtenerCursorActual() {
+        List<Long> ultimas = ejecutorShards.enCadaShard(shard -> lecturaTemplate.execute(status ->
+                estadoCambiosRepository.findById(EstadoCambios.ID).map(EstadoCambios::getUltimaSecuencia).orElse(0L)));
+        return new CursorCambiosDTO(codificarCursor(ultimas.stream().mapToLong(Long::longValue).toArray()));
+    }
+
+    // 'desde' null = desde lo más antiguo que se conserva en cada shard
+    private PaginaCambiosDTO leer(long[] desde, int tamano, TransactionTemplate plantilla) {
+        List<Tramo> tramos = ejecutorShards.enCadaShard(shard -> plantilla.execute(status -> {
+            long purgadaHasta = estadoCambiosRepository.findById(EstadoCambios.ID)
+                    .map(EstadoCambios::getPurgadaHasta).orElse(0L);
+            long posicion = (desde == null) ? purgadaHasta : desde[shard];
+            if (posicion < purgadaHasta) {
+                throw new CursorVencidoException("Los cambios siguientes al cursor ya no se conservan; "
+                        + "resincronice y pida un cursor nuevo.");
+            }
+            return new Tramo(posicion, cambioUsuarioRepository.findDespuesDe(posicion, Limit.of(tamano)));
+        }));
+
+        // Combinación por fecha de creación, tomando siempre el siguiente de algún shard (nunca uno salteado)
+        long[] posiciones = new long[tramos.size()];
+        int[] siguiente = new int[tramos.size()];
+        for (int shard = 0; shard < tramos.size(); shard++) {
+            posiciones[shard] = tramos.get(shard).posicion();
+        }
+        List<CambioDTO> cambios = new ArrayList<>(tamano);
+        while (cambios.size() < tamano) {
+            int elegido = -1;
+            for (int shard = 0; shard < tramos.size(); shard++) {
+                List<FilaCambioDTO> filas = tramos.get(shard).filas();
+                if (siguiente[shard] < filas.size() && (elegido < 0 || filas.get(siguiente[shard]).creado()
+                        .isBefore(tramos.get(elegido).filas().get(siguiente[elegido]).creado()))) {
+                    elegido = shard;
+                }
+            }
+            if (elegido < 0) {
+                break;
+            }
+            FilaCambioDTO fila = tramos.get(elegido).filas().get(siguiente[elegido]++);
+            posiciones[elegido] = fila.secuencia();
+            cambios.add(new CambioDTO(fila.tipo(), Rut.de(fila.usuarioRut()), fila.direccionId(), fila.creado()));
+        }
+        return new PaginaCambiosDTO(cambios, codificarCursor(posiciones));
+    }
+
+    // --- Long polling ---
+
+    // Deja la espera a la vista del próximo aviso. Si la secuencia avanzó desde 'vuelta' (el aviso pudo llegar
+    // antes del registro), se revisa de nuevo en vez de esperar.
+    private void registrar(Espera espera, long vuelta) {
+        esperas.add(espera);
+        if (espera.futuro().isDone()) {
+            esperas.remove(espera); // Venció mientras se revisaba
+        } else if (secuenciadorCambios.avances() != vuelta && esperas.remove(espera)) {
+            revisarEnOtroHilo(espera);
+        }
+    }
+
+    // Aviso del secuenciador (en su hilo): cada espera se revisa una vez en los hilos del feed
+    private void despertar() {
+        for (Espera espera : esperas) {
+            if (esperas.remove(espera)) {
+                revisarEnOtroHilo(espera);
+            }
+        }
+    }
+
+    private void revisarEnOtroHilo(Espera espera) {
+        try {
+            hilos.execute(() -> revisar(espera));
+        } catch (RejectedExecutionException e) {
+            espera.futuro().cancel(false); // Aplicación deteniéndose
+        }
+    }
+
+    private void revisar(Espera espera) {
+        if (espera.futuro().isDone()) {
+            return;
+        }
+        long vuelta = secuenciadorCambios.avances();
+        try {
+            PaginaCambiosDTO pagina = leer(espera.posiciones(), espera.tamano(), primariaTemplate);
+            if (!pagina.cambios().isEmpty()) {
+                espera.futuro().complete(pagina);
+                return;
+            }
+        } catch (RuntimeException e) {
+            espera.futuro().completeExceptionally(e);
+            return;
+        }
+        registrar(espera, vuelta); // El aviso era de otro shard (o de cambios ya entregados)
+    }
+
+    // --- Validación y cursor ---
+
+    private int tamanoPagina(Integer limite) {
+        int tamano = (limite == null) ? limitePorDefecto : limite;
+        if (tamano < 1) {
+            throw new IllegalArgumentException("El parámetro 'limit' debe ser mayor que cero.");
+        }
+        return Math.min(tamano, limiteMaximo);
+    }
+
+    // El cursor es la última secuencia leída de cada shard ("120.87") en Base64 URL-safe
+    private String codificarCursor(long[] posiciones) {
+        StringBuilder texto = new StringBuilder();
+        for (long posicion : posiciones) {
+            texto.append(texto.isEmpty() ? "" : ".").append(posicion);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long[] decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] partes;
+        long[] posiciones;
+        try {
+            partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\.");
+            posiciones = new long[partes.length];
+            for (int i = 0; i < partes.length; i++) {
+                posiciones[i] = Long.parseLong(partes[i]);
+                if (posiciones[i] < 0) {
+                    throw new IllegalArgumentException();
+                }
+            }
+        } catch (IllegalArgumentException e) { // Incluye NumberFormatException
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+        if (posiciones.length != ejecutorShards.cantidad()) {
+            // Se agregaron o quitaron shards: las posiciones ya no corresponden
+            throw new CursorVencidoException("El cursor corresponde a otra configuración de shards; pida un cursor nuevo.");
+        }
+        return posiciones;
+    }
+
+    private record Tramo(long posicion, List<FilaCambioDTO> filas) {
+    }
+
+    // Record con arreglo: equals/hashCode por identidad del arreglo, que es lo que necesita el Set de esperas
+    private record Espera(long[] posiciones, int tamano, CompletableFuture<PaginaCambiosDTO> futuro) {
+    }
+}
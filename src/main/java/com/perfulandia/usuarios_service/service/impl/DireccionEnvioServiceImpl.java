@@ -1,52 +1,108 @@
 package com.perfulandia.usuarios_service.service.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.perfulandia.usuarios_service.cambios.RegistroCambios;
+import com.perfulandia.usuarios_service.concurrencia.AgrupadorEscrituras;
+import com.perfulandia.usuarios_service.concurrencia.AgrupadorEscrituras.Solicitud;
 import com.perfulandia.usuarios_service.dto.ActualizarDireccionDTO;
 import com.perfulandia.usuarios_service.dto.CrearDireccionDTO;
 import com.perfulandia.usuarios_service.dto.DireccionResponseDTO;
+import com.perfulandia.usuarios_service.dto.DireccionesUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.FilaDireccionDTO;
+import com.perfulandia.usuarios_service.exception.ConflictoVersionException;
+import com.perfulandia.usuarios_service.exception.RecursoNoEncontradoException;
 import com.perfulandia.usuarios_service.model.DireccionEnvio;
-import com.perfulandia.usuarios_service.model.Usuario;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.model.TipoCambio;
 import com.perfulandia.usuarios_service.repository.DireccionEnvioRepository;
 import com.perfulandia.usuarios_service.repository.UsuarioRepository;
 import com.perfulandia.usuarios_service.service.DireccionEnvioService;
+import com.perfulandia.usuarios_service.shards.ClaveShard;
+import com.perfulandia.usuarios_service.shards.EjecutorShards;
 
-import java.util.Collections;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+@Timed(value = "usuarios.servicio", histogram = true, percentiles = {0.5, 0.95, 0.99})
 @Service
 public class DireccionEnvioServiceImpl implements DireccionEnvioService {
 
     private final DireccionEnvioRepository direccionEnvioRepository;
     private final UsuarioRepository usuarioRepository; // Necesario para asociar direcciones a usuarios
+    private final RegistroCambios registroCambios;
+    private final EjecutorShards ejecutorShards;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    // Altas agrupadas (group commit); null si 'usuarios.direcciones.agrupar.activo' es false
+    private final AgrupadorEscrituras<AltaDireccion, DireccionResponseDTO> agrupadorAltas;
 
     @Autowired
     public DireccionEnvioServiceImpl(DireccionEnvioRepository direccionEnvioRepository,
-                                     UsuarioRepository usuarioRepository) {
+                                     UsuarioRepository usuarioRepository, RegistroCambios registroCambios,
+                                     EjecutorShards ejecutorShards, PlatformTransactionManager transactionManager,
+                                     EntityManager entityManager, MeterRegistry meterRegistry,
+                                     @Value("${usuarios.direcciones.agrupar.activo:false}") boolean agrupar,
+                                     @Value("${usuarios.direcciones.agrupar.ventana:2ms}") Duration ventana,
+                                     @Value("${usuarios.direcciones.agrupar.lote-maximo:100}") int loteMaximo,
+                                     @Value("${usuarios.direcciones.agrupar.capacidad-cola:2000}") int capacidadCola,
+                                     @Value("${usuarios.direcciones.agrupar.espera-maxima:1s}") Duration esperaMaxima,
+                                     @Value("${usuarios.direcciones.agrupar.reintentar-en:1s}") Duration reintentarEn) {
         this.direccionEnvioRepository = direccionEnvioRepository;
         this.usuarioRepository = usuarioRepository;
+        this.registroCambios = registroCambios;
+        this.ejecutorShards = ejecutorShards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.agrupadorAltas = agrupar
+                ? new AgrupadorEscrituras<>("altas-direcciones", ventana, loteMaximo, capacidadCola, esperaMaxima,
+                        reintentarEn, this::agregarLote,
+                        alta -> transactionTemplate.execute(status -> agregarEnTransaccion(alta.usuarioRut(), alta.direccion())),
+                        meterRegistry)
+                : null;
     }
 
-    @Override
-    @Transactional
-    public DireccionResponseDTO agregarDireccionAUsuario(String usuarioRut, CrearDireccionDTO crearDireccionDTO) {
-        Usuario usuario = usuarioRepository.findById(usuarioRut)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado con RUT: " + usuarioRut));
-                // En una app real: UsuarioNotFoundException
+    @PreDestroy
+    public void detener() {
+        if (agrupadorAltas != null) {
+            agrupadorAltas.close();
+        }
+    }
 
-        DireccionEnvio nuevaDireccion = DireccionEnvio.builder()
-                .calle(crearDireccionDTO.calle())
-                .numero(crearDireccionDTO.numero())
-                .comuna(crearDireccionDTO.comuna())
-                .ciudad(crearDireccionDTO.ciudad())
-                .usuario(usuario) // Asociamos la dirección al usuario encontrado
-                .build();
+    @Override
+    // Sin @Transactional en el método: en el modo agrupado la llamada solo espera su lote (que escribe otro hilo),
+    // y no debe retener una conexión del pool mientras tanto.
+    public DireccionResponseDTO agregarDireccionAUsuario(@ClaveShard Rut usuarioRut, CrearDireccionDTO crearDireccionDTO) {
+        if (agrupadorAltas != null) {
+            return agrupadorAltas.enviar(new AltaDireccion(usuarioRut, crearDireccionDTO));
+        }
+        return transactionTemplate.execute(status -> agregarEnTransaccion(usuarioRut, crearDireccionDTO));
+    }
 
-        DireccionEnvio direccionGuardada = direccionEnvioRepository.save(nuevaDireccion);
+    private DireccionResponseDTO agregarEnTransaccion(Rut usuarioRut, CrearDireccionDTO crearDireccionDTO) {
+        // El UPDATE de la versión de la lista sirve además de verificación de existencia (0 filas = no existe),
+        // así que el usuario no se lee: basta una referencia para la FK.
+        registrarCambioDeDirecciones(usuarioRut, null);
+        DireccionEnvio direccionGuardada = direccionEnvioRepository.save(nuevaDireccion(usuarioRut, crearDireccionDTO));
+        registroCambios.registrar(TipoCambio.DIRECCION_CREADA, usuarioRut, direccionGuardada.getId());
         // Opcionalmente, añadir la dirección a la colección del usuario si la gestión de la relación es bidireccional
         // y queremos que el objeto 'usuario' esté actualizado en esta sesión.
         // usuario.getDireccionesEnvio().add(direccionGuardada); // Esto puede ser útil si luego usas el objeto 'usuario'
@@ -54,69 +110,144 @@ public class DireccionEnvioServiceImpl implements DireccionEnvioService {
         return mapToDireccionResponseDTO(direccionGuardada);
     }
 
-    @Override
-    @Transactional(readOnly = true)
-    public List<DireccionResponseDTO> obtenerDireccionesPorUsuarioRut(String usuarioRut) {
-        // Opción 1: Verificar si el usuario existe primero
-        if (!usuarioRepository.existsById(usuarioRut)) {
-            // Puedes lanzar una excepción si el usuario no existe, o devolver lista vacía.
-            // Lanzar excepción es a menudo más claro si la expectativa es que el usuario DEBE existir.
-            throw new RuntimeException("Usuario no encontrado con RUT: " + usuarioRut);
-            // O: return Collections.emptyList(); si prefieres no lanzar excepción.
+    // --- Altas agrupadas (hilo del agrupador) ---
+
+    private record AltaDireccion(Rut usuarioRut, CrearDireccionDTO direccion) {
+    }
+
+    // Un lote puede mezclar usuarios de varios shards: una transacción por shard
+    private void agregarLote(List<Solicitud<AltaDireccion, DireccionResponseDTO>> lote) {
+        Map<Integer, List<Solicitud<AltaDireccion, DireccionResponseDTO>>> porShard = lote.stream()
+                .collect(Collectors.groupingBy(solicitud -> ejecutorShards.shardDe(solicitud.valor().usuarioRut()),
+                        TreeMap::new, Collectors.toList()));
+        porShard.forEach((shard, solicitudes) -> ejecutorShards.enShard(shard, () -> {
+            agregarEnShard(solicitudes);
+            return null;
+        }));
+    }
+
+    // Todo el grupo en una transacción: UPDATE de las versiones de todos los usuarios + SELECT de cuáles existen
+    // + INSERT de las direcciones en lotes JDBC + registro de los cambios. Si la transacción falla (ej. una
+    // violación de restricción en una fila), cada alta se reintenta por separado en el hilo de su petición
+    // (reintentarSola): el error queda en la suya y este hilo sigue con el lote siguiente.
+    private void agregarEnShard(List<Solicitud<AltaDireccion, DireccionResponseDTO>> solicitudes) {
+        Map<Solicitud<AltaDireccion, DireccionResponseDTO>, DireccionEnvio> creadas = new LinkedHashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<Integer> ruts = solicitudes.stream().map(solicitud -> solicitud.valor().usuarioRut().numero())
+                        .collect(Collectors.toCollection(TreeSet::new));
+                usuarioRepository.incrementarVersionDireccionesDe(ruts);
+                Set<Integer> existentes = new HashSet<>(usuarioRepository.findRutsExistentes(ruts));
+                for (Solicitud<AltaDireccion, DireccionResponseDTO> solicitud : solicitudes) {
+                    AltaDireccion alta = solicitud.valor();
+                    if (existentes.contains(alta.usuarioRut().numero())) {
+                        DireccionEnvio direccion = nuevaDireccion(alta.usuarioRut(), alta.direccion());
+                        entityManager.persist(direccion); // ID asignado aquí (@IdDireccion); el INSERT va en el flush
+                        creadas.put(solicitud, direccion);
+                    }
+                }
+                entityManager.flush();
+                registroCambios.registrarLoteDirecciones(TipoCambio.DIRECCION_CREADA,
+                        creadas.values().stream().map(DireccionEnvio::getId).toList());
+            });
+        } catch (RuntimeException e) {
+            solicitudes.forEach(Solicitud::reintentarSola);
+            return;
         }
-        // Si usáramos el método que eliminamos de DireccionEnvioRepository:
-        // return direccionEnvioRepository.findByUsuarioRut(usuarioRut) ...
-        // Como lo eliminamos, cargamos el usuario y obtenemos sus direcciones:
-        Usuario usuario = usuarioRepository.findById(usuarioRut).orElse(null); // Ya verificamos arriba, pero por si acaso.
-        if (usuario == null || usuario.getDireccionesEnvio() == null) {
-            return Collections.emptyList();
+        // Confirmado: cada llamada recibe su dirección, o el mismo 404 que en el modo normal
+        for (Solicitud<AltaDireccion, DireccionResponseDTO> solicitud : solicitudes) {
+            DireccionEnvio direccion = creadas.get(solicitud);
+            if (direccion != null) {
+                solicitud.completar(mapToDireccionResponseDTO(direccion));
+            } else {
+                solicitud.fallar(new RecursoNoEncontradoException("Usuario no encontrado con RUT: " + solicitud.valor().usuarioRut()));
+            }
         }
+    }
+
+    private DireccionEnvio nuevaDireccion(Rut usuarioRut, CrearDireccionDTO crearDireccionDTO) {
+        return DireccionEnvio.builder()
+                .calle(crearDireccionDTO.calle())
+                .numero(crearDireccionDTO.numero())
+                .comuna(crearDireccionDTO.comuna())
+                .ciudad(crearDireccionDTO.ciudad())
+                .usuario(usuarioRepository.getReferenceById(usuarioRut.numero())) // Referencia para la FK, sin SELECT
+                .build();
+    }
 
-        return usuario.getDireccionesEnvio().stream()
-                .map(this::mapToDireccionResponseDTO)
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<DireccionesUsuarioDTO> obtenerDireccionesPorUsuarioRut(@ClaveShard Rut usuarioRut) {
+        // Una sola consulta (proyección a DTO): antes eran existsById + findById + carga perezosa de la colección.
+        List<FilaDireccionDTO> filas = direccionEnvioRepository.findDireccionesDeUsuario(usuarioRut.numero());
+        if (filas.isEmpty()) {
+            return Optional.empty(); // El usuario no existe
+        }
+        List<DireccionResponseDTO> direcciones = filas.stream()
+                .filter(fila -> fila.id() != null) // Usuario sin direcciones: única fila con la dirección en null
+                .map(fila -> new DireccionResponseDTO(fila.id(), fila.calle(), fila.numero(), fila.comuna(), fila.ciudad()))
                 .collect(Collectors.toList());
+        return Optional.of(new DireccionesUsuarioDTO(filas.get(0).versionDirecciones(), direcciones));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> obtenerVersionDirecciones(@ClaveShard Rut usuarioRut) {
+        return usuarioRepository.findVersionDirecciones(usuarioRut.numero());
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Optional<DireccionResponseDTO> obtenerDireccionPorId(Long direccionId) {
-        return direccionEnvioRepository.findById(direccionId)
-                .map(this::mapToDireccionResponseDTO);
+    public Optional<DireccionResponseDTO> obtenerDireccionDeUsuario(@ClaveShard Rut usuarioRut, Long direccionId) {
+        // Con el RUT del dueño la consulta sabe en qué shard buscar y además valida la pertenencia
+        return direccionEnvioRepository.findDeUsuario(usuarioRut.numero(), direccionId);
     }
 
     @Override
     @Transactional
-    public DireccionResponseDTO actualizarDireccion(Long direccionId, ActualizarDireccionDTO actualizarDireccionDTO) {
-        DireccionEnvio direccionExistente = direccionEnvioRepository.findById(direccionId)
-                .orElseThrow(() -> new RuntimeException("Dirección no encontrada con ID: " + direccionId));
-                // En una app real: DireccionNotFoundException
-
-        direccionExistente.setCalle(actualizarDireccionDTO.calle());
-        direccionExistente.setNumero(actualizarDireccionDTO.numero());
-        direccionExistente.setComuna(actualizarDireccionDTO.comuna());
-        direccionExistente.setCiudad(actualizarDireccionDTO.ciudad());
-        // El 'usuario_id' (USUARIOS_rut) no se cambia aquí, ya que esta es una actualización de la dirección en sí.
-        // Si se quisiera reasignar una dirección a otro usuario, sería una operación diferente.
-
-        DireccionEnvio direccionActualizada = direccionEnvioRepository.save(direccionExistente);
-        return mapToDireccionResponseDTO(direccionActualizada);
+    public DireccionResponseDTO actualizarDireccion(@ClaveShard Rut usuarioRut, Long direccionId, ActualizarDireccionDTO actualizarDireccionDTO,
+                                                    Long versionDirecciones) {
+        registrarCambioDeDirecciones(usuarioRut, versionDirecciones);
+        // Un solo UPDATE que además verifica la pertenencia al usuario. El 'usuario_id' (USUARIOS_rut) no se cambia aquí;
+        // reasignar una dirección a otro usuario sería una operación diferente.
+        int filas = direccionEnvioRepository.actualizarDeUsuario(usuarioRut.numero(), direccionId,
+                actualizarDireccionDTO.calle(), actualizarDireccionDTO.numero(),
+                actualizarDireccionDTO.comuna(), actualizarDireccionDTO.ciudad());
+        if (filas == 0) {
+            throw new RecursoNoEncontradoException("Dirección no encontrada con ID: " + direccionId + " para el usuario " + usuarioRut);
+        }
+        registroCambios.registrar(TipoCambio.DIRECCION_ACTUALIZADA, usuarioRut, direccionId);
+        // PUT reemplaza todos los campos, así que la respuesta se arma con lo escrito (sin releer la fila)
+        return new DireccionResponseDTO(direccionId, actualizarDireccionDTO.calle(), actualizarDireccionDTO.numero(),
+                actualizarDireccionDTO.comuna(), actualizarDireccionDTO.ciudad());
     }
 
     @Override
     @Transactional
-    public void eliminarDireccion(Long direccionId) {
-        if (!direccionEnvioRepository.existsById(direccionId)) {
-            throw new RuntimeException("Dirección no encontrada con ID: " + direccionId + ". No se puede eliminar.");
-            // En una app real: DireccionNotFoundException
+    public void eliminarDireccion(@ClaveShard Rut usuarioRut, Long direccionId, Long versionDirecciones) {
+        registrarCambioDeDirecciones(usuarioRut, versionDirecciones);
+        // Un solo DELETE por clave y dueño; las filas afectadas indican si existía.
+        if (direccionEnvioRepository.eliminarDeUsuario(usuarioRut.numero(), direccionId) == 0) {
+            throw new RecursoNoEncontradoException("Dirección no encontrada con ID: " + direccionId + ". No se puede eliminar.");
+        }
+        registroCambios.registrar(TipoCambio.DIRECCION_ELIMINADA, usuarioRut, direccionId);
+    }
+
+    // Incrementa la versión de la lista de direcciones del usuario (y con ello su ETag). Va antes de la escritura
+    // de la dirección: si esta no aplica, la excepción revierte el incremento junto con todo lo demás.
+    private void registrarCambioDeDirecciones(Rut usuarioRut, Long versionEsperada) {
+        if (usuarioRepository.incrementarVersionDirecciones(usuarioRut.numero(), versionEsperada) == 0) {
+            if (versionEsperada != null && usuarioRepository.existsById(usuarioRut.numero())) {
+                throw new ConflictoVersionException("Las direcciones del usuario " + usuarioRut
+                        + " ya no están en la versión " + versionEsperada);
+            }
+            throw new RecursoNoEncontradoException("Usuario no encontrado con RUT: " + usuarioRut);
         }
-        // La eliminación en cascada desde Usuario a DireccionEnvio (si un Usuario es eliminado)
-        // está manejada por CascadeType.ALL en la entidad Usuario y ON DELETE CASCADE en la BD.
-        // Aquí eliminamos una dirección específica directamente.
-        direccionEnvioRepository.deleteById(direccionId);
     }
 
     // --- Métodos Helper para Mapeo ---
-    private DireccionResponseDTO mapToDireccionResponseDTO(DireccionEnvio direccion) {
+    // Package-private y estático para poder medirlo aislado (benchmark MapeoBenchmark)
+    static DireccionResponseDTO mapToDireccionResponseDTO(DireccionEnvio direccion) {
         if (direccion == null) {
             return null;
         }
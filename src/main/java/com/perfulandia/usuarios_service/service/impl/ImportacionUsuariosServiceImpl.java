@@ -0,0 +1,418 @@
+package com.perfulandia.usuarios_service.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.perfulandia.usuarios_service.cache.UsuarioCache;
+import com.perfulandia.usuarios_service.cambios.RegistroCambios;
+import com.perfulandia.usuarios_service.dto.CrearUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.ResultadoFilaImportacionDTO;
+import com.perfulandia.usuarios_service.dto.ResultadoImportacionDTO;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.model.TipoCambio;
+import com.perfulandia.usuarios_service.model.Usuario;
+import com.perfulandia.usuarios_service.repository.UsuarioRepository;
+import com.perfulandia.usuarios_service.security.EjecutorHash;
+import com.perfulandia.usuarios_service.service.ImportacionUsuariosService;
+import com.perfulandia.usuarios_service.shards.EjecutorShards;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+
+@Timed(value = "usuarios.servicio", histogram = true, percentiles = {0.5, 0.95, 0.99})
+@Service
+public class ImportacionUsuariosServiceImpl implements ImportacionUsuariosService {
+
+    private final UsuarioRepository usuarioRepository;
+    private final EjecutorHash ejecutorHash;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final UsuarioCache usuarioCache;
+    private final EjecutorShards ejecutorShards;
+    private final RegistroCambios registroCambios;
+
+    private final int tamanoLote;    // Filas por transacción (cada lote hace su propio commit)
+    private final int maximoFilas;   // Tope de filas por petición, para acotar el tamaño del reporte (las demás no se leen)
+
+    @Autowired
+    public ImportacionUsuariosServiceImpl(UsuarioRepository usuarioRepository,
+                                          EjecutorHash ejecutorHash,
+                                          EntityManager entityManager,
+                                          ObjectMapper objectMapper,
+                                          PlatformTransactionManager transactionManager,
+                                          UsuarioCache usuarioCache,
+                                          EjecutorShards ejecutorShards,
+                                          RegistroCambios registroCambios,
+                                          @Value("${usuarios.importacion.tamano-lote:1000}") int tamanoLote,
+                                          @Value("${usuarios.importacion.maximo-filas:100000}") int maximoFilas) {
+        this.usuarioRepository = usuarioRepository;
+        this.ejecutorHash = ejecutorHash;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.usuarioCache = usuarioCache;
+        this.ejecutorShards = ejecutorShards;
+        this.registroCambios = registroCambios;
+        this.tamanoLote = tamanoLote;
+        this.maximoFilas = maximoFilas;
+    }
+
+    @Override
+    public ResultadoImportacionDTO importarDesdeJson(InputStream entrada) {
+        Importacion importacion = new Importacion();
+        int fila = 0;
+        // Se lee el arreglo objeto por objeto: nunca se materializa el JSON completo en memoria
+        try (JsonParser parser = objectMapper.getFactory().createParser(entrada)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Se esperaba un arreglo JSON de usuarios.");
+            }
+            while (importacion.motivo == null && parser.nextToken() == JsonToken.START_OBJECT) {
+                if (fila == maximoFilas) {
+                    importacion.detener(excesoDeFilas());
+                    break;
+                }
+                // El RUT se lee como texto y se valida en procesarLote: un RUT inválido falla solo su fila
+                FilaImportada usuario = objectMapper.readValue(parser, FilaImportada.class);
+                fila++; // 'fila' cuenta solo los objetos leídos completos
+                importacion.agregar(new FilaPendiente(fila, usuario));
+            }
+        } catch (JsonProcessingException e) {
+            // JSON mal formado: se confirma lo leído hasta ahora y se reporta dónde se detuvo
+            importacion.procesar();
+            importacion.resultados.add(new ResultadoFilaImportacionDTO(fila + 1, null, false,
+                    "JSON inválido, la importación se detuvo en esta fila: " + e.getOriginalMessage()));
+            importacion.detener("JSON inválido en la fila " + (fila + 1) + ".");
+        } catch (IOException e) {
+            importacion.cortarLectura(e);
+        }
+        return importacion.terminar();
+    }
+
+    @Override
+    public ResultadoImportacionDTO importarDesdeCsv(InputStream entrada) {
+        Importacion importacion = new Importacion();
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            String cabecera = lector.readLine();
+            if (cabecera == null) {
+                throw new IllegalArgumentException("El CSV está vacío.");
+            }
+            Map<String, Integer> columnas = indexarCabecera(cabecera);
+
+            String linea;
+            int fila = 0;
+            while (importacion.motivo == null && (linea = lector.readLine()) != null) {
+                if (linea.isBlank()) {
+                    continue;
+                }
+                if (fila == maximoFilas) {
+                    importacion.detener(excesoDeFilas());
+                    break;
+                }
+                fila++;
+                List<String> valores = separarCsv(linea);
+                importacion.agregar(new FilaPendiente(fila, new FilaImportada(
+                        valor(valores, columnas, "rut"),
+                        valor(valores, columnas, "nombre"),
+                        valor(valores, columnas, "apellido"),
+                        valor(valores, columnas, "email"),
+                        valor(valores, columnas, "password"))));
+            }
+        } catch (IOException e) {
+            importacion.cortarLectura(e);
+        }
+        return importacion.terminar();
+    }
+
+    private String excesoDeFilas() {
+        return "La importación supera el máximo de " + maximoFilas + " filas: desde la fila " + (maximoFilas + 1)
+                + " no se leyó nada.";
+    }
+
+    // Estado de una importación en curso: el lote que se está juntando, el reporte y, si se detuvo, por qué.
+    // Una vez confirmado algún lote, ningún error se propaga como excepción: se detiene la lectura y se devuelve
+    // el reporte truncado, así el cliente sabe qué filas quedaron escritas y desde dónde reintentar.
+    private final class Importacion {
+        private final List<ResultadoFilaImportacionDTO> resultados = new ArrayList<>();
+        private final List<FilaPendiente> lote = new ArrayList<>(tamanoLote);
+        private String motivo; // null mientras no se detenga
+
+        void agregar(FilaPendiente fila) {
+            lote.add(fila);
+            if (lote.size() == tamanoLote) {
+                procesar();
+            }
+        }
+
+        void detener(String motivo) {
+            if (this.motivo == null) {
+                this.motivo = motivo;
+            }
+        }
+
+        // El cuerpo se cortó (cliente desconectado, timeout de lectura): lo leído completo sí se procesa
+        void cortarLectura(IOException e) {
+            if (resultados.isEmpty() && lote.isEmpty()) {
+                throw new IllegalArgumentException("No se pudo leer el cuerpo de la petición.", e);
+            }
+            detener("No se pudo leer el resto del cuerpo de la petición: " + e.getMessage());
+        }
+
+        ResultadoImportacionDTO terminar() {
+            procesar();
+            return construirReporte(resultados, motivo);
+        }
+
+        private void procesar() {
+            if (lote.isEmpty()) {
+                return;
+            }
+            int reportadas = resultados.size();
+            try {
+                procesarLote(lote, resultados);
+            } catch (RuntimeException e) {
+                if (resultados.stream().noneMatch(ResultadoFilaImportacionDTO::exitoso)) {
+                    throw e; // Nada confirmado todavía: el error tal cual (p. ej. 503), y el cliente reintenta todo
+                }
+                // Las filas del lote que procesarLote no alcanzó a reportar (las de los shards sin confirmar)
+                Set<Integer> yaReportadas = new HashSet<>();
+                resultados.subList(reportadas, resultados.size()).forEach(resultado -> yaReportadas.add(resultado.fila()));
+                for (FilaPendiente pendiente : lote) {
+                    if (!yaReportadas.contains(pendiente.fila())) {
+                        resultados.add(fallo(pendiente, "No se procesó: " + e.getMessage()));
+                    }
+                }
+                detener("La importación se detuvo en la fila " + lote.get(0).fila() + ": " + e.getMessage());
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    // --- Procesamiento de un lote ---
+    // 1) validación en memoria, 2) una consulta para RUTs/emails existentes,
+    // 3) hash de contraseñas en paralelo, 4) INSERTs en lote (JDBC batching) en una transacción por shard.
+    private void procesarLote(List<FilaPendiente> lote, List<ResultadoFilaImportacionDTO> resultados) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        Set<Integer> ruts = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<FilaValida> validas = new ArrayList<>(lote.size());
+        for (FilaPendiente pendiente : lote) {
+            String error = validar(pendiente.usuario());
+            Rut rut = null;
+            if (error == null) {
+                try {
+                    rut = Rut.parsear(pendiente.usuario().rut());
+                } catch (IllegalArgumentException e) {
+                    error = "El RUT '" + pendiente.usuario().rut() + "' no es válido.";
+                }
+            }
+            // Dos formatos del mismo RUT ("12.345.678-9" y "12345678-9") son un duplicado
+            if (error == null && !ruts.add(rut.numero())) {
+                error = "RUT duplicado dentro de la importación.";
+            }
+            if (error == null && !emails.add(pendiente.usuario().email())) {
+                error = "Email duplicado dentro de la importación.";
+            }
+            if (error != null) {
+                resultados.add(fallo(pendiente, error));
+            } else {
+                validas.add(new FilaValida(pendiente.fila(), new CrearUsuarioDTO(rut, pendiente.usuario().nombre(),
+                        pendiente.usuario().apellido(), pendiente.usuario().email(), pendiente.usuario().password())));
+            }
+        }
+        if (validas.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> rutsExistentes = new HashSet<>();
+        Set<String> emailsExistentes = new HashSet<>();
+        // Los emails pueden estar en cualquier shard: la verificación se hace en todos (con uno solo, una consulta)
+        for (List<Object[]> existentes : ejecutorShards.enCadaShard(shard -> usuarioRepository.findRutYEmailExistentes(ruts, emails))) {
+            for (Object[] existente : existentes) {
+                rutsExistentes.add((Integer) existente[0]);
+                emailsExistentes.add((String) existente[1]);
+            }
+        }
+
+        List<FilaValida> aInsertar = new ArrayList<>(validas.size());
+        for (FilaValida pendiente : validas) {
+            if (rutsExistentes.contains(pendiente.usuario().rut().numero())) {
+                resultados.add(fallo(pendiente, "El RUT '" + pendiente.usuario().rut() + "' ya está registrado."));
+            } else if (emailsExistentes.contains(pendiente.usuario().email())) {
+                resultados.add(fallo(pendiente, "El email '" + pendiente.usuario().email() + "' ya está registrado."));
+            } else {
+                aInsertar.add(pendiente);
+            }
+        }
+        if (aInsertar.isEmpty()) {
+            return;
+        }
+
+        // BCrypt es trabajo de CPU puro: se reparte en el ejecutor de hashing y fuera de la transacción,
+        // así ninguna conexión del pool queda retenida mientras se calculan los hashes.
+        List<String> hashes = ejecutorHash.hashearLote(aInsertar.stream().map(p -> p.usuario().password()).toList());
+        // Cada shard confirma su parte del lote por separado (no hay transacciones entre shards)
+        Map<Integer, List<Integer>> posicionesPorShard = new TreeMap<>();
+        for (int i = 0; i < aInsertar.size(); i++) {
+            posicionesPorShard.computeIfAbsent(ejecutorShards.shardDe(aInsertar.get(i).usuario().rut()), shard -> new ArrayList<>()).add(i);
+        }
+        for (Map.Entry<Integer, List<Integer>> grupo : posicionesPorShard.entrySet()) {
+            List<FilaValida> pendientes = new ArrayList<>(grupo.getValue().size());
+            List<Usuario> usuarios = new ArrayList<>(grupo.getValue().size());
+            for (int i : grupo.getValue()) {
+                CrearUsuarioDTO usuario = aInsertar.get(i).usuario();
+                pendientes.add(aInsertar.get(i));
+                usuarios.add(Usuario.builder()
+                        .rut(usuario.rut().numero())
+                        .nombre(usuario.nombre())
+                        .apellido(usuario.apellido())
+                        .email(usuario.email())
+                        .passwordHash(hashes.get(i))
+                        .build());
+            }
+            insertarEnShard(grupo.getKey(), pendientes, usuarios, resultados);
+        }
+    }
+
+    private void insertarEnShard(int shard, List<FilaValida> pendientes, List<Usuario> usuarios,
+                                 List<ResultadoFilaImportacionDTO> resultados) {
+        try {
+            ejecutorShards.enShard(shard, () -> transactionTemplate.execute(status -> {
+                // persist() en vez de save(): con RUT asignado, save() haría merge y un SELECT por fila.
+                // Hibernate agrupa los INSERT según 'hibernate.jdbc.batch_size'.
+                for (Usuario usuario : usuarios) {
+                    entityManager.persist(usuario);
+                    usuarioCache.invalidarAlConfirmar(Rut.de(usuario.getRut())); // Descarta "no encontrado" cacheados
+                }
+                entityManager.flush();
+                entityManager.clear();
+                // Un registro por usuario en una sola sentencia (INSERT ... SELECT de las filas recién insertadas)
+                registroCambios.registrarLote(TipoCambio.USUARIO_CREADO,
+                        usuarios.stream().map(Usuario::getRut).toList());
+                return null;
+            }));
+            for (FilaValida pendiente : pendientes) {
+                resultados.add(new ResultadoFilaImportacionDTO(pendiente.fila(), pendiente.usuario().rut().toString(), true, null));
+            }
+        } catch (RuntimeException e) {
+            // Si el lote falla al confirmar (ej. otro proceso insertó el mismo RUT entre la verificación
+            // y el commit), se hace rollback del lote completo de ese shard y se reportan sus filas como fallidas.
+            for (FilaValida pendiente : pendientes) {
+                resultados.add(fallo(pendiente, "No se pudo confirmar el lote: " + e.getMessage()));
+            }
+        }
+    }
+
+    private String validar(FilaImportada usuario) {
+        if (esVacio(usuario.rut())) return "El RUT es obligatorio.";
+        if (esVacio(usuario.nombre())) return "El nombre es obligatorio.";
+        if (esVacio(usuario.apellido())) return "El apellido es obligatorio.";
+        if (esVacio(usuario.email())) return "El email es obligatorio.";
+        if (esVacio(usuario.password())) return "La contraseña es obligatoria.";
+        return null;
+    }
+
+    private ResultadoImportacionDTO construirReporte(List<ResultadoFilaImportacionDTO> resultados, String motivo) {
+        List<ResultadoFilaImportacionDTO> ordenados = new ArrayList<>(resultados);
+        ordenados.sort((a, b) -> Integer.compare(a.fila(), b.fila()));
+        int exitosos = (int) ordenados.stream().filter(ResultadoFilaImportacionDTO::exitoso).count();
+        return new ResultadoImportacionDTO(ordenados.size(), exitosos, ordenados.size() - exitosos, motivo != null, motivo,
+                Collections.unmodifiableList(ordenados));
+    }
+
+    private ResultadoFilaImportacionDTO fallo(FilaPendiente pendiente, String error) {
+        return new ResultadoFilaImportacionDTO(pendiente.fila(), pendiente.usuario().rut(), false, error);
+    }
+
+    private ResultadoFilaImportacionDTO fallo(FilaValida valida, String error) {
+        return new ResultadoFilaImportacionDTO(valida.fila(), valida.usuario().rut().toString(), false, error);
+    }
+
+    private static boolean esVacio(String valor) {
+        return valor == null || valor.isBlank();
+    }
+
+    // --- Helpers CSV ---
+    private Map<String, Integer> indexarCabecera(String cabecera) {
+        Map<String, Integer> columnas = new HashMap<>();
+        List<String> nombres = separarCsv(cabecera);
+        for (int i = 0; i < nombres.size(); i++) {
+            columnas.put(nombres.get(i).trim().toLowerCase(), i);
+        }
+        for (String requerida : List.of("rut", "nombre", "apellido", "email", "password")) {
+            if (!columnas.containsKey(requerida)) {
+                throw new IllegalArgumentException("Falta la columna '" + requerida + "' en la cabecera del CSV.");
+            }
+        }
+        return columnas;
+    }
+
+    private String valor(List<String> valores, Map<String, Integer> columnas, String columna) {
+        int indice = columnas.get(columna);
+        return indice < valores.size() ? valores.get(indice).trim() : null;
+    }
+
+    // Separa una línea CSV respetando comillas dobles ("a,b" y "" como comilla escapada).
+    private List<String> separarCsv(String linea) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                valores.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        valores.add(actual.toString());
+        return valores;
+    }
+
+    // Una fila tal como viene en el JSON o el CSV (RUT aún sin validar)
+    private record FilaImportada(String rut, String nombre, String apellido, String email, String password) {
+    }
+
+    private record FilaPendiente(int fila, FilaImportada usuario) {
+    }
+
+    // Fila que pasó la validación, con el RUT ya normalizado
+    private record FilaValida(int fila, CrearUsuarioDTO usuario) {
+    }
+}
@@ -1,105 +1,488 @@
 package com.perfulandia.usuarios_service.service.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.perfulandia.usuarios_service.dto.ActualizarUsuarioDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.perfulandia.usuarios_service.busqueda.TextoBusqueda;
+import com.perfulandia.usuarios_service.cache.UsuarioCache;
+import com.perfulandia.usuarios_service.cambios.RegistroCambios;
 import com.perfulandia.usuarios_service.dto.CrearUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.DireccionResponseDTO;
+import com.perfulandia.usuarios_service.dto.FilaDireccionDTO;
+import com.perfulandia.usuarios_service.dto.FilaExportacionDTO;
+import com.perfulandia.usuarios_service.dto.PaginaUsuariosDTO;
+import com.perfulandia.usuarios_service.dto.ParcheUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.UsuarioExportacionDTO;
+import com.perfulandia.usuarios_service.dto.UsuarioLoteDTO;
 import com.perfulandia.usuarios_service.dto.UsuarioResponseDTO;
+import com.perfulandia.usuarios_service.exception.ConflictoVersionException;
+import com.perfulandia.usuarios_service.exception.RecursoNoEncontradoException;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.model.TipoCambio;
 import com.perfulandia.usuarios_service.model.Usuario;
+import com.perfulandia.usuarios_service.repository.DireccionEnvioRepository;
 import com.perfulandia.usuarios_service.repository.UsuarioRepository;
+import com.perfulandia.usuarios_service.security.EjecutorHash;
 import com.perfulandia.usuarios_service.service.UsuarioService;
+import com.perfulandia.usuarios_service.shards.ClaveShard;
+import com.perfulandia.usuarios_service.shards.EjecutorShards;
 import org.springframework.transaction.annotation.Transactional;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 
+
+// Latencia de cada método público en usuarios.servicio{class,method} (igual en los demás servicios)
+@Timed(value = "usuarios.servicio", histogram = true, percentiles = {0.5, 0.95, 0.99})
 @Service // Marca esta clase como un bean de servicio de Spring
 public class UsuarioServiceImpl implements UsuarioService {
 
     private final UsuarioRepository usuarioRepository;
-    private final PasswordEncoder passwordEncoder; // Inyectar para hashear contraseñas
+    private final DireccionEnvioRepository direccionEnvioRepository;
+    private final EjecutorHash ejecutorHash; // Hashea contraseñas en un ejecutor acotado, fuera de la transacción
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate lecturaTemplate; // Solo lectura, una por shard en las consultas entre shards
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final UsuarioCache usuarioCache; // Cache de lecturas por RUT, invalidado en cada escritura
+    private final EjecutorShards ejecutorShards; // Shard dueño de cada RUT y consultas a todos los shards
+    private final RegistroCambios registroCambios; // Feed de cambios: un registro por escritura, en su transacción
+
+    // Límites del listado, configurables en application.properties
+    private final int limitePorDefecto;
+    private final int limiteMaximo;
+    private final int legacyMaximo;
+    private final int exportacionFlushCada;
+    private final int loteMaximo;
+    private final int loteTamanoConsulta;
 
     @Autowired // Inyección de dependencias vía constructor (buena práctica)
-    public UsuarioServiceImpl(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder) {
+    public UsuarioServiceImpl(UsuarioRepository usuarioRepository, DireccionEnvioRepository direccionEnvioRepository,
+                              EjecutorHash ejecutorHash,
+                              PlatformTransactionManager transactionManager,
+                              EntityManager entityManager, ObjectMapper objectMapper, UsuarioCache usuarioCache,
+                              EjecutorShards ejecutorShards, RegistroCambios registroCambios,
+                              @Value("${usuarios.listado.limite-por-defecto:50}") int limitePorDefecto,
+                              @Value("${usuarios.listado.limite-maximo:500}") int limiteMaximo,
+                              @Value("${usuarios.listado.legacy-maximo:1000}") int legacyMaximo,
+                              @Value("${usuarios.exportacion.flush-cada:500}") int exportacionFlushCada,
+                              @Value("${usuarios.lote.maximo:1000}") int loteMaximo,
+                              @Value("${usuarios.lote.tamano-consulta:500}") int loteTamanoConsulta) {
         this.usuarioRepository = usuarioRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.direccionEnvioRepository = direccionEnvioRepository;
+        this.ejecutorHash = ejecutorHash;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lecturaTemplate = new TransactionTemplate(transactionManager);
+        this.lecturaTemplate.setReadOnly(true);
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.usuarioCache = usuarioCache;
+        this.ejecutorShards = ejecutorShards;
+        this.registroCambios = registroCambios;
+        this.limitePorDefecto = limitePorDefecto;
+        this.limiteMaximo = limiteMaximo;
+        this.legacyMaximo = legacyMaximo;
+        this.exportacionFlushCada = exportacionFlushCada;
+        this.loteMaximo = loteMaximo;
+        this.loteTamanoConsulta = loteTamanoConsulta;
     }
 
     @Override
-    @Transactional // Asegura que la operación sea atómica
+    // Sin @Transactional en el método: el hash BCrypt (~100 ms de CPU) se calcula ANTES de abrir la transacción,
+    // en el ejecutor dedicado, para no retener una conexión del pool mientras tanto.
+    // Todo el alta ocurre en el shard dueño del RUT.
     public UsuarioResponseDTO crearUsuario(CrearUsuarioDTO crearUsuarioDTO) {
-        // Verificar si el RUT ya existe
-        if (usuarioRepository.existsById(crearUsuarioDTO.rut())) {
+        return ejecutorShards.enShardDe(crearUsuarioDTO.rut(), () -> crearEnShard(crearUsuarioDTO));
+    }
+
+    private UsuarioResponseDTO crearEnShard(CrearUsuarioDTO crearUsuarioDTO) {
+        // Verificar si el RUT ya existe (antes de gastar CPU en el hash)
+        if (usuarioRepository.existsById(crearUsuarioDTO.rut().numero())) {
             throw new RuntimeException("El RUT '" + crearUsuarioDTO.rut() + "' ya está registrado.");
             // En una aplicación real, usarías excepciones personalizadas, ej: RutYaExistenteException
         }
+        // El índice único del email solo protege dentro de un shard: con varios se consulta en todos.
+        // Dos altas simultáneas con el mismo email en shards distintos aún podrían pasar ambas.
+        if (ejecutorShards.cantidad() > 1
+                && ejecutorShards.enCadaShard(shard -> usuarioRepository.existsByEmail(crearUsuarioDTO.email())).contains(true)) {
+            throw new RuntimeException("El email '" + crearUsuarioDTO.email() + "' ya está registrado.");
+        }
+
+        String passwordHash = ejecutorHash.hashear(crearUsuarioDTO.password()); // Hashear la contraseña
 
         Usuario nuevoUsuario = Usuario.builder()
-                .rut(crearUsuarioDTO.rut())
+                .rut(crearUsuarioDTO.rut().numero())
                 .nombre(crearUsuarioDTO.nombre())
                 .apellido(crearUsuarioDTO.apellido())
                 .email(crearUsuarioDTO.email())
-                .passwordHash(passwordEncoder.encode(crearUsuarioDTO.password())) // Hashear la contraseña
+                .passwordHash(passwordHash)
                 // .activo(true) // Si tuvieras este campo en la entidad, inicializarlo
                 .build();
 
-        Usuario usuarioGuardado = usuarioRepository.save(nuevoUsuario);
-        return convertToUsuarioResponseDTO(usuarioGuardado);
+        try {
+            return transactionTemplate.execute(status -> {
+                // persist() en vez de save(): con RUT asignado, save() haría merge (SELECT previo) y, si otro
+                // proceso insertó el mismo RUT entre la verificación y ahora, lo sobrescribiría.
+                entityManager.persist(nuevoUsuario); // El INSERT se ejecuta al confirmar
+                usuarioCache.invalidarAlConfirmar(crearUsuarioDTO.rut()); // Descarta un posible "no encontrado" cacheado
+                registroCambios.registrar(TipoCambio.USUARIO_CREADO, crearUsuarioDTO.rut(), null);
+                return convertToUsuarioResponseDTO(nuevoUsuario);
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("El RUT '" + crearUsuarioDTO.rut() + "' o el email ya están registrados.", e);
+        }
     }
 
     @Override
-    @Transactional(readOnly = true) // Operación de solo lectura, optimiza la transacción
-    public Optional<UsuarioResponseDTO> obtenerUsuarioPorRut(String rut) {
-        return usuarioRepository.findById(rut)
-                .map(this::convertToUsuarioResponseDTO); // Mapea Usuario a UsuarioResponseDTO si está presente
+    // Sin @Transactional a propósito: un acierto del cache no debe abrir transacción ni pedir una conexión al pool.
+    // Un fallo se carga de la PRIMARIA (transacción que no es de solo lectura): una réplica atrasada devolvería la
+    // fila anterior a una escritura recién invalidada y el cache la serviría, con su ETag, durante todo el TTL.
+    public Optional<UsuarioResponseDTO> obtenerUsuarioPorRut(@ClaveShard Rut rut) {
+        return usuarioCache.obtener(rut, clave -> transactionTemplate.execute(
+                status -> usuarioRepository.findProyeccionPorRut(clave.numero())));
+    }
+
+    @Override
+    // Sin @Transactional en el método: una transacción de solo lectura por shard, en la que todas las consultas
+    // de ese shard comparten conexión (con un solo shard, una única transacción como antes).
+    public List<UsuarioLoteDTO> obtenerUsuariosPorRuts(List<Rut> ruts, boolean incluirDirecciones) {
+        if (ruts == null || ruts.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un RUT.");
+        }
+        if (ruts.size() > loteMaximo) {
+            throw new IllegalArgumentException("Se permiten como máximo " + loteMaximo + " RUTs por petición.");
+        }
+        if (ruts.contains(null)) {
+            throw new IllegalArgumentException("La lista de RUTs no puede contener valores nulos.");
+        }
+
+        // Los RUTs distintos (ya normalizados: dos formatos del mismo RUT son uno) se reparten por shard
+        Map<Integer, List<Rut>> porShard = ejecutorShards.agruparPorShard(new LinkedHashSet<>(ruts));
+        Map<Integer, UsuarioResponseDTO> usuarios = new HashMap<>();
+        Map<Integer, List<DireccionResponseDTO>> direcciones = new HashMap<>();
+        for (LoteDeShard lote : ejecutorShards.enCadaShard(shard -> porShard.containsKey(shard)
+                ? lecturaTemplate.execute(status -> consultarLote(porShard.get(shard), incluirDirecciones))
+                : null)) {
+            if (lote != null) {
+                usuarios.putAll(lote.usuarios());
+                direcciones.putAll(lote.direcciones());
+            }
+        }
+
+        // Respuesta en el orden de la petición (incluye repetidos), marcando los no encontrados
+        List<UsuarioLoteDTO> resultado = new ArrayList<>(ruts.size());
+        for (Rut rut : ruts) {
+            UsuarioResponseDTO usuario = usuarios.get(rut.numero());
+            if (usuario == null) {
+                resultado.add(new UsuarioLoteDTO(rut, false, null, null));
+            } else {
+                resultado.add(new UsuarioLoteDTO(rut, true, usuario,
+                        incluirDirecciones ? direcciones.getOrDefault(rut.numero(), List.of()) : null));
+            }
+        }
+        return resultado;
+    }
+
+    // Una consulta IN (...) por cada bloque de RUTs (el IN se acota para no generar SQL gigante)
+    private LoteDeShard consultarLote(List<Rut> ruts, boolean incluirDirecciones) {
+        Map<Integer, UsuarioResponseDTO> usuarios = new HashMap<>();
+        Map<Integer, List<DireccionResponseDTO>> direcciones = new HashMap<>();
+        List<Integer> numeros = ruts.stream().map(Rut::numero).toList();
+        for (int desde = 0; desde < numeros.size(); desde += loteTamanoConsulta) {
+            List<Integer> bloque = numeros.subList(desde, Math.min(desde + loteTamanoConsulta, numeros.size()));
+            for (UsuarioResponseDTO usuario : usuarioRepository.findProyeccionesPorRuts(bloque)) {
+                usuarios.put(usuario.rut().numero(), usuario);
+            }
+            if (incluirDirecciones) {
+                // Segunda consulta por conjunto, en vez de recorrer la colección lazy de cada usuario
+                for (FilaDireccionDTO fila : direccionEnvioRepository.findDireccionesDeUsuarios(bloque)) {
+                    direcciones.computeIfAbsent(fila.usuarioRut(), rut -> new ArrayList<>())
+                            .add(new DireccionResponseDTO(fila.id(), fila.calle(), fila.numero(), fila.comuna(), fila.ciudad()));
+                }
+            }
+        }
+        return new LoteDeShard(usuarios, direcciones);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<UsuarioResponseDTO> obtenerTodosLosUsuarios() {
-        return usuarioRepository.findAll()
-                .stream()
-                .map(this::convertToUsuarioResponseDTO) // Mapea cada Usuario a UsuarioResponseDTO
-                .collect(Collectors.toList());
+        // Ya no se hace findAll(): se proyecta directo a DTO y con un tope explícito,
+        // para que una sola llamada no pueda cargar toda la tabla en memoria.
+        return paginaCombinada(0, legacyMaximo);
     }
 
     @Override
-    @Transactional
-    public UsuarioResponseDTO actualizarUsuario(String rut, ActualizarUsuarioDTO actualizarUsuarioDTO) {
-        Usuario usuarioExistente = usuarioRepository.findById(rut)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado con RUT: " + rut));
-                // En una aplicación real: UsuarioNotFoundException
+    public PaginaUsuariosDTO obtenerPaginaDeUsuarios(String cursor, Integer limite) {
+        int tamanoPagina = (limite == null) ? limitePorDefecto : limite;
+        if (tamanoPagina < 1) {
+            throw new IllegalArgumentException("El parámetro 'limit' debe ser mayor que cero.");
+        }
+        tamanoPagina = Math.min(tamanoPagina, limiteMaximo); // El servidor impone el máximo
 
-        // Actualizar los campos permitidos
-        usuarioExistente.setNombre(actualizarUsuarioDTO.nombre());
-        usuarioExistente.setApellido(actualizarUsuarioDTO.apellido());
-        // No se actualiza el email ni la contraseña aquí, según el DTO
+        int despuesDeRut = (cursor == null || cursor.isBlank()) ? 0 : decodificarCursor(cursor).numero();
 
-        Usuario usuarioActualizado = usuarioRepository.save(usuarioExistente);
-        return convertToUsuarioResponseDTO(usuarioActualizado);
+        // Pedimos una fila extra para saber si existe una página siguiente sin hacer un COUNT(*)
+        List<UsuarioResponseDTO> usuarios = paginaCombinada(despuesDeRut, tamanoPagina + 1);
+        if (usuarios.size() <= tamanoPagina) {
+            return new PaginaUsuariosDTO(usuarios, null);
+        }
+        List<UsuarioResponseDTO> pagina = usuarios.subList(0, tamanoPagina);
+        return new PaginaUsuariosDTO(pagina, codificarCursor(pagina.get(tamanoPagina - 1).rut()));
+    }
+
+    // Keyset por RUT en todos los shards a la vez: cada shard entrega sus primeras 'limite' filas después del cursor
+    // y se combinan en orden. Las primeras 'limite' del total están necesariamente entre ellas.
+    private List<UsuarioResponseDTO> paginaCombinada(int despuesDeRut, int limite) {
+        List<List<UsuarioResponseDTO>> porShard = ejecutorShards.enCadaShard(
+                shard -> usuarioRepository.findPaginaDespuesDeRut(despuesDeRut, Limit.of(limite)));
+        if (porShard.size() == 1) {
+            return porShard.get(0);
+        }
+        List<UsuarioResponseDTO> combinada = new ArrayList<>();
+        porShard.forEach(combinada::addAll);
+        combinada.sort(Comparator.comparing(UsuarioResponseDTO::rut));
+        return combinada.size() > limite ? new ArrayList<>(combinada.subList(0, limite)) : combinada;
+    }
+
+    @Override
+    public void exportarUsuariosNdjson(OutputStream salida) {
+        // Un único generador para toda la respuesta, separando cada usuario con un salto de línea.
+        // Se desactiva el flush por objeto: se hace flush cada 'exportacionFlushCada' usuarios.
+        ObjectWriter escritor = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+            generador.setRootValueSeparator(new SerializedString("\n"));
+            if (ejecutorShards.cantidad() == 1) {
+                // El Stream del repositorio solo puede recorrerse dentro de una transacción
+                lecturaTemplate.executeWithoutResult(status -> exportarEnUnaPasada(escritor, generador));
+            } else {
+                exportarCombinandoShards(escritor, generador);
+            }
+            generador.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error escribiendo la exportación de usuarios", e);
+        }
+    }
+
+    // Un solo shard: una consulta con cursor de solo avance para toda la tabla
+    private void exportarEnUnaPasada(ObjectWriter escritor, JsonGenerator generador) {
+        try (Stream<FilaExportacionDTO> filas = usuarioRepository.streamExportacion()) {
+            // Las filas vienen ordenadas por RUT: se agrupan las direcciones del usuario actual
+            // y se emite el usuario cuando cambia el RUT. Solo un usuario vive en memoria a la vez.
+            Iterator<FilaExportacionDTO> it = filas.iterator();
+            FilaExportacionDTO actual = null;
+            List<DireccionResponseDTO> direcciones = new ArrayList<>();
+            int emitidos = 0;
+            while (it.hasNext()) {
+                FilaExportacionDTO fila = it.next();
+                if (actual != null && !actual.rut().equals(fila.rut())) {
+                    escritor.writeValue(generador, toUsuarioExportacionDTO(actual, direcciones));
+                    direcciones = new ArrayList<>();
+                    if (++emitidos % exportacionFlushCada == 0) {
+                        generador.flush();
+                        entityManager.clear(); // Mantiene acotado el contexto de persistencia
+                    }
+                }
+                actual = fila;
+                if (fila.direccionId() != null) {
+                    direcciones.add(new DireccionResponseDTO(
+                            fila.direccionId(), fila.calle(), fila.numero(), fila.comuna(), fila.ciudad()));
+                }
+            }
+            if (actual != null) {
+                escritor.writeValue(generador, toUsuarioExportacionDTO(actual, direcciones));
+                generador.writeRaw('\n'); // NDJSON: la última línea también termina en salto de línea
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error escribiendo la exportación de usuarios", e);
+        }
+    }
+
+    // Varios shards: mezcla ordenada (k-way merge) de un cursor por shard. Cada cursor trae bloques de
+    // 'exportacionFlushCada' usuarios con sus direcciones (dos consultas por bloque en una transacción corta),
+    // así en memoria hay a lo más un bloque por shard y ninguna conexión queda tomada durante la escritura.
+    private void exportarCombinandoShards(ObjectWriter escritor, JsonGenerator generador) throws IOException {
+        PriorityQueue<CursorShard> cursores = new PriorityQueue<>(Comparator.comparing((CursorShard c) -> c.siguiente().rut()));
+        for (int shard = 0; shard < ejecutorShards.cantidad(); shard++) {
+            CursorShard cursor = new CursorShard(shard);
+            if (cursor.rellenar()) {
+                cursores.add(cursor);
+            }
+        }
+        int emitidos = 0;
+        while (!cursores.isEmpty()) {
+            CursorShard cursor = cursores.poll();
+            escritor.writeValue(generador, cursor.bloque.poll());
+            if (++emitidos % exportacionFlushCada == 0) {
+                generador.flush();
+            }
+            if (!cursor.bloque.isEmpty() || cursor.rellenar()) {
+                cursores.add(cursor);
+            }
+        }
+        if (emitidos > 0) {
+            generador.writeRaw('\n');
+        }
+    }
+
+    private final class CursorShard {
+        private final int shard;
+        private final Deque<UsuarioExportacionDTO> bloque = new ArrayDeque<>();
+        private int ultimoRut = 0;
+        private boolean agotado;
+
+        private CursorShard(int shard) {
+            this.shard = shard;
+        }
+
+        private UsuarioExportacionDTO siguiente() {
+            return bloque.peek();
+        }
+
+        // Trae el siguiente bloque del shard; false si ya no quedan usuarios
+        private boolean rellenar() {
+            if (agotado) {
+                return false;
+            }
+            List<UsuarioExportacionDTO> nuevos = ejecutorShards.enShard(shard, () -> lecturaTemplate.execute(status -> {
+                List<UsuarioResponseDTO> usuarios = usuarioRepository.findPaginaDespuesDeRut(ultimoRut, Limit.of(exportacionFlushCada));
+                if (usuarios.isEmpty()) {
+                    return List.<UsuarioExportacionDTO>of();
+                }
+                Map<Integer, List<DireccionResponseDTO>> direcciones = new HashMap<>();
+                for (FilaDireccionDTO fila : direccionEnvioRepository.findDireccionesDeUsuarios(
+                        usuarios.stream().map(u -> u.rut().numero()).toList())) {
+                    direcciones.computeIfAbsent(fila.usuarioRut(), rut -> new ArrayList<>())
+                            .add(new DireccionResponseDTO(fila.id(), fila.calle(), fila.numero(), fila.comuna(), fila.ciudad()));
+                }
+                return usuarios.stream()
+                        .map(u -> new UsuarioExportacionDTO(u.rut(), u.nombre(), u.apellido(), u.email(),
+                                direcciones.getOrDefault(u.rut().numero(), List.of())))
+                        .toList();
+            }));
+            agotado = nuevos.size() < exportacionFlushCada;
+            if (!nuevos.isEmpty()) {
+                ultimoRut = nuevos.get(nuevos.size() - 1).rut().numero();
+                bloque.addAll(nuevos);
+            }
+            return !bloque.isEmpty();
+        }
+    }
+
+    @Override
+    @Transactional
+    public UsuarioResponseDTO actualizarUsuario(@ClaveShard Rut rut, ActualizarUsuarioDTO actualizarUsuarioDTO) {
+        // UPDATE directo por clave (sin SELECT + merge). No se actualiza el email ni la contraseña aquí, según el DTO.
+        int filas = usuarioRepository.actualizarNombreYApellido(
+                rut.numero(), actualizarUsuarioDTO.nombre(), actualizarUsuarioDTO.apellido(),
+                TextoBusqueda.normalizar(actualizarUsuarioDTO.nombre()), TextoBusqueda.normalizar(actualizarUsuarioDTO.apellido()),
+                actualizarUsuarioDTO.version());
+        return despuesDeActualizar(rut, filas, actualizarUsuarioDTO.version());
     }
 
     @Override
     @Transactional
-    public void eliminarUsuario(String rut) {
-        if (!usuarioRepository.existsById(rut)) {
-            throw new RuntimeException("Usuario no encontrado con RUT: " + rut + ". No se puede eliminar.");
-            // En una aplicación real: UsuarioNotFoundException
+    public UsuarioResponseDTO actualizarParcialmente(@ClaveShard Rut rut, ParcheUsuarioDTO parcheUsuarioDTO) {
+        if (parcheUsuarioDTO.nombre() == null && parcheUsuarioDTO.apellido() == null) {
+            throw new IllegalArgumentException("El parche no modifica ningún campo");
+        }
+        int filas = usuarioRepository.actualizarParcialmente(
+                rut.numero(), parcheUsuarioDTO.nombre(), parcheUsuarioDTO.apellido(),
+                TextoBusqueda.normalizar(parcheUsuarioDTO.nombre()), TextoBusqueda.normalizar(parcheUsuarioDTO.apellido()),
+                parcheUsuarioDTO.version());
+        return despuesDeActualizar(rut, filas, parcheUsuarioDTO.version());
+    }
+
+    @Override
+    @Transactional
+    public void eliminarUsuario(@ClaveShard Rut rut, Long version) {
+        // Dos sentencias por conjunto, sin cargar el usuario ni su colección para la cascada de JPA.
+        // Si el DELETE del usuario no aplica, la excepción revierte también el de sus direcciones.
+        direccionEnvioRepository.eliminarTodasDeUsuario(rut.numero());
+        if (usuarioRepository.eliminarPorRut(rut.numero(), version) == 0) {
+            if (version != null && usuarioRepository.existsById(rut.numero())) {
+                throw new ConflictoVersionException("El usuario " + rut + " ya no está en la versión " + version);
+            }
+            throw new RecursoNoEncontradoException("Usuario no encontrado con RUT: " + rut + ". No se puede eliminar.");
+        }
+        usuarioCache.invalidarAlConfirmar(rut);
+        registroCambios.registrar(TipoCambio.USUARIO_ELIMINADO, rut, null);
+    }
+
+    // Si el UPDATE no afectó filas, distingue "no existe" (404) de "versión distinta" (409) con una consulta extra,
+    // solo en el camino de error. Si afectó, devuelve el estado confirmado (incluida la versión nueva).
+    private UsuarioResponseDTO despuesDeActualizar(Rut rut, int filas, Long version) {
+        if (filas == 0) {
+            if (version != null && usuarioRepository.existsById(rut.numero())) {
+                throw new ConflictoVersionException("El usuario " + rut + " ya no está en la versión " + version);
+            }
+            throw new RecursoNoEncontradoException("Usuario no encontrado con RUT: " + rut);
+        }
+        usuarioCache.invalidarAlConfirmar(rut);
+        registroCambios.registrar(TipoCambio.USUARIO_ACTUALIZADO, rut, null);
+        return usuarioRepository.findProyeccionPorRut(rut.numero())
+                .orElseThrow(() -> new RecursoNoEncontradoException("Usuario no encontrado con RUT: " + rut));
+    }
+
+    private record LoteDeShard(Map<Integer, UsuarioResponseDTO> usuarios, Map<Integer, List<DireccionResponseDTO>> direcciones) {
+    }
+
+    // --- Métodos Helper para el cursor ---
+    // El cursor es opaco para el cliente: hoy es el último RUT de la página (forma canónica) en Base64 URL-safe,
+    // pero puede cambiar de formato sin romper a quienes lo reenvían tal cual.
+    private String codificarCursor(Rut ultimoRut) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(ultimoRut.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Rut decodificarCursor(String cursor) {
+        try {
+            return Rut.parsear(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
         }
-        usuarioRepository.deleteById(rut);
     }
 
     // --- Métodos Helper para Mapeo ---
-    private UsuarioResponseDTO convertToUsuarioResponseDTO(Usuario usuario) {
+    private UsuarioExportacionDTO toUsuarioExportacionDTO(FilaExportacionDTO fila, List<DireccionResponseDTO> direcciones) {
+        return new UsuarioExportacionDTO(Rut.de(fila.rut()), fila.nombre(), fila.apellido(), fila.email(), direcciones);
+    }
+
+    // Package-private y estático para poder medirlo aislado (benchmark MapeoBenchmark)
+    static UsuarioResponseDTO convertToUsuarioResponseDTO(Usuario usuario) {
         return new UsuarioResponseDTO(
                 usuario.getRut(),
                 usuario.getNombre(),
                 usuario.getApellido(),
-                usuario.getEmail()
+                usuario.getEmail(),
+                usuario.getVersion()
         );
     }
 }
\ No newline at end of file
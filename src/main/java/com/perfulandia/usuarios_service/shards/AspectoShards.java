@@ -0,0 +1,58 @@
+package com.perfulandia.usuarios_service.shards;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+// Enruta cada método de servicio con un parámetro @ClaveShard al shard dueño de ese RUT.
+// La clave es un Rut (o su texto canónico): su toString() es la forma sin puntos que usa el MapaShards.
+// Corre antes que @Transactional (orden más alto) para que la transacción nazca ya en el shard correcto.
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AspectoShards {
+
+    private final MapaShards mapaShards;
+    private final Map<Method, Integer> posiciones = new ConcurrentHashMap<>(); // Posición del parámetro @ClaveShard
+
+    public AspectoShards(MapaShards mapaShards) {
+        this.mapaShards = mapaShards;
+    }
+
+    @Around("within(com.perfulandia.usuarios_service.service..*) "
+            + "&& execution(* *(.., @com.perfulandia.usuarios_service.shards.ClaveShard (*), ..))")
+    public Object enrutar(ProceedingJoinPoint punto) throws Throwable {
+        Method metodo = AopUtils.getMostSpecificMethod(
+                ((MethodSignature) punto.getSignature()).getMethod(), punto.getTarget().getClass());
+        Object clave = punto.getArgs()[posiciones.computeIfAbsent(metodo, AspectoShards::posicionDeLaClave)];
+        if (clave == null) {
+            return punto.proceed(); // Sin RUT no hay shard que elegir; el servicio responde como siempre
+        }
+        Integer anterior = ContextoShard.fijar(mapaShards.shardDe(clave.toString()));
+        try {
+            return punto.proceed();
+        } finally {
+            ContextoShard.restaurar(anterior);
+        }
+    }
+
+    private static int posicionDeLaClave(Method metodo) {
+        Annotation[][] anotaciones = metodo.getParameterAnnotations();
+        for (int i = 0; i < anotaciones.length; i++) {
+            for (Annotation anotacion : anotaciones[i]) {
+                if (anotacion instanceof ClaveShard) {
+                    return i;
+                }
+            }
+        }
+        throw new IllegalStateException("Sin parámetro @ClaveShard en " + metodo);
+    }
+}
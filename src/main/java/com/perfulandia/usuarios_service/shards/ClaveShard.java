@@ -0,0 +1,15 @@
+package com.perfulandia.usuarios_service.shards;
+
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+// Marca el parámetro (un RUT) que decide el shard de un método de servicio. AspectoShards fija ese shard
+// antes de que empiece la transacción del método, así todas sus sentencias van a la misma base.
+// Va en la implementación del servicio (las anotaciones de parámetros no se heredan de la interfaz).
+@Retention(RUNTIME)
+@Target(PARAMETER)
+public @interface ClaveShard {
+}
@@ -0,0 +1,51 @@
+package com.perfulandia.usuarios_service.shards;
+
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Shard en el que trabaja el hilo actual. AspectoShards y EjecutorShards lo fijan; DataSourceShards lo consulta
+// al pedir la conexión física (la primera sentencia de la transacción, gracias al LazyConnectionDataSourceProxy).
+// Sin shard fijado se usa el 0: ahí van también las conexiones "sin dueño" (arranque, health check, DDL).
+public final class ContextoShard {
+
+    private static final ThreadLocal<Integer> ACTUAL = new ThreadLocal<>();
+
+    private ContextoShard() {
+    }
+
+    public static int actual() {
+        Integer shard = ACTUAL.get();
+        return shard == null ? 0 : shard;
+    }
+
+    // Ejecuta 'accion' en el shard indicado y restaura el anterior al terminar
+    public static <T> T en(int shard, Supplier<T> accion) {
+        Integer anterior = fijar(shard);
+        try {
+            return accion.get();
+        } finally {
+            restaurar(anterior);
+        }
+    }
+
+    // Devuelve el shard que había antes, para restaurarlo después
+    static Integer fijar(int shard) {
+        Integer anterior = ACTUAL.get();
+        if (anterior != null && anterior != shard && TransactionSynchronizationManager.isActualTransactionActive()) {
+            // La transacción ya puede tener una conexión del otro shard: no hay transacciones entre shards
+            throw new IllegalStateException("La operación en el shard " + shard
+                    + " no puede unirse a una transacción abierta en el shard " + anterior);
+        }
+        ACTUAL.set(shard);
+        return anterior;
+    }
+
+    static void restaurar(Integer anterior) {
+        if (anterior == null) {
+            ACTUAL.remove();
+        } else {
+            ACTUAL.set(anterior);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.perfulandia.usuarios_service.shards;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+// DataSource que entrega conexiones del pool del shard fijado en ContextoShard (0 si no hay ninguno).
+// ShardsConfig lo envuelve en un LazyConnectionDataSourceProxy para que la conexión se elija en la primera
+// sentencia y no al abrir la transacción.
+public class DataSourceShards extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final List<HikariDataSource> pools;
+
+    public DataSourceShards(List<HikariDataSource> pools) {
+        this.pools = List.copyOf(pools);
+        Map<Object, Object> destinos = new HashMap<>();
+        for (int shard = 0; shard < pools.size(); shard++) {
+            destinos.put(shard, pools.get(shard));
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(pools.get(0));
+        setLenientFallback(false); // Un shard inexistente es un error, no una conexión al shard 0
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ContextoShard.actual();
+    }
+
+    // Pools físicos en orden de shard, para herramientas que recorren cada base (RebalanceadorShards)
+    public List<? extends DataSource> getPools() {
+        return pools;
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
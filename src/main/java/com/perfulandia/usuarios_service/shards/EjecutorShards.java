@@ -0,0 +1,107 @@
+package com.perfulandia.usuarios_service.shards;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import com.perfulandia.usuarios_service.model.Rut;
+
+// Punto de entrada de los servicios para el trabajo que no cabe en un solo método @ClaveShard:
+//   - enShardDe / enShard: un bloque en el shard de un RUT (ej. el alta, cuyo RUT viene dentro del DTO)
+//   - enCadaShard: "scatter-gather", la misma consulta en todos los shards, en paralelo
+//   - agruparPorShard: reparte un lote de RUTs (multi-get, importación) según su dueño
+// Con un solo shard todo corre en el hilo que llama, sin pool: el comportamiento (y el conteo de
+// sentencias por petición de ContadorSql, que es por hilo) es el mismo que sin sharding.
+public class EjecutorShards implements AutoCloseable {
+
+    private final MapaShards mapaShards;
+    private final ExecutorService hilos; // null con un solo shard
+
+    public EjecutorShards(MapaShards mapaShards, int hilosConsulta) {
+        this.mapaShards = mapaShards;
+        if (mapaShards.cantidad() == 1) {
+            this.hilos = null;
+        } else {
+            AtomicInteger numero = new AtomicInteger();
+            this.hilos = Executors.newFixedThreadPool(hilosConsulta, tarea -> {
+                Thread hilo = new Thread(tarea, "consulta-shard-" + numero.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+    }
+
+    public int cantidad() {
+        return mapaShards.cantidad();
+    }
+
+    // El hash se calcula sobre la forma canónica ("12345678-9"), la misma que usa AspectoShards
+    public int shardDe(Rut rut) {
+        return mapaShards.shardDe(rut.toString());
+    }
+
+    public <T> T enShard(int shard, Supplier<T> accion) {
+        return ContextoShard.en(shard, accion);
+    }
+
+    public <T> T enShardDe(Rut rut, Supplier<T> accion) {
+        return ContextoShard.en(shardDe(rut), accion);
+    }
+
+    // Ejecuta 'consulta' una vez por shard (cada una en su propio shard y su propia transacción) y devuelve
+    // los resultados en orden de shard. La primera excepción se propaga cuando todas terminaron.
+    public <T> List<T> enCadaShard(IntFunction<T> consulta) {
+        if (hilos == null) {
+            return List.of(ContextoShard.en(0, () -> consulta.apply(0)));
+        }
+        List<Future<T>> pendientes = new ArrayList<>(cantidad());
+        for (int shard = 0; shard < cantidad(); shard++) {
+            int destino = shard;
+            pendientes.add(hilos.submit(() -> ContextoShard.en(destino, () -> consulta.apply(destino))));
+        }
+        List<T> resultados = new ArrayList<>(pendientes.size());
+        RuntimeException error = null;
+        for (Future<T> pendiente : pendientes) {
+            try {
+                resultados.add(pendiente.get());
+            } catch (ExecutionException e) {
+                RuntimeException causa = (e.getCause() instanceof RuntimeException r) ? r : new IllegalStateException(e.getCause());
+                error = (error == null) ? causa : error;
+                resultados.add(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pendientes.forEach(p -> p.cancel(true));
+                throw new IllegalStateException("Consulta entre shards interrumpida", e);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return resultados;
+    }
+
+    // RUTs agrupados por shard dueño (solo los shards con algún RUT), conservando el orden de llegada
+    public Map<Integer, List<Rut>> agruparPorShard(Collection<Rut> ruts) {
+        Map<Integer, List<Rut>> grupos = new TreeMap<>();
+        for (Rut rut : ruts) {
+            grupos.computeIfAbsent(shardDe(rut), shard -> new ArrayList<>()).add(rut);
+        }
+        return grupos;
+    }
+
+    @Override
+    public void close() {
+        if (hilos != null) {
+            hilos.shutdownNow();
+        }
+    }
+}
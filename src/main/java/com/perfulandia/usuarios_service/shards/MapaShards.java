@@ -0,0 +1,73 @@
+package com.perfulandia.usuarios_service.shards;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Anillo de hash consistente que decide qué shard es dueño de cada RUT.
+// Cada shard aporta 'nodosVirtuales' puntos al anillo; un RUT pertenece al primer punto igual o mayor a su hash.
+// Los puntos de un shard no dependen de cuántos shards haya, así que al pasar de N a N+1 shards solo se mueven
+// (hacia el nuevo) los RUTs que caen en sus arcos: ~1/(N+1) del total, en vez de casi todos como con 'hash % N'.
+public final class MapaShards {
+
+    private final int cantidad;
+    private final long[] puntos; // Ordenados de menor a mayor
+    private final int[] duenos;  // duenos[i] es el shard del punto puntos[i]
+
+    public MapaShards(int cantidad, int nodosVirtuales) {
+        if (cantidad < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un shard");
+        }
+        if (nodosVirtuales < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un nodo virtual por shard");
+        }
+        this.cantidad = cantidad;
+        long[][] pares = new long[cantidad * nodosVirtuales][];
+        for (int shard = 0; shard < cantidad; shard++) {
+            for (int nodo = 0; nodo < nodosVirtuales; nodo++) {
+                pares[shard * nodosVirtuales + nodo] = new long[]{hash("shard-" + shard + "#" + nodo), shard};
+            }
+        }
+        Arrays.sort(pares, (a, b) -> Long.compare(a[0], b[0]));
+        this.puntos = new long[pares.length];
+        this.duenos = new int[pares.length];
+        for (int i = 0; i < pares.length; i++) {
+            puntos[i] = pares[i][0];
+            duenos[i] = (int) pares[i][1];
+        }
+    }
+
+    public int cantidad() {
+        return cantidad;
+    }
+
+    public int shardDe(String rut) {
+        if (rut == null) {
+            throw new IllegalArgumentException("El RUT es obligatorio para elegir el shard");
+        }
+        if (cantidad == 1) {
+            return 0;
+        }
+        int i = Arrays.binarySearch(puntos, hash(rut));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return duenos[i == puntos.length ? 0 : i]; // Pasado el último punto se vuelve al primero
+    }
+
+    // FNV-1a de 64 bits sobre los bytes UTF-8, seguido del "finalizador" de MurmurHash3 para repartir bien
+    // claves casi iguales (los RUTs consecutivos difieren en uno o dos caracteres).
+    // Debe ser estable entre versiones y JVMs: cambiarlo equivale a rebalancear todos los datos.
+    static long hash(String clave) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : clave.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,141 @@
+package com.perfulandia.usuarios_service.shards;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.perfulandia.usuarios_service.model.Rut;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Mueve cada usuario (con sus direcciones) al shard que le asigna el MapaShards actual.
+// Se usa al agregar o quitar shards: se despliega la nueva lista de URLs y se ejecuta una vez
+// (usuarios.shards.rebalancear-al-arrancar=true). Con hash consistente solo se mueve la fracción de RUTs
+// cuyo dueño cambió.
+//
+// Por cada usuario a mover: en el origen se bloquea la fila (SELECT ... FOR UPDATE) y se leen sus direcciones;
+// en el destino se inserta solo si el usuario no está; recién entonces se borra del origen.
+// Mientras corre, lecturas y escrituras ya usan el mapa nuevo: un usuario aún no movido responde 404 un momento,
+// y si entretanto se crea (y luego se modifica) en el destino, esa copia es la vigente: la del origen se descarta
+// sin pisarla. Si se corta a mitad, el usuario queda en ambos shards y la siguiente ejecución solo borra el origen.
+//
+// Trabaja con JDBC y columnas leídas de los metadatos (SELECT *) para copiar filas completas sin conocer el mapeo JPA.
+public class RebalanceadorShards {
+
+    private static final Logger log = LoggerFactory.getLogger(RebalanceadorShards.class);
+
+    public record Resultado(int revisados, int movidos) {
+    }
+
+    private final MapaShards mapaShards;
+    private final List<JdbcTemplate> jdbc = new ArrayList<>();
+    private final List<TransactionTemplate> transacciones = new ArrayList<>();
+    private final int tamanoLote;
+    private final Counter movidos;
+
+    public RebalanceadorShards(MapaShards mapaShards, List<? extends DataSource> shards, int tamanoLote,
+                               MeterRegistry meterRegistry) {
+        if (shards.size() != mapaShards.cantidad()) {
+            throw new IllegalArgumentException("Hay " + shards.size() + " bases para un mapa de " + mapaShards.cantidad() + " shards");
+        }
+        this.mapaShards = mapaShards;
+        for (DataSource shard : shards) {
+            jdbc.add(new JdbcTemplate(shard));
+            transacciones.add(new TransactionTemplate(new DataSourceTransactionManager(shard)));
+        }
+        this.tamanoLote = tamanoLote;
+        this.movidos = Counter.builder("usuarios.shards.movidos")
+                .description("Usuarios movidos de shard por el rebalanceo")
+                .register(meterRegistry);
+    }
+
+    public Resultado rebalancear() {
+        int revisados = 0;
+        int movidosTotal = 0;
+        for (int origen = 0; origen < jdbc.size(); origen++) {
+            int movidosOrigen = 0;
+            int despuesDeRut = 0;
+            while (true) {
+                List<Integer> ruts = jdbc.get(origen).queryForList(
+                        "SELECT rut FROM usuarios WHERE rut > ? ORDER BY rut LIMIT ?", Integer.class, despuesDeRut, tamanoLote);
+                for (Integer rut : ruts) {
+                    int destino = mapaShards.shardDe(Rut.de(rut).toString());
+                    if (destino != origen && mover(rut, origen, destino)) {
+                        movidosOrigen++;
+                    }
+                }
+                revisados += ruts.size();
+                if (ruts.size() < tamanoLote) {
+                    break;
+                }
+                despuesDeRut = ruts.get(ruts.size() - 1);
+            }
+            log.info("Rebalanceo del shard {}: {} usuarios movidos", origen, movidosOrigen);
+            movidosTotal += movidosOrigen;
+        }
+        return new Resultado(revisados, movidosTotal);
+    }
+
+    private boolean mover(Integer rut, int origen, int destino) {
+        Boolean movido = transacciones.get(origen).execute(estadoOrigen -> {
+            JdbcTemplate bdOrigen = jdbc.get(origen);
+            List<Map<String, Object>> usuario = bdOrigen.queryForList("SELECT * FROM usuarios WHERE rut = ? FOR UPDATE", rut);
+            if (usuario.isEmpty()) {
+                return false; // Lo borraron entre la lectura de la página y ahora
+            }
+            List<Map<String, Object>> direcciones = bdOrigen.queryForList(
+                    "SELECT * FROM direcciones_envio WHERE USUARIOS_rut = ?", rut);
+
+            try {
+                transacciones.get(destino).executeWithoutResult(estadoDestino -> {
+                    JdbcTemplate bdDestino = jdbc.get(destino);
+                    if (!bdDestino.queryForList("SELECT rut FROM usuarios WHERE rut = ? FOR UPDATE", rut).isEmpty()) {
+                        return; // Ya está en el destino (escrito con el mapa nuevo o por una pasada anterior)
+                    }
+                    insertar(bdDestino, "usuarios", usuario);
+                    insertar(bdDestino, "direcciones_envio", direcciones);
+                });
+            } catch (DuplicateKeyException e) {
+                // Un alta en el destino entre la consulta y el INSERT: esa copia gana, como arriba.
+                // Si lo que choca es otra cosa (ej. el email, usado por otro usuario del destino), se deja en el origen.
+                if (jdbc.get(destino).queryForList("SELECT rut FROM usuarios WHERE rut = ?", rut).isEmpty()) {
+                    log.warn("Usuario {} no se movió al shard {}: {}", rut, destino, e.getMessage());
+                    return false;
+                }
+            }
+
+            bdOrigen.update("DELETE FROM direcciones_envio WHERE USUARIOS_rut = ?", rut);
+            bdOrigen.update("DELETE FROM usuarios WHERE rut = ?", rut);
+            return true;
+        });
+        if (Boolean.TRUE.equals(movido)) {
+            movidos.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private static void insertar(JdbcTemplate bd, String tabla, List<Map<String, Object>> filas) {
+        if (filas.isEmpty()) {
+            return;
+        }
+        List<String> columnas = new ArrayList<>(filas.get(0).keySet());
+        String sql = "INSERT INTO " + tabla + " (" + String.join(", ", columnas) + ") VALUES ("
+                + String.join(", ", columnas.stream().map(columna -> "?").toList()) + ")";
+        List<Object[]> valores = new ArrayList<>(filas.size());
+        for (Map<String, Object> fila : filas) {
+            valores.add(columnas.stream().map(fila::get).toArray());
+        }
+        bd.batchUpdate(sql, valores);
+    }
+}
@@ -0,0 +1,51 @@
+-- Columnas normalizadas e índices para la búsqueda de usuarios (GET /api/v1/usuarios/buscar).
+-- Para bases creadas antes de este cambio (con ddl-auto=create no hace falta). Ejecutar con el cliente mysql:
+--   mysql -u root -p prueba < busqueda-usuarios.sql
+-- Con la aplicación detenida (la versión nueva ya escribe estas columnas) y, con sharding, en cada shard.
+--
+-- El paso 2 reproduce TextoBusqueda.normalizar para el español (minúsculas, sin tildes, diéresis ni eñe).
+-- Un valor con otros caracteres acentuados (p. ej. 'ø', 'ã') los conserva y no se encuentra por esa palabra
+-- hasta la próxima actualización del usuario, que lo normaliza desde Java.
+
+-- 1) Columnas (nulas mientras se pueblan)
+ALTER TABLE usuarios
+    ADD COLUMN nombre_busqueda VARCHAR(255) NULL,
+    ADD COLUMN apellido_busqueda VARCHAR(255) NULL,
+    ADD COLUMN email_busqueda VARCHAR(255) NULL;
+
+-- 2) Valores normalizados
+DROP FUNCTION IF EXISTS texto_busqueda;
+
+DELIMITER //
+
+CREATE FUNCTION texto_busqueda(texto VARCHAR(255)) RETURNS VARCHAR(255) DETERMINISTIC NO SQL
+BEGIN
+    SET texto = LOWER(TRIM(texto));
+    SET texto = REPLACE(REPLACE(REPLACE(REPLACE(texto, 'á', 'a'), 'à', 'a'), 'ä', 'a'), 'â', 'a');
+    SET texto = REPLACE(REPLACE(REPLACE(REPLACE(texto, 'é', 'e'), 'è', 'e'), 'ë', 'e'), 'ê', 'e');
+    SET texto = REPLACE(REPLACE(REPLACE(REPLACE(texto, 'í', 'i'), 'ì', 'i'), 'ï', 'i'), 'î', 'i');
+    SET texto = REPLACE(REPLACE(REPLACE(REPLACE(texto, 'ó', 'o'), 'ò', 'o'), 'ö', 'o'), 'ô', 'o');
+    SET texto = REPLACE(REPLACE(REPLACE(REPLACE(texto, 'ú', 'u'), 'ù', 'u'), 'ü', 'u'), 'û', 'u');
+    SET texto = REPLACE(REPLACE(texto, 'ñ', 'n'), 'ç', 'c');
+    -- Espacios repetidos (hasta 16 seguidos) colapsados a uno
+    SET texto = REPLACE(REPLACE(REPLACE(REPLACE(texto, '  ', ' '), '  ', ' '), '  ', ' '), '  ', ' ');
+    RETURN texto;
+END //
+
+DELIMITER ;
+
+UPDATE usuarios
+   SET nombre_busqueda = texto_busqueda(nombre),
+       apellido_busqueda = texto_busqueda(apellido),
+       email_busqueda = texto_busqueda(email);
+
+DROP FUNCTION texto_busqueda;
+
+-- 3) Obligatorias e indexadas (los nombres coinciden con los de @Table en Usuario)
+ALTER TABLE usuarios
+    MODIFY COLUMN nombre_busqueda VARCHAR(255) NOT NULL,
+    MODIFY COLUMN apellido_busqueda VARCHAR(255) NOT NULL,
+    MODIFY COLUMN email_busqueda VARCHAR(255) NOT NULL,
+    ADD INDEX idx_usuarios_nombre_busqueda (nombre_busqueda),
+    ADD INDEX idx_usuarios_apellido_busqueda (apellido_busqueda),
+    ADD INDEX idx_usuarios_email_busqueda (email_busqueda);
@@ -0,0 +1,31 @@
+-- Tablas del feed de cambios (GET /api/v1/cambios): la bandeja de salida cambios_usuarios y su estado.
+-- Para bases creadas antes de este cambio (con ddl-auto=create no hace falta). Ejecutar con el cliente mysql:
+--   mysql -u root -p prueba < cambios-usuarios.sql
+-- ANTES de desplegar la versión nueva (sus escrituras insertan en cambios_usuarios) y, con sharding, en cada shard.
+--
+-- El feed empieza vacío: los consumidores toman el cursor actual (GET /api/v1/cambios/cursor), hacen una
+-- exportación completa (GET /api/v1/usuarios/exportar) y desde ahí siguen el feed.
+
+CREATE TABLE IF NOT EXISTS cambios_usuarios (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    secuencia BIGINT NULL,
+    tipo VARCHAR(30) NOT NULL,
+    usuario_rut INT NOT NULL,
+    direccion_id BIGINT NULL,
+    creado DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_cambios_secuencia (secuencia),
+    KEY idx_cambios_usuario_secuencia (usuario_rut, secuencia),
+    KEY idx_cambios_creado (creado)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS cambios_estado (
+    id INT NOT NULL,
+    ultima_secuencia BIGINT NOT NULL,
+    purgada_hasta BIGINT NOT NULL,
+    compactada_hasta BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- La aplicación también la crea si falta; insertarla aquí evita la carrera entre instancias al arrancar
+INSERT IGNORE INTO cambios_estado (id, ultima_secuencia, purgada_hasta, compactada_hasta) VALUES (1, 0, 0, 0);
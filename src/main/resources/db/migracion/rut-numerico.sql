@@ -0,0 +1,91 @@
+-- Migración de la clave de usuarios de VARCHAR(10) con el RUT como texto ('12.345.678-5', '12345678-5')
+-- a INT con solo el número. El dígito verificador no se guarda: se calcula (Rut.digitoVerificador()).
+--
+-- Para bases creadas antes de este cambio (con ddl-auto=create no hace falta: el esquema nace con INT).
+-- Ejecutar con el cliente mysql, con la aplicación detenida y después de un respaldo:
+--   mysql -u root -p prueba < rut-numerico.sql
+-- Con sharding (usuarios.shards.activo=true) se ejecuta en cada shard. El MapaShards reparte por la forma canónica
+-- ('12345678-5'): si había RUT guardados con puntos, después hay que rebalancear (usuarios.shards.rebalancear-al-arrancar).
+-- El paso 2 verifica todas las filas ANTES de tocar las claves: si hay un RUT inválido (formato o dígito
+-- verificador) o dos formatos del mismo RUT, falla con un error y no cambia nada. Corregir esas filas y repetir.
+
+-- 1) Funciones auxiliares: RUT sin puntos, guiones ni espacios, y dígito verificador (módulo 11, igual que Rut)
+DROP FUNCTION IF EXISTS rut_limpio;
+DROP FUNCTION IF EXISTS rut_dv;
+DROP PROCEDURE IF EXISTS rut_verificar;
+
+DELIMITER //
+
+CREATE FUNCTION rut_limpio(texto VARCHAR(20)) RETURNS VARCHAR(20) DETERMINISTIC NO SQL
+BEGIN
+    RETURN UPPER(REPLACE(REPLACE(REPLACE(texto, '.', ''), '-', ''), ' ', ''));
+END //
+
+CREATE FUNCTION rut_dv(numero INT) RETURNS CHAR(1) DETERMINISTIC NO SQL
+BEGIN
+    DECLARE suma INT DEFAULT 0;
+    DECLARE factor INT DEFAULT 2;
+    DECLARE digito INT;
+    WHILE numero > 0 DO
+        SET suma = suma + (numero MOD 10) * factor;
+        SET factor = IF(factor = 7, 2, factor + 1);
+        SET numero = numero DIV 10;
+    END WHILE;
+    SET digito = 11 - (suma MOD 11);
+    RETURN CASE digito WHEN 11 THEN '0' WHEN 10 THEN 'K' ELSE CHAR(48 + digito) END;
+END //
+
+-- 2) Verificación: detiene el script (SIGNAL) si alguna fila no se puede convertir
+CREATE PROCEDURE rut_verificar()
+BEGIN
+    DECLARE invalidos INT;
+    DECLARE duplicados INT;
+    SELECT COUNT(*) INTO invalidos FROM usuarios
+     WHERE rut_limpio(rut) NOT REGEXP '^[0-9]{1,8}[0-9K]$'
+        OR CAST(LEFT(rut_limpio(rut), CHAR_LENGTH(rut_limpio(rut)) - 1) AS UNSIGNED) = 0
+        OR rut_dv(CAST(LEFT(rut_limpio(rut), CHAR_LENGTH(rut_limpio(rut)) - 1) AS UNSIGNED)) <> RIGHT(rut_limpio(rut), 1);
+    IF invalidos > 0 THEN
+        SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'Hay RUT invalidos (formato o digito verificador): corregirlos antes de migrar';
+    END IF;
+    SELECT COUNT(*) INTO duplicados FROM (
+        SELECT CAST(LEFT(rut_limpio(rut), CHAR_LENGTH(rut_limpio(rut)) - 1) AS UNSIGNED) AS numero FROM usuarios
+         GROUP BY numero HAVING COUNT(*) > 1) repetidos;
+    IF duplicados > 0 THEN
+        SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'Hay usuarios con el mismo RUT en distinto formato: unificarlos antes de migrar';
+    END IF;
+END //
+
+DELIMITER ;
+
+CALL rut_verificar();
+
+-- 3) Columnas numéricas nuevas, pobladas desde el texto (la FK se resuelve con un JOIN a la clave vieja)
+ALTER TABLE usuarios ADD COLUMN rut_numero INT NULL;
+UPDATE usuarios SET rut_numero = CAST(LEFT(rut_limpio(rut), CHAR_LENGTH(rut_limpio(rut)) - 1) AS UNSIGNED);
+
+ALTER TABLE direcciones_envio ADD COLUMN usuarios_rut_numero INT NULL;
+UPDATE direcciones_envio d JOIN usuarios u ON u.rut = d.USUARIOS_rut SET d.usuarios_rut_numero = u.rut_numero;
+
+-- 4) Cambio de claves. El nombre de la FK lo generó Hibernate: se busca en information_schema.
+SET @fk = (SELECT CONSTRAINT_NAME FROM information_schema.KEY_COLUMN_USAGE
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'direcciones_envio'
+              AND COLUMN_NAME = 'USUARIOS_rut' AND REFERENCED_TABLE_NAME = 'usuarios' LIMIT 1);
+SET @sql = CONCAT('ALTER TABLE direcciones_envio DROP FOREIGN KEY ', @fk);
+PREPARE sentencia FROM @sql;
+EXECUTE sentencia;
+DEALLOCATE PREPARE sentencia;
+
+ALTER TABLE direcciones_envio DROP INDEX idx_direcciones_usuarios_rut, DROP COLUMN USUARIOS_rut;
+ALTER TABLE direcciones_envio CHANGE COLUMN usuarios_rut_numero USUARIOS_rut INT NOT NULL;
+
+ALTER TABLE usuarios DROP PRIMARY KEY, DROP COLUMN rut;
+ALTER TABLE usuarios CHANGE COLUMN rut_numero rut INT NOT NULL FIRST, ADD PRIMARY KEY (rut);
+
+ALTER TABLE direcciones_envio
+    ADD INDEX idx_direcciones_usuarios_rut (USUARIOS_rut),
+    ADD CONSTRAINT fk_direcciones_usuarios FOREIGN KEY (USUARIOS_rut) REFERENCES usuarios (rut);
+
+-- 5) Limpieza
+DROP PROCEDURE rut_verificar;
+DROP FUNCTION rut_dv;
+DROP FUNCTION rut_limpio;
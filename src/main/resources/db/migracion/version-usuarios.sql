@@ -0,0 +1,11 @@
+-- Columnas de versión de usuarios: Usuario.version (control de concurrencia optimista, PUT/PATCH condicionales,
+-- ETag del usuario) y Usuario.versionDirecciones (ETag de la lista de direcciones).
+-- Para bases creadas antes de este cambio (con ddl-auto=create no hace falta). Ejecutar con el cliente mysql:
+--   mysql -u root -p prueba < version-usuarios.sql
+-- ANTES de desplegar la versión nueva (sus UPDATE comparan e incrementan las columnas) y, con sharding, en cada shard.
+--
+-- Los usuarios existentes quedan en la versión 0, la misma con que nace un usuario nuevo.
+
+ALTER TABLE usuarios
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN version_direcciones BIGINT NOT NULL DEFAULT 0;
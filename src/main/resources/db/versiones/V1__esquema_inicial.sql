@@ -0,0 +1,73 @@
+-- Esquema completo del servicio, tal como lo generaba Hibernate con ddl-auto=create (MySQL 8, InnoDB).
+-- Lo aplica Flyway al arrancar con el perfil 'prod' (spring.flyway.*) y Hibernate solo lo valida.
+-- Los nombres de índices y restricciones coinciden con los de las entidades (@Table, @JoinColumn).
+--
+-- Bases existentes (creadas con ddl-auto=create): primero ponerlas al día con los scripts de db/migracion/ que
+-- correspondan; al arrancar con 'prod' Flyway las marca como versión 1 (baseline-on-migrate) sin ejecutar esto.
+-- Los cambios de esquema siguientes van en V2__..., V3__... de esta carpeta, nunca editando un archivo ya aplicado.
+
+CREATE TABLE usuarios (
+    rut INT NOT NULL,
+    nombre VARCHAR(255) NOT NULL,
+    apellido VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    nombre_busqueda VARCHAR(255) NOT NULL,
+    apellido_busqueda VARCHAR(255) NOT NULL,
+    email_busqueda VARCHAR(255) NOT NULL,
+    version BIGINT NOT NULL,
+    version_direcciones BIGINT NOT NULL,
+    PRIMARY KEY (rut),
+    CONSTRAINT uk_usuarios_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_usuarios_nombre_busqueda ON usuarios (nombre_busqueda);
+CREATE INDEX idx_usuarios_apellido_busqueda ON usuarios (apellido_busqueda);
+CREATE INDEX idx_usuarios_email_busqueda ON usuarios (email_busqueda);
+
+CREATE TABLE direcciones_envio (
+    id BIGINT NOT NULL,
+    calle VARCHAR(255) NOT NULL,
+    numero VARCHAR(255) NOT NULL,
+    comuna VARCHAR(255) NOT NULL,
+    ciudad VARCHAR(255) NOT NULL,
+    USUARIOS_rut INT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_direcciones_usuarios FOREIGN KEY (USUARIOS_rut) REFERENCES usuarios (rut)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_direcciones_usuarios_rut ON direcciones_envio (USUARIOS_rut);
+
+-- Bloques de IDs de direcciones (id-estrategia=tabla, ver DireccionIdGenerator); con tsid queda sin uso.
+-- Sin fila inicial: el generador la inserta con su id-valor-inicial la primera vez que reserva un bloque,
+-- así la primera dirección recibe el mismo ID que en una base creada por ddl-auto.
+CREATE TABLE secuencias_id (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val BIGINT,
+    PRIMARY KEY (sequence_name)
+) ENGINE = InnoDB;
+
+-- Feed de cambios (GET /api/v1/cambios)
+CREATE TABLE cambios_usuarios (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    secuencia BIGINT NULL,
+    tipo VARCHAR(30) NOT NULL,
+    usuario_rut INT NOT NULL,
+    direccion_id BIGINT NULL,
+    creado DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_cambios_secuencia UNIQUE (secuencia)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_cambios_usuario_secuencia ON cambios_usuarios (usuario_rut, secuencia);
+CREATE INDEX idx_cambios_creado ON cambios_usuarios (creado);
+
+CREATE TABLE cambios_estado (
+    id INT NOT NULL,
+    ultima_secuencia BIGINT NOT NULL,
+    purgada_hasta BIGINT NOT NULL,
+    compactada_hasta BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+INSERT INTO cambios_estado (id, ultima_secuencia, purgada_hasta, compactada_hasta) VALUES (1, 0, 0, 0);
@@ -0,0 +1,12 @@
+-- La búsqueda pagina por keyset sobre (columna normalizada, rut): los índices de búsqueda pasan a terminar en
+-- rut para recorrer cada rango en ese orden desde el cursor, sin ordenar. En InnoDB un índice secundario ya
+-- incluye la clave primaria al final, así que el índice nuevo ocupa lo mismo que el anterior.
+
+DROP INDEX idx_usuarios_nombre_busqueda ON usuarios;
+CREATE INDEX idx_usuarios_nombre_busqueda ON usuarios (nombre_busqueda, rut);
+
+DROP INDEX idx_usuarios_apellido_busqueda ON usuarios;
+CREATE INDEX idx_usuarios_apellido_busqueda ON usuarios (apellido_busqueda, rut);
+
+DROP INDEX idx_usuarios_email_busqueda ON usuarios;
+CREATE INDEX idx_usuarios_email_busqueda ON usuarios (email_busqueda, rut);
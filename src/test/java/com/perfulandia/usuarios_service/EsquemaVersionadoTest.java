@@ -0,0 +1,91 @@
+package com.perfulandia.usuarios_service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.perfulandia.usuarios_service.dto.CrearDireccionDTO;
+import com.perfulandia.usuarios_service.dto.DireccionResponseDTO;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.service.DireccionEnvioService;
+import com.perfulandia.usuarios_service.service.ImportacionUsuariosService;
+
+// El perfil 'prod' sobre una base vacía: Flyway aplica db/versiones y Hibernate (ddl-auto=validate) acepta el
+// esquema resultante. Si una entidad cambia sin su migración, este contexto no arranca.
+// Base H2 propia: el esquema lo crea Flyway, no el create-drop de los demás tests.
+// id-estrategia=tabla: la que usa 'secuencias_id', que así también queda probada contra el esquema migrado.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:versionado;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.perfulandia.direcciones.id-estrategia=tabla"
+})
+@ActiveProfiles("prod")
+class EsquemaVersionadoTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ImportacionUsuariosService importacionUsuariosService;
+
+    @Autowired
+    private DireccionEnvioService direccionEnvioService;
+
+    @Test
+    void flywayAplicaLasVersionesYHibernateLasValida() {
+        List<String> versiones = jdbcTemplate.queryForList(
+                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"type\" = 'SQL' AND \"success\"", String.class);
+        assertEquals(List.of("1", "2"), versiones);
+    }
+
+    @Test
+    void lasMigracionesCreanLosIndicesYRestriccionesDeLasEntidades() {
+        List<String> indices = jdbcTemplate.queryForList(
+                "SELECT index_name FROM information_schema.indexes WHERE table_schema = 'public'", String.class);
+        for (String indice : List.of("idx_direcciones_usuarios_rut", "idx_usuarios_nombre_busqueda",
+                "idx_usuarios_apellido_busqueda", "idx_usuarios_email_busqueda", "idx_cambios_usuario_secuencia",
+                "idx_cambios_creado")) {
+            assertTrue(indices.contains(indice), "Falta el índice " + indice + " en " + indices);
+        }
+        List<String> restricciones = jdbcTemplate.queryForList(
+                "SELECT constraint_name FROM information_schema.table_constraints WHERE table_schema = 'public'", String.class);
+        for (String restriccion : List.of("uk_usuarios_email", "fk_direcciones_usuarios", "uk_cambios_secuencia")) {
+            assertTrue(restricciones.contains(restriccion), "Falta la restricción " + restriccion + " en " + restricciones);
+        }
+    }
+
+    @Test
+    void elEsquemaMigradoAdmiteLasEscriturasDelServicio() {
+        importar(Rut.de(86_000_000), "versionado@perfulandia.cl");
+        DireccionResponseDTO direccion = direccionEnvioService.agregarDireccionAUsuario(Rut.de(86_000_000),
+                new CrearDireccionDTO("Los Aromos", "123", "Ñuñoa", "Santiago"));
+
+        // Igual que en una base creada por ddl-auto: los IDs de direcciones empiezan en id-valor-inicial (1)
+        assertEquals(1L, direccion.id());
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM direcciones_envio WHERE USUARIOS_rut = 86000000", Integer.class));
+        assertTrue(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cambios_usuarios WHERE usuario_rut = 86000000", Integer.class) >= 2);
+        // uk_usuarios_email: el mismo email con otro RUT lo rechaza la base
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "INSERT INTO usuarios (rut, nombre, apellido, email, password, nombre_busqueda, apellido_busqueda,"
+                        + " email_busqueda, version, version_direcciones) VALUES (86000001, 'n', 'a',"
+                        + " 'versionado@perfulandia.cl', 'x', 'n', 'a', 'versionado@perfulandia.cl', 0, 0)"));
+    }
+
+    private void importar(Rut rut, String email) {
+        String csv = "rut,nombre,apellido,email,password\n" + rut + ",Nombre,Apellido," + email + ",secreto\n";
+        importacionUsuariosService.importarDesdeCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+}
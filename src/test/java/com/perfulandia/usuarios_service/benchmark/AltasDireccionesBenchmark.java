@@ -0,0 +1,95 @@
+package com.perfulandia.usuarios_service.benchmark;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.perfulandia.usuarios_service.dto.CrearDireccionDTO;
+import com.perfulandia.usuarios_service.dto.DireccionResponseDTO;
+import com.perfulandia.usuarios_service.service.DireccionEnvioService;
+import com.perfulandia.usuarios_service.service.ImportacionUsuariosService;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Altas de direcciones concurrentes (32 hilos, como un pico de checkout) con y sin el modo agrupado
+// (usuarios.direcciones.agrupar.*). SampleTime reporta la latencia por alta (p50/p99) y su cantidad, el throughput.
+// En H2 en memoria un commit casi no cuesta: la diferencia viene de no competir 32 transacciones por las 10 conexiones
+// ni por las filas de los usuarios. En MySQL con innodb_flush_log_at_trx_commit=1 se suma que cada commit es un
+// fsync, y el modo agrupado hace uno por lote en vez de uno por alta.
+// IDs 'tsid': con 'tabla', el modo normal con más hilos que conexiones agota el pool (cada reserva de bloque de IDs
+// pide una segunda conexión mientras la primera sigue tomada) y las altas esperan el connection-timeout.
+// Con agrupar=true, al terminar imprime las métricas del agrupador: la espera agregada (encolado -> inicio del
+// lote) debería quedar en la ventana más la escritura del lote anterior.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class AltasDireccionesBenchmark {
+
+    private static final int USUARIOS = 200;
+
+    @Param({"false", "true"})
+    private boolean agrupar;
+
+    private ConfigurableApplicationContext contexto;
+    private DireccionEnvioService direccionEnvioService;
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    @Setup
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar("usuarios.direcciones.agrupar.activo=" + agrupar,
+                "spring.jpa.properties.perfulandia.direcciones.id-estrategia=tsid");
+        direccionEnvioService = contexto.getBean(DireccionEnvioService.class);
+        contexto.getBean(ImportacionUsuariosService.class).importarDesdeCsv(ContextoBenchmark.csvUsuarios(0, USUARIOS));
+    }
+
+    @TearDown
+    public void cerrar() {
+        if (agrupar) {
+            MeterRegistry meterRegistry = contexto.getBean(MeterRegistry.class);
+            DistributionSummary lotes = meterRegistry.get("usuarios.agrupador.lote").summary();
+            Timer espera = meterRegistry.get("usuarios.agrupador.espera").timer();
+            Timer escritura = meterRegistry.get("usuarios.agrupador.escritura").timer();
+            System.out.printf(Locale.ROOT, "%nlotes=%d (%.1f altas por lote) espera agregada p99=%.1f ms max=%.1f ms, "
+                            + "escritura p99=%.1f ms max=%.1f ms%n",
+                    lotes.count(), lotes.mean(), percentil(espera, 0.99), espera.max(TimeUnit.MILLISECONDS),
+                    percentil(escritura, 0.99), escritura.max(TimeUnit.MILLISECONDS));
+        }
+        contexto.close();
+    }
+
+    private static double percentil(Timer timer, double percentil) {
+        return Arrays.stream(timer.takeSnapshot().percentileValues())
+                .filter(valor -> valor.percentile() == percentil)
+                .mapToDouble(valor -> valor.value(TimeUnit.MILLISECONDS))
+                .findFirst().orElse(Double.NaN);
+    }
+
+    @Benchmark
+    public DireccionResponseDTO agregarDireccion() {
+        int i = siguiente.getAndIncrement();
+        return direccionEnvioService.agregarDireccionAUsuario(ContextoBenchmark.rut(i % USUARIOS),
+                new CrearDireccionDTO("Calle " + i, "1", "Providencia", "Santiago"));
+    }
+}
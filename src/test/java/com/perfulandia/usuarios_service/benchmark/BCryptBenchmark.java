@@ -0,0 +1,49 @@
+package com.perfulandia.usuarios_service.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+// Costo de BCrypt por factor de costo: referencia para usuarios.bcrypt.presupuesto y para dimensionar
+// el ejecutor de hashing (cada punto de costo duplica el tiempo).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BCryptBenchmark {
+
+    @Param({"4", "8", "10", "12"})
+    private int costo;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void preparar() {
+        encoder = new BCryptPasswordEncoder(costo);
+        hash = encoder.encode("secreto-de-prueba");
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode("secreto-de-prueba");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("secreto-de-prueba", hash);
+    }
+}
@@ -0,0 +1,168 @@
+package com.perfulandia.usuarios_service.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.perfulandia.usuarios_service.busqueda.TextoBusqueda;
+import com.perfulandia.usuarios_service.dto.PaginaBusquedaDTO;
+import com.perfulandia.usuarios_service.service.BusquedaUsuariosService;
+
+// Latencia de BusquedaUsuariosService.buscarUsuarios (consultas + puntaje + página) sobre 1 millón de usuarios
+// con nombres y apellidos chilenos frecuentes, así cada prefijo tiene miles de coincidencias y la primera página
+// siempre se llena. SampleTime reporta los percentiles: el objetivo es p99 < 20 ms.
+// H2 en archivo (en un directorio temporal) para no depender del heap; la carga inicial tarda unos 8 minutos por
+// método (cada uno corre en su propio fork), por eso 1 millón y no más.
+// - prefijoApellido:  "gonz", "muno", ...
+// - nombreYApellido:  "maria gonz" (el ancla recorre su rango y el otro término filtra en la misma consulta)
+// - prefijoEmail:     "maria.gonzalez"
+// - conErrorDeTipeo:  apellido con las dos últimas letras invertidas (sin coincidencias por prefijo: camino aproximado)
+// En una máquina de 1 núcleo (p50 / p99): prefijoApellido 0.16 / 4.4 ms, prefijoEmail 0.9 / 13.7 ms,
+// conErrorDeTipeo 6.0 / 36 ms, nombreYApellido 8.3 / 95 ms. Los dos últimos no cumplen el objetivo: revisan
+// cientos a miles de filas del rango del ancla, y el p99.9 de todos (100-700 ms) son pausas de GC y de la caché de H2.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BusquedaBenchmark {
+
+    private static final String[] NOMBRES = {
+            "María", "José", "Juan", "Ana", "Luis", "Carmen", "Francisco", "Rosa", "Carlos", "Patricia",
+            "Jorge", "Claudia", "Manuel", "Verónica", "Pedro", "Carolina", "Sebastián", "Daniela", "Matías", "Javiera",
+            "Cristián", "Francisca", "Felipe", "Valentina", "Diego", "Constanza", "Nicolás", "Camila", "Benjamín", "Fernanda",
+            "Héctor", "Marcela", "Ricardo", "Paola", "Andrés", "Gabriela", "Rodrigo", "Catalina", "Tomás", "Isidora",
+            "Joaquín", "Antonia", "Ignacio", "Sofía", "Álvaro", "Bárbara", "Gonzalo", "Pía", "Víctor", "Ximena"};
+
+    private static final String[] APELLIDOS = {
+            "González", "Muñoz", "Rojas", "Díaz", "Pérez", "Soto", "Contreras", "Silva", "Martínez", "Sepúlveda",
+            "Morales", "Rodríguez", "López", "Fuentes", "Hernández", "Torres", "Araya", "Flores", "Espinoza", "Valenzuela",
+            "Castillo", "Tapia", "Reyes", "Gutiérrez", "Castro", "Pizarro", "Álvarez", "Vásquez", "Sánchez", "Fernández",
+            "Ramírez", "Carrasco", "Gómez", "Cortés", "Herrera", "Núñez", "Jara", "Vergara", "Rivera", "Figueroa",
+            "Riquelme", "García", "Miranda", "Bravo", "Vera", "Molina", "Vega", "Campos", "Sandoval", "Orellana",
+            "Zúñiga", "Olivares", "Alarcón", "Gallardo", "Ortiz", "Garrido", "Salazar", "Guzmán", "Henríquez", "Saavedra",
+            "Navarro", "Aguilera", "Parra", "Romero", "Aravena", "Vargas", "Vidal", "Cáceres", "Yáñez", "Leiva",
+            "Escobar", "Ruiz", "Valdés", "Bustos", "Salinas", "Zamorano", "Lagos", "Poblete", "Cárdenas", "Quiroz"};
+
+    private static final int LOTE_CARGA = 10_000;
+    private static final int CONSULTAS = 1024;
+
+    @Param({"1000000"})
+    private int usuarios;
+
+    private Path directorio;
+    private ConfigurableApplicationContext contexto;
+    private BusquedaUsuariosService busquedaUsuariosService;
+    private final List<String> prefijosApellido = new ArrayList<>();
+    private final List<String> nombresYApellidos = new ArrayList<>();
+    private final List<String> prefijosEmail = new ArrayList<>();
+    private final List<String> conErrores = new ArrayList<>();
+
+    @Setup
+    public void preparar() throws IOException {
+        directorio = Files.createTempDirectory("busqueda");
+        contexto = ContextoBenchmark.iniciar("spring.datasource.url=jdbc:h2:file:" + directorio.resolve("usuarios")
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CACHE_SIZE=262144;DB_CLOSE_ON_EXIT=FALSE");
+        busquedaUsuariosService = contexto.getBean(BusquedaUsuariosService.class);
+        cargar(new JdbcTemplate(contexto.getBean(DataSource.class)));
+
+        Random azar = new Random(7);
+        for (int i = 0; i < CONSULTAS; i++) {
+            String nombre = TextoBusqueda.normalizar(NOMBRES[azar.nextInt(NOMBRES.length)]);
+            String apellido = TextoBusqueda.normalizar(APELLIDOS[azar.nextInt(APELLIDOS.length)]);
+            prefijosApellido.add(apellido.substring(0, Math.min(apellido.length(), 3 + azar.nextInt(3))));
+            nombresYApellidos.add(nombre + " " + apellido.substring(0, Math.min(apellido.length(), 4)));
+            prefijosEmail.add(nombre + "." + apellido);
+            int n = apellido.length();
+            conErrores.add(apellido.substring(0, n - 2) + apellido.charAt(n - 1) + apellido.charAt(n - 2));
+        }
+    }
+
+    // INSERT directo por JDBC (importar un millón por el servicio sería medir BCrypt); las columnas de búsqueda
+    // se calculan con el mismo TextoBusqueda que usa la entidad
+    private void cargar(JdbcTemplate jdbc) {
+        Random azar = new Random(42);
+        List<Object[]> lote = new ArrayList<>(LOTE_CARGA);
+        for (int i = 0; i < usuarios; i++) {
+            String nombre = NOMBRES[azar.nextInt(NOMBRES.length)];
+            if (azar.nextInt(3) == 0) {
+                nombre += " " + NOMBRES[azar.nextInt(NOMBRES.length)];
+            }
+            String apellido = APELLIDOS[azar.nextInt(APELLIDOS.length)] + " " + APELLIDOS[azar.nextInt(APELLIDOS.length)];
+            String email = TextoBusqueda.normalizar(nombre.split(" ")[0] + "." + apellido.split(" ")[0]) + i + "@perfulandia.cl";
+            lote.add(new Object[]{ContextoBenchmark.rut(i).numero(), nombre, apellido, email,
+                    TextoBusqueda.normalizar(nombre), TextoBusqueda.normalizar(apellido), email});
+            if (lote.size() == LOTE_CARGA) {
+                insertar(jdbc, lote);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            insertar(jdbc, lote);
+        }
+    }
+
+    private static void insertar(JdbcTemplate jdbc, List<Object[]> lote) {
+        jdbc.batchUpdate("INSERT INTO usuarios (rut, nombre, apellido, email, password, version, version_direcciones, "
+                + "nombre_busqueda, apellido_busqueda, email_busqueda) VALUES (?, ?, ?, ?, 'x', 0, 0, ?, ?, ?)", lote);
+    }
+
+    @TearDown
+    public void cerrar() throws IOException {
+        contexto.close();
+        try (var archivos = Files.walk(directorio)) {
+            for (Path archivo : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(archivo);
+            }
+        }
+    }
+
+    private PaginaBusquedaDTO buscar(List<String> consultas) {
+        return busquedaUsuariosService.buscarUsuarios(
+                consultas.get(ThreadLocalRandom.current().nextInt(consultas.size())), null, null);
+    }
+
+    @Benchmark
+    public PaginaBusquedaDTO prefijoApellido() {
+        return buscar(prefijosApellido);
+    }
+
+    @Benchmark
+    public PaginaBusquedaDTO nombreYApellido() {
+        return buscar(nombresYApellidos);
+    }
+
+    @Benchmark
+    public PaginaBusquedaDTO prefijoEmail() {
+        return buscar(prefijosEmail);
+    }
+
+    @Benchmark
+    public PaginaBusquedaDTO conErrorDeTipeo() {
+        return buscar(conErrores);
+    }
+}
@@ -0,0 +1,185 @@
+package com.perfulandia.usuarios_service.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.perfulandia.usuarios_service.model.Rut;
+
+// Clave de usuarios antes (VARCHAR(10) con el RUT como texto) y después (INT con solo el número), con el mismo
+// esquema y los mismos datos en H2 (modo MySQL, en archivo para poder medir el espacio), por JDBC directo para aislar
+// el costo de la clave:
+// - porRut: SELECT por clave primaria.
+// - direccionesDeUsuario: el LEFT JOIN usuarios -> direcciones_envio de findDireccionesDeUsuario.
+// - loteDe100: 100 usuarios con sus direcciones en una consulta IN (...) (el multi-get).
+// En el @Setup se imprime el espacio que ocupa cada tabla (filas + índices) según H2 (DISK_SPACE_USED).
+// En MySQL el equivalente es:
+//   SELECT table_name, data_length, index_length FROM information_schema.tables WHERE table_schema = DATABASE();
+// donde la diferencia crece más, porque InnoDB repite la clave primaria en cada entrada de los índices secundarios.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClaveRutBenchmark {
+
+    private static final int USUARIOS = 200_000;
+    private static final int USUARIOS_CON_DIRECCIONES = 50_000;
+    private static final int DIRECCIONES_POR_USUARIO = 3;
+    private static final int LOTE = 100;
+    private static final int PRIMER_RUT = 10_000_000;
+
+    @Param({"varchar", "int"})
+    private String clave;
+
+    private Path directorio;
+    private Connection conexion;
+    private PreparedStatement porRut;
+    private PreparedStatement direccionesDeUsuario;
+    private PreparedStatement loteDe100;
+
+    @Setup
+    public void preparar() throws SQLException, IOException {
+        directorio = Files.createTempDirectory("clave-rut");
+        conexion = DriverManager.getConnection(
+                "jdbc:h2:file:" + directorio.resolve(clave) + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        String tipo = "int".equals(clave) ? "INT" : "VARCHAR(10)";
+        try (Statement ddl = conexion.createStatement()) {
+            ddl.execute("CREATE TABLE usuarios (rut " + tipo + " NOT NULL PRIMARY KEY, nombre VARCHAR(255) NOT NULL, "
+                    + "apellido VARCHAR(255) NOT NULL, email VARCHAR(255) NOT NULL UNIQUE, password VARCHAR(255) NOT NULL, "
+                    + "version BIGINT NOT NULL, version_direcciones BIGINT NOT NULL)");
+            ddl.execute("CREATE TABLE direcciones_envio (id BIGINT NOT NULL PRIMARY KEY, calle VARCHAR(255) NOT NULL, "
+                    + "numero VARCHAR(255) NOT NULL, comuna VARCHAR(255) NOT NULL, ciudad VARCHAR(255) NOT NULL, "
+                    + "USUARIOS_rut " + tipo + " NOT NULL, FOREIGN KEY (USUARIOS_rut) REFERENCES usuarios (rut))");
+            ddl.execute("CREATE INDEX idx_direcciones_usuarios_rut ON direcciones_envio (USUARIOS_rut)");
+        }
+        conexion.setAutoCommit(false);
+        try (PreparedStatement usuario = conexion.prepareStatement(
+                "INSERT INTO usuarios VALUES (?, 'Nombre', 'Apellido', ?, '$2a$10$hash', 0, 0)");
+             PreparedStatement direccion = conexion.prepareStatement(
+                "INSERT INTO direcciones_envio VALUES (?, 'Calle', '1', 'Providencia', 'Santiago', ?)")) {
+            long id = 0;
+            for (int i = 0; i < USUARIOS; i++) {
+                fijarRut(usuario, 1, i);
+                usuario.setString(2, "usuario" + i + "@perfulandia.cl");
+                usuario.addBatch();
+                if (i < USUARIOS_CON_DIRECCIONES) {
+                    for (int d = 0; d < DIRECCIONES_POR_USUARIO; d++) {
+                        direccion.setLong(1, ++id);
+                        fijarRut(direccion, 2, i);
+                        direccion.addBatch();
+                    }
+                }
+                if (i % 1000 == 999) {
+                    usuario.executeBatch();
+                    direccion.executeBatch();
+                }
+            }
+            usuario.executeBatch();
+            direccion.executeBatch();
+        }
+        conexion.commit();
+        conexion.setAutoCommit(true);
+        imprimirEspacio();
+
+        porRut = conexion.prepareStatement("SELECT rut, nombre, apellido, email, version FROM usuarios WHERE rut = ?");
+        direccionesDeUsuario = conexion.prepareStatement(
+                "SELECT u.rut, d.id, d.calle, d.numero, d.comuna, d.ciudad, u.version_direcciones FROM usuarios u "
+                        + "LEFT JOIN direcciones_envio d ON d.USUARIOS_rut = u.rut WHERE u.rut = ? ORDER BY d.id");
+        loteDe100 = conexion.prepareStatement(
+                "SELECT u.rut, u.nombre, d.id, d.calle FROM usuarios u LEFT JOIN direcciones_envio d ON d.USUARIOS_rut = u.rut "
+                        + "WHERE u.rut IN (" + "?, ".repeat(LOTE - 1) + "?) ORDER BY u.rut, d.id");
+    }
+
+    // Antes: el texto canónico ('10000000-8'); después: el número
+    private void fijarRut(PreparedStatement sentencia, int posicion, int indice) throws SQLException {
+        if ("int".equals(clave)) {
+            sentencia.setInt(posicion, PRIMER_RUT + indice);
+        } else {
+            sentencia.setString(posicion, Rut.de(PRIMER_RUT + indice).toString());
+        }
+    }
+
+    private void imprimirEspacio() throws SQLException {
+        try (Statement consulta = conexion.createStatement();
+             ResultSet espacio = consulta.executeQuery(
+                     "SELECT DISK_SPACE_USED('usuarios'), DISK_SPACE_USED('direcciones_envio')")) {
+            espacio.next();
+            System.out.printf("%nClave %s: usuarios %,d bytes, direcciones_envio %,d bytes%n",
+                    clave, espacio.getLong(1), espacio.getLong(2));
+        }
+    }
+
+    @TearDown
+    public void cerrar() throws SQLException, IOException {
+        try (Statement ddl = conexion.createStatement()) {
+            ddl.execute("SHUTDOWN");
+        }
+        try (var archivos = Files.walk(directorio)) {
+            for (Path archivo : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(archivo);
+            }
+        }
+    }
+
+    private static int alAzar(int limite) {
+        return ThreadLocalRandom.current().nextInt(limite);
+    }
+
+    // Recorre el resultado completo, como lo haría el mapeo a DTO
+    private static long consumir(PreparedStatement sentencia) throws SQLException {
+        long suma = 0;
+        try (ResultSet filas = sentencia.executeQuery()) {
+            while (filas.next()) {
+                suma += filas.getString(1).length() + 1;
+            }
+        }
+        return suma;
+    }
+
+    @Benchmark
+    public long porRut() throws SQLException {
+        fijarRut(porRut, 1, alAzar(USUARIOS));
+        try (ResultSet fila = porRut.executeQuery()) {
+            return fila.next() ? fila.getLong("version") : -1;
+        }
+    }
+
+    @Benchmark
+    public long direccionesDeUsuario() throws SQLException {
+        fijarRut(direccionesDeUsuario, 1, alAzar(USUARIOS_CON_DIRECCIONES));
+        return consumir(direccionesDeUsuario);
+    }
+
+    @Benchmark
+    public long loteDe100() throws SQLException {
+        int desde = alAzar(USUARIOS_CON_DIRECCIONES - LOTE * 10);
+        for (int i = 0; i < LOTE; i++) {
+            fijarRut(loteDe100, i + 1, desde + i * 10); // Repartidos, como un lote real
+        }
+        return consumir(loteDe100);
+    }
+}
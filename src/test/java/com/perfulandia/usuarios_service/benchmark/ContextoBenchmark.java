@@ -0,0 +1,61 @@
+package com.perfulandia.usuarios_service.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.perfulandia.usuarios_service.UsuariosServiceApplication;
+import com.perfulandia.usuarios_service.model.Rut;
+
+// Levanta la aplicación completa (en un puerto libre: la configuración de seguridad necesita el contexto web) sobre el H2 en modo MySQL de src/test/resources,
+// para los benchmarks que pasan por repositorios y servicios reales.
+final class ContextoBenchmark {
+
+    private ContextoBenchmark() {
+    }
+
+    static ConfigurableApplicationContext iniciar(String... propiedades) {
+        List<String> todas = new ArrayList<>(List.of(
+                "spring.jpa.properties.hibernate.generate_statistics=false", // Las estadísticas agregan costo por sentencia
+                // Lotes JDBC como en producción: las propiedades de src/test/resources reemplazan a las principales
+                "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                "spring.jpa.properties.hibernate.order_inserts=true",
+                "spring.jpa.properties.hibernate.order_updates=true",
+                // Sin DB_CLOSE_ON_EXIT el hook de H2 cierra la BD antes que Spring al terminar cada fork
+                "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "logging.level.root=WARN",
+                "server.port=0"));
+        todas.addAll(List.of(propiedades));
+        // Como argumentos de línea de comandos y no con properties(...): esas son propiedades por defecto, con menos
+        // prioridad que src/test/resources/application.properties, que se quedaría con la URL y las estadísticas.
+        // Una clave repetida Spring la juntaría con comas: la del benchmark reemplaza a la de esta lista.
+        Map<String, String> argumentos = new LinkedHashMap<>();
+        for (String propiedad : todas) {
+            argumentos.put(propiedad.substring(0, propiedad.indexOf('=')), "--" + propiedad);
+        }
+        return new SpringApplicationBuilder(UsuariosServiceApplication.class)
+                .run(argumentos.values().toArray(String[]::new));
+    }
+
+    // CSV de importación con 'cantidad' usuarios nuevos a partir del número 'desde' (RUT y email únicos)
+    static InputStream csvUsuarios(long desde, int cantidad) {
+        StringBuilder csv = new StringBuilder("rut,nombre,apellido,email,password\n");
+        for (long i = desde; i < desde + cantidad; i++) {
+            csv.append(rut(i)).append(",Nombre").append(i).append(",Apellido").append(i)
+                    .append(",usuario").append(i).append("@perfulandia.cl,secreto\n");
+        }
+        return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // RUTs válidos y consecutivos desde el 10.000.000 (el dígito verificador se calcula)
+    static Rut rut(long numero) {
+        return Rut.de(10_000_000 + (int) numero);
+    }
+}
@@ -0,0 +1,106 @@
+package com.perfulandia.usuarios_service.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.perfulandia.usuarios_service.dto.CrearUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.ResultadoImportacionDTO;
+import com.perfulandia.usuarios_service.model.DireccionEnvio;
+import com.perfulandia.usuarios_service.model.Usuario;
+import com.perfulandia.usuarios_service.service.ImportacionUsuariosService;
+import com.perfulandia.usuarios_service.service.UsuarioService;
+
+import jakarta.persistence.EntityManager;
+
+// Throughput de escritura sobre H2 embebido, en filas por segundo:
+// - importarUsuarios: importación CSV por lotes (BCrypt con el costo 4 de los tests, para medir la BD y no el hash).
+// - crearUsuariosFilaPorFila: la línea base de la importación, los mismos 1000 usuarios por crearUsuario (una
+//   verificación, un hash y una transacción por fila). La importación apunta a 10x este número.
+//   Aun con costo 4, un hash BCrypt cuesta ~1.75 ms en un núcleo y es la mayor parte de ambos caminos: la parte de
+//   BD de cada uno es 1/throughput menos ese tiempo. Con varios núcleos la importación reparte los hashes del lote.
+// - insertarDirecciones: 100 direcciones en una transacción, por cada estrategia de ID. Para comparar con el
+//   antiguo IDENTITY (sin lotes JDBC) ejecutar este mismo benchmark en el commit anterior y comparar los JSON.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EscrituraBenchmark {
+
+    private static final int FILAS_IMPORTACION = 1000;
+    private static final int DIRECCIONES_POR_TRANSACCION = 100;
+
+    @Param({"tabla", "tsid"})
+    private String idEstrategia;
+
+    private ConfigurableApplicationContext contexto;
+    private ImportacionUsuariosService importacionUsuariosService;
+    private UsuarioService usuarioService;
+    private TransactionTemplate transaccion;
+    private EntityManager entityManager;
+    private final AtomicLong siguienteUsuario = new AtomicLong(1);
+
+    @Setup
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar("spring.jpa.properties.perfulandia.direcciones.id-estrategia=" + idEstrategia);
+        importacionUsuariosService = contexto.getBean(ImportacionUsuariosService.class);
+        usuarioService = contexto.getBean(UsuarioService.class);
+        transaccion = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+        entityManager = contexto.getBean(EntityManager.class); // Proxy compartido ligado a la transacción actual
+        importacionUsuariosService.importarDesdeCsv(ContextoBenchmark.csvUsuarios(0, 1));
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS_IMPORTACION)
+    public ResultadoImportacionDTO importarUsuarios() {
+        long desde = siguienteUsuario.getAndAdd(FILAS_IMPORTACION);
+        return importacionUsuariosService.importarDesdeCsv(ContextoBenchmark.csvUsuarios(desde, FILAS_IMPORTACION));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS_IMPORTACION)
+    public void crearUsuariosFilaPorFila() {
+        long desde = siguienteUsuario.getAndAdd(FILAS_IMPORTACION);
+        for (long i = desde; i < desde + FILAS_IMPORTACION; i++) {
+            usuarioService.crearUsuario(new CrearUsuarioDTO(ContextoBenchmark.rut(i), "Nombre" + i, "Apellido" + i,
+                    "usuario" + i + "@perfulandia.cl", "secreto"));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DIRECCIONES_POR_TRANSACCION)
+    public void insertarDirecciones() {
+        transaccion.executeWithoutResult(estado -> {
+            Usuario usuario = entityManager.getReference(Usuario.class, ContextoBenchmark.rut(0).numero());
+            for (int i = 0; i < DIRECCIONES_POR_TRANSACCION; i++) {
+                entityManager.persist(DireccionEnvio.builder()
+                        .calle("Calle " + i).numero(String.valueOf(i)).comuna("Providencia").ciudad("Santiago")
+                        .usuario(usuario)
+                        .build());
+            }
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.perfulandia.usuarios_service.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.perfulandia.usuarios_service.dto.DireccionResponseDTO;
+import com.perfulandia.usuarios_service.dto.UsuarioResponseDTO;
+import com.perfulandia.usuarios_service.model.Rut;
+
+// Codificación y decodificación de los listados en cada formato de respuesta (JSON, CBOR, Smile), con y sin gzip
+// (el nivel por defecto de Deflater, el que usa Tomcat). 'codificar' es lo que paga el servidor por respuesta y
+// 'decodificar' lo que paga el cliente interno. Los bytes en el cable de cada combinación se imprimen en el Setup
+// ("bytes ..."). Para la asignación por operación agregar el perfilador de GC:
+//   java -cp <classpath de test> org.openjdk.jmh.Main FormatosRespuesta -prof gc
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatosRespuestaBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String formato;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    @Param({"usuarios", "direcciones"})
+    private String tipo;
+
+    @Param({"10", "1000", "100000"})
+    private int tamano;
+
+    private ObjectMapper objectMapper;
+    private JavaType tipoLista;
+    private List<?> lista;
+    private byte[] codificada;
+    private final ByteArrayOutputStream salida = new ByteArrayOutputStream(8192);
+
+    @Setup
+    public void preparar() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().factory(fabrica()).build();
+        if (tipo.equals("usuarios")) {
+            List<UsuarioResponseDTO> usuarios = new ArrayList<>(tamano);
+            for (int i = 0; i < tamano; i++) {
+                usuarios.add(new UsuarioResponseDTO(Rut.de(10_000_000 + i), "Nombre" + i, "Apellido" + i,
+                        "usuario" + i + "@perfulandia.cl", (long) (i % 7)));
+            }
+            lista = usuarios;
+            tipoLista = objectMapper.getTypeFactory().constructCollectionType(List.class, UsuarioResponseDTO.class);
+        } else {
+            List<DireccionResponseDTO> direcciones = new ArrayList<>(tamano);
+            for (int i = 0; i < tamano; i++) {
+                direcciones.add(new DireccionResponseDTO(1_000_000L + i, "Calle " + i, String.valueOf(i % 5000),
+                        "Providencia", "Santiago"));
+            }
+            lista = direcciones;
+            tipoLista = objectMapper.getTypeFactory().constructCollectionType(List.class, DireccionResponseDTO.class);
+        }
+        codificar();
+        codificada = salida.toByteArray();
+        System.out.printf(Locale.ROOT, "%nbytes formato=%s gzip=%s tipo=%s tamano=%d -> %d (%.1f por registro)%n",
+                formato, gzip, tipo, tamano, codificada.length, codificada.length / (double) tamano);
+    }
+
+    private JsonFactory fabrica() {
+        return switch (formato) {
+            case "json" -> new JsonFactory();
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> throw new IllegalArgumentException(formato);
+        };
+    }
+
+    // Sobre un buffer reutilizado, como el de salida de Tomcat: la asignación medida es la de la codificación
+    @Benchmark
+    public int codificar() throws IOException {
+        salida.reset();
+        try (OutputStream destino = gzip ? new GZIPOutputStream(salida, 8192) : salida) {
+            objectMapper.writeValue(destino, lista);
+        }
+        return salida.size();
+    }
+
+    @Benchmark
+    public List<?> decodificar() throws IOException {
+        try (InputStream entrada = gzip
+                ? new GZIPInputStream(new ByteArrayInputStream(codificada), 8192)
+                : new ByteArrayInputStream(codificada)) {
+            return objectMapper.readValue(entrada, tipoLista);
+        }
+    }
+}
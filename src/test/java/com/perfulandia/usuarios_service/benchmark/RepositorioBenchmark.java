@@ -0,0 +1,102 @@
+package com.perfulandia.usuarios_service.benchmark;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.perfulandia.usuarios_service.dto.CrearDireccionDTO;
+import com.perfulandia.usuarios_service.dto.FilaDireccionDTO;
+import com.perfulandia.usuarios_service.dto.PaginaUsuariosDTO;
+import com.perfulandia.usuarios_service.dto.UsuarioResponseDTO;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.model.Usuario;
+import com.perfulandia.usuarios_service.repository.DireccionEnvioRepository;
+import com.perfulandia.usuarios_service.repository.UsuarioRepository;
+import com.perfulandia.usuarios_service.service.DireccionEnvioService;
+import com.perfulandia.usuarios_service.service.ImportacionUsuariosService;
+import com.perfulandia.usuarios_service.service.UsuarioService;
+
+// Ida y vuelta completa a la BD (H2 embebido en modo MySQL) por las consultas de lectura más usadas.
+// Mide el costo de JDBC + Hibernate + mapeo, no la red ni el motor de MySQL.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositorioBenchmark {
+
+    private static final int USUARIOS = 10_000;
+    private static final int USUARIOS_CON_DIRECCIONES = 500;
+    private static final int DIRECCIONES_POR_USUARIO = 3;
+
+    private ConfigurableApplicationContext contexto;
+    private UsuarioRepository usuarioRepository;
+    private DireccionEnvioRepository direccionEnvioRepository;
+    private UsuarioService usuarioService;
+
+    @Setup
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar();
+        usuarioRepository = contexto.getBean(UsuarioRepository.class);
+        direccionEnvioRepository = contexto.getBean(DireccionEnvioRepository.class);
+        usuarioService = contexto.getBean(UsuarioService.class);
+
+        contexto.getBean(ImportacionUsuariosService.class).importarDesdeCsv(ContextoBenchmark.csvUsuarios(0, USUARIOS));
+        DireccionEnvioService direccionEnvioService = contexto.getBean(DireccionEnvioService.class);
+        for (int i = 0; i < USUARIOS_CON_DIRECCIONES; i++) {
+            for (int d = 0; d < DIRECCIONES_POR_USUARIO; d++) {
+                direccionEnvioService.agregarDireccionAUsuario(ContextoBenchmark.rut(i),
+                        new CrearDireccionDTO("Calle " + d, String.valueOf(d), "Providencia", "Santiago"));
+            }
+        }
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    private static Rut rutAlAzar(int limite) {
+        return ContextoBenchmark.rut(ThreadLocalRandom.current().nextInt(limite));
+    }
+
+    @Benchmark
+    public Optional<UsuarioResponseDTO> proyeccionPorRut() {
+        return usuarioRepository.findProyeccionPorRut(rutAlAzar(USUARIOS).numero());
+    }
+
+    @Benchmark
+    public Optional<Usuario> entidadPorRut() {
+        return usuarioRepository.findById(rutAlAzar(USUARIOS).numero());
+    }
+
+    @Benchmark
+    public Optional<UsuarioResponseDTO> usuarioPorRutConCache() {
+        return usuarioService.obtenerUsuarioPorRut(rutAlAzar(USUARIOS));
+    }
+
+    @Benchmark
+    public PaginaUsuariosDTO paginaDe50() {
+        return usuarioService.obtenerPaginaDeUsuarios(null, 50);
+    }
+
+    @Benchmark
+    public List<FilaDireccionDTO> direccionesDeUsuario() {
+        return direccionEnvioRepository.findDireccionesDeUsuario(rutAlAzar(USUARIOS_CON_DIRECCIONES).numero());
+    }
+}
@@ -0,0 +1,62 @@
+package com.perfulandia.usuarios_service.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.perfulandia.usuarios_service.dto.DireccionResponseDTO;
+import com.perfulandia.usuarios_service.dto.UsuarioResponseDTO;
+
+// Serialización JSON de las respuestas de listado, con el ObjectMapper configurado como lo hace Spring MVC.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializacionJsonBenchmark {
+
+    @Param({"1", "50", "500", "5000"})
+    private int tamano;
+
+    private ObjectMapper objectMapper;
+    private List<UsuarioResponseDTO> usuarios;
+    private List<DireccionResponseDTO> direcciones;
+
+    @Setup
+    public void preparar() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        usuarios = new ArrayList<>(tamano);
+        direcciones = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            usuarios.add(new UsuarioResponseDTO(10_000_000 + i, "Nombre" + i, "Apellido" + i,
+                    "usuario" + i + "@perfulandia.cl", 0L));
+            direcciones.add(new DireccionResponseDTO((long) i, "Calle " + i, String.valueOf(i), "Providencia", "Santiago"));
+        }
+    }
+
+    @Benchmark
+    public byte[] usuarios() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(usuarios);
+    }
+
+    @Benchmark
+    public byte[] direcciones() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(direcciones);
+    }
+}
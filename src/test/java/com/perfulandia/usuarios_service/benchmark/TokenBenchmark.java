@@ -0,0 +1,53 @@
+package com.perfulandia.usuarios_service.benchmark;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.perfulandia.usuarios_service.security.ServicioTokens;
+
+// Autenticar una petición con token firmado vs. verificar la contraseña con BCrypt (costo 10) en cada llamada.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenBenchmark {
+
+    private ServicioTokens servicioTokens;
+    private String token;
+    private BCryptPasswordEncoder bcrypt;
+    private String hash;
+
+    @Setup
+    public void preparar() {
+        servicioTokens = new ServicioTokens(Jackson2ObjectMapperBuilder.json().build(), "", "", Duration.ofHours(1));
+        token = servicioTokens.emitir("12345678-9", "ana@perfulandia.cl");
+        bcrypt = new BCryptPasswordEncoder(10);
+        hash = bcrypt.encode("secreto-de-prueba");
+    }
+
+    @Benchmark
+    public Optional<ServicioTokens.DatosToken> validarToken() {
+        return servicioTokens.validar(token);
+    }
+
+    @Benchmark
+    public boolean verificarBCrypt() {
+        return bcrypt.matches("secreto-de-prueba", hash);
+    }
+}
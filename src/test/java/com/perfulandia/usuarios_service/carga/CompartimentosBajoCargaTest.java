@@ -0,0 +1,256 @@
+package com.perfulandia.usuarios_service.carga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.service.ImportacionUsuariosService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Prueba de carga de lazo cerrado por HTTP real: unos pocos clientes hacen lecturas puntuales (GET /usuarios/{rut})
+// solos y después mientras muchos otros saturan las lecturas masivas (listados de 500 y multi-get de 200 RUT) y
+// las exportaciones completas, que ante un 503 esperan lo que indica Retry-After. Con los compartimentos, el p99 de
+// las lecturas puntuales casi no se mueve: las masivas se quedan con su cupo y el resto se rechaza al instante.
+// El cupo de las masivas es el adaptativo (AIMD entre 'minimo' y 'maximo'), no uno fijo: lo que se prueba es que
+// se acomoda a la carga. Por eso la medición es larga (el límite sube y baja varias veces dentro de ella) y las
+// cotas son relativas al p99 de las puntuales solas, medido en esta misma JVM.
+// Dura cerca de un minuto y sus cotas son de latencia: no va en la suite normal (etiqueta 'carga', excluida por
+// Surefire). El límite AIMD en sí lo prueba LimiteAdaptativoTest, determinista. Ejecutar con:
+//   mvn -Pcarga test
+// Para comparar sin compartimentos: mvn -Pcarga test -Dcarga.compartimentos=false
+// (la aserción de los rechazos falla, pero antes imprime la misma línea de resultados).
+// Base H2 propia: este contexto recrea el esquema al arrancar y no debe borrar los datos de los demás.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:compartimentos;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=false",
+        "usuarios.compartimentos.activo=${carga.compartimentos:true}",
+        "usuarios.compartimentos.reintentar-en=1s",
+        "usuarios.compartimentos.nombres=lectura-puntual,lectura-masiva,exportacion",
+        "usuarios.compartimentos.lectura-puntual.minimo=4",
+        "usuarios.compartimentos.lectura-puntual.maximo=50",
+        "usuarios.compartimentos.lectura-puntual.inicial=20",
+        "usuarios.compartimentos.lectura-puntual.latencia-objetivo=50ms",
+        "usuarios.compartimentos.lectura-masiva.minimo=1",
+        "usuarios.compartimentos.lectura-masiva.maximo=8",
+        "usuarios.compartimentos.lectura-masiva.inicial=2",
+        "usuarios.compartimentos.lectura-masiva.latencia-objetivo=1s",
+        "usuarios.compartimentos.exportacion.minimo=2",
+        "usuarios.compartimentos.exportacion.maximo=2",
+        "usuarios.compartimentos.exportacion.inicial=2",
+        "usuarios.compartimentos.rutas=GET /api/v1/usuarios/{rut}=lectura-puntual;"
+                + "GET /api/v1/usuarios=lectura-masiva;GET /api/v1/usuarios/exportar=exportacion;"
+                + "POST /api/v1/usuarios/lote=lectura-masiva"
+})
+@Tag("carga")
+class CompartimentosBajoCargaTest {
+
+    private static final int USUARIOS = 3000;
+    private static final int CLIENTES_PUNTUALES = 4;
+    private static final int CLIENTES_MASIVOS = 24;
+    private static final int RUTS_POR_LOTE = 200;
+    private static final Duration CALENTAMIENTO = Duration.ofSeconds(5);
+    private static final Duration MEDICION = Duration.ofSeconds(20);
+    private static final Duration REINTENTAR_EN = Duration.ofSeconds(1);
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private ImportacionUsuariosService importacionUsuariosService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Test
+    void lasLecturasPuntualesNoSufrenConLasMasivasSaturadas() throws Exception {
+        StringBuilder csv = new StringBuilder("rut,nombre,apellido,email,password\n");
+        for (int i = 0; i < USUARIOS; i++) {
+            csv.append(rut(i)).append(",Nombre").append(i).append(",Apellido").append(i)
+                    .append(",carga").append(i).append("@perfulandia.cl,secreto\n");
+        }
+        importacionUsuariosService.importarDesdeCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+        String base = "http://localhost:" + puerto + "/api/v1/usuarios";
+
+        medirPuntuales(base, CALENTAMIENTO); // JIT, cache de usuarios y conexiones HTTP
+        Resultado solas = medirPuntuales(base, MEDICION);
+
+        AtomicBoolean saturar = new AtomicBoolean(true);
+        ExecutorService masivos = Executors.newFixedThreadPool(CLIENTES_MASIVOS);
+        List<Future<Resultado>> futurosMasivos = new ArrayList<>();
+        for (int i = 0; i < CLIENTES_MASIVOS; i++) {
+            HttpRequest peticion = switch (i % 3) {
+                case 0 -> HttpRequest.newBuilder(URI.create(base + "?limit=500")).GET().build();
+                case 1 -> HttpRequest.newBuilder(URI.create(base + "/exportar")).GET().build();
+                default -> HttpRequest.newBuilder(URI.create(base + "/lote"))
+                        .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(cuerpoLote(i)))
+                        .build();
+            };
+            futurosMasivos.add(masivos.submit(() -> {
+                Resultado resultado = new Resultado();
+                while (saturar.get()) {
+                    if (pedir(peticion, resultado) == 503) {
+                        Thread.sleep(REINTENTAR_EN.toMillis());
+                    }
+                }
+                return resultado;
+            }));
+        }
+        medirPuntuales(base, CALENTAMIENTO); // Que el límite de las masivas se acomode a la carga
+        ScheduledExecutorService muestreo = Executors.newSingleThreadScheduledExecutor();
+        List<Integer> limites = new CopyOnWriteArrayList<>();
+        muestreo.scheduleAtFixedRate(() -> limites.add(limite("lectura-masiva")), 0, 100, TimeUnit.MILLISECONDS);
+        Resultado conMasivas = medirPuntuales(base, MEDICION);
+        muestreo.shutdownNow();
+        saturar.set(false);
+        Resultado masivas = new Resultado();
+        for (Future<Resultado> futuro : futurosMasivos) {
+            masivas.sumar(futuro.get(1, TimeUnit.MINUTES));
+        }
+        masivos.shutdown();
+
+        double p99Solas = solas.percentil(0.99);
+        double p99ConMasivas = conMasivas.percentil(0.99);
+        System.out.printf(Locale.ROOT,
+                "lecturas puntuales: solas p50=%.1f ms p99=%.1f ms (%d) | con masivas saturadas p50=%.1f ms p99=%.1f ms (%d, %d rechazadas)%n"
+                        + "lecturas masivas: ok=%d rechazadas(503)=%d p99=%.1f ms | límite lectura-masiva durante la medición %d..%d, "
+                        + "final lectura-puntual=%d%n",
+                solas.percentil(0.50), p99Solas, solas.cantidad, conMasivas.percentil(0.50), p99ConMasivas,
+                conMasivas.cantidad, conMasivas.rechazados, masivas.cantidad, masivas.rechazados, masivas.percentil(0.99),
+                Collections.min(limites), Collections.max(limites), limite("lectura-puntual"));
+
+        assertEquals(0, conMasivas.rechazados + conMasivas.errores + masivas.errores);
+        assertTrue(masivas.rechazados > 0, "Las lecturas masivas no llegaron a saturar su compartimento");
+        assertTrue(masivas.cantidad > 0, "Ninguna lectura masiva fue admitida");
+        assertTrue(Collections.max(limites) > 1, "El límite de las masivas no se movió del mínimo: " + limites);
+        double cota = 3 * p99Solas; // Sin compartimentos se multiplica por más de 6
+        assertTrue(p99ConMasivas <= cota, "p99 de lecturas puntuales con masivas " + p99ConMasivas + " ms > " + cota + " ms");
+    }
+
+    private Resultado medirPuntuales(String base, Duration duracion) throws Exception {
+        long fin = System.nanoTime() + duracion.toNanos();
+        ExecutorService clientes = Executors.newFixedThreadPool(CLIENTES_PUNTUALES);
+        List<Future<Resultado>> futuros = new ArrayList<>();
+        for (int i = 0; i < CLIENTES_PUNTUALES; i++) {
+            futuros.add(clientes.submit(() -> {
+                Resultado resultado = new Resultado();
+                ThreadLocalRandom azar = ThreadLocalRandom.current();
+                while (System.nanoTime() < fin) {
+                    pedir(base + "/" + rut(azar.nextInt(USUARIOS)), resultado);
+                }
+                return resultado;
+            }));
+        }
+        Resultado total = new Resultado();
+        for (Future<Resultado> futuro : futuros) {
+            total.sumar(futuro.get(1, TimeUnit.MINUTES));
+        }
+        clientes.shutdown();
+        return total;
+    }
+
+    private int pedir(String destino, Resultado resultado) {
+        return pedir(HttpRequest.newBuilder(URI.create(destino)).GET().build(), resultado);
+    }
+
+    private int pedir(HttpRequest peticion, Resultado resultado) {
+        long inicio = System.nanoTime();
+        try {
+            int estado = http.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode();
+            resultado.registrar(estado, System.nanoTime() - inicio);
+            return estado;
+        } catch (Exception e) {
+            resultado.errores++;
+            return -1;
+        }
+    }
+
+    private int limite(String compartimento) {
+        return meterRegistry.find("usuarios.compartimentos.limite").tag("compartimento", compartimento).gauges().stream()
+                .mapToInt(gauge -> (int) gauge.value())
+                .findFirst().orElse(-1);
+    }
+
+    private static String cuerpoLote(int cliente) {
+        return IntStream.range(0, RUTS_POR_LOTE)
+                .mapToObj(i -> "\"" + rut((cliente * RUTS_POR_LOTE + i) % USUARIOS) + "\"")
+                .collect(Collectors.joining(",", "{\"ruts\": [", "], \"incluirDirecciones\": false}"));
+    }
+
+    private static Rut rut(int numero) {
+        return Rut.de(84_000_000 + numero);
+    }
+
+    private static final class Resultado {
+        private long[] latencias = new long[1024];
+        private int cantidad;
+        private long rechazados;
+        private long errores;
+
+        void registrar(int estado, long nanos) {
+            if (estado == 503) {
+                rechazados++;
+                return;
+            }
+            if (estado >= 400) {
+                errores++;
+                return;
+            }
+            if (cantidad == latencias.length) {
+                latencias = Arrays.copyOf(latencias, cantidad * 2);
+            }
+            latencias[cantidad++] = nanos;
+        }
+
+        void sumar(Resultado otro) {
+            latencias = Arrays.copyOf(latencias, cantidad + otro.cantidad);
+            System.arraycopy(otro.latencias, 0, latencias, cantidad, otro.cantidad);
+            cantidad += otro.cantidad;
+            rechazados += otro.rechazados;
+            errores += otro.errores;
+        }
+
+        double percentil(double p) {
+            if (cantidad == 0) {
+                return 0;
+            }
+            long[] ordenadas = Arrays.copyOf(latencias, cantidad);
+            Arrays.sort(ordenadas);
+            int indice = (int) Math.min(cantidad - 1, Math.ceil(p * cantidad) - 1);
+            return ordenadas[Math.max(0, indice)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.perfulandia.usuarios_service.carga;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Tiempo de arranque y latencia de la primera petición de la configuración actual (ddl-auto=create) frente al
+// perfil 'prod' (Flyway + validate), con y sin AOT y CDS. Cada arranque es una JVM nueva sobre el jar extraído:
+//
+//   mvn -Parranque-rapido package -DskipTests                       (jar con AOT + archivo CDS en target/aplicacion)
+//   mvn -Parranque-rapido test-compile exec:java@comparar-arranque  -> tabla de medianas
+//
+// La base es H2 en archivo (modo MySQL), una por configuración, tomada del classpath de test: el jar no trae
+// driver de H2 y la comparación no necesita un MySQL. Antes de medir cada configuración se arranca una vez sin
+// contar (crea la base y aplica las migraciones; calienta la caché de disco): lo medido es un reinicio.
+// Por arranque: 'listo' = desde lanzar el proceso hasta el log "Started ..." (incluye la JVM) y 'contexto' el
+// tiempo que informa Spring; luego la primera y la segunda petición a GET /api/v1/usuarios?limit=50.
+// Parámetros (propiedades del sistema): arranque.repeticiones, arranque.argumentos (se agregan a cada arranque,
+// separados por espacios). En una máquina de 1 núcleo, medianas de 3 (listo / contexto / primera petición):
+//   actual 25.1 s / 24.4 s / 867 ms | prod 25.1 s / 24.3 s / 712 ms | prod+aot 23.0 s / 22.3 s / 794 ms
+//   prod+aot+cds 18.0 s / 17.5 s / 729 ms
+// Sobre H2 crear cinco tablas vacías es casi gratis: lo que 'prod' ahorra frente a ddl-auto=create se nota en MySQL
+// (y create además borra los datos). El resto del arranque es sobre todo cargar clases (lo que ataca CDS) y
+// compilar con ANTLR las consultas @Query de los repositorios, que AOT en Spring Boot 3.5 todavía no evita.
+// No es un test de JUnit (no termina en 'Test'): Surefire no lo ejecuta.
+public class PruebaArranque {
+
+    private static final Pattern INICIADO = Pattern.compile("Started \\w+ in ([0-9.]+) seconds");
+    private static final Duration ESPERA_MAXIMA = Duration.ofMinutes(3);
+
+    private record Configuracion(String nombre, boolean prod, boolean aot, boolean cds) {
+    }
+
+    private record Medicion(double listoMs, double contextoMs, double primeraMs, double segundaMs) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path directorio = Path.of(args.length > 0 ? args[0] : "target/aplicacion").toAbsolutePath();
+        int repeticiones = Integer.getInteger("arranque.repeticiones", 5);
+        List<String> extra = Arrays.stream(System.getProperty("arranque.argumentos", "").split(" "))
+                .filter(argumento -> !argumento.isBlank()).toList();
+
+        Path jar = jarAplicacion(directorio);
+        Path archivoCds = directorio.resolve("usuarios-service.jsa");
+        Path bases = Files.createDirectories(directorio.resolveSibling("arranque-bd"));
+        String claseMain;
+        try (JarFile archivo = new JarFile(jar.toFile())) {
+            claseMain = archivo.getManifest().getMainAttributes().getValue("Main-Class");
+        }
+        String classpath = jar.getFileName() + File.pathSeparator + jarH2();
+
+        List<Configuracion> configuraciones = new ArrayList<>(List.of(
+                new Configuracion("actual", false, false, false),
+                new Configuracion("prod", true, false, false),
+                new Configuracion("prod+aot", true, true, false)));
+        if (Files.exists(archivoCds)) {
+            configuraciones.add(new Configuracion("prod+aot+cds", true, true, true));
+        } else {
+            System.out.println("Sin " + archivoCds + ": se omite prod+aot+cds (construir con -Parranque-rapido)");
+        }
+
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        List<String> filas = new ArrayList<>();
+        for (Configuracion configuracion : configuraciones) {
+            List<String> comando = comando(configuracion, classpath, claseMain, archivoCds, bases, extra);
+            arrancar(comando, directorio, http); // Sin contar
+            List<Medicion> mediciones = new ArrayList<>();
+            for (int i = 0; i < repeticiones; i++) {
+                Medicion medicion = arrancar(comando, directorio, http);
+                System.out.printf(Locale.ROOT, "%s #%d: listo %.0f ms, contexto %.0f ms, primera petición %.1f ms, segunda %.1f ms%n",
+                        configuracion.nombre(), i + 1, medicion.listoMs(), medicion.contextoMs(),
+                        medicion.primeraMs(), medicion.segundaMs());
+                mediciones.add(medicion);
+            }
+            filas.add(String.format(Locale.ROOT, "%-14s %10.0f %10.0f %14.1f %14.1f", configuracion.nombre(),
+                    mediana(mediciones, Medicion::listoMs), mediana(mediciones, Medicion::contextoMs),
+                    mediana(mediciones, Medicion::primeraMs), mediana(mediciones, Medicion::segundaMs)));
+        }
+        System.out.printf("%nMedianas de %d arranques (ms)%n%-14s %10s %10s %14s %14s%n", repeticiones,
+                "config", "listo", "contexto", "primera", "segunda");
+        filas.forEach(System.out::println);
+    }
+
+    private static List<String> comando(Configuracion configuracion, String classpath, String claseMain, Path archivoCds,
+                                        Path bases, List<String> extra) throws IOException {
+        List<String> comando = new ArrayList<>();
+        comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (configuracion.cds()) {
+            comando.add("-XX:SharedArchiveFile=" + archivoCds.getFileName());
+        }
+        if (configuracion.aot()) {
+            comando.add("-Dspring.aot.enabled=true");
+        }
+        comando.addAll(List.of("-cp", classpath, claseMain));
+        if (configuracion.prod()) {
+            comando.add("--spring.profiles.active=prod");
+        }
+        String base = bases.resolve(configuracion.nombre().replace('+', '-')).toString();
+        comando.addAll(List.of(
+                "--spring.datasource.url=jdbc:h2:file:" + base + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--server.port=" + puertoLibre()));
+        comando.addAll(extra);
+        return comando;
+    }
+
+    private static Medicion arrancar(List<String> comando, Path directorio, HttpClient http) throws Exception {
+        String puerto = comando.stream().filter(argumento -> argumento.startsWith("--server.port="))
+                .findFirst().orElseThrow().substring("--server.port=".length());
+        long inicio = System.nanoTime();
+        Process proceso = new ProcessBuilder(comando).directory(directorio.toFile()).redirectErrorStream(true).start();
+        try {
+            CompletableFuture<Double> iniciado = new CompletableFuture<>();
+            Deque<String> ultimasLineas = new ArrayDeque<>();
+            Thread lector = new Thread(() -> leerSalida(proceso, iniciado, ultimasLineas), "salida-arranque");
+            lector.setDaemon(true);
+            lector.start();
+            double contextoMs;
+            try {
+                contextoMs = iniciado.get(ESPERA_MAXIMA.toSeconds(), TimeUnit.SECONDS);
+            } catch (Exception e) {
+                synchronized (ultimasLineas) {
+                    throw new IllegalStateException("No arrancó: " + String.join(" ", comando) + "\n"
+                            + String.join("\n", ultimasLineas), e);
+                }
+            }
+            double listoMs = (System.nanoTime() - inicio) / 1_000_000.0;
+            URI uri = URI.create("http://localhost:" + puerto + "/api/v1/usuarios?limit=50");
+            double primeraMs = pedir(http, uri);
+            double segundaMs = pedir(http, uri);
+            return new Medicion(listoMs, contextoMs, primeraMs, segundaMs);
+        } finally {
+            proceso.destroy(); // Apagado ordenado: H2 cierra la base en archivo
+            if (!proceso.waitFor(30, TimeUnit.SECONDS)) {
+                proceso.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static void leerSalida(Process proceso, CompletableFuture<Double> iniciado, Deque<String> ultimasLineas) {
+        try (BufferedReader salida = new BufferedReader(
+                new InputStreamReader(proceso.getInputStream(), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = salida.readLine()) != null) {
+                synchronized (ultimasLineas) {
+                    ultimasLineas.addLast(linea);
+                    if (ultimasLineas.size() > 40) {
+                        ultimasLineas.removeFirst();
+                    }
+                }
+                Matcher iniciada = INICIADO.matcher(linea);
+                if (iniciada.find()) {
+                    iniciado.complete(Double.parseDouble(iniciada.group(1)) * 1000);
+                }
+            }
+        } catch (IOException e) {
+            iniciado.completeExceptionally(e);
+        }
+        iniciado.completeExceptionally(new IllegalStateException("El proceso terminó con código " + proceso.onExit().join().exitValue()));
+    }
+
+    private static double pedir(HttpClient http, URI uri) throws Exception {
+        long inicio = System.nanoTime();
+        HttpResponse<Void> respuesta = http.send(HttpRequest.newBuilder(uri).GET().build(),
+                HttpResponse.BodyHandlers.discarding());
+        double ms = (System.nanoTime() - inicio) / 1_000_000.0;
+        if (respuesta.statusCode() != 200) {
+            throw new IllegalStateException(uri + " respondió " + respuesta.statusCode());
+        }
+        return ms;
+    }
+
+    private static Path jarAplicacion(Path directorio) throws IOException {
+        try (var archivos = Files.list(directorio)) {
+            return archivos.filter(archivo -> archivo.getFileName().toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("Sin jar extraído en " + directorio
+                            + ": mvn -Parranque-rapido package -DskipTests"));
+        }
+    }
+
+    // Con exec:java el classpath de test no está en java.class.path (es el de Maven): se pregunta al driver
+    private static String jarH2() throws URISyntaxException {
+        return Path.of(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+
+    private static int puertoLibre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double mediana(List<Medicion> mediciones, ToDoubleFunction<Medicion> valor) {
+        double[] valores = mediciones.stream().mapToDouble(valor).sorted().toArray();
+        return valores[valores.length / 2];
+    }
+}
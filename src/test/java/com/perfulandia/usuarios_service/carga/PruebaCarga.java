@@ -0,0 +1,137 @@
+package com.perfulandia.usuarios_service.carga;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.perfulandia.usuarios_service.model.Rut;
+
+// Prueba de carga de lazo cerrado contra un servicio ya levantado. Sirve para comparar el modo
+// hilos de plataforma con el modo hilos virtuales (spring.threads.virtual.enabled) sobre la misma BD:
+//
+//   1) mvn spring-boot:run                       (hilos de plataforma)
+//      mvn -Pcarga test-compile exec:java        -> anotar throughput y p99
+//   2) mvn -Philos-virtuales spring-boot:run     (JDK 21)
+//      mvn -Pcarga test-compile exec:java        -> comparar
+//
+// Parámetros (propiedades del sistema): carga.url, carga.clientes, carga.duracion (s), carga.usuarios.
+// Mezcla: 80 % GET /usuarios/{rut}, 20 % GET /usuarios?limit=50. Las respuestas 503 (límite de
+// concurrencia) se cuentan aparte: con hilos virtuales son la señal de que el pool de BD es el límite.
+// No es un test de JUnit (no termina en 'Test'): Surefire no lo ejecuta.
+public class PruebaCarga {
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("carga.url", "http://localhost:8080/api/v1/usuarios");
+        int clientes = Integer.getInteger("carga.clientes", 500);
+        int duracion = Integer.getInteger("carga.duracion", 30);
+        int usuarios = Integer.getInteger("carga.usuarios", 200);
+
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        List<String> ruts = prepararUsuarios(http, url, usuarios);
+
+        long fin = System.nanoTime() + Duration.ofSeconds(duracion).toNanos();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(clientes);
+        List<Future<Resultado>> resultados = new ArrayList<>();
+        for (int i = 0; i < clientes; i++) {
+            resultados.add(ejecutor.submit(() -> cliente(http, url, ruts, fin)));
+        }
+        Resultado total = new Resultado();
+        for (Future<Resultado> resultado : resultados) {
+            total.sumar(resultado.get());
+        }
+        ejecutor.shutdown();
+        total.imprimir(duracion, clientes);
+    }
+
+    private static List<String> prepararUsuarios(HttpClient http, String url, int cantidad) throws Exception {
+        List<String> ruts = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            String rut = Rut.de(90_000_000 + i).toString();
+            String json = String.format(
+                    "{\"rut\":\"%s\",\"nombre\":\"Carga\",\"apellido\":\"Prueba\",\"email\":\"carga%d@perfulandia.cl\",\"password\":\"secreto\"}",
+                    rut, i);
+            http.send(HttpRequest.newBuilder(URI.create(url))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build(), HttpResponse.BodyHandlers.discarding()); // 409 si ya existe: igual sirve
+            ruts.add(rut);
+        }
+        return ruts;
+    }
+
+    private static Resultado cliente(HttpClient http, String url, List<String> ruts, long fin) {
+        Resultado resultado = new Resultado();
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        while (System.nanoTime() < fin) {
+            String destino = azar.nextInt(10) < 8
+                    ? url + "/" + ruts.get(azar.nextInt(ruts.size()))
+                    : url + "?limit=50";
+            long inicio = System.nanoTime();
+            try {
+                int estado = http.send(HttpRequest.newBuilder(URI.create(destino)).GET().build(),
+                        HttpResponse.BodyHandlers.discarding()).statusCode();
+                resultado.registrar(estado, System.nanoTime() - inicio);
+            } catch (Exception e) {
+                resultado.errores++;
+            }
+        }
+        return resultado;
+    }
+
+    private static final class Resultado {
+        private long[] latencias = new long[1024];
+        private int cantidad;
+        private long rechazados;
+        private long errores;
+
+        void registrar(int estado, long nanos) {
+            if (estado == 503) {
+                rechazados++;
+                return;
+            }
+            if (estado >= 400) {
+                errores++;
+                return;
+            }
+            if (cantidad == latencias.length) {
+                latencias = Arrays.copyOf(latencias, cantidad * 2);
+            }
+            latencias[cantidad++] = nanos;
+        }
+
+        void sumar(Resultado otro) {
+            latencias = Arrays.copyOf(latencias, cantidad + otro.cantidad);
+            System.arraycopy(otro.latencias, 0, latencias, cantidad, otro.cantidad);
+            cantidad += otro.cantidad;
+            rechazados += otro.rechazados;
+            errores += otro.errores;
+        }
+
+        void imprimir(int duracion, int clientes) {
+            Arrays.sort(latencias, 0, cantidad);
+            System.out.printf(Locale.ROOT, "clientes=%d duracion=%ds%n", clientes, duracion);
+            System.out.printf(Locale.ROOT, "ok=%d rechazados(503)=%d errores=%d throughput=%.1f req/s%n",
+                    cantidad, rechazados, errores, cantidad / (double) duracion);
+            System.out.printf(Locale.ROOT, "p50=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                    percentil(0.50), percentil(0.99), percentil(1.0));
+        }
+
+        private double percentil(double p) {
+            if (cantidad == 0) {
+                return 0;
+            }
+            int indice = (int) Math.min(cantidad - 1, Math.ceil(p * cantidad) - 1);
+            return latencias[Math.max(0, indice)] / 1_000_000.0;
+        }
+    }
+}
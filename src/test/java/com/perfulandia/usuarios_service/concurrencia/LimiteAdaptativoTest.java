@@ -0,0 +1,100 @@
+package com.perfulandia.usuarios_service.concurrencia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class LimiteAdaptativoTest {
+
+    private static final long OBJETIVO_NANOS = Duration.ofMillis(50).toNanos();
+
+    private static LimiteAdaptativo limite(int inicial) {
+        return new LimiteAdaptativo(2, 20, inicial, Duration.ofNanos(OBJETIVO_NANOS), 0.5);
+    }
+
+    @Test
+    void rechazaSinEsperarAlLlegarAlLimite() {
+        LimiteAdaptativo limite = limite(3);
+        assertTrue(limite.adquirir());
+        assertTrue(limite.adquirir());
+        assertTrue(limite.adquirir());
+        assertFalse(limite.adquirir());
+        assertEquals(3, limite.getEnCurso());
+    }
+
+    @Test
+    void subeDeAUnoSoloSiElCupoSeEstaUsando() {
+        LimiteAdaptativo limite = limite(4);
+
+        // Una sola petición a la vez: 1 < 4 / 2, el límite no crece aunque todas sean rápidas
+        for (int i = 0; i < 10; i++) {
+            limite.adquirir();
+            limite.liberar(System.nanoTime(), false);
+        }
+        assertEquals(4, limite.getLimite());
+
+        // Con el cupo lleno, cada respuesta rápida suma 1
+        for (int i = 0; i < 4; i++) {
+            limite.adquirir();
+        }
+        limite.liberar(System.nanoTime(), false);
+        assertEquals(5, limite.getLimite());
+    }
+
+    @Test
+    void bajaUnaVezPorRondaConRespuestasLentas() {
+        LimiteAdaptativo limite = limite(16);
+        long antes = System.nanoTime() - 2 * OBJETIVO_NANOS;
+        for (int i = 0; i < 8; i++) {
+            limite.adquirir();
+        }
+
+        // Ocho respuestas lentas admitidas con el límite anterior: una sola reducción
+        for (int i = 0; i < 8; i++) {
+            limite.liberar(antes, false);
+        }
+        assertEquals(8, limite.getLimite());
+
+        // Un 503 aguas abajo de una petición admitida después de esa reducción vuelve a bajar, hasta el mínimo
+        for (int i = 0; i < 5; i++) {
+            long inicio = System.nanoTime();
+            limite.adquirir();
+            limite.liberar(inicio, true);
+        }
+        assertEquals(2, limite.getLimite());
+        assertEquals(0, limite.getEnCurso());
+    }
+
+    @Test
+    void nuncaSuperaElMaximo() {
+        LimiteAdaptativo limite = limite(20);
+        for (int i = 0; i < 20; i++) {
+            limite.adquirir();
+        }
+        for (int i = 0; i < 20; i++) {
+            limite.liberar(System.nanoTime(), false);
+        }
+        assertEquals(20, limite.getLimite());
+    }
+
+    @Test
+    void conMinimoIgualAlMaximoQuedaFijo() {
+        // Así se configura el compartimento de exportación: respuestas de minutos no le recortan el cupo
+        LimiteAdaptativo limite = new LimiteAdaptativo(2, 2, 2, Duration.ofNanos(OBJETIVO_NANOS), 0.5);
+        long antes = System.nanoTime() - 1000 * OBJETIVO_NANOS;
+        for (int i = 0; i < 5; i++) {
+            limite.adquirir();
+            limite.liberar(antes, false);
+        }
+        assertEquals(2, limite.getLimite());
+
+        limite.adquirir();
+        limite.adquirir();
+        limite.liberar(System.nanoTime(), false);
+        assertEquals(2, limite.getLimite());
+    }
+}
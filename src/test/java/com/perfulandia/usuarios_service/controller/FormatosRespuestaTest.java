@@ -0,0 +1,193 @@
+package com.perfulandia.usuarios_service.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.perfulandia.usuarios_service.dto.CrearDireccionDTO;
+import com.perfulandia.usuarios_service.dto.DireccionResponseDTO;
+import com.perfulandia.usuarios_service.dto.UsuarioResponseDTO;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.service.ImportacionUsuariosService;
+
+// Negociación de formato (JSON, CBOR, Smile) y compresión gzip por HTTP real: la compresión la hace Tomcat,
+// así que MockMvc no la ve. Mismas propiedades server.compression.* que application.properties.
+// Base H2 propia: este contexto recrea el esquema al arrancar y no debe borrar los datos de los demás.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:formatos;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "server.compression.enabled=true",
+        "server.compression.min-response-size=2KB",
+        "server.compression.mime-types=application/json,application/cbor,application/x-jackson-smile,application/x-ndjson,text/plain"
+})
+class FormatosRespuestaTest {
+
+    private static final int USUARIOS = 60;
+    private static final TypeReference<List<UsuarioResponseDTO>> LISTA_USUARIOS = new TypeReference<>() {
+    };
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private ImportacionUsuariosService importacionUsuariosService;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new CBORMapper();
+    private final ObjectMapper smile = new SmileMapper();
+
+    @BeforeEach
+    void cargarUsuarios() {
+        StringBuilder csv = new StringBuilder("rut,nombre,apellido,email,password\n");
+        for (int i = 0; i < USUARIOS; i++) {
+            csv.append(Rut.de(85_000_000 + i)).append(",Nombre").append(i).append(",Apellido").append(i)
+                    .append(",formatos").append(i).append("@perfulandia.cl,secreto\n");
+        }
+        importacionUsuariosService.importarDesdeCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void elListadoSeNegociaEnJsonCborYSmileConLosMismosDatos() throws Exception {
+        HttpResponse<byte[]> respuestaJson = get("/api/v1/usuarios?legacy=true", "application/json", null);
+        HttpResponse<byte[]> respuestaCbor = get("/api/v1/usuarios?legacy=true", "application/cbor", null);
+        HttpResponse<byte[]> respuestaSmile = get("/api/v1/usuarios?legacy=true", "application/x-jackson-smile", null);
+
+        assertEquals("application/json", tipo(respuestaJson));
+        assertEquals("application/cbor", tipo(respuestaCbor));
+        assertEquals("application/x-jackson-smile", tipo(respuestaSmile));
+
+        List<UsuarioResponseDTO> desdeJson = json.readValue(respuestaJson.body(), LISTA_USUARIOS);
+        assertEquals(USUARIOS, desdeJson.size());
+        assertEquals(desdeJson, cbor.readValue(respuestaCbor.body(), LISTA_USUARIOS));
+        assertEquals(desdeJson, smile.readValue(respuestaSmile.body(), LISTA_USUARIOS));
+        assertTrue(respuestaCbor.body().length < respuestaJson.body().length);
+        assertTrue(respuestaSmile.body().length < respuestaJson.body().length);
+    }
+
+    @Test
+    void sinAcceptSigueRespondiendoJson() throws Exception {
+        HttpResponse<byte[]> respuesta = get("/api/v1/usuarios?limit=5", null, null);
+        assertEquals(200, respuesta.statusCode());
+        assertEquals("application/json", tipo(respuesta));
+    }
+
+    @Test
+    void lasRespuestasGrandesSeComprimenYLasChicasNo() throws Exception {
+        HttpResponse<byte[]> grande = get("/api/v1/usuarios?legacy=true", "application/cbor", "gzip");
+        assertEquals("gzip", grande.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        try (GZIPInputStream descomprimida = new GZIPInputStream(new ByteArrayInputStream(grande.body()))) {
+            assertEquals(USUARIOS, cbor.readValue(descomprimida, LISTA_USUARIOS).size());
+        }
+
+        HttpResponse<byte[]> chica = get("/api/v1/usuarios?limit=2", "application/json", "gzip");
+        assertTrue(chica.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isEmpty(), "Respuesta bajo el umbral comprimida");
+    }
+
+    @Test
+    void lasDireccionesSeCreanYLeenEnCbor() throws Exception {
+        String ruta = "/api/v1/usuarios/" + Rut.de(85_000_000) + "/direcciones";
+        HttpResponse<byte[]> creada = http.send(HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta))
+                .header(HttpHeaders.CONTENT_TYPE, "application/cbor")
+                .header(HttpHeaders.ACCEPT, "application/cbor")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                        cbor.writeValueAsBytes(new CrearDireccionDTO("Los Aromos", "123", "Ñuñoa", "Santiago"))))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(201, creada.statusCode());
+        assertEquals("Ñuñoa", cbor.readValue(creada.body(), DireccionResponseDTO.class).comuna());
+
+        HttpResponse<byte[]> lista = get(ruta, "application/cbor", null);
+        assertEquals("application/cbor", tipo(lista));
+        List<DireccionResponseDTO> direcciones = cbor.readValue(lista.body(), new TypeReference<List<DireccionResponseDTO>>() {
+        });
+        assertEquals("Los Aromos", direcciones.get(direcciones.size() - 1).calle());
+    }
+
+    @Test
+    void cadaFormatoTieneSuEtagYLasRespuestasVarianPorAccept() throws Exception {
+        String ruta = "/api/v1/usuarios/" + Rut.de(85_000_001);
+        HttpResponse<byte[]> enJson = get(ruta, "application/json", null);
+        HttpResponse<byte[]> enCbor = get(ruta, "application/cbor", null);
+        HttpResponse<byte[]> enSmile = get(ruta, "application/x-jackson-smile", null);
+        String etagJson = enJson.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        String etagCbor = enCbor.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        String etagSmile = enSmile.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        assertNotEquals(etagJson, etagCbor);
+        assertNotEquals(etagJson, etagSmile);
+        assertNotEquals(etagCbor, etagSmile);
+        for (HttpResponse<byte[]> respuesta : List.of(enJson, enCbor, enSmile)) {
+            assertTrue(respuesta.headers().allValues(HttpHeaders.VARY).stream()
+                    .anyMatch(vary -> vary.toLowerCase().contains("accept")), "Sin Vary: Accept en " + respuesta.headers());
+        }
+
+        // La ETag del CBOR no revalida la representación JSON (ni al revés): 200 con el cuerpo del formato pedido
+        HttpResponse<byte[]> jsonConEtagCbor = get(ruta, "application/json", null, etagCbor);
+        assertEquals(200, jsonConEtagCbor.statusCode());
+        assertEquals("application/json", tipo(jsonConEtagCbor));
+        HttpResponse<byte[]> cborConEtagJson = get(ruta, "application/cbor", null, etagJson);
+        assertEquals(200, cborConEtagJson.statusCode());
+        assertEquals("application/cbor", tipo(cborConEtagJson));
+
+        // Con la suya, 304 (y también con Vary)
+        HttpResponse<byte[]> noModificado = get(ruta, "application/cbor", null, etagCbor);
+        assertEquals(304, noModificado.statusCode());
+        assertEquals(etagCbor, noModificado.headers().firstValue(HttpHeaders.ETAG).orElse(null));
+        assertTrue(noModificado.headers().allValues(HttpHeaders.VARY).stream()
+                .anyMatch(vary -> vary.toLowerCase().contains("accept")));
+        assertEquals(304, get(ruta, "application/x-jackson-smile", null, etagSmile).statusCode());
+
+        // If-Match acepta la ETag de cualquier formato: todas nombran la misma versión
+        HttpResponse<byte[]> actualizado = http.send(HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta))
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .header(HttpHeaders.ACCEPT, "application/cbor")
+                .header(HttpHeaders.IF_MATCH, etagCbor)
+                .PUT(HttpRequest.BodyPublishers.ofString("{\"nombre\": \"Nombre\", \"apellido\": \"Cambiado\"}"))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, actualizado.statusCode());
+        assertEquals("Cambiado", cbor.readValue(actualizado.body(), UsuarioResponseDTO.class).apellido());
+        String etagNueva = actualizado.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        assertTrue(etagNueva.endsWith("-cbor\""), etagNueva);
+        assertEquals(200, get(ruta, "application/cbor", null, etagCbor).statusCode());
+    }
+
+    private HttpResponse<byte[]> get(String ruta, String accept, String acceptEncoding) throws Exception {
+        return get(ruta, accept, acceptEncoding, null);
+    }
+
+    private HttpResponse<byte[]> get(String ruta, String accept, String acceptEncoding, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta)).GET();
+        if (ifNoneMatch != null) {
+            peticion.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        if (accept != null) {
+            peticion.header(HttpHeaders.ACCEPT, accept);
+        }
+        if (acceptEncoding != null) {
+            peticion.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return http.send(peticion.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static String tipo(HttpResponse<?> respuesta) {
+        return respuesta.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElse("").split(";")[0];
+    }
+}
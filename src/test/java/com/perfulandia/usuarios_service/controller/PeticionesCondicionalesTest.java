@@ -0,0 +1,92 @@
+package com.perfulandia.usuarios_service.controller;
+
+import static com.perfulandia.usuarios_service.metricas.SentenciasSql.sentenciasSql;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+// ETags, If-None-Match (304) e If-Match (412), y cuántas sentencias cuesta responder cada caso.
+@SpringBootTest
+@AutoConfigureMockMvc
+class PeticionesCondicionalesTest {
+
+    private static final String USUARIOS = "/api/v1/usuarios";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void usuarioSinCambiosSeRespondeConNotModifiedDesdeElCache() throws Exception {
+        crearUsuario("61111111-8", "etag-usuario@perfulandia.cl");
+        String usuario = USUARIOS + "/61111111-8";
+
+        mockMvc.perform(get(usuario)).andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+        mockMvc.perform(get(usuario).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""))
+                .andExpect(sentenciasSql(0)); // La versión sale del DTO en cache
+
+        mockMvc.perform(put(usuario).header(HttpHeaders.IF_MATCH, "\"0\"").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Nuevo\",\"apellido\":\"Apellido\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        // El ETag anterior ya no sirve: ni para el 304 ni para escribir encima de un cambio ajeno
+        mockMvc.perform(get(usuario).header(HttpHeaders.IF_NONE_MATCH, "\"0\"")).andExpect(status().isOk());
+        mockMvc.perform(put(usuario).header(HttpHeaders.IF_MATCH, "\"0\"").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Pisado\",\"apellido\":\"Apellido\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete(usuario).header(HttpHeaders.IF_MATCH, "W/\"1\"")) // If-Match usa comparación fuerte
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete(usuario).header(HttpHeaders.IF_MATCH, "\"1\"")).andExpect(status().isNoContent());
+    }
+
+    @Test
+    void listaDeDireccionesSinCambiosSeRespondeConSoloLaVersion() throws Exception {
+        crearUsuario("62222222-1", "etag-direcciones@perfulandia.cl");
+        String direcciones = USUARIOS + "/62222222-1/direcciones";
+
+        mockMvc.perform(get(direcciones)).andExpect(status().isNoContent()).andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+        String ubicacion = mockMvc.perform(post(direcciones).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"calle\":\"Etag\",\"numero\":\"1\",\"comuna\":\"Ñuñoa\",\"ciudad\":\"Santiago\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        mockMvc.perform(get(direcciones)).andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        mockMvc.perform(get(direcciones).header(HttpHeaders.IF_NONE_MATCH, "\"0\", W/\"1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(sentenciasSql(1)); // Solo la columna de versión, sin leer las direcciones
+
+        mockMvc.perform(put(ubicacion).header(HttpHeaders.IF_MATCH, "\"0\"").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"calle\":\"Vieja\",\"numero\":\"1\",\"comuna\":\"Ñuñoa\",\"ciudad\":\"Santiago\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put(ubicacion).header(HttpHeaders.IF_MATCH, "\"1\"").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"calle\":\"Nueva\",\"numero\":\"1\",\"comuna\":\"Ñuñoa\",\"ciudad\":\"Santiago\"}"))
+                .andExpect(status().isOk());
+
+        // Cambiar una dirección no cambia el ETag del usuario
+        mockMvc.perform(get(USUARIOS + "/62222222-1")).andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+        mockMvc.perform(get(direcciones).header(HttpHeaders.IF_NONE_MATCH, "\"1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+    }
+
+    private void crearUsuario(String rut, String email) throws Exception {
+        mockMvc.perform(post(USUARIOS).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rut\":\"" + rut + "\",\"nombre\":\"Etag\",\"apellido\":\"Test\",\"email\":\"" + email
+                                + "\",\"password\":\"secreto\"}"))
+                .andExpect(status().isCreated());
+    }
+}
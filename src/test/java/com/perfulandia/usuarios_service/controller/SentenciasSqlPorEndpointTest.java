@@ -0,0 +1,192 @@
+package com.perfulandia.usuarios_service.controller;
+
+import static com.perfulandia.usuarios_service.metricas.SentenciasSql.sentenciasSql;
+import static com.perfulandia.usuarios_service.metricas.SentenciasSql.sentenciasSqlMaximas;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Fija el número de sentencias SQL de cada endpoint. Si un cambio agrega consultas (un N+1 en un mapeo,
+// un find extra antes de un delete), este test falla: actualizar el número aquí debe ser una decisión consciente.
+@SpringBootTest
+@AutoConfigureMockMvc
+class SentenciasSqlPorEndpointTest {
+
+    private static final String USUARIOS = "/api/v1/usuarios";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void endpointsDeUsuarios() throws Exception {
+        mockMvc.perform(post(USUARIOS).contentType(MediaType.APPLICATION_JSON)
+                        .content(usuario("72000001-6", "sql-usuarios@perfulandia.cl")))
+                .andExpect(status().isCreated())
+                .andExpect(sentenciasSql(3)); // existsById + INSERT + registro del feed de cambios
+
+        mockMvc.perform(get(USUARIOS + "/72000001-6")).andExpect(status().isOk()).andExpect(sentenciasSql(1));
+        mockMvc.perform(get(USUARIOS + "/72000001-6")).andExpect(status().isOk()).andExpect(sentenciasSql(0)); // Cache
+        // Otro formato del mismo RUT es la misma clave (también en el cache); un dígito verificador erróneo no llega a la BD
+        mockMvc.perform(get(USUARIOS + "/72.000.001-6")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.rut").value("72000001-6")).andExpect(sentenciasSql(0));
+        mockMvc.perform(get(USUARIOS + "/72000001-1")).andExpect(status().isBadRequest()).andExpect(sentenciasSql(0));
+        mockMvc.perform(get(USUARIOS).param("limit", "10")).andExpect(status().isOk()).andExpect(sentenciasSql(1));
+        mockMvc.perform(get(USUARIOS + "/buscar").param("q", "SQL-usuarios"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usuarios[0].usuario.rut").value("72000001-6"))
+                .andExpect(sentenciasSql(3)); // Un rango de índice por columna: nombre, apellido y email
+
+        mockMvc.perform(put(USUARIOS + "/72000001-6").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Otro\",\"apellido\":\"Nombre\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1))
+                .andExpect(sentenciasSql(3)); // UPDATE por clave + registro del cambio + SELECT del resultado
+
+        mockMvc.perform(patch(USUARIOS + "/72000001-6").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"apellido\":\"Parcial\",\"version\":1}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nombre").value("Otro"))
+                .andExpect(jsonPath("$.apellido").value("Parcial"))
+                .andExpect(jsonPath("$.version").value(2))
+                .andExpect(sentenciasSql(3));
+
+        mockMvc.perform(put(USUARIOS + "/72000001-6").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Viejo\",\"apellido\":\"Nombre\",\"version\":1}"))
+                .andExpect(status().isConflict())
+                .andExpect(sentenciasSql(2)); // UPDATE sin filas + existsById para distinguir 409 de 404
+        mockMvc.perform(patch(USUARIOS + "/72000001-6").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(sentenciasSql(0));
+        mockMvc.perform(patch(USUARIOS + "/72999999-7").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Nadie\"}"))
+                .andExpect(status().isNotFound())
+                .andExpect(sentenciasSql(1));
+
+        mockMvc.perform(post("/api/v1/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"sql-usuarios@perfulandia.cl\",\"password\":\"secreto\"}"))
+                .andExpect(status().isOk())
+                .andExpect(sentenciasSql(1));
+
+        mockMvc.perform(delete(USUARIOS + "/72000001-6"))
+                .andExpect(status().isNoContent())
+                .andExpect(sentenciasSql(3)); // DELETE de direcciones por conjunto + DELETE del usuario + registro
+        mockMvc.perform(delete(USUARIOS + "/72000001-6"))
+                .andExpect(status().isNotFound())
+                .andExpect(sentenciasSql(2));
+    }
+
+    @Test
+    void endpointsDeDirecciones() throws Exception {
+        mockMvc.perform(post(USUARIOS).contentType(MediaType.APPLICATION_JSON)
+                .content(usuario("72000002-4", "sql-direcciones@perfulandia.cl"))).andExpect(status().isCreated());
+        String direcciones = USUARIOS + "/72000002-4/direcciones";
+
+        long id = 0;
+        for (int i = 0; i < 3; i++) {
+            String respuesta = mockMvc.perform(post(direcciones).contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"calle\":\"Calle " + i + "\",\"numero\":\"1\",\"comuna\":\"Ñuñoa\",\"ciudad\":\"Santiago\"}"))
+                    .andExpect(status().isCreated())
+                    .andExpect(sentenciasSqlMaximas(5)) // UPDATE de la versión de la lista + INSERT + registro (+ reserva ocasional de bloque de IDs con id-estrategia=tabla)
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode creada = objectMapper.readTree(respuesta);
+            id = creada.get("id").asLong();
+        }
+
+        // Una sola consulta sin importar cuántas direcciones tenga el usuario (sin N+1)
+        mockMvc.perform(get(direcciones)).andExpect(status().isOk()).andExpect(sentenciasSql(1));
+        mockMvc.perform(get(direcciones + "/" + id)).andExpect(status().isOk()).andExpect(sentenciasSql(1));
+
+        mockMvc.perform(put(direcciones + "/" + id).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"calle\":\"Nueva\",\"numero\":\"2\",\"comuna\":\"Ñuñoa\",\"ciudad\":\"Santiago\"}"))
+                .andExpect(status().isOk())
+                .andExpect(sentenciasSql(3)); // UPDATE de la versión de la lista + UPDATE por clave y dueño + registro
+
+        // La dirección existe, pero no es de este usuario: 404 sin tocarla
+        mockMvc.perform(delete(USUARIOS + "/72999999-7/direcciones/" + id))
+                .andExpect(status().isNotFound())
+                .andExpect(sentenciasSql(1));
+
+        mockMvc.perform(delete(direcciones + "/" + id))
+                .andExpect(status().isNoContent())
+                .andExpect(sentenciasSql(3)); // UPDATE de la versión de la lista + DELETE por clave y dueño + registro
+        mockMvc.perform(delete(direcciones + "/" + id)).andExpect(status().isNotFound());
+
+        // Eliminar al usuario borra sus direcciones restantes con una sola sentencia
+        mockMvc.perform(delete(USUARIOS + "/72000002-4"))
+                .andExpect(status().isNoContent())
+                .andExpect(sentenciasSql(3));
+        mockMvc.perform(get(direcciones)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void multiGetUsaUnaConsultaPorConjuntoYRespetaElOrden() throws Exception {
+        for (String rut : List.of("72000011-3", "72000014-8", "72000015-6")) {
+            mockMvc.perform(post(USUARIOS).contentType(MediaType.APPLICATION_JSON)
+                    .content(usuario(rut, "lote-" + rut + "@perfulandia.cl"))).andExpect(status().isCreated());
+        }
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post(USUARIOS + "/72000014-8/direcciones").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"calle\":\"Lote " + i + "\",\"numero\":\"1\",\"comuna\":\"Maipú\",\"ciudad\":\"Santiago\"}"))
+                    .andExpect(status().isCreated());
+        }
+
+        String cuerpo = "{\"ruts\":[\"72.000.015-6\",\"72999999-7\",\"72000011-3\",\"720000148\",\"72000015-6\"],"
+                + "\"incluirDirecciones\":true}";
+        String respuesta = mockMvc.perform(post(USUARIOS + "/lote").contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+                .andExpect(status().isOk())
+                .andExpect(sentenciasSql(2)) // Usuarios IN (...) + direcciones IN (...)
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode resultados = objectMapper.readTree(respuesta);
+        assertEquals(5, resultados.size());
+        assertEquals("72000015-6", resultados.get(0).get("rut").asText()); // Cada RUT se responde en forma canónica
+        assertEquals("72000015-6", resultados.get(0).get("usuario").get("rut").asText());
+        assertFalse(resultados.get(1).get("encontrado").asBoolean());
+        assertEquals("72999999-7", resultados.get(1).get("rut").asText());
+        assertEquals("72000011-3", resultados.get(2).get("usuario").get("rut").asText());
+        assertEquals(0, resultados.get(2).get("direcciones").size());
+        assertEquals(2, resultados.get(3).get("direcciones").size());
+        assertTrue(resultados.get(4).get("encontrado").asBoolean()); // Los repetidos también se responden
+
+        mockMvc.perform(post(USUARIOS + "/lote").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ruts\":[\"72000011-3\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(sentenciasSql(1)); // Sin direcciones: solo la consulta de usuarios
+        mockMvc.perform(post(USUARIOS + "/lote").contentType(MediaType.APPLICATION_JSON).content("{\"ruts\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void posicionDelFeedDeCambios() throws Exception {
+        mockMvc.perform(get("/api/v1/cambios/cursor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cursor").isNotEmpty())
+                .andExpect(sentenciasSql(1)); // La fila de cambios_estado
+    }
+
+    private static String usuario(String rut, String email) {
+        return "{\"rut\":\"" + rut + "\",\"nombre\":\"Sql\",\"apellido\":\"Test\",\"email\":\"" + email + "\",\"password\":\"secreto\"}";
+    }
+}
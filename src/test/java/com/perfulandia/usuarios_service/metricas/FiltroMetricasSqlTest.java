@@ -0,0 +1,52 @@
+package com.perfulandia.usuarios_service.metricas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.perfulandia.usuarios_service.dto.CrearUsuarioDTO;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.service.UsuarioService;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class FiltroMetricasSqlTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void registraLasSentenciasDeCadaPeticionPorPatronDeEndpoint() throws Exception {
+        usuarioService.crearUsuario(new CrearUsuarioDTO(Rut.parsear("73000001-4"), "Luz", "Soto", "metricas@perfulandia.cl", "secreto"));
+
+        mockMvc.perform(get("/api/v1/usuarios/73000001-4")).andExpect(status().isOk()); // Falla del cache: 1 consulta
+        mockMvc.perform(get("/api/v1/usuarios/73000001-4")).andExpect(status().isOk()); // Desde el cache: 0 consultas
+
+        DistributionSummary sentencias = meterRegistry.find("usuarios.sql.sentencias")
+                .tags("uri", "/api/v1/usuarios/{rut}", "method", "GET")
+                .summary();
+        assertNotNull(sentencias);
+        assertEquals(2, sentencias.count());
+        assertEquals(1.0, sentencias.totalAmount());
+        assertNotNull(meterRegistry.find("usuarios.sql.tiempo").tags("uri", "/api/v1/usuarios/{rut}").timer());
+        assertNotNull(meterRegistry.find("usuarios.servicio")
+                .tags("class", "com.perfulandia.usuarios_service.service.impl.UsuarioServiceImpl", "method", "obtenerUsuarioPorRut")
+                .timer());
+    }
+}
@@ -0,0 +1,51 @@
+package com.perfulandia.usuarios_service.metricas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.Supplier;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+// Afirmaciones para fijar en los tests cuántas sentencias SQL ejecuta cada endpoint o servicio.
+// Un N+1 nuevo (p. ej. un mapeo que recorre una colección lazy) cambia el número y rompe el build.
+//
+//   mockMvc.perform(get(...)).andExpect(sentenciasSql(1));
+//   UsuarioResponseDTO dto = assertSentenciasSql(1, () -> usuarioService.obtenerUsuarioPorRut(rut));
+public final class SentenciasSql {
+
+    private SentenciasSql() {
+    }
+
+    // Para MockMvc: lee la cabecera X-Sql-Sentencias que agrega FiltroMetricasSql
+    public static ResultMatcher sentenciasSql(int esperadas) {
+        return resultado -> assertEquals(esperadas, sentencias(resultado.getResponse().getHeader(FiltroMetricasSql.CABECERA_SENTENCIAS)),
+                "Sentencias SQL de " + resultado.getRequest().getMethod() + " " + resultado.getRequest().getRequestURI());
+    }
+
+    public static ResultMatcher sentenciasSqlMaximas(int maximo) {
+        return resultado -> {
+            int ejecutadas = sentencias(resultado.getResponse().getHeader(FiltroMetricasSql.CABECERA_SENTENCIAS));
+            assertTrue(ejecutadas <= maximo, "Se esperaban a lo más " + maximo + " sentencias SQL de "
+                    + resultado.getRequest().getMethod() + " " + resultado.getRequest().getRequestURI() + ", hubo " + ejecutadas);
+        };
+    }
+
+    // Para servicios y repositorios: cuenta las sentencias que ejecuta la acción en este hilo
+    public static <T> T assertSentenciasSql(int esperadas, Supplier<T> accion) {
+        ContadorSql.Acumulado acumulado = ContadorSql.iniciar();
+        try {
+            T resultado = accion.get();
+            assertEquals(esperadas, acumulado.getSentencias(), "Sentencias SQL ejecutadas");
+            return resultado;
+        } finally {
+            ContadorSql.terminar();
+        }
+    }
+
+    private static int sentencias(String cabecera) {
+        assertNotNull(cabecera, "La respuesta no trae " + FiltroMetricasSql.CABECERA_SENTENCIAS + " (¿usuarios.sql.cabeceras=false?)");
+        return Integer.parseInt(cabecera);
+    }
+}
@@ -0,0 +1,82 @@
+package com.perfulandia.usuarios_service.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.perfulandia.usuarios_service.dto.CrearDireccionDTO;
+import com.perfulandia.usuarios_service.dto.CrearUsuarioDTO;
+import com.perfulandia.usuarios_service.service.DireccionEnvioService;
+import com.perfulandia.usuarios_service.service.UsuarioService;
+
+// Altas de direcciones con más hilos que conexiones en el pool y la estrategia de ID por defecto (tsid).
+// Con 'tabla' cada reserva de bloque pide una segunda conexión mientras el alta retiene la suya: con el pool
+// tomado por altas que esperan su segunda conexión, fallaban todas al vencer el connection-timeout.
+// Base H2 propia: este contexto recrea el esquema al arrancar y no debe borrar los datos de los demás.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ids-direcciones;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=" + DireccionIdGeneratorTest.CONEXIONES,
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+class DireccionIdGeneratorTest {
+
+    static final int CONEXIONES = 2;
+    private static final int HILOS = 4 * CONEXIONES;
+    private static final int ALTAS_POR_HILO = 20;
+
+    @Autowired
+    private DireccionEnvioService direccionEnvioService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Test
+    void lasAltasConcurrentesNoAgotanElPool() throws Exception {
+        List<Rut> ruts = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            Rut rut = Rut.de(87_000_000 + i);
+            usuarioService.crearUsuario(new CrearUsuarioDTO(rut, "Pool", "Chico", "pool" + i + "@perfulandia.cl", "secreto"));
+            ruts.add(rut);
+        }
+
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<List<Long>>> futuros = new ArrayList<>();
+        for (Rut rut : ruts) {
+            futuros.add(hilos.submit(() -> {
+                largada.await();
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < ALTAS_POR_HILO; i++) {
+                    ids.add(direccionEnvioService.agregarDireccionAUsuario(rut,
+                            new CrearDireccionDTO("Calle " + i, "1", "Ñuñoa", "Santiago")).id());
+                }
+                return ids;
+            }));
+        }
+        largada.countDown();
+        Set<Long> ids = new HashSet<>();
+        for (Future<List<Long>> futuro : futuros) {
+            ids.addAll(futuro.get(1, TimeUnit.MINUTES)); // Con el pool agotado, aquí sale la SQLTransientConnectionException
+        }
+        hilos.shutdown();
+
+        assertEquals(HILOS * ALTAS_POR_HILO, ids.size()); // Un ID distinto por alta
+        assertTrue(ids.stream().allMatch(id -> id > (1L << 22)), "Los IDs no son TSID: " + ids); // Milisegundos en los bits altos
+        for (Rut rut : ruts) {
+            assertEquals(ALTAS_POR_HILO, direccionEnvioService.obtenerDireccionesPorUsuarioRut(rut).orElseThrow().direcciones().size());
+        }
+    }
+}
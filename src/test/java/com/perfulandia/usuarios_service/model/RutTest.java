@@ -0,0 +1,40 @@
+package com.perfulandia.usuarios_service.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.ValueInstantiationException;
+
+class RutTest {
+
+    @Test
+    void aceptaLosFormatosHabitualesYLosNormaliza() {
+        for (String texto : new String[]{"12.345.678-5", "12345678-5", "123456785", " 12 345 678-5 "}) {
+            assertEquals(new Rut(12_345_678), Rut.parsear(texto));
+        }
+        assertEquals("12345678-5", Rut.parsear("12.345.678-5").toString());
+        // Dígito 'K' en minúscula o mayúscula; se muestra siempre en mayúscula
+        assertEquals("10000013-K", Rut.parsear("10.000.013-k").toString());
+        assertEquals("1-9", Rut.de(1).toString());
+    }
+
+    @Test
+    void rechazaDigitoVerificadorIncorrectoYTextoInvalido() {
+        for (String texto : new String[]{"12345678-9", "12345678", "1-", "", "abc-1", "123.456.789-0", "0-0"}) {
+            assertThrows(IllegalArgumentException.class, () -> Rut.parsear(texto), texto);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Rut.parsear(null));
+        assertThrows(IllegalArgumentException.class, () -> Rut.de(0));
+    }
+
+    @Test
+    void viajaEnJsonComoTextoCanonico() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals("\"12345678-5\"", objectMapper.writeValueAsString(Rut.de(12_345_678)));
+        assertEquals(Rut.de(12_345_678), objectMapper.readValue("\"12.345.678-5\"", Rut.class));
+        assertThrows(ValueInstantiationException.class, () -> objectMapper.readValue("\"12.345.678-0\"", Rut.class));
+    }
+}
@@ -0,0 +1,120 @@
+package com.perfulandia.usuarios_service.replicas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EnrutadorReplicasTest {
+
+    private static final String CAIDA = "jdbc:h2:tcp://localhost:1/no-existe";
+
+    // Como dentro de una @Transactional(readOnly = true)
+    @BeforeEach
+    void simularTransaccionDeSoloLectura() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+
+    @AfterEach
+    void terminarTransaccion() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void rondaAlternaEntreLasReplicasSanasYSaltaLasCaidas() throws SQLException {
+        try (EnrutadorReplicas enrutador = enrutador(EnrutadorReplicas.Balanceo.RONDA,
+                memoria("ronda-a"), CAIDA, memoria("ronda-b"))) {
+            List<String> destinos = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                destinos.add(destino(enrutador));
+            }
+            assertEquals(List.of("ronda-a", "ronda-b", "ronda-a", "ronda-b"), destinos);
+        }
+    }
+
+    @Test
+    void menosPendientesEligeLaReplicaConMenosConexionesEnUso() throws SQLException {
+        try (EnrutadorReplicas enrutador = enrutador(EnrutadorReplicas.Balanceo.MENOS_PENDIENTES,
+                memoria("pendientes-a"), memoria("pendientes-b"))) {
+            try (Connection enUso = enrutador.getConnection()) { // Queda ocupada en la réplica 'a'
+                assertEquals("pendientes-b", destino(enrutador));
+            }
+        }
+    }
+
+    @Test
+    void sinReplicasSanasSeLeeDeLaPrimaria() throws SQLException {
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        try (EnrutadorReplicas enrutador = new EnrutadorReplicas(primaria(), List.of(pool(CAIDA)),
+                EnrutadorReplicas.Balanceo.RONDA, Duration.ofHours(1), registro)) {
+            assertEquals("primaria", destino(enrutador));
+            assertEquals(0, registro.get("usuarios.replicas.sanas").gauge().value());
+            assertEquals(1, registro.get("usuarios.replicas.respaldo").counter().count());
+        }
+    }
+
+    @Test
+    void laVentanaDeLecturaPropiaYLasEscriturasVanALaPrimaria() throws SQLException {
+        try (EnrutadorReplicas enrutador = enrutador(EnrutadorReplicas.Balanceo.RONDA, memoria("propia"))) {
+            LecturaPropia.forzarPrimaria();
+            try {
+                assertEquals("primaria", destino(enrutador));
+            } finally {
+                LecturaPropia.terminar();
+            }
+            assertEquals("propia", destino(enrutador));
+
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false); // Transacción de escritura
+            assertEquals("primaria", destino(enrutador));
+        }
+    }
+
+    private static EnrutadorReplicas enrutador(EnrutadorReplicas.Balanceo balanceo, String... urls) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (String url : urls) {
+            pools.add(pool(url));
+        }
+        return new EnrutadorReplicas(primaria(), pools, balanceo, Duration.ofHours(1), new SimpleMeterRegistry());
+    }
+
+    private static String memoria(String nombre) {
+        return "jdbc:h2:mem:" + nombre + ";DB_CLOSE_DELAY=-1";
+    }
+
+    private static DataSource primaria() {
+        return new DriverManagerDataSource(memoria("primaria"), "sa", "");
+    }
+
+    private static HikariDataSource pool(String url) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername("sa");
+        config.setConnectionTimeout(250);
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+
+    // Nombre de la base H2 a la que quedó conectada la conexión entregada
+    private static String destino(DataSource dataSource) throws SQLException {
+        try (Connection conexion = dataSource.getConnection()) {
+            String url = conexion.getMetaData().getURL();
+            return url.substring("jdbc:h2:mem:".length(), url.indexOf(';') > 0 ? url.indexOf(';') : url.length());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.perfulandia.usuarios_service.replicas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import com.perfulandia.usuarios_service.cambios.SecuenciadorCambios;
+import com.perfulandia.usuarios_service.dto.CambioDTO;
+import com.perfulandia.usuarios_service.dto.CrearUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.PaginaCambiosDTO;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.service.CambiosService;
+import com.perfulandia.usuarios_service.service.DireccionEnvioService;
+import com.perfulandia.usuarios_service.service.UsuarioService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Dos bases H2 en memoria hacen de primaria (la de application.properties de test) y de réplica.
+// No hay replicación entre ellas: así se ve a cuál fue cada lectura. La segunda réplica nunca responde.
+@SpringBootTest(properties = {
+        "usuarios.replicas.activo=true",
+        "usuarios.replicas.urls=" + EnrutamientoReplicasTest.REPLICA + ",jdbc:h2:tcp://localhost:1/caida",
+        "usuarios.replicas.espera-conexion=2s", // Holgura para abrir la primera conexión del pool de la réplica
+        "usuarios.replicas.verificacion-cada=1h",
+        "usuarios.replicas.lectura-propia=1m"
+})
+@AutoConfigureMockMvc
+class EnrutamientoReplicasTest {
+
+    static final String REPLICA = "jdbc:h2:mem:replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private DireccionEnvioService direccionEnvioService;
+
+    @Autowired
+    private CambiosService cambiosService;
+
+    @Autowired
+    private SecuenciadorCambios secuenciadorCambios;
+
+    @Autowired
+    private JdbcTemplate primaria;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA, "sa", ""));
+
+    @BeforeEach
+    void copiarEsquemaALaReplica() {
+        // Mismo esquema que generó Hibernate en la primaria, sin datos
+        if (replica.queryForObject("SELECT COUNT(*) FROM information_schema.tables WHERE table_name = 'usuarios'", Integer.class) == 0) {
+            primaria.queryForList("SCRIPT NODATA", String.class).forEach(replica::execute);
+        }
+    }
+
+    @Test
+    void lasLecturasDeSoloLecturaVanALaReplicaYLasEscriturasALaPrimaria() {
+        replica.update("INSERT INTO usuarios (rut, nombre, apellido, email, password, version, version_direcciones, "
+                + "nombre_busqueda, apellido_busqueda, email_busqueda) VALUES (50000000, 'Solo', 'Replica', "
+                + "'replica@perfulandia.cl', 'x', 0, 0, 'solo', 'replica', 'replica@perfulandia.cl')");
+        assertTrue(direccionEnvioService.obtenerDireccionesPorUsuarioRut(Rut.parsear("50000000-7")).isPresent());
+
+        usuarioService.crearUsuario(new CrearUsuarioDTO(Rut.parsear("51111111-0"), "Solo", "Primaria", "primaria@perfulandia.cl", "secreto"));
+        assertEquals(1, primaria.queryForObject("SELECT COUNT(*) FROM usuarios WHERE rut = 51111111", Integer.class));
+        assertTrue(direccionEnvioService.obtenerDireccionesPorUsuarioRut(Rut.parsear("51111111-0")).isEmpty()); // Aún no está en la réplica
+
+        assertEquals(1, meterRegistry.get("usuarios.replicas.sanas").gauge().value()); // La réplica caída quedó fuera
+    }
+
+    @Test
+    void trasEscribirElMismoClienteLeeDeLaPrimaria() throws Exception {
+        mockMvc.perform(post("/api/v1/usuarios").with(desde("10.0.0.1"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rut\":\"52.222.222-4\",\"nombre\":\"Lee\",\"apellido\":\"Lo Propio\","
+                                + "\"email\":\"propio@perfulandia.cl\",\"password\":\"secreto\"}"))
+                .andExpect(status().isCreated());
+
+        String direcciones = "/api/v1/usuarios/52222222-4/direcciones";
+        mockMvc.perform(get(direcciones).with(desde("10.0.0.1")))
+                .andExpect(status().isNoContent()); // Primaria: existe y no tiene direcciones
+        mockMvc.perform(get(direcciones).with(desde("10.0.0.2")))
+                .andExpect(status().isNotFound()); // Otro cliente lee de la réplica, que aún no lo tiene
+    }
+
+    @Test
+    void elCacheSeCargaDeLaPrimariaAunqueLaReplicaEsteAtrasada() throws Exception {
+        usuarioService.crearUsuario(new CrearUsuarioDTO(Rut.parsear("53333333-8"), "Nombre", "Anterior", "atrasada@perfulandia.cl", "secreto"));
+        // La réplica se quedó con la fila recién creada (versión 0) y no recibe lo que sigue
+        replica.update("INSERT INTO usuarios (rut, nombre, apellido, email, password, version, version_direcciones, "
+                + "nombre_busqueda, apellido_busqueda, email_busqueda) VALUES (53333333, 'Nombre', 'Anterior', "
+                + "'atrasada@perfulandia.cl', 'x', 0, 0, 'nombre', 'anterior', 'atrasada@perfulandia.cl')");
+        mockMvc.perform(get("/api/v1/usuarios/53333333-8").with(desde("10.0.0.3")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+
+        // Escritura de otro cliente: invalida el cache al confirmar
+        mockMvc.perform(put("/api/v1/usuarios/53333333-8").with(desde("10.0.0.4"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Nombre\",\"apellido\":\"Nuevo\"}"))
+                .andExpect(status().isOk());
+
+        // Un tercer cliente, fuera de toda ventana de lectura propia: el fallo del cache no trae la fila de la réplica
+        mockMvc.perform(get("/api/v1/usuarios/53333333-8").with(desde("10.0.0.5")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.apellido").value("Nuevo"));
+        mockMvc.perform(get("/api/v1/usuarios/53333333-8").with(desde("10.0.0.5")).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk()); // El ETag anterior ya no vale
+    }
+
+    @Test
+    void elLongPollingDespiertaConLoQueTieneLaPrimaria() throws Exception {
+        secuenciadorCambios.numerar();
+        long ultima = primaria.queryForObject("SELECT ultima_secuencia FROM cambios_estado", Long.class);
+        // La réplica llegó hasta la misma secuencia y ahí se quedó
+        replica.update("MERGE INTO cambios_estado (id, ultima_secuencia, purgada_hasta, compactada_hasta) KEY (id) VALUES (1, ?, 0, 0)", ultima);
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(ultima).getBytes(StandardCharsets.UTF_8));
+
+        CompletableFuture<PaginaCambiosDTO> espera = cambiosService.esperarCambios(cursor, 10, Duration.ofSeconds(20));
+        Rut rut = Rut.de(54_000_000);
+        usuarioService.crearUsuario(new CrearUsuarioDTO(rut, "Feed", "Primaria", "feed.primaria@perfulandia.cl", "secreto"));
+        secuenciadorCambios.numerar(); // Avisa a las esperas; la réplica no recibe el cambio
+
+        // Sin más escrituras: leyendo de la réplica, la espera recién terminaría al vencer, y vacía
+        PaginaCambiosDTO pagina = espera.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(rut), pagina.cambios().stream().map(CambioDTO::rut).toList());
+    }
+
+    // Sin cabecera Authorization, el cliente de la ventana de lectura propia es su dirección IP
+    private static RequestPostProcessor desde(String ip) {
+        return peticion -> {
+            peticion.setRemoteAddr(ip);
+            return peticion;
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.perfulandia.usuarios_service.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+class PasswordEncoderAdaptativoTest {
+
+    private final PasswordEncoderAdaptativo encoder = new PasswordEncoderAdaptativo(5);
+
+    @Test
+    void hashConOtroCostoSeVerificaYSeMarcaParaRegenerar() {
+        String antiguo = new BCryptPasswordEncoder(4).encode("secreto");
+
+        assertTrue(encoder.matches("secreto", antiguo));
+        assertTrue(encoder.upgradeEncoding(antiguo));
+
+        String nuevo = encoder.encode("secreto");
+        assertTrue(nuevo.startsWith("$2a$05$")); // Mismo formato crudo que ya hay en la tabla
+        assertFalse(encoder.upgradeEncoding(nuevo));
+    }
+
+    @Test
+    void hashConCostoMayorNoSeRegenera() {
+        // Otro nodo calibró más alto: bajarlo aquí haría que ambos lo regeneren en cada login
+        String deOtroNodo = new BCryptPasswordEncoder(6).encode("secreto");
+
+        assertTrue(encoder.matches("secreto", deOtroNodo));
+        assertFalse(encoder.upgradeEncoding(deOtroNodo));
+    }
+
+    @Test
+    void hashDeOtroAlgoritmoConPrefijoSeVerificaYSeMarcaParaRegenerar() {
+        String pbkdf2 = "{pbkdf2@SpringSecurity_v5_8}"
+                + Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8().encode("secreto");
+
+        assertTrue(encoder.matches("secreto", pbkdf2));
+        assertFalse(encoder.matches("otra", pbkdf2));
+        assertTrue(encoder.upgradeEncoding(pbkdf2));
+    }
+}
@@ -0,0 +1,55 @@
+package com.perfulandia.usuarios_service.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ServicioTokensTest {
+
+    private static final String CLAVE_1 = "k1:" + Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String CLAVE_2 = "k2:" + Base64.getEncoder().encodeToString("una-clave-de-32-bytes-o-mas!!!!!".getBytes());
+    private static final Clock RELOJ = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void tokenEmitidoSeValida() {
+        ServicioTokens tokens = new ServicioTokens(objectMapper, CLAVE_1, "k1", Duration.ofMinutes(15), RELOJ);
+
+        ServicioTokens.DatosToken datos = tokens.validar(tokens.emitir("11111111-1", "ana@perfulandia.cl")).orElseThrow();
+
+        assertEquals("11111111-1", datos.rut());
+        assertEquals("ana@perfulandia.cl", datos.email());
+    }
+
+    @Test
+    void tokenFirmadoConClaveAnteriorSigueValidoTrasRotar() {
+        String token = new ServicioTokens(objectMapper, CLAVE_1, "k1", Duration.ofMinutes(15), RELOJ).emitir("1-9", "a@b.cl");
+        ServicioTokens rotado = new ServicioTokens(objectMapper, CLAVE_1 + "," + CLAVE_2, "k2", Duration.ofMinutes(15), RELOJ);
+        ServicioTokens sinClaveAnterior = new ServicioTokens(objectMapper, CLAVE_2, "k2", Duration.ofMinutes(15), RELOJ);
+
+        assertTrue(rotado.validar(token).isPresent());
+        assertTrue(sinClaveAnterior.validar(token).isEmpty());
+    }
+
+    @Test
+    void rechazaTokensExpiradosOAlterados() {
+        String token = new ServicioTokens(objectMapper, CLAVE_1, "k1", Duration.ofMinutes(15), RELOJ).emitir("1-9", "a@b.cl");
+        Clock despues = Clock.offset(RELOJ, Duration.ofMinutes(16));
+        ServicioTokens expirado = new ServicioTokens(objectMapper, CLAVE_1, "k1", Duration.ofMinutes(15), despues);
+        ServicioTokens vigente = new ServicioTokens(objectMapper, CLAVE_1, "k1", Duration.ofMinutes(15), RELOJ);
+
+        assertTrue(expirado.validar(token).isEmpty());
+        assertTrue(vigente.validar(token.substring(0, token.length() - 2) + "AA").isEmpty());
+        assertTrue(vigente.validar("no.es-un.token").isEmpty());
+    }
+}
@@ -0,0 +1,156 @@
+package com.perfulandia.usuarios_service.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.perfulandia.usuarios_service.dto.CrearDireccionDTO;
+import com.perfulandia.usuarios_service.dto.CrearUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.DireccionResponseDTO;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.service.DireccionEnvioService;
+import com.perfulandia.usuarios_service.service.UsuarioService;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Modo agrupado de las altas de direcciones (usuarios.direcciones.agrupar.*) bajo carga concurrente.
+// Solo el comportamiento; la latencia que agrega el agrupamiento se mide en AltasDireccionesBenchmark.
+// Base H2 propia: este contexto recrea el esquema al arrancar y no debe borrar los datos de los demás.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:altas-agrupadas;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "usuarios.direcciones.agrupar.activo=true",
+        "usuarios.direcciones.agrupar.ventana=" + AltasDireccionesAgrupadasTest.VENTANA_MS + "ms",
+        "usuarios.direcciones.agrupar.lote-maximo=50"
+})
+class AltasDireccionesAgrupadasTest {
+
+    static final int VENTANA_MS = 5;
+    private static final int CLIENTES = 32;
+    private static final int ALTAS_POR_CLIENTE = 25;
+    private static final int USUARIOS = 8;
+    private static final Rut INEXISTENTE = Rut.de(83_999_999);
+
+    @Autowired
+    private DireccionEnvioService direccionEnvioService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void cargaConcurrenteSeAgrupaYCadaLlamadaRecibeSuResultado() throws Exception {
+        List<Rut> ruts = new ArrayList<>();
+        for (int i = 0; i < USUARIOS; i++) {
+            Rut rut = Rut.de(83_000_000 + i);
+            usuarioService.crearUsuario(new CrearUsuarioDTO(rut, "Carga", "Agrupada", "agrupada" + i + "@perfulandia.cl", "secreto"));
+            ruts.add(rut);
+        }
+
+        // Cada cliente hace sus altas seguidas; una de cada diez va a un usuario que no existe
+        ExecutorService clientes = Executors.newFixedThreadPool(CLIENTES);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Resultados>> futuros = new ArrayList<>();
+        for (int c = 0; c < CLIENTES; c++) {
+            int cliente = c;
+            futuros.add(clientes.submit(() -> {
+                largada.await();
+                Resultados resultados = new Resultados();
+                for (int i = 0; i < ALTAS_POR_CLIENTE; i++) {
+                    boolean invalida = (cliente * ALTAS_POR_CLIENTE + i) % 10 == 0;
+                    Rut rut = invalida ? INEXISTENTE : ruts.get((cliente + i) % USUARIOS);
+                    try {
+                        DireccionResponseDTO creada = direccionEnvioService.agregarDireccionAUsuario(rut,
+                                new CrearDireccionDTO("Calle " + cliente + "-" + i, "1", "Ñuñoa", "Santiago"));
+                        resultados.ids.add(creada.id());
+                        assertEquals("Calle " + cliente + "-" + i, creada.calle()); // Su propia dirección, no la de otro
+                    } catch (RuntimeException e) {
+                        assertTrue(invalida, "Falló un alta válida: " + e.getMessage());
+                        assertTrue(e.getMessage().startsWith("Usuario no encontrado"), e.getMessage());
+                        resultados.rechazadas++;
+                    }
+                }
+                return resultados;
+            }));
+        }
+        largada.countDown();
+        Set<Long> ids = new HashSet<>();
+        int rechazadas = 0;
+        for (Future<Resultados> futuro : futuros) {
+            Resultados resultados = futuro.get(2, TimeUnit.MINUTES);
+            ids.addAll(resultados.ids);
+            rechazadas += resultados.rechazadas;
+        }
+        clientes.shutdown();
+
+        int total = CLIENTES * ALTAS_POR_CLIENTE;
+        assertEquals(total / 10, rechazadas);
+        assertEquals(total - rechazadas, ids.size()); // Un ID distinto por alta
+        int guardadas = ruts.stream()
+                .mapToInt(rut -> direccionEnvioService.obtenerDireccionesPorUsuarioRut(rut).orElseThrow().direcciones().size())
+                .sum();
+        assertEquals(ids.size(), guardadas);
+
+        DistributionSummary lotes = meterRegistry.get("usuarios.agrupador.lote").summary();
+        assertTrue(lotes.mean() > 1, "Las altas concurrentes no se agruparon");
+    }
+
+    @Test
+    void unAltaQueFallaEnElLoteNoArrastraALasDemas() throws Exception {
+        Rut rut = Rut.de(83_100_000);
+        usuarioService.crearUsuario(new CrearUsuarioDTO(rut, "Lote", "Aislado", "aislado@perfulandia.cl", "secreto"));
+
+        // La calle nula viola NOT NULL al escribir el lote: la transacción del lote se revierte y
+        // cada alta se reintenta sola, en el hilo de su llamada (no en el del agrupador), así que solo esa falla
+        ExecutorService clientes = Executors.newFixedThreadPool(8);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<RuntimeException>> futuros = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String calle = (i == 3) ? null : "Calle " + i;
+            futuros.add(clientes.submit(() -> {
+                largada.await();
+                try {
+                    direccionEnvioService.agregarDireccionAUsuario(rut, new CrearDireccionDTO(calle, "1", "Ñuñoa", "Santiago"));
+                    return null;
+                } catch (RuntimeException e) {
+                    return e;
+                }
+            }));
+        }
+        largada.countDown();
+        List<RuntimeException> errores = new ArrayList<>();
+        for (Future<RuntimeException> futuro : futuros) {
+            RuntimeException error = futuro.get(30, TimeUnit.SECONDS);
+            if (error != null) {
+                errores.add(error);
+            }
+        }
+        clientes.shutdown();
+
+        assertEquals(1, errores.size());
+        assertTrue(Arrays.stream(errores.get(0).getStackTrace()).noneMatch(llamada -> llamada.getMethodName().equals("ciclo")),
+                "El reintento corrió en el hilo del agrupador");
+        assertEquals(7, direccionEnvioService.obtenerDireccionesPorUsuarioRut(rut).orElseThrow().direcciones().size());
+    }
+
+    private static final class Resultados {
+        private final List<Long> ids = new ArrayList<>();
+        private int rechazadas;
+    }
+}
@@ -0,0 +1,29 @@
+package com.perfulandia.usuarios_service.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.perfulandia.usuarios_service.dto.LoginDTO;
+import com.perfulandia.usuarios_service.security.PasswordEncoderAdaptativo;
+
+@SpringBootTest
+class AutenticacionServiceImplTest {
+
+    @Autowired
+    private AutenticacionServiceImpl autenticacionService;
+
+    @Autowired
+    private PasswordEncoderAdaptativo passwordEncoder;
+
+    @Test
+    void elHashFicticioTieneElCostoDelEncoderActivo() {
+        // Con otro costo, el login de un email inexistente tardaría distinto que el de uno registrado
+        String hash = autenticacionService.getHashFicticio();
+        assertEquals(passwordEncoder.getCosto(), Integer.parseInt(hash.substring(4, 6)));
+        assertTrue(autenticacionService.login(new LoginDTO("no-existe@perfulandia.cl", "secreto")).isEmpty());
+    }
+}
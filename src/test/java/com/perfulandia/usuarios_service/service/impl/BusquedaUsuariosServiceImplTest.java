@@ -0,0 +1,139 @@
+package com.perfulandia.usuarios_service.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.perfulandia.usuarios_service.dto.ActualizarUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.CrearUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.PaginaBusquedaDTO;
+import com.perfulandia.usuarios_service.dto.ParcheUsuarioDTO;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.service.BusquedaUsuariosService;
+import com.perfulandia.usuarios_service.service.ImportacionUsuariosService;
+import com.perfulandia.usuarios_service.service.UsuarioService;
+
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BusquedaUsuariosServiceImplTest {
+
+    private static final Rut XIMENA = Rut.de(81_000_001);
+    private static final Rut XIMENA_PAZ = Rut.de(81_000_002);
+    private static final Rut XAVIER = Rut.de(81_000_003);
+    private static final Rut OSCAR = Rut.de(81_000_004);
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private BusquedaUsuariosService busquedaUsuariosService;
+
+    @Autowired
+    private ImportacionUsuariosService importacionUsuariosService;
+
+    @BeforeAll
+    void crearUsuarios() {
+        usuarioService.crearUsuario(new CrearUsuarioDTO(XIMENA, "Ximena", "Quintanilla Ávila", "ximena.q@perfulandia.cl", "secreto"));
+        usuarioService.crearUsuario(new CrearUsuarioDTO(XIMENA_PAZ, "Ximena Paz", "Quiroga", "xpaz@perfulandia.cl", "secreto"));
+        usuarioService.crearUsuario(new CrearUsuarioDTO(XAVIER, "Xavier", "Quintana", "xq@perfulandia.cl", "secreto"));
+        usuarioService.crearUsuario(new CrearUsuarioDTO(OSCAR, "Óscar", "Xúñiga", "oscar.xuniga@perfulandia.cl", "secreto"));
+    }
+
+    @Test
+    void ordenaPorCoincidenciaSinDistinguirMayusculasNiTildes() {
+        // La palabra completa pesa más que un prefijo; a igual puntaje, por apellido
+        assertEquals(List.of(XIMENA, XIMENA_PAZ), ruts(buscar("XIMENA")));
+        assertEquals(List.of(XAVIER, XIMENA), ruts(buscar("quinta"))); // "Quintana" está más cerca que "Quintanilla"
+        assertEquals(List.of(OSCAR), ruts(buscar("xuñiga")));
+        assertEquals(List.of(OSCAR), ruts(buscar("Oscar")));
+        assertEquals(List.of(XIMENA), ruts(buscar("ávila ximena"))); // Todas las palabras deben coincidir
+        assertEquals(List.of(XIMENA_PAZ), ruts(buscar("ximena quir")));
+        assertEquals(List.of(XIMENA), ruts(buscar("ximena.q@")));
+        assertFalse(buscar("ximena").aproximada());
+    }
+
+    @Test
+    void sinCoincidenciasPorPrefijoBuscaErroresDeTipeo() {
+        PaginaBusquedaDTO pagina = buscar("quintnaa"); // Dos letras invertidas
+        assertTrue(pagina.aproximada());
+        assertEquals(XAVIER, pagina.usuarios().get(0).usuario().rut());
+        assertTrue(buscar("zzzzzzzz").usuarios().isEmpty());
+    }
+
+    @Test
+    void paginaLosResultadosConCursor() {
+        PaginaBusquedaDTO primera = busquedaUsuariosService.buscarUsuarios("qui", null, 2);
+        assertEquals(List.of(XAVIER, XIMENA), ruts(primera));
+        assertNotNull(primera.next());
+        PaginaBusquedaDTO segunda = busquedaUsuariosService.buscarUsuarios("qui", primera.next(), 2);
+        assertEquals(List.of(XIMENA_PAZ), ruts(segunda));
+        assertNull(segunda.next());
+
+        assertThrows(IllegalArgumentException.class, () -> busquedaUsuariosService.buscarUsuarios("q", null, null));
+        assertThrows(IllegalArgumentException.class, () -> busquedaUsuariosService.buscarUsuarios("  ", null, null));
+        assertThrows(IllegalArgumentException.class, () -> busquedaUsuariosService.buscarUsuarios("qui", "no-es-un-cursor", null));
+    }
+
+    @Test
+    void recorreTodasLasCoincidenciasAunqueSuperenElLoteDeCandidatos() {
+        // 250 "Zapata" (más que usuarios.busqueda.candidatos = 100); las tres "Yolanda" quedan al final del rango
+        StringBuilder csv = new StringBuilder("rut,nombre,apellido,email,password\n");
+        for (int i = 0; i < 250; i++) {
+            String nombre = (i >= 247) ? "Yolanda" : "Nombre";
+            csv.append(Rut.de(81_100_000 + i)).append(',').append(nombre).append(",Zapata ").append(String.format("%03d", i))
+                    .append(",zapata").append(i).append("@perfulandia.cl,secreto\n");
+        }
+        importacionUsuariosService.importarDesdeCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+        PaginaBusquedaDTO yolandas = buscar("zapata yol");
+        assertFalse(yolandas.aproximada()); // Hay coincidencias exactas: no pasa al modo de errores de tipeo
+        assertEquals(List.of(Rut.de(81_100_247), Rut.de(81_100_248), Rut.de(81_100_249)), ruts(yolandas));
+        assertNull(yolandas.next());
+
+        // Por páginas: todas, en orden y sin repetidas
+        List<Rut> recorridos = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaginaBusquedaDTO pagina = busquedaUsuariosService.buscarUsuarios("zapata", cursor, 40);
+            recorridos.addAll(ruts(pagina));
+            cursor = pagina.next();
+        } while (cursor != null);
+        assertEquals(IntStream.range(0, 250).mapToObj(i -> Rut.de(81_100_000 + i)).toList(), recorridos);
+    }
+
+    @Test
+    void lasActualizacionesMantienenLasColumnasDeBusqueda() {
+        Rut rut = Rut.de(81_000_005);
+        usuarioService.crearUsuario(new CrearUsuarioDTO(rut, "Wenceslao", "Yáñez", "wy@perfulandia.cl", "secreto"));
+        usuarioService.actualizarUsuario(rut, new ActualizarUsuarioDTO("Wilfredo", "Yáñez", null));
+        assertEquals(List.of(rut), ruts(buscar("wilfredo")));
+        assertTrue(ruts(buscar("wences")).isEmpty());
+
+        usuarioService.actualizarParcialmente(rut,
+                new ParcheUsuarioDTO(null, "Yévenes", null));
+        assertEquals(List.of(rut), ruts(buscar("wilfredo yeve")));
+    }
+
+    private PaginaBusquedaDTO buscar(String consulta) {
+        return busquedaUsuariosService.buscarUsuarios(consulta, null, null);
+    }
+
+    private static List<Rut> ruts(PaginaBusquedaDTO pagina) {
+        return pagina.usuarios().stream().map(encontrado -> encontrado.usuario().rut()).toList();
+    }
+}
@@ -0,0 +1,362 @@
+package com.perfulandia.usuarios_service.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.perfulandia.usuarios_service.cambios.RegistroCambios;
+import com.perfulandia.usuarios_service.cambios.SecuenciadorCambios;
+import com.perfulandia.usuarios_service.dto.ActualizarDireccionDTO;
+import com.perfulandia.usuarios_service.dto.ActualizarUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.CambioDTO;
+import com.perfulandia.usuarios_service.dto.CrearDireccionDTO;
+import com.perfulandia.usuarios_service.dto.CrearUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.PaginaCambiosDTO;
+import com.perfulandia.usuarios_service.dto.ParcheUsuarioDTO;
+import com.perfulandia.usuarios_service.exception.ConflictoVersionException;
+import com.perfulandia.usuarios_service.exception.CursorVencidoException;
+import com.perfulandia.usuarios_service.exception.RecursoNoEncontradoException;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.model.TipoCambio;
+import com.perfulandia.usuarios_service.service.CambiosService;
+import com.perfulandia.usuarios_service.service.DireccionEnvioService;
+import com.perfulandia.usuarios_service.service.UsuarioService;
+
+// En las pruebas el secuenciador no corre solo (usuarios.cambios.secuenciador.activo=false): cada prueba numera
+// cuando lo necesita y parte del cursor actual, así solo ve sus propios cambios.
+@SpringBootTest
+class CambiosServiceImplTest {
+
+    @Autowired
+    private CambiosService cambiosService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private DireccionEnvioService direccionEnvioService;
+
+    @Autowired
+    private SecuenciadorCambios secuenciadorCambios;
+
+    @Autowired
+    private RegistroCambios registroCambios;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void registraCadaEscrituraEnOrden() {
+        String cursor = cursorActual();
+        Rut rut = Rut.de(82_000_001);
+        usuarioService.crearUsuario(new CrearUsuarioDTO(rut, "Elena", "Fuentes", "elena.f@perfulandia.cl", "secreto"));
+        usuarioService.actualizarUsuario(rut, new ActualizarUsuarioDTO("Elena", "Fuentes Vera", null));
+        usuarioService.actualizarParcialmente(rut, new ParcheUsuarioDTO(null, "Vera", null));
+        Long id = direccionEnvioService.agregarDireccionAUsuario(rut, new CrearDireccionDTO("Calle 1", "10", "Ñuñoa", "Santiago")).id();
+        direccionEnvioService.actualizarDireccion(rut, id, new ActualizarDireccionDTO("Calle 2", "20", "Ñuñoa", "Santiago"), null);
+        direccionEnvioService.eliminarDireccion(rut, id, null);
+        usuarioService.eliminarUsuario(rut, null);
+
+        assertTrue(cambiosService.obtenerCambios(cursor, 100).cambios().isEmpty()); // Confirmados, aún sin numerar
+        secuenciadorCambios.numerar();
+
+        List<CambioDTO> cambios = cambiosDe(rut, todosDesde(cursor));
+        assertEquals(List.of(TipoCambio.USUARIO_CREADO, TipoCambio.USUARIO_ACTUALIZADO, TipoCambio.USUARIO_ACTUALIZADO,
+                TipoCambio.DIRECCION_CREADA, TipoCambio.DIRECCION_ACTUALIZADA, TipoCambio.DIRECCION_ELIMINADA,
+                TipoCambio.USUARIO_ELIMINADO), tipos(cambios));
+        assertNull(cambios.get(0).direccionId());
+        assertEquals(id, cambios.get(3).direccionId());
+        assertEquals(id, cambios.get(5).direccionId());
+    }
+
+    @Test
+    void unaEscrituraRevertidaNoDejaRegistro() {
+        Rut rut = Rut.de(82_000_002);
+        usuarioService.crearUsuario(new CrearUsuarioDTO(rut, "Tomás", "Lagos", "tomas.l@perfulandia.cl", "secreto"));
+        String cursor = cursorActual();
+
+        assertThrows(ConflictoVersionException.class,
+                () -> usuarioService.actualizarUsuario(rut, new ActualizarUsuarioDTO("Tomás", "Lagos", 99L)));
+        assertThrows(RecursoNoEncontradoException.class, () -> direccionEnvioService.eliminarDireccion(rut, 123_456L, null));
+        secuenciadorCambios.numerar();
+
+        assertTrue(cambiosDe(rut, todosDesde(cursor)).isEmpty());
+    }
+
+    // El caso que un AUTO_INCREMENT como cursor no resuelve: la transacción que insertó primero confirma después
+    @Test
+    void unaTransaccionLentaNoQuedaAtrasDelCursor() throws Exception {
+        Rut lento = Rut.de(82_000_003);
+        Rut rapido = Rut.de(82_000_004);
+        usuarioService.crearUsuario(new CrearUsuarioDTO(lento, "Rosa", "Parra", "rosa.p@perfulandia.cl", "secreto"));
+        usuarioService.crearUsuario(new CrearUsuarioDTO(rapido, "Luis", "Vidal", "luis.v@perfulandia.cl", "secreto"));
+        String cursor = cursorActual();
+
+        CountDownLatch registrado = new CountDownLatch(1);
+        CountDownLatch confirmar = new CountDownLatch(1);
+        ExecutorService hilo = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> transaccionLenta = hilo.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                registroCambios.registrar(TipoCambio.USUARIO_ACTUALIZADO, lento, null); // Inserta primero...
+                registrado.countDown();
+                esperar(confirmar);                                                       // ...y confirma al final
+            }));
+            assertTrue(registrado.await(10, TimeUnit.SECONDS));
+            usuarioService.actualizarUsuario(rapido, new ActualizarUsuarioDTO("Luis", "Vidal Rojas", null));
+            secuenciadorCambios.numerar();
+
+            PaginaCambiosDTO primera = cambiosService.obtenerCambios(cursor, 100);
+            assertEquals(List.of(rapido), ruts(primera.cambios()));
+
+            confirmar.countDown();
+            transaccionLenta.get(10, TimeUnit.SECONDS);
+            secuenciadorCambios.numerar();
+
+            assertEquals(List.of(lento), ruts(cambiosService.obtenerCambios(primera.cursor(), 100).cambios()));
+        } finally {
+            hilo.shutdownNow();
+        }
+    }
+
+    @Test
+    void laEsperaTerminaAlLlegarUnCambioOAlVencer() throws Exception {
+        String cursor = cursorActual();
+        Rut rut = Rut.de(82_000_005);
+
+        CompletableFuture<PaginaCambiosDTO> espera = cambiosService.esperarCambios(cursor, 10, Duration.ofSeconds(10));
+        assertFalse(espera.isDone());
+        usuarioService.crearUsuario(new CrearUsuarioDTO(rut, "Pía", "Lagos", "pia.l@perfulandia.cl", "secreto"));
+        secuenciadorCambios.numerar(); // Avisa a las esperas
+
+        PaginaCambiosDTO pagina = espera.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(rut), ruts(pagina.cambios()));
+
+        PaginaCambiosDTO vacia = cambiosService.esperarCambios(pagina.cursor(), 10, Duration.ofMillis(100)).get(5, TimeUnit.SECONDS);
+        assertTrue(vacia.cambios().isEmpty());
+        assertEquals(pagina.cursor(), vacia.cursor());
+    }
+
+    @Test
+    void rechazaCursoresYLimitesInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> cambiosService.obtenerCambios("no es un cursor", 10));
+        assertThrows(IllegalArgumentException.class, () -> cambiosService.obtenerCambios(null, 0));
+        assertThrows(CursorVencidoException.class, () -> cambiosService.obtenerCambios("MS4y", 10)); // "1.2": dos shards
+        assertThrows(IllegalArgumentException.class,
+                () -> cambiosService.esperarCambios(null, 10, Duration.ofSeconds(-1)));
+    }
+
+    // Varios escritores confirmando en cualquier orden mientras un consumidor sigue el feed con long polling
+    // en páginas chicas: cada usuario debe recibir exactamente sus cambios confirmados, en el orden en que se hicieron.
+    @Test
+    void ningunCambioConfirmadoSeSaltaNiSeReordena() throws Exception {
+        int escritores = 4;
+        int usuariosPorEscritor = 3;
+        int operaciones = 25;
+        List<List<Rut>> rutsPorEscritor = new ArrayList<>();
+        for (int e = 0; e < escritores; e++) {
+            List<Rut> propios = new ArrayList<>();
+            for (int u = 0; u < usuariosPorEscritor; u++) {
+                Rut rut = Rut.de(82_100_000 + e * 10 + u);
+                usuarioService.crearUsuario(new CrearUsuarioDTO(rut, "Escritor" + e, "Usuario" + u,
+                        "escritor" + e + ".usuario" + u + "@perfulandia.cl", "secreto"));
+                propios.add(rut);
+            }
+            rutsPorEscritor.add(propios);
+        }
+        String cursor = cursorActual();
+
+        Map<Rut, List<TipoCambio>> esperados = new ConcurrentHashMap<>();
+        AtomicInteger totalEsperado = new AtomicInteger(-1);
+        AtomicBoolean escribiendo = new AtomicBoolean(true);
+        ExecutorService hilos = Executors.newFixedThreadPool(escritores + 2);
+        try {
+            // Hace de secuenciador: numera seguido mientras se escribe
+            Future<?> secuenciador = hilos.submit(() -> {
+                while (escribiendo.get()) {
+                    secuenciadorCambios.numerar();
+                    Thread.sleep(2);
+                }
+                return null;
+            });
+            Map<Rut, List<TipoCambio>> recibidos = new HashMap<>();
+            Future<?> consumidor = hilos.submit(() -> {
+                String posicion = cursor;
+                int cantidad = 0;
+                while (totalEsperado.get() < 0 || cantidad < totalEsperado.get()) {
+                    PaginaCambiosDTO pagina = cambiosService.esperarCambios(posicion, 7, Duration.ofMillis(200)).get(5, TimeUnit.SECONDS);
+                    for (CambioDTO cambio : pagina.cambios()) {
+                        recibidos.computeIfAbsent(cambio.rut(), r -> new ArrayList<>()).add(cambio.tipo());
+                        cantidad++;
+                    }
+                    posicion = pagina.cursor();
+                }
+                return null;
+            });
+
+            List<Future<Integer>> escrituras = new ArrayList<>();
+            for (int e = 0; e < escritores; e++) {
+                List<Rut> propios = rutsPorEscritor.get(e);
+                Random azar = new Random(e);
+                escrituras.add(hilos.submit(() -> escribir(propios, operaciones, azar, esperados)));
+            }
+            int total = 0;
+            for (Future<Integer> escritura : escrituras) {
+                total += escritura.get(60, TimeUnit.SECONDS);
+            }
+            escribiendo.set(false);
+            secuenciador.get(10, TimeUnit.SECONDS);
+            totalEsperado.set(total);
+            secuenciadorCambios.numerar(); // Lo confirmado al final
+
+            consumidor.get(60, TimeUnit.SECONDS);
+            assertEquals(esperados, recibidos);
+        } finally {
+            escribiendo.set(false);
+            hilos.shutdownNow();
+        }
+    }
+
+    // Operaciones al azar sobre usuarios propios (nadie más los toca), anotando lo que se confirmó
+    private int escribir(List<Rut> propios, int operaciones, Random azar, Map<Rut, List<TipoCambio>> esperados) {
+        Map<Rut, List<Long>> direcciones = new HashMap<>();
+        int confirmados = 0;
+        for (int i = 0; i < operaciones; i++) {
+            Rut rut = propios.get(azar.nextInt(propios.size()));
+            List<Long> ids = direcciones.computeIfAbsent(rut, r -> new ArrayList<>());
+            TipoCambio tipo;
+            switch (azar.nextInt(6)) {
+                case 0 -> {
+                    usuarioService.actualizarUsuario(rut, new ActualizarUsuarioDTO("Nombre " + i, "Apellido " + i, null));
+                    tipo = TipoCambio.USUARIO_ACTUALIZADO;
+                }
+                case 1 -> {
+                    usuarioService.actualizarParcialmente(rut, new ParcheUsuarioDTO(null, "Parche " + i, null));
+                    tipo = TipoCambio.USUARIO_ACTUALIZADO;
+                }
+                case 2 -> {
+                    // Versión que no coincide: se revierte y no debe aparecer en el feed
+                    assertThrows(ConflictoVersionException.class,
+                            () -> usuarioService.actualizarUsuario(rut, new ActualizarUsuarioDTO("x", "y", 9_999L)));
+                    continue;
+                }
+                case 3 -> {
+                    ids.add(direccionEnvioService.agregarDireccionAUsuario(rut,
+                            new CrearDireccionDTO("Calle " + i, "1", "Maipú", "Santiago")).id());
+                    tipo = TipoCambio.DIRECCION_CREADA;
+                }
+                case 4 -> {
+                    if (ids.isEmpty()) {
+                        continue;
+                    }
+                    direccionEnvioService.actualizarDireccion(rut, ids.get(0),
+                            new ActualizarDireccionDTO("Otra " + i, "2", "Maipú", "Santiago"), null);
+                    tipo = TipoCambio.DIRECCION_ACTUALIZADA;
+                }
+                default -> {
+                    if (ids.isEmpty()) {
+                        continue;
+                    }
+                    direccionEnvioService.eliminarDireccion(rut, ids.remove(ids.size() - 1), null);
+                    tipo = TipoCambio.DIRECCION_ELIMINADA;
+                }
+            }
+            esperados.computeIfAbsent(rut, r -> new ArrayList<>()).add(tipo);
+            confirmados++;
+        }
+        Rut ultimo = propios.get(propios.size() - 1);
+        usuarioService.eliminarUsuario(ultimo, null);
+        esperados.computeIfAbsent(ultimo, r -> new ArrayList<>()).add(TipoCambio.USUARIO_ELIMINADO);
+        return confirmados + 1;
+    }
+
+    @Test
+    void compactaYVenceLosRegistrosAntiguos() {
+        Rut rut = Rut.de(82_000_006);
+        String cursor = cursorActual();
+        usuarioService.crearUsuario(new CrearUsuarioDTO(rut, "Víctor", "Jara", "victor.j@perfulandia.cl", "secreto"));
+        usuarioService.actualizarUsuario(rut, new ActualizarUsuarioDTO("Víctor", "Jara Martínez", null));
+        usuarioService.actualizarParcialmente(rut, new ParcheUsuarioDTO("Víctor Lidio", null, null));
+        secuenciadorCambios.numerar();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        // Pasada la edad de compactación, del usuario queda solo su último registro
+        jdbc.update("UPDATE cambios_usuarios SET creado = ?", Timestamp.from(Instant.now().minus(Duration.ofHours(2))));
+        secuenciadorCambios.purgar();
+        assertEquals(List.of(TipoCambio.USUARIO_ACTUALIZADO), tipos(cambiosDe(rut, todosDesde(cursor))));
+
+        // Pasada la retención se borra, y un cursor anterior ya no sirve
+        jdbc.update("UPDATE cambios_usuarios SET creado = ? WHERE usuario_rut = ?",
+                Timestamp.from(Instant.now().minus(Duration.ofDays(8))), rut.numero());
+        secuenciadorCambios.purgar();
+        assertThrows(CursorVencidoException.class, () -> cambiosService.obtenerCambios(cursor, 100));
+        assertTrue(cambiosDe(rut, todosDesde(null)).isEmpty());
+    }
+
+    private String cursorActual() {
+        secuenciadorCambios.numerar(); // Lo pendiente de otras pruebas queda antes del cursor
+        return cambiosService.obtenerCursorActual().cursor();
+    }
+
+    private List<CambioDTO> todosDesde(String cursor) {
+        List<CambioDTO> todos = new ArrayList<>();
+        PaginaCambiosDTO pagina;
+        do {
+            pagina = cambiosService.obtenerCambios(cursor, 100);
+            todos.addAll(pagina.cambios());
+            cursor = pagina.cursor();
+        } while (!pagina.cambios().isEmpty());
+        return todos;
+    }
+
+    private static List<CambioDTO> cambiosDe(Rut rut, List<CambioDTO> cambios) {
+        return cambios.stream().filter(cambio -> cambio.rut().equals(rut)).toList();
+    }
+
+    private static List<TipoCambio> tipos(List<CambioDTO> cambios) {
+        return cambios.stream().map(CambioDTO::tipo).toList();
+    }
+
+    private static List<Rut> ruts(List<CambioDTO> cambios) {
+        return cambios.stream().map(CambioDTO::rut).toList();
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.perfulandia.usuarios_service.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Optional;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.perfulandia.usuarios_service.dto.CrearDireccionDTO;
+import com.perfulandia.usuarios_service.dto.CrearUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.DireccionesUsuarioDTO;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.service.DireccionEnvioService;
+import com.perfulandia.usuarios_service.service.UsuarioService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+class DireccionEnvioServiceImplTest {
+
+    @Autowired
+    private DireccionEnvioService direccionEnvioService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void prepararEstadisticas() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void obtenerDireccionesUsaUnaSolaSentencia() {
+        usuarioService.crearUsuario(new CrearUsuarioDTO(Rut.parsear("74000001-2"), "Ana", "Rojas", "ana@perfulandia.cl", "secreto"));
+        direccionEnvioService.agregarDireccionAUsuario(Rut.parsear("74000001-2"), new CrearDireccionDTO("Calle 1", "10", "Santiago", "Santiago"));
+        direccionEnvioService.agregarDireccionAUsuario(Rut.parsear("74000001-2"), new CrearDireccionDTO("Calle 2", "20", "Ñuñoa", "Santiago"));
+
+        estadisticas.clear();
+        Optional<DireccionesUsuarioDTO> direcciones = direccionEnvioService.obtenerDireccionesPorUsuarioRut(Rut.parsear("74000001-2"));
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(0, estadisticas.getEntityLoadCount()); // Proyección a DTO: no se hidratan entidades
+        assertEquals(2, direcciones.orElseThrow().direcciones().size());
+        assertEquals("Calle 1", direcciones.get().direcciones().get(0).calle());
+        assertEquals(2, direcciones.get().version()); // Una por dirección agregada
+    }
+
+    @Test
+    void distingueUsuarioSinDireccionesDeUsuarioInexistente() {
+        usuarioService.crearUsuario(new CrearUsuarioDTO(Rut.parsear("74000002-0"), "Luis", "Soto", "luis@perfulandia.cl", "secreto"));
+
+        estadisticas.clear();
+        Optional<DireccionesUsuarioDTO> sinDirecciones = direccionEnvioService.obtenerDireccionesPorUsuarioRut(Rut.parsear("74000002-0"));
+        Optional<DireccionesUsuarioDTO> inexistente = direccionEnvioService.obtenerDireccionesPorUsuarioRut(Rut.parsear("74999999-3"));
+
+        assertEquals(2, estadisticas.getPrepareStatementCount()); // Una sentencia por llamada
+        assertTrue(sinDirecciones.orElseThrow().direcciones().isEmpty());
+        assertTrue(inexistente.isEmpty());
+    }
+}
@@ -0,0 +1,153 @@
+package com.perfulandia.usuarios_service.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.perfulandia.usuarios_service.cache.UsuarioCache;
+import com.perfulandia.usuarios_service.cambios.RegistroCambios;
+import com.perfulandia.usuarios_service.dto.ResultadoFilaImportacionDTO;
+import com.perfulandia.usuarios_service.dto.ResultadoImportacionDTO;
+import com.perfulandia.usuarios_service.exception.ServicioSaturadoException;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.repository.UsuarioRepository;
+import com.perfulandia.usuarios_service.security.EjecutorHash;
+import com.perfulandia.usuarios_service.shards.EjecutorShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+// Importaciones que se detienen a medias: con lotes ya confirmados, el reporte de lo procesado no se pierde.
+// El servicio se arma a mano (lotes de 2 filas, máximo de 5) sobre los beans del contexto compartido.
+@SpringBootTest
+class ImportacionUsuariosServiceImplTest {
+
+    private static final int TAMANO_LOTE = 2;
+    private static final int MAXIMO_FILAS = 5;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private EjecutorHash ejecutorHash;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private UsuarioCache usuarioCache;
+    @Autowired
+    private EjecutorShards ejecutorShards;
+    @Autowired
+    private RegistroCambios registroCambios;
+
+    @Test
+    void pasarseDelMaximoDeFilasTruncaElReporteSinPerderLoConfirmado() {
+        ResultadoImportacionDTO resultado = servicio(ejecutorHash).importarDesdeCsv(csv(88_000_000, 8));
+
+        assertTrue(resultado.truncado());
+        assertTrue(resultado.motivo().contains("máximo de " + MAXIMO_FILAS), resultado.motivo());
+        assertEquals(MAXIMO_FILAS, resultado.total());
+        assertEquals(MAXIMO_FILAS, resultado.exitosos());
+        assertTrue(usuarioRepository.existsById(88_000_000 + MAXIMO_FILAS - 1));
+        assertFalse(usuarioRepository.existsById(88_000_000 + MAXIMO_FILAS)); // La fila 6 no se leyó
+    }
+
+    @Test
+    void unServicioSaturadoDespuesDelPrimerLoteDevuelveElReporteParcial() {
+        ResultadoImportacionDTO resultado = servicio(new EjecutorHashQueFalla(2)).importarDesdeCsv(csv(88_000_100, 5));
+
+        assertTrue(resultado.truncado());
+        assertTrue(resultado.motivo().startsWith("La importación se detuvo en la fila 3"), resultado.motivo());
+        assertEquals(List.of(1, 2, 3, 4), resultado.filas().stream().map(ResultadoFilaImportacionDTO::fila).toList());
+        assertEquals(2, resultado.exitosos());
+        assertTrue(resultado.filas().get(2).error().startsWith("No se procesó"), resultado.filas().get(2).error());
+        assertTrue(usuarioRepository.existsById(88_000_101));
+        assertFalse(usuarioRepository.existsById(88_000_102));
+    }
+
+    @Test
+    void unServicioSaturadoSinNadaConfirmadoSigueSiendoUnError() {
+        assertThrows(ServicioSaturadoException.class, () -> servicio(new EjecutorHashQueFalla(1)).importarDesdeCsv(csv(88_000_200, 3)));
+        assertFalse(usuarioRepository.existsById(88_000_200));
+    }
+
+    @Test
+    void unCuerpoCortadoConfirmaLoLeidoYLoInforma() {
+        // Tres filas completas y luego la conexión se corta
+        InputStream cortado = new SequenceInputStream(csv(88_000_300, 3), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+        ResultadoImportacionDTO resultado = servicio(ejecutorHash).importarDesdeCsv(cortado);
+
+        assertTrue(resultado.truncado());
+        assertTrue(resultado.motivo().contains("Connection reset"), resultado.motivo());
+        assertEquals(3, resultado.exitosos());
+        assertTrue(usuarioRepository.existsById(88_000_302));
+    }
+
+    @Test
+    void unaImportacionCompletaNoEstaTruncada() {
+        ResultadoImportacionDTO resultado = servicio(ejecutorHash).importarDesdeCsv(csv(88_000_400, 3));
+        assertFalse(resultado.truncado());
+        assertNull(resultado.motivo());
+        assertEquals(3, resultado.exitosos());
+    }
+
+    private ImportacionUsuariosServiceImpl servicio(EjecutorHash hash) {
+        return new ImportacionUsuariosServiceImpl(usuarioRepository, hash, entityManager, objectMapper, transactionManager,
+                usuarioCache, ejecutorShards, registroCambios, TAMANO_LOTE, MAXIMO_FILAS);
+    }
+
+    private static InputStream csv(int desde, int filas) {
+        StringBuilder csv = new StringBuilder("rut,nombre,apellido,email,password\n");
+        for (int i = 0; i < filas; i++) {
+            csv.append(Rut.de(desde + i)).append(",Nombre,Apellido,importacion").append(desde + i)
+                    .append("@perfulandia.cl,secreto\n");
+        }
+        return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Rechaza por saturación a partir de su lote número 'falla' (desde 1), como el ejecutor real con la cola llena
+    private final class EjecutorHashQueFalla extends EjecutorHash {
+        private final AtomicInteger lotes = new AtomicInteger();
+        private final int falla;
+
+        EjecutorHashQueFalla(int falla) {
+            super(passwordEncoder, new SimpleMeterRegistry(), 1, 16, Duration.ofSeconds(5), Duration.ofSeconds(1));
+            this.falla = falla;
+        }
+
+        @Override
+        public List<String> hashearLote(List<String> contrasenas) {
+            if (lotes.incrementAndGet() >= falla) {
+                throw new ServicioSaturadoException("Demasiadas operaciones de contraseña en espera.", Duration.ofSeconds(1));
+            }
+            return super.hashearLote(contrasenas);
+        }
+    }
+}
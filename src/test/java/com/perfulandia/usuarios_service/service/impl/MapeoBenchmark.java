@@ -0,0 +1,54 @@
+package com.perfulandia.usuarios_service.service.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.perfulandia.usuarios_service.dto.DireccionResponseDTO;
+import com.perfulandia.usuarios_service.dto.UsuarioResponseDTO;
+import com.perfulandia.usuarios_service.model.DireccionEnvio;
+import com.perfulandia.usuarios_service.model.Usuario;
+
+// Costo de los mapeos entidad -> DTO de los servicios (está en este paquete porque son package-private).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapeoBenchmark {
+
+    private Usuario usuario;
+    private DireccionEnvio direccion;
+
+    @Setup
+    public void preparar() {
+        usuario = Usuario.builder()
+                .rut(12345678).nombre("Ana").apellido("Pérez")
+                .email("ana@perfulandia.cl").passwordHash("$2a$10$hash")
+                .build();
+        direccion = DireccionEnvio.builder()
+                .id(1L).calle("Av. Siempre Viva").numero("742").comuna("Providencia").ciudad("Santiago")
+                .usuario(usuario)
+                .build();
+    }
+
+    @Benchmark
+    public UsuarioResponseDTO convertToUsuarioResponseDTO() {
+        return UsuarioServiceImpl.convertToUsuarioResponseDTO(usuario);
+    }
+
+    @Benchmark
+    public DireccionResponseDTO mapToDireccionResponseDTO() {
+        return DireccionEnvioServiceImpl.mapToDireccionResponseDTO(direccion);
+    }
+}
@@ -0,0 +1,111 @@
+package com.perfulandia.usuarios_service.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.perfulandia.usuarios_service.dto.ActualizarUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.CrearUsuarioDTO;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.service.UsuarioService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+class UsuarioServiceImplTest {
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void noHayLecturasObsoletasDespuesDeUnaActualizacionConfirmada() throws Exception {
+        usuarioService.crearUsuario(new CrearUsuarioDTO(Rut.parsear("71000001-8"), "v0", "Díaz", "cache@perfulandia.cl", "secreto"));
+
+        // Lectores concurrentes mantienen el cache caliente y provocan cargas que compiten con las escrituras
+        AtomicBoolean detener = new AtomicBoolean();
+        ExecutorService lectores = Executors.newFixedThreadPool(4);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tareas.add(lectores.submit(() -> {
+                while (!detener.get()) {
+                    usuarioService.obtenerUsuarioPorRut(Rut.parsear("71000001-8"));
+                }
+            }));
+        }
+        try {
+            for (int version = 1; version <= 50; version++) {
+                usuarioService.actualizarUsuario(Rut.parsear("71000001-8"), new ActualizarUsuarioDTO("v" + version, "Díaz", null));
+                // Apenas retorna la actualización (ya confirmada), ninguna lectura puede devolver el valor anterior
+                assertEquals("v" + version, usuarioService.obtenerUsuarioPorRut(Rut.parsear("71000001-8")).orElseThrow().nombre());
+            }
+        } finally {
+            detener.set(true);
+            lectores.shutdown();
+            assertTrue(lectores.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get(); // Propaga cualquier error de los lectores
+        }
+    }
+
+    @Test
+    void fallosConcurrentesDelMismoRutHacenUnaSolaConsulta() throws Exception {
+        usuarioService.crearUsuario(new CrearUsuarioDTO(Rut.parsear("71000002-6"), "Eva", "Mora", "flight@perfulandia.cl", "secreto"));
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        int hilos = 16;
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        estadisticas.clear();
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            tareas.add(ejecutor.submit(() -> {
+                largada.await();
+                return usuarioService.obtenerUsuarioPorRut(Rut.parsear("71000002-6")).orElseThrow();
+            }));
+        }
+        largada.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(10, TimeUnit.SECONDS);
+        }
+        ejecutor.shutdown();
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void crearUsuarioInvalidaElNoEncontradoCacheado() {
+        assertTrue(usuarioService.obtenerUsuarioPorRut(Rut.parsear("71000003-4")).isEmpty()); // Queda cacheado como "no encontrado"
+
+        usuarioService.crearUsuario(new CrearUsuarioDTO(Rut.parsear("71000003-4"), "Iván", "Paz", "negativo@perfulandia.cl", "secreto"));
+
+        assertTrue(usuarioService.obtenerUsuarioPorRut(Rut.parsear("71000003-4")).isPresent());
+    }
+
+    @Test
+    void crearUsuarioConEmailDuplicadoFallaSinSobrescribir() {
+        usuarioService.crearUsuario(new CrearUsuarioDTO(Rut.parsear("71000004-2"), "Rosa", "Vera", "duplicado@perfulandia.cl", "secreto"));
+
+        assertThrows(RuntimeException.class, () -> usuarioService.crearUsuario(
+                new CrearUsuarioDTO(Rut.parsear("71000005-0"), "Otro", "Vera", "duplicado@perfulandia.cl", "secreto")));
+        assertTrue(usuarioService.obtenerUsuarioPorRut(Rut.parsear("71000005-0")).isEmpty());
+    }
+}
@@ -0,0 +1,50 @@
+package com.perfulandia.usuarios_service.shards;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class MapaShardsTest {
+
+    private static String rut(int numero) {
+        return (10_000_000 + numero) + "-" + (numero % 10);
+    }
+
+    @Test
+    void reparteParejoYEsEstable() {
+        MapaShards mapa = new MapaShards(4, 160);
+        int[] porShard = new int[4];
+        for (int i = 0; i < 100_000; i++) {
+            porShard[mapa.shardDe(rut(i))]++;
+        }
+        for (int cantidad : porShard) {
+            assertTrue(cantidad > 20_000 && cantidad < 30_000, "Reparto desigual: " + Arrays.toString(porShard));
+        }
+        assertEquals(mapa.shardDe("12345678-9"), new MapaShards(4, 160).shardDe("12345678-9"));
+    }
+
+    @Test
+    void alAgregarUnShardSoloSeMuevenRutsHaciaElNuevo() {
+        MapaShards antes = new MapaShards(3, 160);
+        MapaShards despues = new MapaShards(4, 160);
+        int movidos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            int origen = antes.shardDe(rut(i));
+            int destino = despues.shardDe(rut(i));
+            if (origen != destino) {
+                assertEquals(3, destino); // Ningún RUT cambia entre los shards que ya existían
+                movidos++;
+            }
+        }
+        assertTrue(movidos > 20_000 && movidos < 30_000, "Se movieron " + movidos); // ~1/4 del total
+    }
+
+    @Test
+    void conUnSoloShardTodoVaAlCero() {
+        MapaShards mapa = new MapaShards(1, 160);
+        assertEquals(0, mapa.shardDe("11111111-1"));
+    }
+}
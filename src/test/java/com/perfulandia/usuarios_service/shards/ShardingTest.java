@@ -0,0 +1,248 @@
+package com.perfulandia.usuarios_service.shards;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.perfulandia.usuarios_service.dto.ActualizarUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.CrearDireccionDTO;
+import com.perfulandia.usuarios_service.dto.CrearUsuarioDTO;
+import com.perfulandia.usuarios_service.dto.LoginDTO;
+import com.perfulandia.usuarios_service.dto.PaginaUsuariosDTO;
+import com.perfulandia.usuarios_service.dto.UsuarioLoteDTO;
+import com.perfulandia.usuarios_service.dto.UsuarioResponseDTO;
+import com.perfulandia.usuarios_service.model.Rut;
+import com.perfulandia.usuarios_service.service.AutenticacionService;
+import com.perfulandia.usuarios_service.service.DireccionEnvioService;
+import com.perfulandia.usuarios_service.service.UsuarioService;
+
+// Tres bases H2 en memoria hacen de shards. Se consultan directo por JDBC para ver dónde quedó cada fila.
+@SpringBootTest(properties = {
+        "usuarios.shards.activo=true",
+        "usuarios.shards.urls=" + ShardingTest.SHARD + "0" + ShardingTest.OPCIONES + "," + ShardingTest.SHARD + "1" + ShardingTest.OPCIONES
+                + "," + ShardingTest.SHARD + "2" + ShardingTest.OPCIONES,
+        "spring.jpa.properties.perfulandia.direcciones.id-estrategia=tsid",
+        "usuarios.exportacion.flush-cada=4" // Bloques pequeños: la exportación rellena cada shard varias veces
+})
+class ShardingTest {
+
+    static final String SHARD = "jdbc:h2:mem:shard";
+    static final String OPCIONES = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private DireccionEnvioService direccionEnvioService;
+
+    @Autowired
+    private AutenticacionService autenticacionService;
+
+    @Autowired
+    private RebalanceadorShards rebalanceadorShards;
+
+    @Autowired
+    private MapaShards mapaShards;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<JdbcTemplate> shards = IntStream.range(0, 3)
+            .mapToObj(i -> new JdbcTemplate(new DriverManagerDataSource(SHARD + i + OPCIONES, "sa", "")))
+            .toList();
+
+    @BeforeEach
+    void limpiarShards() {
+        for (JdbcTemplate shard : shards) {
+            shard.update("DELETE FROM direcciones_envio");
+            shard.update("DELETE FROM usuarios");
+        }
+    }
+
+    private List<Rut> crearUsuarios(int prefijo, int cantidad) {
+        List<Rut> ruts = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            Rut rut = Rut.de(prefijo * 1_000_000 + i * 7919 % 1_000_000);
+            usuarioService.crearUsuario(new CrearUsuarioDTO(rut, "Nombre" + i, "Apellido", rut + "@perfulandia.cl", "secreto"));
+            ruts.add(rut);
+        }
+        return ruts;
+    }
+
+    private int filasEn(int shard, String sql, Rut rut) {
+        return shards.get(shard).queryForObject(sql, Integer.class, rut.numero());
+    }
+
+    @Test
+    void cadaUsuarioYSusDireccionesQuedanSoloEnElShardDueno() {
+        List<Rut> ruts = crearUsuarios(20, 30);
+        for (Rut rut : ruts) {
+            direccionEnvioService.agregarDireccionAUsuario(rut, new CrearDireccionDTO("Calle", "1", "Centro", "Santiago"));
+        }
+
+        int[] porShard = new int[3];
+        for (Rut rut : ruts) {
+            int dueno = mapaShards.shardDe(rut.toString());
+            porShard[dueno]++;
+            for (int shard = 0; shard < 3; shard++) {
+                int esperado = (shard == dueno) ? 1 : 0;
+                assertEquals(esperado, filasEn(shard, "SELECT COUNT(*) FROM usuarios WHERE rut = ?", rut));
+                assertEquals(esperado, filasEn(shard, "SELECT COUNT(*) FROM direcciones_envio WHERE USUARIOS_rut = ?", rut));
+            }
+            assertEquals(1, direccionEnvioService.obtenerDireccionesPorUsuarioRut(rut).orElseThrow().direcciones().size());
+        }
+        for (int cantidad : porShard) {
+            assertTrue(cantidad > 0); // Con 30 RUTs, todos los shards reciben alguno
+        }
+    }
+
+    @Test
+    void elListadoYLaExportacionCombinanLosShardsEnOrdenDeRut() throws Exception {
+        List<Rut> ruts = crearUsuarios(21, 25);
+        direccionEnvioService.agregarDireccionAUsuario(ruts.get(3), new CrearDireccionDTO("Calle", "3", "Centro", "Santiago"));
+        List<Rut> ordenados = ruts.stream().sorted().toList();
+
+        List<Rut> paginados = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaginaUsuariosDTO pagina = usuarioService.obtenerPaginaDeUsuarios(cursor, 7);
+            pagina.usuarios().forEach(usuario -> paginados.add(usuario.rut()));
+            cursor = pagina.next();
+        } while (cursor != null);
+        assertEquals(ordenados, paginados);
+        assertEquals(ordenados, usuarioService.obtenerTodosLosUsuarios().stream().map(UsuarioResponseDTO::rut).toList());
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        usuarioService.exportarUsuariosNdjson(salida);
+        List<Rut> exportados = new ArrayList<>();
+        for (String linea : salida.toString(StandardCharsets.UTF_8).split("\n")) {
+            JsonNode usuario = objectMapper.readTree(linea);
+            exportados.add(Rut.parsear(usuario.get("rut").asText()));
+            int esperadas = usuario.get("rut").asText().equals(ruts.get(3).toString()) ? 1 : 0;
+            assertEquals(esperadas, usuario.get("direcciones").size());
+        }
+        assertEquals(ordenados, exportados);
+    }
+
+    @Test
+    void elMultiGetYElLoginBuscanEnTodosLosShards() {
+        List<Rut> ruts = crearUsuarios(22, 12);
+        List<Rut> pedidos = new ArrayList<>(ruts);
+        Collections.reverse(pedidos);
+        pedidos.add(1, Rut.parsear("99999999-9"));
+
+        List<UsuarioLoteDTO> lote = usuarioService.obtenerUsuariosPorRuts(pedidos, true);
+        assertEquals(pedidos, lote.stream().map(UsuarioLoteDTO::rut).toList()); // Orden de la petición
+        assertFalse(lote.get(1).encontrado());
+        assertNull(lote.get(1).usuario());
+        assertTrue(lote.stream().filter(u -> u.rut().numero() != 99_999_999).allMatch(UsuarioLoteDTO::encontrado));
+
+        for (Rut rut : List.of(ruts.get(0), ruts.get(5), ruts.get(11))) {
+            assertTrue(autenticacionService.login(new LoginDTO(rut + "@perfulandia.cl", "secreto")).isPresent());
+        }
+
+        // El email ya existe en otro shard: el índice único del shard nuevo no lo vería
+        Rut otroShard = IntStream.range(0, 1000).mapToObj(i -> Rut.de(23_000_000 + i))
+                .filter(rut -> mapaShards.shardDe(rut.toString()) != mapaShards.shardDe(ruts.get(0).toString()))
+                .findFirst().orElseThrow();
+        assertThrows(RuntimeException.class, () -> usuarioService.crearUsuario(
+                new CrearUsuarioDTO(otroShard, "Otro", "Usuario", ruts.get(0) + "@perfulandia.cl", "secreto")));
+    }
+
+    @Test
+    void elRebalanceoMueveLosUsuariosMalUbicadosConSusDirecciones() {
+        // Simula datos escritos con otro mapa de shards: cada usuario está en un shard que no es su dueño
+        List<Rut> ruts = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            Rut rut = Rut.de(24_000_000 + i * 104729 % 1_000_000);
+            int ajeno = (mapaShards.shardDe(rut.toString()) + 1) % 3;
+            shards.get(ajeno).update("INSERT INTO usuarios (rut, nombre, apellido, email, password, version, version_direcciones, "
+                    + "nombre_busqueda, apellido_busqueda, email_busqueda) VALUES (?, 'Mal', 'Ubicado', ?, 'x', 0, 0, 'mal', 'ubicado', ?)",
+                    rut.numero(), rut + "@perfulandia.cl", (rut + "@perfulandia.cl").toLowerCase());
+            shards.get(ajeno).update("INSERT INTO direcciones_envio (id, calle, numero, comuna, ciudad, USUARIOS_rut) "
+                    + "VALUES (?, 'Calle', '1', 'Centro', 'Santiago', ?)", 1000L + i, rut.numero());
+            ruts.add(rut);
+        }
+
+        RebalanceadorShards.Resultado resultado = rebalanceadorShards.rebalancear();
+        assertEquals(9, resultado.movidos());
+        assertEquals(0, rebalanceadorShards.rebalancear().movidos()); // Una segunda pasada no tiene nada que mover
+
+        for (Rut rut : ruts) {
+            int dueno = mapaShards.shardDe(rut.toString());
+            for (int shard = 0; shard < 3; shard++) {
+                int esperado = (shard == dueno) ? 1 : 0;
+                assertEquals(esperado, filasEn(shard, "SELECT COUNT(*) FROM usuarios WHERE rut = ?", rut));
+                assertEquals(esperado, filasEn(shard, "SELECT COUNT(*) FROM direcciones_envio WHERE USUARIOS_rut = ?", rut));
+            }
+            assertTrue(usuarioService.obtenerUsuarioPorRut(rut).isPresent());
+        }
+    }
+
+    @Test
+    void elRebalanceoNoPisaLoEscritoEnElDestinoMientrasCorre() {
+        List<Rut> ruts = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Rut rut = Rut.de(25_000_000 + i * 104729 % 1_000_000);
+            int ajeno = (mapaShards.shardDe(rut.toString()) + 1) % 3;
+            shards.get(ajeno).update("INSERT INTO usuarios (rut, nombre, apellido, email, password, version, version_direcciones, "
+                    + "nombre_busqueda, apellido_busqueda, email_busqueda) VALUES (?, 'Mal', 'Ubicado', ?, 'x', 0, 0, 'mal', 'ubicado', ?)",
+                    rut.numero(), rut + "@perfulandia.cl", (rut + "@perfulandia.cl").toLowerCase());
+            ruts.add(rut);
+        }
+        // Antes del rebalanceo: el primero ya se volvió a crear en su dueño, con una dirección y un cambio de nombre
+        Rut escritoAntes = ruts.get(0);
+        usuarioService.crearUsuario(new CrearUsuarioDTO(escritoAntes, "Nuevo", "Usuario", "nuevo-" + escritoAntes + "@perfulandia.cl", "secreto"));
+        direccionEnvioService.agregarDireccionAUsuario(escritoAntes, new CrearDireccionDTO("Calle", "1", "Centro", "Santiago"));
+        usuarioService.actualizarUsuario(escritoAntes, new ActualizarUsuarioDTO("Nuevo", "Actualizado", null));
+
+        // Durante el rebalanceo: altas en los dueños de uno de cada tres RUTs. Cada alta llega antes de la copia
+        // (y gana) o después (y falla porque el RUT ya existe); nunca se pierde ni queda duplicada.
+        CompletableFuture<RebalanceadorShards.Resultado> rebalanceo = CompletableFuture.supplyAsync(rebalanceadorShards::rebalancear);
+        Set<Rut> creados = new HashSet<>(Set.of(escritoAntes));
+        for (int i = 3; i < ruts.size(); i += 3) {
+            Rut rut = ruts.get(i);
+            try {
+                usuarioService.crearUsuario(new CrearUsuarioDTO(rut, "Nuevo", "Usuario", "nuevo-" + rut + "@perfulandia.cl", "secreto"));
+                creados.add(rut);
+            } catch (RuntimeException e) {
+                // El rebalanceo ya lo había copiado
+            }
+        }
+        rebalanceo.join();
+
+        for (Rut rut : ruts) {
+            int dueno = mapaShards.shardDe(rut.toString());
+            for (int shard = 0; shard < 3; shard++) {
+                assertEquals(shard == dueno ? 1 : 0, filasEn(shard, "SELECT COUNT(*) FROM usuarios WHERE rut = ?", rut));
+            }
+            UsuarioResponseDTO usuario = usuarioService.obtenerUsuarioPorRut(rut).orElseThrow();
+            assertEquals(creados.contains(rut) ? "Nuevo" : "Mal", usuario.nombre(), "RUT " + rut);
+        }
+        UsuarioResponseDTO actualizado = usuarioService.obtenerUsuarioPorRut(escritoAntes).orElseThrow();
+        assertEquals("Actualizado", actualizado.apellido());
+        assertEquals(1L, actualizado.version());
+        assertEquals(1, direccionEnvioService.obtenerDireccionesPorUsuarioRut(escritoAntes).orElseThrow().direcciones().size());
+    }
+}